@@ -27,6 +27,7 @@ package sun.jvm.hotspot;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -48,6 +49,7 @@ import sun.jvm.hotspot.code.CodeCacheVisitor;
 import sun.jvm.hotspot.code.NMethod;
 import sun.jvm.hotspot.debugger.Address;
 import sun.jvm.hotspot.debugger.OopHandle;
+import sun.jvm.hotspot.interpreter.OopMapCache;
 import sun.jvm.hotspot.memory.SymbolTable;
 import sun.jvm.hotspot.memory.SystemDictionary;
 import sun.jvm.hotspot.memory.Universe;
@@ -58,6 +60,7 @@ import sun.jvm.hotspot.oops.Klass;
 import sun.jvm.hotspot.oops.Metadata;
 import sun.jvm.hotspot.oops.Method;
 import sun.jvm.hotspot.oops.MethodData;
+import sun.jvm.hotspot.oops.ObjectHeap;
 import sun.jvm.hotspot.oops.Oop;
 import sun.jvm.hotspot.oops.RawHeapVisitor;
 import sun.jvm.hotspot.oops.Symbol;
@@ -86,6 +89,8 @@ import sun.jvm.hotspot.ui.tree.OopTreeNodeAdapter;
 import sun.jvm.hotspot.ui.tree.SimpleTreeNode;
 import sun.jvm.hotspot.utilities.AddressOps;
 import sun.jvm.hotspot.utilities.Assert;
+import sun.jvm.hotspot.utilities.DominatorTree;
+import sun.jvm.hotspot.utilities.HeapGraph;
 import sun.jvm.hotspot.utilities.HeapProgressThunk;
 import sun.jvm.hotspot.utilities.LivenessPathElement;
 import sun.jvm.hotspot.utilities.MethodArray;
@@ -847,6 +852,93 @@ public class CommandProcessor {
                 }
             }
         },
+        new Command("retained", "retained [ count | address ]", false) {
+            public void doit(Tokens t) {
+                int tokens = t.countTokens();
+                if (tokens > 1) {
+                    usage();
+                    return;
+                }
+                DominatorTree tree = VM.getVM().getDominatorTree();
+                if (tree == null) {
+                    out.println("Computing dominator tree...");
+                    HeapGraph graph = VM.getVM().getObjectHeap().getSnapshot();
+                    if (graph == null) {
+                        graph = HeapGraph.build(null);
+                    }
+                    tree = new DominatorTree(graph);
+                    VM.getVM().setDominatorTree(tree);
+                    out.println("Done.");
+                }
+                String arg = (tokens == 1) ? t.nextToken() : null;
+                if (arg == null || !arg.startsWith("0x")) {
+                    tree.printOn(out, (arg == null) ? 20 : Integer.parseInt(arg));
+                    return;
+                }
+                Address a = VM.getVM().getDebugger().parseAddress(arg);
+                HeapGraph graph = tree.getGraph();
+                int id = graph.indexOf(a);
+                if (id < 0) {
+                    out.println("no object at " + a);
+                } else if (!tree.isReachable(id)) {
+                    out.println("no live references to " + a);
+                } else {
+                    out.println("retained size of " + a + " is " + tree.getRetainedSize(id) +
+                                " bytes (shallow size " + graph.getObjectSize(id) + " bytes)");
+                    out.println("dominated by:");
+                    for (int dom = tree.getImmediateDominator(id); dom != DominatorTree.ROOT;
+                         dom = tree.getImmediateDominator(dom)) {
+                        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                        Oop.printOopValueOn(graph.getOop(dom), new PrintStream(bos));
+                        out.println("  " + bos.toString() + " retains " + tree.getRetainedSize(dom));
+                    }
+                    out.println("  <roots>");
+                }
+            }
+        },
+        new Command("heapindex", "heapindex", false) {
+            public void doit(Tokens t) {
+                if (t.countTokens() != 0) {
+                    usage();
+                    return;
+                }
+                String core = debugger.getAgent().getCoreFileName();
+                if (core == null) {
+                    err.println("heapindex is only supported for core files");
+                    return;
+                }
+                ObjectHeap heap = VM.getVM().getObjectHeap();
+                File index = HeapGraph.indexFileFor(core);
+                out.println("Indexing heap...");
+                heap.setSnapshot(null);
+                HeapGraph graph = HeapGraph.build(null);
+                try {
+                    graph.save(index, new File(core));
+                    out.println("Wrote " + graph.getObjectCount() + " objects to " + index);
+                } catch (IOException e) {
+                    err.println("Unable to write " + index + ": " + e.getMessage());
+                }
+                heap.setSnapshot(graph);
+            }
+        },
+        new Command("oopmapcache", "oopmapcache [ clear ]", false) {
+            public void doit(Tokens t) {
+                int tokens = t.countTokens();
+                if (tokens > 1) {
+                    usage();
+                    return;
+                }
+                OopMapCache cache = VM.getVM().getOopMapCache();
+                if (tokens == 1) {
+                    if (!t.nextToken().equals("clear")) {
+                        usage();
+                        return;
+                    }
+                    cache.clear();
+                }
+                cache.printStatisticsOn(out);
+            }
+        },
         new Command("printmdo", "printmdo [ -a | expression ]", false) {
             // Print every MDO in the heap or the one referenced by expression.
             public void doit(Tokens t) {
@@ -1064,13 +1156,29 @@ public class CommandProcessor {
                  histo.run(out, err);
             }
         },
-        new Command("jstack", "jstack [-v]", false) {
+        new Command("jstack", "jstack [-v] [-p] [-g]", false) {
             public void doit(Tokens t) {
                 boolean verbose = false;
-                if (t.countTokens() > 0 && t.nextToken().equals("-v")) {
-                    verbose = true;
+                boolean parallel = false;
+                boolean group = false;
+                while (t.countTokens() > 0) {
+                    String arg = t.nextToken();
+                    if (arg.equals("-v")) {
+                        verbose = true;
+                    } else if (arg.equals("-p")) {
+                        parallel = true;
+                    } else if (arg.equals("-g")) {
+                        group = true;
+                    } else {
+                        usage();
+                        return;
+                    }
                 }
                 StackTrace jstack = new StackTrace(verbose, true);
+                if (parallel) {
+                    jstack.setParallelism(Runtime.getRuntime().availableProcessors());
+                }
+                jstack.setGroupIdenticalStacks(group);
                 jstack.run(out);
             }
         },
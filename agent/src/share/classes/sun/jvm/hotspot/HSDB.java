@@ -255,6 +255,15 @@ public class HSDB implements ObjectHistogramPanel.Listener, SAListener {
     item.setMnemonic(KeyEvent.VK_M);
     toolsMenu.add(item);
 
+    item = createMenuItem("Compute Retained Sizes",
+                          new ActionListener() {
+                              public void actionPerformed(ActionEvent e) {
+                                fireComputeRetainedSizes();
+                              }
+                            });
+    item.setMnemonic(KeyEvent.VK_R);
+    toolsMenu.add(item);
+
     item = createMenuItem("Deadlock Detection",
                           new ActionListener() {
                               public void actionPerformed(ActionEvent e) {
@@ -776,6 +785,54 @@ public class HSDB implements ObjectHistogramPanel.Listener, SAListener {
       });
   }
 
+  private void fireComputeRetainedSizes() {
+    workerThread.invokeLater(new Runnable() {
+        public void run() {
+          DominatorTree tree = VM.getVM().getDominatorTree();
+          if (tree == null) {
+            HeapProgress progress = new HeapProgress("Retained Size Analysis");
+            try {
+              tree = new DominatorTree(HeapGraph.build(progress));
+              VM.getVM().setDominatorTree(tree);
+            } catch (OutOfMemoryError e) {
+              final String errMsg = formatMessage(e.toString(), 80);
+              SwingUtilities.invokeLater(new Runnable() {
+                  public void run() {
+                    JOptionPane.showInternalMessageDialog(desktop,
+                                                          "Error computing retained sizes:" + errMsg,
+                                                          "Error",
+                                                          JOptionPane.WARNING_MESSAGE);
+                  }
+                });
+              return;
+            } finally {
+              // make sure the progress bar goes away
+              progress.heapIterationComplete();
+            }
+          }
+
+          final DominatorTree result = tree;
+          SwingUtilities.invokeLater(new Runnable() {
+              public void run() {
+                JInternalFrame frame = new JInternalFrame("Retained Sizes");
+                frame.setResizable(true);
+                frame.setClosable(true);
+                frame.setIconifiable(true);
+                frame.getContentPane().setLayout(new BorderLayout());
+                RetainedSizePanel panel = new RetainedSizePanel(result);
+                panel.addPanelListener(HSDB.this);
+                frame.getContentPane().add(panel);
+                desktop.add(frame);
+                GraphicsUtilities.reshapeToAspectRatio(frame, 4.0f / 3.0f, 0.6f,
+                                                       frame.getParent().getSize());
+                GraphicsUtilities.centerInContainer(frame);
+                frame.show();
+              }
+            });
+        }
+      });
+  }
+
   // Simple struct containing signal information
   class SignalInfo {
     public int sigNum;
@@ -24,6 +24,7 @@
 
 package sun.jvm.hotspot;
 
+import java.io.File;
 import java.rmi.RemoteException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -47,6 +48,7 @@ import sun.jvm.hotspot.debugger.remote.RemoteDebuggerServer;
 import sun.jvm.hotspot.debugger.windbg.WindbgDebuggerLocal;
 import sun.jvm.hotspot.runtime.VM;
 import sun.jvm.hotspot.types.TypeDataBase;
+import sun.jvm.hotspot.utilities.HeapGraph;
 import sun.jvm.hotspot.utilities.PlatformInfo;
 import sun.jvm.hotspot.utilities.UnsupportedPlatformException;
 
@@ -124,6 +126,12 @@ public class HotSpotAgent {
         return db;
     }
 
+    /** The core file being examined, or null if not attached to a
+        core file */
+    public synchronized String getCoreFileName() {
+        return (startupMode == CORE_FILE_MODE) ? coreFileName : null;
+    }
+
     //--------------------------------------------------------------------------------
     // Client-side operations
     //
@@ -434,6 +442,16 @@ public class HotSpotAgent {
             } catch (Exception e) {
                 throw new DebuggerException(e);
             }
+
+            if (startupMode == CORE_FILE_MODE) {
+                // Use the heap index written by an earlier session, if
+                // it is still valid for this core file
+                HeapGraph snapshot = HeapGraph.load(HeapGraph.indexFileFor(coreFileName),
+                                                    new File(coreFileName));
+                if (snapshot != null) {
+                    VM.getVM().getObjectHeap().setSnapshot(snapshot);
+                }
+            }
         }
     }
 
@@ -516,7 +534,12 @@ public class HotSpotAgent {
     private void connectRemoteDebugger() throws DebuggerException {
         RemoteDebugger remote =
         (RemoteDebugger) RMIHelper.lookup(debugServerID);
-        debugger = new RemoteDebuggerClient(remote);
+        // debugServerID follows the pattern [unique_id@]host[:port]
+        String host = debugServerID.substring(debugServerID.indexOf('@') + 1);
+        if (host.indexOf(':') != -1) {
+            host = host.substring(0, host.indexOf(':'));
+        }
+        debugger = new RemoteDebuggerClient(remote, host);
         machDesc = ((RemoteDebuggerClient) debugger).getMachineDescription();
         os = debugger.getOS();
         setupJVMLibNames(os);
@@ -26,6 +26,7 @@ package sun.jvm.hotspot;
 
 import java.io.*;
 import java.util.*;
+import java.util.zip.*;
 import sun.jvm.hotspot.debugger.*;
 import sun.jvm.hotspot.types.*;
 import sun.jvm.hotspot.types.basic.*;
@@ -61,6 +62,30 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
             != null;
   }
 
+  // Type database cache (see HotSpotTypeDataBaseCache). While the
+  // VMStructs tables are read from the target every entry is also
+  // appended to recordOut, and the table layout symbols read along
+  // the way are kept in recordedLayout, so that later attaches to
+  // the same build can replay the entries instead of walking the
+  // tables through the debugger.
+  private static final int CACHE_MAGIC   = 0x53415444; // "SATD"
+  private static final int CACHE_VERSION = 1;
+  private static final String[][] CACHE_TABLES = {
+    { "gHotSpotVMTypes",         "gHotSpotVMTypeEntryTypeNameOffset",      "gHotSpotVMTypeEntryArrayStride" },
+    { "gHotSpotVMStructs",       "gHotSpotVMStructEntryFieldNameOffset",   "gHotSpotVMStructEntryArrayStride" },
+    { "gHotSpotVMIntConstants",  "gHotSpotVMIntConstantEntryNameOffset",   "gHotSpotVMIntConstantEntryArrayStride" },
+    { "gHotSpotVMLongConstants", "gHotSpotVMLongConstantEntryNameOffset",  "gHotSpotVMLongConstantEntryArrayStride" }
+  };
+  private ByteArrayOutputStream recordBytes;
+  private DataOutputStream recordOut;
+  private Map recordedLayout;
+  private int recordedTable;
+  private int[] recordedCounts;
+  private String[] recordedFirstNames;
+  // Static field addresses are kept relative to this symbol, which
+  // lives in the same library, so that they survive relocation
+  private Address staticAnchor;
+
   /** <P> This requires a SymbolLookup mechanism as well as the
       MachineDescription. Note that we do not need a NameMangler since
       we use the vmStructs mechanism to avoid looking up C++
@@ -86,11 +111,20 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
     this.symbolLookup = symbolLookup;
     this.jvmLibNames = jvmLibNames;
 
-    readVMTypes();
-    initializePrimitiveTypes();
-    readVMStructs();
-    readVMIntConstants();
-    readVMLongConstants();
+    HotSpotTypeDataBaseCache cache = HotSpotTypeDataBaseCache.forTarget(symbolLookup, jvmLibNames);
+    if (cache == null || !loadFromCache(cache)) {
+      if (cache != null) {
+        startRecording();
+      }
+      readVMTypes();
+      initializePrimitiveTypes();
+      readVMStructs();
+      readVMIntConstants();
+      readVMLongConstants();
+      if (cache != null) {
+        saveToCache(cache);
+      }
+    }
     readExternalDefinitions();
   }
 
@@ -192,9 +226,9 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
         boolean isUnsigned    = (entryAddr.getCIntegerAt(typeEntryIsUnsignedOffset, C_INT32_SIZE, false) != 0);
         long size             = entryAddr.getCIntegerAt(typeEntrySizeOffset, C_INT64_SIZE, true);
 
-        createType(typeName, superclassName, isOopType, isIntegerType, isUnsigned, size);
-        if (pointerSize == UNINITIALIZED_SIZE && typeName.equals("void*")) {
-          pointerSize = (int)size;
+        defineType(typeName, superclassName, isOopType, isIntegerType, isUnsigned, size);
+        if (recordOut != null) {
+          recordType(typeName, superclassName, isOopType, isIntegerType, isUnsigned, size);
         }
       }
 
@@ -204,6 +238,16 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
     if (duplicateDefCount >= MAX_DUPLICATE_DEFINITIONS) {
       throw new RuntimeException("too many duplicate definitions");
     }
+    endRecordedTable(0);
+  }
+
+  private void defineType(String typeName, String superclassName,
+                          boolean isOopType, boolean isIntegerType,
+                          boolean isUnsigned, long size) {
+    createType(typeName, superclassName, isOopType, isIntegerType, isUnsigned, size);
+    if (pointerSize == UNINITIALIZED_SIZE && typeName.equals("void*")) {
+      pointerSize = (int)size;
+    }
   }
 
   private void initializePrimitiveTypes() {
@@ -461,20 +505,29 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
           staticFieldAddr = null;
         }
 
-        // The containing Type must already be in the database -- no exceptions
-        BasicType containingType = lookupOrFail(typeName);
-
-        // The field's Type must already be in the database -- no exceptions
-        BasicType fieldType = (BasicType)lookupType(typeString);
-
-        // Create field by type
-        createField(containingType, fieldName, fieldType,
-                    isStatic, offset, staticFieldAddr);
+        defineField(typeName, fieldName, typeString, isStatic, offset, staticFieldAddr);
+        if (recordOut != null) {
+          recordField(typeName, fieldName, typeString, isStatic, offset, staticFieldAddr);
+        }
       }
 
       ++index;
       entryAddr = entryAddr.addOffsetTo(structEntryArrayStride);
     } while (fieldNameAddr != null);
+    endRecordedTable(1);
+  }
+
+  private void defineField(String typeName, String fieldName, String typeString,
+                           boolean isStatic, long offset, Address staticFieldAddr) {
+    // The containing Type must already be in the database -- no exceptions
+    BasicType containingType = lookupOrFail(typeName);
+
+    // The field's Type must already be in the database -- no exceptions
+    BasicType fieldType = (BasicType)lookupType(typeString);
+
+    // Create field by type
+    createField(containingType, fieldName, fieldType,
+                isStatic, offset, staticFieldAddr);
   }
 
   private void readVMIntConstants() {
@@ -509,20 +562,9 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
         String name = CStringUtilities.getString(nameAddr);
         int value = (int) entryAddr.getCIntegerAt(intConstantEntryValueOffset, C_INT32_SIZE, false);
 
-        // Be a little resilient
-        Integer oldValue = lookupIntConstant(name, false);
-        if (oldValue == null) {
-          addIntConstant(name, value);
-        } else {
-          if (oldValue.intValue() != value) {
-            throw new RuntimeException("Error: the integer constant \"" + name +
-                                       "\" had its value redefined (old was " + oldValue +
-                                       ", new is " + value + ". Aborting.");
-          } else {
-            System.err.println("Warning: the int constant \"" + name + "\" (declared in the remote VM in VMStructs::localHotSpotVMIntConstants) " +
-                               "had its value declared as " + value + " twice. Continuing.");
-            duplicateDefCount++;
-          }
+        defineIntConstant(name, value);
+        if (recordOut != null) {
+          recordConstant(name, value);
         }
       }
 
@@ -532,6 +574,25 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
     if (duplicateDefCount >= MAX_DUPLICATE_DEFINITIONS) {
       throw new RuntimeException("too many duplicate definitions");
     }
+    endRecordedTable(2);
+  }
+
+  private void defineIntConstant(String name, int value) {
+    // Be a little resilient
+    Integer oldValue = lookupIntConstant(name, false);
+    if (oldValue == null) {
+      addIntConstant(name, value);
+    } else {
+      if (oldValue.intValue() != value) {
+        throw new RuntimeException("Error: the integer constant \"" + name +
+                                   "\" had its value redefined (old was " + oldValue +
+                                   ", new is " + value + ". Aborting.");
+      } else {
+        System.err.println("Warning: the int constant \"" + name + "\" (declared in the remote VM in VMStructs::localHotSpotVMIntConstants) " +
+                           "had its value declared as " + value + " twice. Continuing.");
+        duplicateDefCount++;
+      }
+    }
   }
 
   private void readVMLongConstants() {
@@ -565,20 +626,9 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
         String name = CStringUtilities.getString(nameAddr);
         int value = (int) entryAddr.getCIntegerAt(longConstantEntryValueOffset, C_INT64_SIZE, true);
 
-        // Be a little resilient
-        Long oldValue = lookupLongConstant(name, false);
-        if (oldValue == null) {
-          addLongConstant(name, value);
-        } else {
-          if (oldValue.longValue() != value) {
-            throw new RuntimeException("Error: the long constant \"" + name +
-                                       "\" had its value redefined (old was " + oldValue +
-                                       ", new is " + value + ". Aborting.");
-          } else {
-            System.err.println("Warning: the long constant \"" + name + "\" (declared in the remote VM in VMStructs::localHotSpotVMLongConstants) " +
-                               "had its value declared as " + value + " twice. Continuing.");
-            duplicateDefCount++;
-          }
+        defineLongConstant(name, value);
+        if (recordOut != null) {
+          recordConstant(name, value);
         }
       }
 
@@ -588,6 +638,326 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
     if (duplicateDefCount >= MAX_DUPLICATE_DEFINITIONS) {
       throw new RuntimeException("too many duplicate definitions.");
     }
+    endRecordedTable(3);
+  }
+
+  private void defineLongConstant(String name, long value) {
+    // Be a little resilient
+    Long oldValue = lookupLongConstant(name, false);
+    if (oldValue == null) {
+      addLongConstant(name, value);
+    } else {
+      if (oldValue.longValue() != value) {
+        throw new RuntimeException("Error: the long constant \"" + name +
+                                   "\" had its value redefined (old was " + oldValue +
+                                   ", new is " + value + ". Aborting.");
+      } else {
+        System.err.println("Warning: the long constant \"" + name + "\" (declared in the remote VM in VMStructs::localHotSpotVMLongConstants) " +
+                           "had its value declared as " + value + " twice. Continuing.");
+        duplicateDefCount++;
+      }
+    }
+  }
+
+  //--------------------------------------------------------------------------------
+  // Type database cache
+  //
+
+  private void startRecording() {
+    recordBytes = new ByteArrayOutputStream(256 * 1024);
+    recordOut = new DataOutputStream(recordBytes);
+    recordedLayout = new TreeMap();
+    recordedCounts = new int[CACHE_TABLES.length];
+    recordedFirstNames = new String[CACHE_TABLES.length];
+    recordedTable = 0;
+    staticAnchor = lookupInProcess("gHotSpotVMStructs");
+  }
+
+  private void recordType(String typeName, String superclassName,
+                          boolean isOopType, boolean isIntegerType,
+                          boolean isUnsigned, long size) {
+    try {
+      startRecord(typeName);
+      recordOut.writeUTF(typeName);
+      writeNullableUTF(recordOut, superclassName);
+      recordOut.writeBoolean(isOopType);
+      recordOut.writeBoolean(isIntegerType);
+      recordOut.writeBoolean(isUnsigned);
+      recordOut.writeLong(size);
+    } catch (IOException e) {
+      throw new RuntimeException(e.toString());
+    }
+  }
+
+  private void recordField(String typeName, String fieldName, String typeString,
+                           boolean isStatic, long offset, Address staticFieldAddr) {
+    try {
+      startRecord(fieldName);
+      recordOut.writeUTF(typeName);
+      recordOut.writeUTF(fieldName);
+      recordOut.writeUTF(typeString);
+      recordOut.writeBoolean(isStatic);
+      if (isStatic) {
+        recordOut.writeBoolean(staticFieldAddr != null);
+        if (staticFieldAddr != null) {
+          recordOut.writeLong(staticFieldAddr.minus(staticAnchor));
+        }
+      } else {
+        recordOut.writeLong(offset);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e.toString());
+    }
+  }
+
+  private void recordConstant(String name, long value) {
+    try {
+      startRecord(name);
+      recordOut.writeUTF(name);
+      recordOut.writeLong(value);
+    } catch (IOException e) {
+      throw new RuntimeException(e.toString());
+    }
+  }
+
+  private void startRecord(String name) throws IOException {
+    recordOut.writeBoolean(true);
+    if (recordedCounts[recordedTable]++ == 0) {
+      recordedFirstNames[recordedTable] = name;
+    }
+  }
+
+  private void endRecordedTable(int table) {
+    if (recordOut == null) {
+      return;
+    }
+    if (Assert.ASSERTS_ENABLED) {
+      Assert.that(table == recordedTable, "tables recorded out of order");
+    }
+    try {
+      recordOut.writeBoolean(false);
+    } catch (IOException e) {
+      throw new RuntimeException(e.toString());
+    }
+    recordedTable++;
+  }
+
+  private static void writeNullableUTF(DataOutputStream out, String s) throws IOException {
+    out.writeBoolean(s != null);
+    if (s != null) {
+      out.writeUTF(s);
+    }
+  }
+
+  private static String readNullableUTF(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  /** Writes the recorded tables to the cache. The file holds the
+      table layout symbols and, per table, the entry count and first
+      entry name, which are checked against the target before the
+      cache is used; then the recorded entries with a checksum. */
+  private void saveToCache(HotSpotTypeDataBaseCache cache) {
+    try {
+      recordOut.flush();
+      byte[] records = recordBytes.toByteArray();
+      CRC32 crc = new CRC32();
+      crc.update(records, 0, records.length);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.length + 4096);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(CACHE_MAGIC);
+      out.writeInt(CACHE_VERSION);
+      out.writeUTF(cache.getKey());
+      out.writeInt(recordedLayout.size());
+      for (Iterator iter = recordedLayout.entrySet().iterator(); iter.hasNext(); ) {
+        Map.Entry entry = (Map.Entry) iter.next();
+        out.writeUTF((String) entry.getKey());
+        out.writeLong(((Long) entry.getValue()).longValue());
+      }
+      for (int i = 0; i < CACHE_TABLES.length; i++) {
+        out.writeInt(recordedCounts[i]);
+        writeNullableUTF(out, recordedFirstNames[i]);
+      }
+      out.writeInt(records.length);
+      out.writeLong(crc.getValue());
+      out.write(records);
+      out.flush();
+      cache.write(bytes.toByteArray());
+      if (DEBUG) {
+        System.err.println("HotSpotTypeDataBase: wrote " + cache.getFile());
+      }
+    } catch (IOException e) {
+      System.err.println("WARNING: could not write type database cache " +
+                         cache.getFile() + ": " + e.getMessage());
+    } finally {
+      recordBytes = null;
+      recordOut = null;
+      recordedLayout = null;
+      recordedCounts = null;
+      recordedFirstNames = null;
+      staticAnchor = null;
+    }
+  }
+
+  /** Populates the database from the cache if there is a cache file
+      for the target's JVM build and its sentinels match the target.
+      Returns false, without having modified the database, otherwise;
+      a cache file which can not be replayed is deleted. */
+  private boolean loadFromCache(HotSpotTypeDataBaseCache cache) {
+    byte[] records;
+    try {
+      byte[] data = cache.read();
+      if (data == null) {
+        return false;
+      }
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+      if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION ||
+          !in.readUTF().equals(cache.getKey())) {
+        return false;
+      }
+
+      String mismatch = null;
+      int n = in.readInt();
+      for (int i = 0; i < n; i++) {
+        String symbol = in.readUTF();
+        long value = in.readLong();
+        if (mismatch == null && getLongValueFromProcess(symbol) != value) {
+          mismatch = symbol;
+        }
+      }
+      for (int i = 0; i < CACHE_TABLES.length; i++) {
+        int count = in.readInt();
+        String firstName = readNullableUTF(in);
+        if (mismatch == null && !tableMatches(CACHE_TABLES[i], count, firstName)) {
+          mismatch = CACHE_TABLES[i][0];
+        }
+      }
+      records = new byte[in.readInt()];
+      long checksum = in.readLong();
+      in.readFully(records);
+      CRC32 crc = new CRC32();
+      crc.update(records, 0, records.length);
+      if (mismatch == null && crc.getValue() != checksum) {
+        mismatch = "checksum";
+      }
+      if (mismatch != null) {
+        System.err.println("WARNING: type database cache " + cache.getFile() +
+                           " does not match the target VM (" + mismatch +
+                           "); reading the VMStructs tables instead");
+        return false;
+      }
+    } catch (IOException e) {
+      System.err.println("WARNING: could not read type database cache " +
+                         cache.getFile() + ": " + e.getMessage());
+      return false;
+    }
+
+    try {
+      replayCache(new DataInputStream(new ByteArrayInputStream(records)));
+    } catch (IOException e) {
+      // The checksum matched, so the file was written by an
+      // incompatible version of this class
+      discardCache(cache, e);
+      return false;
+    } catch (RuntimeException e) {
+      discardCache(cache, e);
+      return false;
+    }
+    if (DEBUG) {
+      System.err.println("HotSpotTypeDataBase: loaded " + cache.getFile());
+    }
+    return true;
+  }
+
+  /** Undoes a partial replay and deletes the cache file, so that the
+      tables are read from the target and the cache is written anew */
+  private void discardCache(HotSpotTypeDataBaseCache cache, Exception e) {
+    System.err.println("WARNING: corrupt type database cache " + cache.getFile() +
+                       " (" + e + "); reading the VMStructs tables instead");
+    List types = new ArrayList();
+    for (Iterator iter = getTypes(); iter.hasNext(); ) {
+      types.add(iter.next());
+    }
+    for (Iterator iter = types.iterator(); iter.hasNext(); ) {
+      removeType((Type) iter.next());
+    }
+    List names = new ArrayList();
+    for (Iterator iter = getIntConstants(); iter.hasNext(); ) {
+      names.add(iter.next());
+    }
+    for (Iterator iter = names.iterator(); iter.hasNext(); ) {
+      removeIntConstant((String) iter.next());
+    }
+    names.clear();
+    for (Iterator iter = getLongConstants(); iter.hasNext(); ) {
+      names.add(iter.next());
+    }
+    for (Iterator iter = names.iterator(); iter.hasNext(); ) {
+      removeLongConstant((String) iter.next());
+    }
+    cache.delete();
+  }
+
+  /** Checks a cached table's first entry name and length against the
+      target by reading its first, last and terminating entries. */
+  private boolean tableMatches(String[] table, int count, String firstName) {
+    Address entryAddr = lookupInProcess(table[0]).getAddressAt(0);
+    if (entryAddr == null) {
+      return false;
+    }
+    long nameOffset = getLongValueFromProcess(table[1]);
+    long stride = getLongValueFromProcess(table[2]);
+    Address nameAddr = entryAddr.getAddressAt(nameOffset);
+    if (count == 0) {
+      return nameAddr == null;
+    }
+    if (nameAddr == null || !CStringUtilities.getString(nameAddr).equals(firstName)) {
+      return false;
+    }
+    return (entryAddr.getAddressAt((count - 1) * stride + nameOffset) != null &&
+            entryAddr.getAddressAt(count * stride + nameOffset) == null);
+  }
+
+  private void replayCache(DataInputStream in) throws IOException {
+    while (in.readBoolean()) {
+      String typeName = in.readUTF();
+      String superclassName = readNullableUTF(in);
+      boolean isOopType = in.readBoolean();
+      boolean isIntegerType = in.readBoolean();
+      boolean isUnsigned = in.readBoolean();
+      long size = in.readLong();
+      defineType(typeName, superclassName, isOopType, isIntegerType, isUnsigned, size);
+    }
+    initializePrimitiveTypes();
+
+    Address anchor = lookupInProcess("gHotSpotVMStructs");
+    lookupOrCreateClass("<opaque>", false, false, false);
+    while (in.readBoolean()) {
+      String typeName = in.readUTF();
+      String fieldName = in.readUTF();
+      String typeString = in.readUTF();
+      boolean isStatic = in.readBoolean();
+      long offset = 0;
+      Address staticFieldAddr = null;
+      if (isStatic) {
+        if (in.readBoolean()) {
+          staticFieldAddr = anchor.addOffsetTo(in.readLong());
+        }
+      } else {
+        offset = in.readLong();
+      }
+      defineField(typeName, fieldName, typeString, isStatic, offset, staticFieldAddr);
+    }
+
+    while (in.readBoolean()) {
+      String name = in.readUTF();
+      defineIntConstant(name, (int) in.readLong());
+    }
+    while (in.readBoolean()) {
+      String name = in.readUTF();
+      defineLongConstant(name, in.readLong());
+    }
   }
 
   private BasicType lookupOrFail(String typeName) {
@@ -601,7 +971,11 @@ public class HotSpotTypeDataBase extends BasicTypeDataBase {
   }
 
   private long getLongValueFromProcess(String symbol) {
-    return lookupInProcess(symbol).getCIntegerAt(0, C_INT64_SIZE, true);
+    long value = lookupInProcess(symbol).getCIntegerAt(0, C_INT64_SIZE, true);
+    if (recordedLayout != null) {
+      recordedLayout.put(symbol, new Long(value));
+    }
+    return value;
   }
 
   private Address lookupInProcess(String symbol) throws NoSuchSymbolException {
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot;
+
+import java.io.*;
+import java.nio.*;
+import java.security.*;
+import java.util.*;
+import sun.jvm.hotspot.debugger.*;
+import sun.jvm.hotspot.debugger.cdbg.*;
+
+/** Locates the on-disk cache file for the parsed VMStructs tables of
+    a given JVM build. The cache is keyed by the GNU build ID of the
+    target's libjvm when the library is an ELF file carrying one, and
+    otherwise by a SHA-1 digest of the library's contents. The library
+    is found through the debugger's load object list, so no cache is
+    used when the debugger cannot provide one (e.g., attaching to a
+    remote debug server) or the library is not readable on the local
+    machine. <P>
+
+    The cache directory defaults to <CODE>~/.sa/typedb</CODE> and can
+    be changed with the
+    <CODE>sun.jvm.hotspot.HotSpotTypeDataBase.cacheDir</CODE> system
+    property; setting that property to the empty string disables the
+    cache. */
+
+class HotSpotTypeDataBaseCache {
+  private File file;
+  private String key;
+
+  private HotSpotTypeDataBaseCache(File file, String key) {
+    this.file = file;
+    this.key = key;
+  }
+
+  /** Returns the cache for the JVM library loaded in the target, or
+      null if it can not be identified. */
+  static HotSpotTypeDataBaseCache forTarget(Debugger dbg, String[] jvmLibNames) {
+    String dir = System.getProperty("sun.jvm.hotspot.HotSpotTypeDataBase.cacheDir");
+    if (dir == null) {
+      dir = System.getProperty("user.home") + File.separator + ".sa" + File.separator + "typedb";
+    } else if (dir.length() == 0) {
+      return null;
+    }
+
+    File lib = findLibrary(dbg, jvmLibNames);
+    if (lib == null) {
+      return null;
+    }
+    String key;
+    try {
+      key = buildID(lib);
+      if (key == null) {
+        key = "sha1-" + digest(lib);
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    return new HotSpotTypeDataBaseCache(new File(dir, key + ".typedb"), key);
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  String getKey() {
+    return key;
+  }
+
+  /** Returns the cached bytes, or null if there is no cache file */
+  byte[] read() throws IOException {
+    if (!file.isFile()) {
+      return null;
+    }
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      byte[] data = new byte[(int) file.length()];
+      in.readFully(data);
+      return data;
+    } finally {
+      in.close();
+    }
+  }
+
+  /** Writes the cache file through a temporary file so that
+      concurrent attaches never see a partially written cache */
+  void write(byte[] data) throws IOException {
+    File dir = file.getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("can not create directory " + dir);
+    }
+    File tmp = File.createTempFile(key, ".tmp", dir);
+    try {
+      OutputStream out = new FileOutputStream(tmp);
+      try {
+        out.write(data);
+      } finally {
+        out.close();
+      }
+      if (!tmp.renameTo(file)) {
+        file.delete();
+        if (!tmp.renameTo(file)) {
+          throw new IOException("can not rename " + tmp + " to " + file);
+        }
+      }
+    } finally {
+      tmp.delete();
+    }
+  }
+
+  /** Removes the cache file, for example after it failed to load */
+  void delete() {
+    file.delete();
+  }
+
+  private static File findLibrary(Debugger dbg, String[] jvmLibNames) {
+    List objs;
+    try {
+      CDebugger cdbg = dbg.getCDebugger();
+      if (cdbg == null) {
+        return null;
+      }
+      objs = cdbg.getLoadObjectList();
+    } catch (DebuggerException e) {
+      return null;
+    }
+    if (objs == null) {
+      return null;
+    }
+    for (Iterator iter = objs.iterator(); iter.hasNext(); ) {
+      String name = ((LoadObject) iter.next()).getName();
+      if (name == null) {
+        continue;
+      }
+      String base = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+      for (int i = 0; i < jvmLibNames.length; i++) {
+        if (base.equals(jvmLibNames[i])) {
+          File lib = new File(name);
+          return lib.isFile() ? lib : null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static final int SHT_NOTE = 7;
+  private static final int NT_GNU_BUILD_ID = 3;
+
+  /** Returns the hex GNU build ID of an ELF file, or null if the
+      file is not ELF or carries no build ID note */
+  private static String buildID(File lib) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(lib, "r");
+    try {
+      byte[] ident = new byte[16];
+      if (raf.length() < 64) {
+        return null;
+      }
+      raf.readFully(ident);
+      if (ident[0] != 0x7f || ident[1] != 'E' || ident[2] != 'L' || ident[3] != 'F') {
+        return null;
+      }
+      boolean is64 = (ident[4] == 2);
+      ByteOrder order = (ident[5] == 2) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+      ByteBuffer ehdr = read(raf, 0, is64 ? 64 : 52, order);
+      long shoff  = is64 ? ehdr.getLong(0x28) : (ehdr.getInt(0x20) & 0xffffffffL);
+      int shentsz = ehdr.getShort(is64 ? 0x3a : 0x2e) & 0xffff;
+      int shnum   = ehdr.getShort(is64 ? 0x3c : 0x30) & 0xffff;
+      if (shoff == 0 || shnum == 0 || shoff + (long) shnum * shentsz > raf.length()) {
+        return null;
+      }
+
+      ByteBuffer shdrs = read(raf, shoff, shnum * shentsz, order);
+      for (int i = 0; i < shnum; i++) {
+        int sh = i * shentsz;
+        if (shdrs.getInt(sh + 4) != SHT_NOTE) {
+          continue;
+        }
+        long offset = is64 ? shdrs.getLong(sh + 0x18) : (shdrs.getInt(sh + 0x10) & 0xffffffffL);
+        long size   = is64 ? shdrs.getLong(sh + 0x20) : (shdrs.getInt(sh + 0x14) & 0xffffffffL);
+        if (size <= 0 || size > 65536 || offset + size > raf.length()) {
+          continue;
+        }
+        ByteBuffer notes = read(raf, offset, (int) size, order);
+        int pos = 0;
+        while (pos + 12 <= size) {
+          int namesz = notes.getInt(pos);
+          int descsz = notes.getInt(pos + 4);
+          int type   = notes.getInt(pos + 8);
+          int name   = pos + 12;
+          int desc   = name + ((namesz + 3) & ~3);
+          if (namesz < 0 || descsz < 0 || desc + descsz > size) {
+            break;
+          }
+          if (type == NT_GNU_BUILD_ID && namesz == 4 &&
+              notes.get(name) == 'G' && notes.get(name + 1) == 'N' && notes.get(name + 2) == 'U') {
+            StringBuffer buf = new StringBuffer();
+            for (int j = 0; j < descsz; j++) {
+              appendHex(buf, notes.get(desc + j));
+            }
+            return buf.toString();
+          }
+          pos = desc + ((descsz + 3) & ~3);
+        }
+      }
+      return null;
+    } finally {
+      raf.close();
+    }
+  }
+
+  private static ByteBuffer read(RandomAccessFile raf, long offset, int len, ByteOrder order) throws IOException {
+    byte[] buf = new byte[len];
+    raf.seek(offset);
+    raf.readFully(buf);
+    return ByteBuffer.wrap(buf).order(order);
+  }
+
+  private static String digest(File lib) throws IOException {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e.toString());
+    }
+    InputStream in = new FileInputStream(lib);
+    try {
+      byte[] buf = new byte[65536];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        md.update(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    byte[] hash = md.digest();
+    StringBuffer buf = new StringBuffer();
+    for (int i = 0; i < hash.length; i++) {
+      appendHex(buf, hash[i]);
+    }
+    return buf.toString();
+  }
+
+  private static void appendHex(StringBuffer buf, byte b) {
+    buf.append(Character.forDigit((b >> 4) & 0xf, 16));
+    buf.append(Character.forDigit(b & 0xf, 16));
+  }
+}
@@ -38,6 +38,14 @@ public class CodeCache {
 
   private CodeHeap heap;
 
+  // Sorted index of the used blocks of the code heap, built on first
+  // use: the block [blockStarts[i], blockEnds[i]) holds blobs[i]. The
+  // target does not run while it is examined, so the index stays
+  // valid for the lifetime of this CodeCache.
+  private long[]     blockStarts;
+  private long[]     blockEnds;
+  private CodeBlob[] blobs;
+
   static {
     VM.registerVMInitializedObserver(new Observer() {
         public void update(Observable o, Object data) {
@@ -95,7 +103,22 @@ public class CodeCache {
     return result;
   }
 
+  /** Looks the address up in the blob index, which is built on the
+      first call, and falls back to searching the code heap for
+      addresses the index does not cover. The same wrapper is returned
+      for every address in a blob. */
   public CodeBlob findBlobUnsafe(Address start) {
+    if (start != null) {
+      buildIndex();
+      int i = indexOf(VM.getAddressValue(start));
+      if (i >= 0) {
+        return blobs[i];
+      }
+    }
+    return findBlobUncached(start);
+  }
+
+  private CodeBlob findBlobUncached(Address start) {
     CodeBlob result = null;
 
     try {
@@ -167,40 +190,76 @@ public class CodeCache {
   }
 
   public void iterate(CodeCacheVisitor visitor) {
+    CodeHeap heap = getHeap();
+    visitor.prologue(heap.begin(), heap.end());
+    buildIndex();
+    for (int i = 0; i < blobs.length; i++) {
+      visitor.visit(blobs[i]);
+    }
+    visitor.epilogue();
+  }
+
+  //--------------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  private CodeHeap getHeap() {
+    return heap;
+  }
+
+  // Walks all blocks of the code heap once and records the blobs
+  private synchronized void buildIndex() {
+    if (blobs != null) {
+      return;
+    }
     CodeHeap heap = getHeap();
     Address ptr = heap.begin();
     Address end = heap.end();
 
-    visitor.prologue(ptr, end);
-    CodeBlob lastBlob = null;
+    List starts = new ArrayList();
+    List ends   = new ArrayList();
+    List found  = new ArrayList();
     while (ptr != null && ptr.lessThan(end)) {
+      Address next = heap.nextBlock(ptr);
       try {
         // Use findStart to get a pointer inside blob other findBlob asserts
-        CodeBlob blob = findBlobUnsafe(heap.findStart(ptr));
+        CodeBlob blob = findBlobUncached(heap.findStart(ptr));
         if (blob != null) {
-          visitor.visit(blob);
-          if (blob == lastBlob) {
-            throw new InternalError("saw same blob twice");
-          }
-          lastBlob = blob;
+          starts.add(ptr);
+          ends.add((next != null) ? next : end);
+          found.add(blob);
         }
       } catch (RuntimeException e) {
         e.printStackTrace();
       }
-      Address next = heap.nextBlock(ptr);
       if (next != null && next.lessThan(ptr)) {
         throw new InternalError("pointer moved backwards");
       }
       ptr = next;
     }
-    visitor.epilogue();
-  }
 
-  //--------------------------------------------------------------------------------
-  // Internals only below this point
-  //
+    int n = found.size();
+    long[] newStarts = new long[n];
+    long[] newEnds = new long[n];
+    for (int i = 0; i < n; i++) {
+      newStarts[i] = VM.getAddressValue((Address) starts.get(i));
+      newEnds[i] = VM.getAddressValue((Address) ends.get(i));
+    }
+    blockStarts = newStarts;
+    blockEnds = newEnds;
+    blobs = (CodeBlob[]) found.toArray(new CodeBlob[n]);
+  }
 
-  private CodeHeap getHeap() {
-    return heap;
+  // Index of the blob whose block contains the address, or -1
+  private int indexOf(long address) {
+    int i = Arrays.binarySearch(blockStarts, address);
+    if (i < 0) {
+      // Last block starting below the address
+      i = -i - 2;
+    }
+    if (i >= 0 && address < blockEnds[i]) {
+      return i;
+    }
+    return -1;
   }
 }
@@ -312,16 +312,46 @@ public class NMethod extends CodeBlob {
   //  void preserve_callee_argument_oops(frame fr, const RegisterMap *reg_map, void f(oop*));
   //  void adjust_pointers();
 
-  /** Finds a PCDesc with real-pc equal to "pc" */
+  /** Finds a PCDesc with real-pc equal to "pc". The PC offsets of
+      all PCDescs are read on the first call; since they are sorted,
+      later lookups are binary searches. */
   public PCDesc getPCDescAt(Address pc) {
-    // FIXME: consider adding cache like the one down in the VM
-    for (Address p = scopesPCsBegin(); p.lessThan(scopesPCsEnd()); p = p.addOffsetTo(pcDescSize)) {
-      PCDesc pcDesc = new PCDesc(p);
-      if (pcDesc.getRealPC(this).equals(pc)) {
-        return pcDesc;
+    if (pc == null) {
+      return null;
+    }
+    int[] offsets = getPCOffsets();
+    long offset = pc.minus(codeBegin());
+    if (offset < Integer.MIN_VALUE || offset > Integer.MAX_VALUE) {
+      return null;
+    }
+    int i = Arrays.binarySearch(offsets, (int) offset);
+    if (i < 0) {
+      return null;
+    }
+    // Return the first match, as a linear search would
+    while (i > 0 && offsets[i - 1] == offsets[i]) {
+      i--;
+    }
+    return new PCDesc(scopesPCsBegin().addOffsetTo(i * pcDescSize));
+  }
+
+  // Cached PC offsets of the PCDescs, in table order. Built on first
+  // use and read by the parallel stack walkers, so it is only
+  // published once complete; racing threads may each build a copy.
+  private volatile int[] pcOffsets;
+
+  private int[] getPCOffsets() {
+    int[] offsets = pcOffsets;
+    if (offsets == null) {
+      int n = (int) (scopesPCsSize() / pcDescSize);
+      offsets = new int[n];
+      Address p = scopesPCsBegin();
+      for (int i = 0; i < n; i++, p = p.addOffsetTo(pcDescSize)) {
+        offsets[i] = new PCDesc(p).getPCOffset();
       }
+      pcOffsets = offsets;
     }
-    return null;
+    return offsets;
   }
 
   /** ScopeDesc for an instruction */
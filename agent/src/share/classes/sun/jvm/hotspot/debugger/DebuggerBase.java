@@ -196,6 +196,13 @@ public abstract class DebuggerBase implements Debugger {
     if (cache != null) {
       cache.clear();
     }
+    cacheCleared();
+  }
+
+  /** Called whenever the cache is cleared. Subclasses which hold
+      other data read from the target ahead of time must discard it
+      here. */
+  protected void cacheCleared() {
   }
 
   /** May be called by subclasses to disable the cache (for example,
@@ -76,4 +76,9 @@ public interface RemoteDebugger extends Remote {
                                    long addrOrId2, boolean isAddress2) throws RemoteException;
   public int       getThreadHashCode(long addrOrId, boolean isAddress) throws RemoteException;
   public long[]    getThreadIntegerRegisterSet(long addrOrId, boolean isAddress) throws RemoteException;
+
+  /** Port of the socket server answering pipelined and vectored
+      memory reads (see RemoteReadServer), or -1 if there is none.
+      The server is started on the first call. */
+  public int       getReadServerPort() throws RemoteException;
 }
@@ -24,6 +24,7 @@
 
 package sun.jvm.hotspot.debugger.remote;
 
+import java.io.*;
 import java.rmi.*;
 import java.util.*;
 import java.lang.reflect.*;
@@ -38,7 +39,17 @@ import sun.jvm.hotspot.debugger.remote.amd64.*;
     RemoteDebugger, providing remote debugging via RMI.
     This implementation provides caching of the remote process's
     address space on the local machine where the user interface is
-    running. */
+    running. <P>
+
+    If the host of the server is known and the server offers it,
+    memory is read through a {@link RemoteReadClient} instead of RMI.
+    A read which misses also requests the following ranges of the
+    same size (16 by default, see the system property
+    sun.jvm.hotspot.debugger.remote.readAhead), and the read-ahead
+    window is refilled before it runs out, so sequential scans such as
+    heap walks keep several requests in flight. Setting
+    sun.jvm.hotspot.debugger.remote.compress to true deflates the
+    replies. */
 
 public class RemoteDebuggerClient extends DebuggerBase implements JVMDebugger {
   private RemoteDebugger remoteDebugger;
@@ -46,7 +57,28 @@ public class RemoteDebuggerClient extends DebuggerBase implements JVMDebugger {
   private boolean unalignedAccessesOkay = false;
   private static final int cacheSize = 16 * 1024 * 1024; // 16 MB
 
+  // Pipelined reads; null if unavailable, in which case reads go
+  // through RMI
+  private RemoteReadClient readClient;
+  private int readAhead;
+  // Ranges requested ahead of time, keyed by address
+  private Map/*<Long, Prefetch>*/ prefetched;
+  // End of the read-ahead window
+  private long prefetchEnd;
+
+  private static class Prefetch {
+    RemoteReadClient.Request request;
+    int  index;
+    long length;
+  }
+
   public RemoteDebuggerClient(RemoteDebugger remoteDebugger) throws DebuggerException {
+    this(remoteDebugger, null);
+  }
+
+  /** The given host, if non-null, is used to connect to the server's
+      pipelined read transport. */
+  public RemoteDebuggerClient(RemoteDebugger remoteDebugger, String readServerHost) throws DebuggerException {
     super();
     try {
       this.remoteDebugger = remoteDebugger;
@@ -88,6 +120,10 @@ public class RemoteDebuggerClient extends DebuggerBase implements JVMDebugger {
       // Cache portion of the remote process's address space.
       initCache(cachePageSize, cacheNumPages);
 
+      if (readServerHost != null) {
+        connectReadServer(readServerHost);
+      }
+
       jbooleanSize = remoteDebugger.getJBooleanSize();
       jbyteSize    = remoteDebugger.getJByteSize();
       jcharSize    = remoteDebugger.getJCharSize();
@@ -403,6 +439,13 @@ public class RemoteDebuggerClient extends DebuggerBase implements JVMDebugger {
 
   /** This reads bytes from the remote process. */
   public ReadResult readBytesFromProcess(long address, long numBytes) {
+    if (readClient != null && numBytes <= RemoteReadServer.MAX_LENGTH) {
+      try {
+        return readPipelined(address, numBytes);
+      } catch (IOException e) {
+        readServerFailed(e);
+      }
+    }
     try {
       return remoteDebugger.readBytesFromProcess(address, numBytes);
     }
@@ -411,6 +454,117 @@ public class RemoteDebuggerClient extends DebuggerBase implements JVMDebugger {
     }
   }
 
+  /** Reads several ranges of the remote process at once. With the
+      pipelined transport this takes a single round trip. */
+  public ReadResult[] readBytesFromProcess(long[] addresses, long[] numBytes) {
+    RemoteReadClient client = readClient;
+    if (client != null && addresses.length <= RemoteReadServer.MAX_RANGES &&
+        RemoteReadClient.totalLength(numBytes) <= RemoteReadServer.MAX_PAYLOAD) {
+      try {
+        return client.read(addresses, numBytes);
+      } catch (IOException e) {
+        readServerFailed(e);
+      }
+    }
+    ReadResult[] results = new ReadResult[addresses.length];
+    for (int i = 0; i < addresses.length; i++) {
+      results[i] = readBytesFromProcess(addresses[i], numBytes[i]);
+    }
+    return results;
+  }
+
+  private void connectReadServer(String host) throws RemoteException {
+    int port = remoteDebugger.getReadServerPort();
+    if (port < 0) {
+      return;
+    }
+    try {
+      readClient = new RemoteReadClient(host, port,
+                                        Boolean.getBoolean("sun.jvm.hotspot.debugger.remote.compress"));
+    } catch (IOException e) {
+      System.err.println("RemoteDebuggerClient: WARNING: unable to connect to read server at " +
+                         host + ":" + port + ", using RMI: " + e);
+      return;
+    }
+    readAhead = Math.max(0, Integer.getInteger("sun.jvm.hotspot.debugger.remote.readAhead", 16).intValue());
+    final int maxPrefetched = 4 * readAhead;
+    prefetched = new LinkedHashMap() {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > maxPrefetched;
+        }
+      };
+  }
+
+  private synchronized void readServerFailed(IOException e) {
+    if (readClient != null) {
+      System.err.println("RemoteDebuggerClient: WARNING: " + e + " on read server connection, using RMI");
+      readClient.close();
+      readClient = null;
+      prefetched.clear();
+    }
+  }
+
+  private ReadResult readPipelined(long address, long numBytes) throws IOException {
+    RemoteReadClient.Request req;
+    int index;
+    synchronized (this) {
+      if (readClient == null) {
+        throw new IOException("read server connection closed");
+      }
+      Prefetch p = (Prefetch) prefetched.remove(new Long(address));
+      if (p != null && p.length == numBytes) {
+        // Refill the window once half of it has been consumed
+        if (prefetchEnd - address <= (readAhead / 2) * numBytes) {
+          requestRanges(prefetchEnd, numBytes, readAhead, false);
+        }
+        req = p.request;
+        index = p.index;
+      } else {
+        req = requestRanges(address, numBytes, 1 + readAhead, true);
+        index = 0;
+      }
+    }
+    // Wait for the reply without holding the lock, so that other
+    // threads can submit their reads in the meantime
+    return req.get()[index];
+  }
+
+  /** Drops the ranges read ahead along with the page cache, since
+      they may be stale as well */
+  protected synchronized void cacheCleared() {
+    if (prefetched != null) {
+      prefetched.clear();
+      prefetchEnd = 0;
+    }
+  }
+
+  // Requests count consecutive ranges of the given length and
+  // remembers them for later reads, except for the first one if it
+  // is read right away. Fewer ranges are requested if they would
+  // exceed the server's limit for one request.
+  private RemoteReadClient.Request requestRanges(long address, long length, int count, boolean firstIsRead)
+    throws IOException {
+    if (length > 0) {
+      count = (int) Math.max(1, Math.min(count, RemoteReadServer.MAX_PAYLOAD / length));
+    }
+    long[] addresses = new long[count];
+    long[] lengths = new long[count];
+    for (int i = 0; i < count; i++) {
+      addresses[i] = address + i * length;
+      lengths[i] = length;
+    }
+    RemoteReadClient.Request req = readClient.submit(addresses, lengths);
+    for (int i = firstIsRead ? 1 : 0; i < count; i++) {
+      Prefetch p = new Prefetch();
+      p.request = req;
+      p.index = i;
+      p.length = length;
+      prefetched.put(new Long(addresses[i]), p);
+    }
+    prefetchEnd = address + count * length;
+    return req;
+  }
+
   public void writeBytesToProcess(long a, long b, byte[] c) {
      throw new DebuggerException("Unimplemented!");
   }
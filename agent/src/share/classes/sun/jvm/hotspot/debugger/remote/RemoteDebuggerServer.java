@@ -24,6 +24,8 @@
 
 package sun.jvm.hotspot.debugger.remote;
 
+import java.io.*;
+import java.net.InetAddress;
 import java.rmi.*;
 import java.rmi.server.*;
 
@@ -36,6 +38,8 @@ public class RemoteDebuggerServer extends UnicastRemoteObject
   implements RemoteDebugger {
 
   private transient Debugger debugger;
+  private transient RemoteReadServer readServer;
+  private transient boolean readServerFailed;
 
   /** This is the required no-arg constructor */
   public RemoteDebuggerServer() throws RemoteException {
@@ -161,6 +165,41 @@ public class RemoteDebuggerServer extends UnicastRemoteObject
     return regs;
   }
 
+  /** The port is taken from the system property
+      sun.jvm.hotspot.debugger.remote.readServerPort; zero, the
+      default, picks a free port and a negative value disables the
+      read server. The server listens on the address given by
+      sun.jvm.hotspot.debugger.remote.readServerAddress, by default
+      the one RMI hands out to clients (java.rmi.server.hostname or
+      else the local host), and serves at most
+      sun.jvm.hotspot.debugger.remote.readServerMaxConnections (8)
+      clients at once. */
+  public synchronized int getReadServerPort() throws RemoteException {
+    if (readServer == null && !readServerFailed) {
+      int port = Integer.getInteger("sun.jvm.hotspot.debugger.remote.readServerPort", 0).intValue();
+      int maxConnections = Integer.getInteger("sun.jvm.hotspot.debugger.remote.readServerMaxConnections", 8).intValue();
+      if (port < 0) {
+        readServerFailed = true;
+      } else {
+        try {
+          readServer = new RemoteReadServer(debugger, getReadServerAddress(), port, maxConnections);
+        } catch (IOException e) {
+          System.err.println("RemoteDebuggerServer: WARNING: unable to start read server: " + e);
+          readServerFailed = true;
+        }
+      }
+    }
+    return (readServer != null) ? readServer.getPort() : -1;
+  }
+
+  private static InetAddress getReadServerAddress() throws IOException {
+    String host = System.getProperty("sun.jvm.hotspot.debugger.remote.readServerAddress");
+    if (host == null) {
+      host = System.getProperty("java.rmi.server.hostname");
+    }
+    return (host != null) ? InetAddress.getByName(host) : InetAddress.getLocalHost();
+  }
+
   private ThreadProxy getThreadProxy(long addrOrId, boolean isAddress) throws DebuggerException {
      if (isAddress) {
         Address addr = debugger.parseAddress("0x" + Long.toHexString(addrOrId));
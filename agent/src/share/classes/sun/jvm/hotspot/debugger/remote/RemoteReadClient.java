@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.debugger.remote;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.zip.*;
+
+import sun.jvm.hotspot.debugger.*;
+
+/** The client side of the transport described in {@link
+    RemoteReadServer}. Requests are written as they are submitted and
+    a reader thread completes them as the replies arrive, so any
+    number of requests can be outstanding at once. */
+
+class RemoteReadClient {
+  private Socket           socket;
+  private DataOutputStream out;
+  private DataInputStream  in;
+  private boolean          compress;
+  private int              nextID;
+  private Map/*<Integer, Request>*/ pending = new HashMap();
+  // Set once the connection has failed
+  private IOException      failure;
+
+  /** A submitted vectored read */
+  static class Request {
+    private long[]       lengths;
+    private ReadResult[] results;
+    private IOException  failure;
+
+    private Request(long[] lengths) {
+      this.lengths = lengths;
+    }
+
+    /** Waits for the reply. The results are in the order of the
+        ranges in the request. */
+    synchronized ReadResult[] get() throws IOException {
+      while (results == null && failure == null) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          throw new InterruptedIOException();
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return results;
+    }
+
+    synchronized boolean isDone() {
+      return results != null || failure != null;
+    }
+
+    private synchronized void complete(ReadResult[] results, IOException failure) {
+      this.results = results;
+      this.failure = failure;
+      notifyAll();
+    }
+  }
+
+  RemoteReadClient(String host, int port, boolean compress) throws IOException {
+    this.compress = compress;
+    socket = new Socket(host, port);
+    socket.setTcpNoDelay(true);
+    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    in  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    out.writeInt(RemoteReadServer.MAGIC);
+    out.flush();
+    if (in.readInt() != RemoteReadServer.MAGIC || in.readInt() != RemoteReadServer.VERSION) {
+      socket.close();
+      throw new IOException("incompatible remote read server at " + host + ":" + port);
+    }
+    Thread t = new Thread(new Runnable() {
+        public void run() {
+          readReplies();
+        }
+      }, "SA remote read client");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /** Sends a request for the given ranges without waiting for the
+      reply */
+  Request submit(long[] addresses, long[] lengths) throws IOException {
+    if (addresses.length > RemoteReadServer.MAX_RANGES) {
+      throw new IOException("too many ranges in one request");
+    }
+    if (totalLength(lengths) > RemoteReadServer.MAX_PAYLOAD) {
+      throw new IOException("too many bytes in one request");
+    }
+    Request req = new Request(lengths);
+    synchronized (this) {
+      if (failure != null) {
+        throw failure;
+      }
+      int id = nextID++;
+      pending.put(new Integer(id), req);
+      try {
+        out.writeInt(id);
+        out.writeByte(compress ? RemoteReadServer.COMPRESS : 0);
+        out.writeInt(addresses.length);
+        for (int i = 0; i < addresses.length; i++) {
+          out.writeLong(addresses[i]);
+          out.writeInt((int) lengths[i]);
+        }
+        out.flush();
+      } catch (IOException e) {
+        fail(e);
+        throw e;
+      }
+    }
+    return req;
+  }
+
+  /** Returns the number of bytes requested by the given range
+      lengths */
+  static long totalLength(long[] lengths) {
+    long total = 0;
+    for (int i = 0; i < lengths.length; i++) {
+      total += lengths[i];
+    }
+    return total;
+  }
+
+  /** Reads the given ranges in one round trip */
+  ReadResult[] read(long[] addresses, long[] lengths) throws IOException {
+    return submit(addresses, lengths).get();
+  }
+
+  void close() {
+    try {
+      socket.close();
+    } catch (IOException e) {
+    }
+  }
+
+  //--------------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  private void readReplies() {
+    Inflater inflater = new Inflater();
+    try {
+      while (true) {
+        int id = in.readInt();
+        int count = in.readInt();
+        Request req;
+        synchronized (this) {
+          req = (Request) pending.remove(new Integer(id));
+        }
+        if (req == null || count != req.lengths.length) {
+          throw new IOException("unexpected reply " + id);
+        }
+        ReadResult[] results = new ReadResult[count];
+        int payloadLength = 0;
+        for (int i = 0; i < count; i++) {
+          if (in.readByte() == RemoteReadServer.STATUS_OK) {
+            payloadLength += (int) req.lengths[i];
+          } else {
+            results[i] = new ReadResult(in.readLong());
+          }
+        }
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        if (compress) {
+          payload = inflate(inflater, payload, payloadLength);
+        }
+        if (payload.length != payloadLength) {
+          throw new IOException("bad payload length in reply " + id);
+        }
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+          if (results[i] == null) {
+            byte[] data = new byte[(int) req.lengths[i]];
+            System.arraycopy(payload, offset, data, 0, data.length);
+            offset += data.length;
+            results[i] = new ReadResult(data);
+          }
+        }
+        req.complete(results, null);
+      }
+    } catch (IOException e) {
+      fail(e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static byte[] inflate(Inflater inflater, byte[] data, int length) throws IOException {
+    inflater.reset();
+    inflater.setInput(data);
+    byte[] result = new byte[length];
+    try {
+      int n = 0;
+      while (n < length && !inflater.finished()) {
+        int r = inflater.inflate(result, n, length - n);
+        if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        n += r;
+      }
+      if (n != length) {
+        throw new IOException("truncated compressed reply");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(e.toString());
+    }
+    return result;
+  }
+
+  private synchronized void fail(IOException e) {
+    if (failure == null) {
+      failure = e;
+    }
+    for (Iterator iter = pending.values().iterator(); iter.hasNext(); ) {
+      ((Request) iter.next()).complete(null, failure);
+    }
+    pending.clear();
+    close();
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.debugger.remote;
+
+import java.io.*;
+import java.net.*;
+import java.util.zip.*;
+
+import sun.jvm.hotspot.debugger.*;
+
+/** <P> A socket server answering memory reads for {@link
+    RemoteReadClient}. RMI makes every read a synchronous round trip;
+    this transport lets the client have many requests outstanding on
+    one connection and read several address ranges per request. </P>
+
+    <P> After the client has sent {@link #MAGIC} and the server has
+    echoed it together with {@link #VERSION}, the client sends
+    requests of the form <code>int id, byte flags, int count,
+    count * (long address, int length)</code>, of at most {@link
+    #MAX_PAYLOAD} bytes in total. Requests are answered
+    in order with <code>int id, int count, count * (byte status [,
+    long failureAddress]), int payloadLength, payload</code>, where
+    the payload holds the data of all successfully read ranges, one
+    after the other, and is deflated if the request had the {@link
+    #COMPRESS} flag set. </P> */
+
+class RemoteReadServer {
+  static final int  MAGIC      = 0x53415244; // "SARD"
+  static final int  VERSION    = 1;
+  static final byte COMPRESS   = 1;
+  static final byte STATUS_OK     = 0;
+  static final byte STATUS_FAILED = 1;
+  // Sanity limits for a single request
+  static final int  MAX_RANGES = 4096;
+  static final int  MAX_LENGTH = 1 << 20;
+  // Total length of the ranges of a single request
+  static final int  MAX_PAYLOAD = 16 << 20;
+
+  private Debugger     debugger;
+  private ServerSocket serverSocket;
+  private int          maxConnections;
+  private int          connections;
+
+  /** Starts listening on the given address and port, or on an
+      ephemeral port if zero. Reads are forwarded to the given
+      debugger. Clients beyond maxConnections are disconnected right
+      away. */
+  RemoteReadServer(Debugger debugger, InetAddress address, int port,
+                   int maxConnections) throws IOException {
+    this.debugger = debugger;
+    this.maxConnections = maxConnections;
+    serverSocket = new ServerSocket(port, 0, address);
+    Thread t = new Thread(new Runnable() {
+        public void run() {
+          acceptConnections();
+        }
+      }, "SA remote read server");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  InetAddress getAddress() {
+    return serverSocket.getInetAddress();
+  }
+
+  void close() {
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+    }
+  }
+
+  //--------------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  private void acceptConnections() {
+    while (true) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        // Closed
+        return;
+      }
+      synchronized (this) {
+        if (connections >= maxConnections) {
+          try {
+            socket.close();
+          } catch (IOException e) {
+          }
+          continue;
+        }
+        connections++;
+      }
+      Thread t = new Thread(new Runnable() {
+          public void run() {
+            try {
+              serve(socket);
+            } catch (IOException e) {
+              // Client went away or sent garbage; drop the connection
+            } finally {
+              try {
+                socket.close();
+              } catch (IOException e) {
+              }
+              synchronized (RemoteReadServer.this) {
+                connections--;
+              }
+            }
+          }
+        }, "SA remote read connection");
+      t.setDaemon(true);
+      t.start();
+    }
+  }
+
+  private void serve(Socket socket) throws IOException {
+    socket.setTcpNoDelay(true);
+    DataInputStream  in  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    if (in.readInt() != MAGIC) {
+      return;
+    }
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.flush();
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      ByteArrayOutputStream payload = new ByteArrayOutputStream();
+      while (true) {
+        int id;
+        try {
+          id = in.readInt();
+        } catch (EOFException e) {
+          return;
+        }
+        byte flags = in.readByte();
+        int count = in.readInt();
+        if (count < 0 || count > MAX_RANGES) {
+          throw new IOException("bad range count " + count);
+        }
+
+        out.writeInt(id);
+        out.writeInt(count);
+        payload.reset();
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+          long address = in.readLong();
+          int  length  = in.readInt();
+          if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("bad range length " + length);
+          }
+          total += length;
+          if (total > MAX_PAYLOAD) {
+            throw new IOException("request of more than " + MAX_PAYLOAD + " bytes");
+          }
+          ReadResult res;
+          try {
+            res = debugger.readBytesFromProcess(address, length);
+          } catch (DebuggerException e) {
+            res = new ReadResult(address);
+          }
+          if (res.getData() != null) {
+            out.writeByte(STATUS_OK);
+            payload.write(res.getData(), 0, length);
+          } else {
+            out.writeByte(STATUS_FAILED);
+            out.writeLong(res.getFailureAddress());
+          }
+        }
+
+        byte[] data = payload.toByteArray();
+        if ((flags & COMPRESS) != 0) {
+          data = deflate(deflater, data);
+        }
+        out.writeInt(data.length);
+        out.write(data);
+        // Replies to requests which are already waiting go out together
+        if (in.available() == 0) {
+          out.flush();
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] deflate(Deflater deflater, byte[] data) {
+    deflater.reset();
+    deflater.setInput(data);
+    deflater.finish();
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2 + 64);
+    byte[] buf = new byte[8192];
+    while (!deflater.finished()) {
+      int n = deflater.deflate(buf);
+      bos.write(buf, 0, n);
+    }
+    return bos.toByteArray();
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.debugger.remote;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.*;
+
+import sun.jvm.hotspot.debugger.*;
+
+/** Exercises {@link RemoteReadServer} and {@link RemoteReadClient}
+    over loopback against a stub debugger whose memory is a known
+    pattern: many requests outstanding at once, replies matched to
+    requests submitted from several threads, failure addresses, the
+    deflate path and the connection limit. Run as <code>java
+    sun.jvm.hotspot.debugger.remote.TestReadTransport [requests
+    [ranges]]</code>; it exits with a non-zero status on failure. */
+
+public class TestReadTransport {
+  // The stub debugger can read [BASE, LIMIT) only
+  private static final long BASE  = 0x10000000L;
+  private static final long LIMIT = BASE + 0x100000L;
+
+  public static void main(String[] args) throws Exception {
+    int requests = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+    int ranges   = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+
+    RemoteReadServer server = new RemoteReadServer(stubDebugger(), InetAddress.getByName("127.0.0.1"), 0, 2);
+    try {
+      for (int compress = 0; compress <= 1; compress++) {
+        RemoteReadClient client = new RemoteReadClient("127.0.0.1", server.getPort(), compress != 0);
+        try {
+          long start = System.currentTimeMillis();
+          checkPipelined(client, requests, ranges, new Random(compress));
+          checkThreads(client, 4, requests / 4, ranges);
+          System.out.println((compress != 0 ? "compressed" : "plain") + ": " + requests + " pipelined and " +
+                             (requests / 4) * 4 + " concurrent requests of " + ranges + " ranges in " +
+                             (System.currentTimeMillis() - start) + " ms");
+        } finally {
+          client.close();
+        }
+      }
+      checkPayloadLimit(server);
+      checkConnectionLimit(server);
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.out.println("FAILED");
+      System.exit(1);
+    } finally {
+      server.close();
+    }
+    System.out.println("PASSED");
+  }
+
+  /** Submits all requests before waiting for any reply, then collects
+      the replies last to first */
+  private static void checkPipelined(RemoteReadClient client, int requests, int ranges, Random random) throws IOException {
+    long[][] addresses = new long[requests][];
+    long[][] lengths   = new long[requests][];
+    RemoteReadClient.Request[] pending = new RemoteReadClient.Request[requests];
+    for (int i = 0; i < requests; i++) {
+      addresses[i] = new long[ranges];
+      lengths[i]   = new long[ranges];
+      for (int j = 0; j < ranges; j++) {
+        // Some ranges start below BASE or run past LIMIT and must fail
+        addresses[i][j] = BASE - 0x1000 + (long) random.nextInt((int) (LIMIT - BASE) + 0x2000);
+        lengths[i][j]   = 1 + random.nextInt(4096);
+      }
+      pending[i] = client.submit(addresses[i], lengths[i]);
+    }
+    for (int i = requests - 1; i >= 0; i--) {
+      check(addresses[i], lengths[i], pending[i].get());
+    }
+  }
+
+  /** Lets several threads share the connection, so that their
+      requests and replies interleave */
+  private static void checkThreads(final RemoteReadClient client, int threads, final int requests, final int ranges) throws Exception {
+    final Exception[] failure = new Exception[1];
+    Thread[] t = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      final Random random = new Random(100 + i);
+      t[i] = new Thread(new Runnable() {
+          public void run() {
+            try {
+              for (int r = 0; r < requests; r++) {
+                long[] addresses = new long[ranges];
+                long[] lengths   = new long[ranges];
+                for (int j = 0; j < ranges; j++) {
+                  addresses[j] = BASE + random.nextInt((int) (LIMIT - BASE) - 4096);
+                  lengths[j]   = 1 + random.nextInt(4096);
+                }
+                check(addresses, lengths, client.read(addresses, lengths));
+              }
+            } catch (Exception e) {
+              synchronized (failure) {
+                failure[0] = e;
+              }
+            }
+          }
+        });
+      t[i].start();
+    }
+    for (int i = 0; i < threads; i++) {
+      t[i].join();
+    }
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+  }
+
+  /** Requests for more than MAX_PAYLOAD bytes are refused by the
+      client, and the server drops a connection which sends one
+      anyway instead of buffering the reply */
+  private static void checkPayloadLimit(RemoteReadServer server) throws Exception {
+    int ranges = RemoteReadServer.MAX_PAYLOAD / RemoteReadServer.MAX_LENGTH + 1;
+    long[] addresses = new long[ranges];
+    long[] lengths   = new long[ranges];
+    Arrays.fill(addresses, BASE);
+    Arrays.fill(lengths, RemoteReadServer.MAX_LENGTH);
+
+    RemoteReadClient client = connect(server);
+    try {
+      client.submit(addresses, lengths);
+      throw new RuntimeException("an oversized request was sent");
+    } catch (IOException e) {
+      // Expected
+    } finally {
+      client.close();
+    }
+
+    Socket socket = new Socket("127.0.0.1", server.getPort());
+    try {
+      socket.setSoTimeout(5000);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      DataInputStream  in  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      out.writeInt(RemoteReadServer.MAGIC);
+      out.writeInt(0);
+      out.writeByte(0);
+      out.writeInt(ranges);
+      for (int i = 0; i < ranges; i++) {
+        out.writeLong(addresses[i]);
+        out.writeInt((int) lengths[i]);
+      }
+      out.flush();
+      in.readInt();
+      in.readInt();
+      // The reply header and the status of the ranges read before the
+      // limit was hit may arrive; the payload must not
+      try {
+        while (true) {
+          in.readByte();
+        }
+      } catch (EOFException e) {
+        // Expected
+      } catch (SocketException e) {
+        // Reset by the server; also expected
+      }
+    } finally {
+      socket.close();
+    }
+  }
+
+  /** The server was started for two clients at most */
+  private static void checkConnectionLimit(RemoteReadServer server) throws Exception {
+    RemoteReadClient first  = connect(server);
+    RemoteReadClient second = connect(server);
+    try {
+      RemoteReadClient third = new RemoteReadClient("127.0.0.1", server.getPort(), false);
+      third.close();
+      throw new RuntimeException("a third connection was accepted");
+    } catch (IOException e) {
+      // Expected
+    } finally {
+      first.close();
+      second.close();
+    }
+  }
+
+  /** Connects once the server has noticed that earlier clients went
+      away */
+  private static RemoteReadClient connect(RemoteReadServer server) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (true) {
+      try {
+        return new RemoteReadClient("127.0.0.1", server.getPort(), false);
+      } catch (IOException e) {
+        if (System.currentTimeMillis() > deadline) {
+          throw e;
+        }
+        Thread.sleep(10);
+      }
+    }
+  }
+
+  private static void check(long[] addresses, long[] lengths, ReadResult[] results) {
+    if (results.length != addresses.length) {
+      throw new RuntimeException("expected " + addresses.length + " results, got " + results.length);
+    }
+    for (int i = 0; i < results.length; i++) {
+      long address = addresses[i];
+      long end = address + lengths[i];
+      if (address >= BASE && end <= LIMIT) {
+        byte[] data = results[i].getData();
+        if (data == null || data.length != lengths[i]) {
+          throw new RuntimeException("read of 0x" + Long.toHexString(address) + " failed");
+        }
+        for (int j = 0; j < data.length; j++) {
+          if (data[j] != valueAt(address + j)) {
+            throw new RuntimeException("wrong data at 0x" + Long.toHexString(address + j));
+          }
+        }
+      } else if (results[i].getData() != null ||
+                 results[i].getFailureAddress() != failureAddress(address)) {
+        throw new RuntimeException("read of 0x" + Long.toHexString(address) + " should fail at 0x" +
+                                   Long.toHexString(failureAddress(address)));
+      }
+    }
+  }
+
+  private static byte valueAt(long address) {
+    return (byte) (address * 31 ^ (address >>> 8));
+  }
+
+  private static long failureAddress(long address) {
+    return (address < BASE) ? address : LIMIT;
+  }
+
+  /** A debugger which only implements readBytesFromProcess */
+  private static Debugger stubDebugger() {
+    return (Debugger) Proxy.newProxyInstance(Debugger.class.getClassLoader(),
+                                             new Class[] { Debugger.class },
+                                             new InvocationHandler() {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+          if (!method.getName().equals("readBytesFromProcess")) {
+            throw new UnsupportedOperationException(method.getName());
+          }
+          long address  = ((Long) args[0]).longValue();
+          long numBytes = ((Long) args[1]).longValue();
+          if (address < BASE || address + numBytes > LIMIT) {
+            return new ReadResult(failureAddress(address));
+          }
+          byte[] data = new byte[(int) numBytes];
+          for (int i = 0; i < data.length; i++) {
+            data[i] = valueAt(address + i);
+          }
+          return new ReadResult(data);
+        }
+      });
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.interpreter;
+
+import java.io.*;
+import java.util.*;
+import sun.jvm.hotspot.oops.*;
+import sun.jvm.hotspot.runtime.*;
+
+/** The SA counterpart of the VM's OopMapCache: a bounded cache of
+    the oop maps computed for interpreted frames, keyed by method and
+    bci. Computing a map runs the full GenerateOopMap analysis of the
+    method, and the stacks of many threads tend to be in the same
+    methods at the same bcis. Entries are never modified once filled,
+    so they can be shared by all callers. <P>
+
+    The capacity defaults to 4096 entries and can be changed with the
+    system property
+    <code>sun.jvm.hotspot.interpreter.OopMapCache.size</code>; zero
+    disables caching. */
+
+public class OopMapCache {
+  public OopMapCache() {
+    this(Integer.getInteger("sun.jvm.hotspot.interpreter.OopMapCache.size", 4096).intValue());
+  }
+
+  public OopMapCache(final int capacity) {
+    this.capacity = capacity;
+    entries = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > capacity;
+        }
+      };
+  }
+
+  /** Returns the oop map of the given method at the given bci,
+      computing it if it is not cached */
+  public OopMapCacheEntry lookup(Method method, int bci) {
+    Key key = new Key(VM.getAddressValue(method.getAddress()), bci);
+    synchronized (this) {
+      lookups++;
+      OopMapCacheEntry entry = (OopMapCacheEntry) entries.get(key);
+      if (entry != null) {
+        hits++;
+        return entry;
+      }
+    }
+    // Computed outside of the lock; two threads may occasionally both
+    // compute the same map, which is harmless
+    OopMapCacheEntry entry = new OopMapCacheEntry();
+    entry.fill(method, bci);
+    if (capacity > 0) {
+      synchronized (this) {
+        entries.put(key, entry);
+      }
+    }
+    return entry;
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    lookups = 0;
+    hits = 0;
+  }
+
+  public synchronized long getLookupCount() {
+    return lookups;
+  }
+
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void printStatisticsOn(PrintStream tty) {
+    tty.print("OopMapCache: " + lookups + " lookups, " + hits + " hits");
+    if (lookups > 0) {
+      tty.print(" (" + (100 * hits / lookups) + "%)");
+    }
+    tty.println(", " + entries.size() + "/" + capacity + " entries");
+  }
+
+  //--------------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  private int           capacity;
+  private LinkedHashMap entries;
+  private long          lookups;
+  private long          hits;
+
+  private static class Key {
+    private long method;
+    private int  bci;
+
+    Key(long method, int bci) {
+      this.method = method;
+      this.bci = bci;
+    }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return method == other.method && bci == other.bci;
+    }
+
+    public int hashCode() {
+      return (int) (method ^ (method >>> 32)) * 31 + bci;
+    }
+  }
+}
@@ -59,6 +59,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Observer;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.lang.ref.SoftReference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.Reference;
@@ -111,7 +113,8 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
 
     private VoidValue voidVal;
     private Map       typesByID;             // Map<Klass, ReferenceTypeImpl>
-    private List      typesBySignature;      // List<ReferenceTypeImpl> - used in signature search
+    private List      typesBySignature;      // List<ReferenceTypeImpl> - in order of creation
+    private Map       typesByName;           // Map<Symbol, List<ReferenceTypeImpl>> - used in signature search
     private boolean   retrievedAllTypes = false;
     private List      bootstrapClasses;      // all bootstrap classes
     private ArrayList allThreads;
@@ -119,8 +122,9 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
     final   int       sequenceNumber;
 
     // ObjectReference cache
-    // "objectsByID" protected by "synchronized(this)".
-    private final Map            objectsByID = new HashMap();
+    // "objectsByID" is a concurrent map; stale entries are removed
+    // only if they have not been replaced in the meantime.
+    private final ConcurrentMap  objectsByID = new ConcurrentHashMap();
     private final ReferenceQueue referenceQueue = new ReferenceQueue();
 
     // names of some well-known classes to jdi
@@ -344,10 +348,9 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
             return new ArrayList(0);
         }
 
-        // we haven't sorted types by signatures. But we can take
-        // advantage of comparing symbols instead of name. In the worst
-        // case, we will be comparing N addresses rather than N strings
-        // where N being total no. of classes in allClasses() list.
+        // Types are indexed by their type name symbol, so a lookup
+        // costs one symbol table probe and a hash lookup instead of
+        // a comparison against every type in allClasses().
 
         // The signature could be Lx/y/z; or [....
         // If it is Lx/y/z; the internal type name is x/y/x
@@ -366,16 +369,11 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
             return new ArrayList(0);
         }
 
-        Iterator iter = typesBySignature.iterator();
-        List list = new ArrayList();
-        while (iter.hasNext()) {
-            // We have cached type name as symbol in reference type
-            ReferenceTypeImpl type = (ReferenceTypeImpl)iter.next();
-            if (typeNameSym.equals(type.typeNameAsSymbol())) {
-                list.add(type);
-            }
+        List types = (List)typesByName.get(typeNameSym);
+        if (types == null) {
+            return new ArrayList(0);
         }
-        return list;
+        return new ArrayList(types);
     }
 
     private void retrieveAllClasses() {
@@ -438,6 +436,7 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
     private void initReferenceTypes() {
         typesByID = new HashMap();
         typesBySignature = new ArrayList();
+        typesByName = new HashMap();
     }
 
     private synchronized ReferenceTypeImpl addReferenceType(Klass kk) {
@@ -459,6 +458,14 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
 
         typesByID.put(kk, newRefType);
         typesBySignature.add(newRefType);
+        // Several loaders may define types with the same name
+        Symbol typeNameSym = newRefType.typeNameAsSymbol();
+        List sameName = (List)typesByName.get(typeNameSym);
+        if (sameName == null) {
+            sameName = new ArrayList(1);
+            typesByName.put(typeNameSym, sameName);
+        }
+        sameName.add(newRefType);
         return newRefType;
     }
 
@@ -1070,7 +1077,7 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
         return vm.saVM.getDebugger().getAddressValue(obj.getHandle());
     }
 
-    synchronized ObjectReferenceImpl objectMirror(Oop key) {
+    ObjectReferenceImpl objectMirror(Oop key) {
 
         // Handle any queue elements that are not strongly reachable
         processQueue();
@@ -1080,88 +1087,104 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
         }
         ObjectReferenceImpl object = null;
 
-        /*
-         * Attempt to retrieve an existing object object reference
-         */
-        SoftObjectReference ref = (SoftObjectReference)objectsByID.get(key);
-        if (ref != null) {
-            object = ref.object();
-        }
-
-        /*
-         * If the object wasn't in the table, or it's soft reference was
-         * cleared, create a new instance.
-         */
-        if (object == null) {
-            if (key instanceof Instance) {
-                // look for well-known classes
-                Symbol className = key.getKlass().getName();
-                if (Assert.ASSERTS_ENABLED) {
-                    Assert.that(className != null, "Null class name");
+        while (true) {
+            /*
+             * Attempt to retrieve an existing object object reference
+             */
+            SoftObjectReference ref = (SoftObjectReference)objectsByID.get(key);
+            if (ref != null) {
+                ObjectReferenceImpl existing = ref.object();
+                if (existing != null) {
+                    ref.incrementCount();
+                    return existing;
                 }
-                Instance inst = (Instance) key;
-                if (className.equals(javaLangString)) {
-                    object = new StringReferenceImpl(this, inst);
-                } else if (className.equals(javaLangThread)) {
-                    object = new ThreadReferenceImpl(this, inst);
-                } else if (className.equals(javaLangThreadGroup)) {
-                    object = new ThreadGroupReferenceImpl(this, inst);
-                } else if (className.equals(javaLangClass)) {
-                    object = new ClassObjectReferenceImpl(this, inst);
-                } else if (className.equals(javaLangClassLoader)) {
-                    object = new ClassLoaderReferenceImpl(this, inst);
-                } else {
-                    // not a well-known class. But the base class may be
-                    // one of the known classes.
-                    Klass kls = key.getKlass().getSuper();
-                    while (kls != null) {
-                       className = kls.getName();
-                       // java.lang.Class and java.lang.String are final classes
-                       if (className.equals(javaLangThread)) {
-                          object = new ThreadReferenceImpl(this, inst);
-                          break;
-                       } else if(className.equals(javaLangThreadGroup)) {
-                          object = new ThreadGroupReferenceImpl(this, inst);
-                          break;
-                       } else if (className.equals(javaLangClassLoader)) {
-                          object = new ClassLoaderReferenceImpl(this, inst);
-                          break;
-                       }
-                       kls = kls.getSuper();
-                    }
+            }
 
-                    if (object == null) {
-                       // create generic object reference
-                       object = new ObjectReferenceImpl(this, inst);
-                    }
-                }
-            } else if (key instanceof TypeArray) {
-                object = new ArrayReferenceImpl(this, (Array) key);
-            } else if (key instanceof ObjArray) {
-                object = new ArrayReferenceImpl(this, (Array) key);
-            } else {
-                throw new RuntimeException("unexpected object type " + key);
+            /*
+             * If the object wasn't in the table, or it's soft reference was
+             * cleared, create a new instance.
+             */
+            if (object == null) {
+                object = createObjectMirror(key);
             }
-            ref = new SoftObjectReference(key, object, referenceQueue);
+            SoftObjectReference newRef = new SoftObjectReference(key, object, referenceQueue);
 
             /*
              * If there was no previous entry in the table, we add one here
              * If the previous entry was cleared, we replace it here.
+             * If another thread got there first, retry so that every
+             * caller sees the same mirror.
              */
-            objectsByID.put(key, ref);
-        } else {
-            ref.incrementCount();
+            if (ref == null) {
+                if (objectsByID.putIfAbsent(key, newRef) == null) {
+                    return object;
+                }
+            } else if (objectsByID.replace(key, ref, newRef)) {
+                return object;
+            }
         }
+    }
+
+    private ObjectReferenceImpl createObjectMirror(Oop key) {
+        ObjectReferenceImpl object = null;
+        if (key instanceof Instance) {
+            // look for well-known classes
+            Symbol className = key.getKlass().getName();
+            if (Assert.ASSERTS_ENABLED) {
+                Assert.that(className != null, "Null class name");
+            }
+            Instance inst = (Instance) key;
+            if (className.equals(javaLangString)) {
+                object = new StringReferenceImpl(this, inst);
+            } else if (className.equals(javaLangThread)) {
+                object = new ThreadReferenceImpl(this, inst);
+            } else if (className.equals(javaLangThreadGroup)) {
+                object = new ThreadGroupReferenceImpl(this, inst);
+            } else if (className.equals(javaLangClass)) {
+                object = new ClassObjectReferenceImpl(this, inst);
+            } else if (className.equals(javaLangClassLoader)) {
+                object = new ClassLoaderReferenceImpl(this, inst);
+            } else {
+                // not a well-known class. But the base class may be
+                // one of the known classes.
+                Klass kls = key.getKlass().getSuper();
+                while (kls != null) {
+                   className = kls.getName();
+                   // java.lang.Class and java.lang.String are final classes
+                   if (className.equals(javaLangThread)) {
+                      object = new ThreadReferenceImpl(this, inst);
+                      break;
+                   } else if(className.equals(javaLangThreadGroup)) {
+                      object = new ThreadGroupReferenceImpl(this, inst);
+                      break;
+                   } else if (className.equals(javaLangClassLoader)) {
+                      object = new ClassLoaderReferenceImpl(this, inst);
+                      break;
+                   }
+                   kls = kls.getSuper();
+                }
 
+                if (object == null) {
+                   // create generic object reference
+                   object = new ObjectReferenceImpl(this, inst);
+                }
+            }
+        } else if (key instanceof TypeArray) {
+            object = new ArrayReferenceImpl(this, (Array) key);
+        } else if (key instanceof ObjArray) {
+            object = new ArrayReferenceImpl(this, (Array) key);
+        } else {
+            throw new RuntimeException("unexpected object type " + key);
+        }
         return object;
     }
 
-    synchronized void removeObjectMirror(SoftObjectReference ref) {
+    void removeObjectMirror(SoftObjectReference ref) {
         /*
          * This will remove the soft reference if it has not been
          * replaced in the cache.
          */
-        objectsByID.remove(ref.key());
+        objectsByID.remove(ref.key(), ref);
     }
 
     StringReferenceImpl stringMirror(Instance id) {
@@ -1195,7 +1218,7 @@ public class VirtualMachineImpl extends MirrorImpl implements PathSearchingVirtu
     // Use of soft refs and caching stuff here has to be re-examined.
     //  It might not make sense for JDI - SA.
     static private class SoftObjectReference extends SoftReference {
-       int count;
+       volatile int count;
        Object key;
 
        SoftObjectReference(Object key, ObjectReferenceImpl mirror,
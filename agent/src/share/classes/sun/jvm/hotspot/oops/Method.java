@@ -258,10 +258,9 @@ public class Method extends Metadata {
      return getAccessFlagsObj().isObsolete();
   }
 
+  /** The returned entry may be shared and must not be modified */
   public OopMapCacheEntry getMaskFor(int bci) {
-    OopMapCacheEntry entry = new OopMapCacheEntry();
-    entry.fill(this, bci);
-    return entry;
+    return VM.getVM().getOopMapCache().lookup(this, bci);
   }
 
   public long getSize() {
@@ -166,13 +166,35 @@ public class ObjectHeap {
     public boolean canInclude(Oop obj);
   }
 
+  /** Installs a heap snapshot index, or removes it if null. While a
+      snapshot is installed the iteration methods below visit the
+      objects recorded in it instead of walking the live regions of
+      the heap, and klass-based iteration only creates Oops for the
+      objects of matching klasses. Only valid while the target does
+      not run, i.e. for core files. */
+  public void setSnapshot(HeapGraph snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public HeapGraph getSnapshot() {
+    return snapshot;
+  }
+
   /** The base heap iteration mechanism */
   public void iterate(HeapVisitor visitor) {
+    if (snapshot != null) {
+      iterateSnapshot(visitor, null, null);
+      return;
+    }
     iterateLiveRegions(collectLiveRegions(), visitor, null);
   }
 
   /** iterate objects satisfying a specified ObjectFilter */
   public void iterate(HeapVisitor visitor, ObjectFilter of) {
+    if (snapshot != null) {
+      iterateSnapshot(visitor, null, of);
+      return;
+    }
     iterateLiveRegions(collectLiveRegions(), visitor, of);
   }
 
@@ -263,6 +285,16 @@ public class ObjectHeap {
     throw new UnknownOopException();
   }
 
+  /** Creates an Oop for an object whose klass is already known, for
+      example from a heap snapshot, without reading its header */
+  public Oop newOop(OopHandle handle, Klass klass) {
+    if (handle == null) return null;
+    if (klass instanceof TypeArrayKlass) return new TypeArray(handle, this);
+    if (klass instanceof ObjArrayKlass) return new ObjArray(handle, this);
+    if (klass instanceof InstanceKlass) return new Instance(handle, this);
+    throw new UnknownOopException();
+  }
+
   // Print all objects in the object heap
   public void print() {
     HeapPrinter printer = new HeapPrinter(System.out);
@@ -273,7 +305,17 @@ public class ObjectHeap {
   // Internals only below this point
   //
 
+  private HeapGraph snapshot;
+
   private void iterateExact(HeapVisitor visitor, final Klass k) {
+    if (snapshot != null) {
+      boolean[] matches = new boolean[snapshot.getKlassCount()];
+      for (int i = 0; i < matches.length; i++) {
+        matches[i] = k.equals(snapshot.getKlassAt(i));
+      }
+      iterateSnapshot(visitor, matches, null);
+      return;
+    }
     iterateLiveRegions(collectLiveRegions(), visitor, new ObjectFilter() {
           public boolean canInclude(Oop obj) {
             Klass tk = obj.getKlass();
@@ -284,6 +326,15 @@ public class ObjectHeap {
   }
 
   private void iterateSubtypes(HeapVisitor visitor, final Klass k) {
+    if (snapshot != null) {
+      boolean[] matches = new boolean[snapshot.getKlassCount()];
+      for (int i = 0; i < matches.length; i++) {
+        Klass tk = snapshot.getKlassAt(i);
+        matches[i] = (tk != null && tk.isSubtypeOf(k));
+      }
+      iterateSnapshot(visitor, matches, null);
+      return;
+    }
     iterateLiveRegions(collectLiveRegions(), visitor, new ObjectFilter() {
           public boolean canInclude(Oop obj) {
             Klass tk = obj.getKlass();
@@ -293,7 +344,37 @@ public class ObjectHeap {
         });
   }
 
-  private void iterateLiveRegions(List liveRegions, HeapVisitor visitor, ObjectFilter of) {
+  // Visits the objects of the installed snapshot whose klass index is
+  // set in klassFilter (all objects if null) and which pass the filter
+  private void iterateSnapshot(HeapVisitor visitor, boolean[] klassFilter, ObjectFilter of) {
+    visitor.prologue(snapshot.getTotalSize());
+    int numObjects = snapshot.getObjectCount();
+    for (int id = 0; id < numObjects; id++) {
+      if (klassFilter != null && !klassFilter[snapshot.getKlassIndex(id)]) {
+        continue;
+      }
+      Oop obj = snapshot.getOop(id);
+      if (of == null || of.canInclude(obj)) {
+        if (visitor.doObj(obj)) {
+          // doObj() returns true to abort this loop.
+          break;
+        }
+      }
+    }
+    visitor.epilogue();
+  }
+
+  /** Returns the live regions of the heap as a List<Address> of
+      (bottom, top) pairs, sorted by address. Each pair can be passed
+      to iterateLiveRegions on its own, so separate threads may walk
+      separate regions. */
+  public List getLiveRegions() {
+    return collectLiveRegions();
+  }
+
+  /** Iterates the objects in the given (bottom, top) pairs, as
+      returned by getLiveRegions. The snapshot, if any, is not used. */
+  public void iterateLiveRegions(List liveRegions, HeapVisitor visitor, ObjectFilter of) {
     // Summarize size
     long totalSize = 0;
     for (int i = 0; i < liveRegions.size(); i += 2) {
@@ -26,6 +26,7 @@ package sun.jvm.hotspot.oops;
 
 import java.io.*;
 import java.util.*;
+import sun.jvm.hotspot.utilities.*;
 
 public class ObjectHistogram implements HeapVisitor {
 
@@ -44,6 +45,25 @@ public class ObjectHistogram implements HeapVisitor {
 
   public void epilogue() {}
 
+  /** Fills the histogram from the columns of a heap snapshot, without
+      creating an Oop for or reading the header of each object */
+  public void addSnapshot(HeapGraph graph) {
+    int numKlasses = graph.getKlassCount();
+    long[] counts = new long[numKlasses];
+    long[] sizes  = new long[numKlasses];
+    int numObjects = graph.getObjectCount();
+    for (int id = 0; id < numObjects; id++) {
+      int k = graph.getKlassIndex(id);
+      counts[k]++;
+      sizes[k] += graph.getObjectSize(id);
+    }
+    for (int k = 0; k < numKlasses; k++) {
+      Klass klass = graph.getKlassAt(k);
+      if (!map.containsKey(klass)) map.put(klass, new ObjectHistogramElement(klass));
+      ((ObjectHistogramElement) map.get(klass)).updateWith(counts[k], sizes[k]);
+    }
+  }
+
   /** Call this after the iteration is complete to obtain the
       ObjectHistogramElements in descending order of total heap size
       consumed in the form of a List<ObjectHistogramElement>. */
@@ -58,6 +78,41 @@ public class ObjectHistogram implements HeapVisitor {
     return list;
   }
 
+  /** Writes one "count<TAB>size<TAB>description" line per class,
+      sorted by description. Classes with the same description, e.g.
+      defined by different loaders, are merged into one line, so two
+      summaries can be compared by a streaming merge of their lines. */
+  public void printSummaryOn(PrintStream tty) {
+    List list = new ArrayList();
+    for (Iterator iter = map.values().iterator(); iter.hasNext(); ) {
+      ObjectHistogramElement el = (ObjectHistogramElement) iter.next();
+      list.add(new Object[] { el.getDescription(), el });
+    }
+    Collections.sort(list, new Comparator() {
+      public int compare(Object o1, Object o2) {
+        return ((String) ((Object[]) o1)[0]).compareTo((String) ((Object[]) o2)[0]);
+      }
+    });
+    String name = null;
+    long count = 0;
+    long size = 0;
+    for (Iterator iter = list.iterator(); iter.hasNext(); ) {
+      Object[] entry = (Object[]) iter.next();
+      ObjectHistogramElement el = (ObjectHistogramElement) entry[1];
+      if (name != null && !name.equals(entry[0])) {
+        tty.println(count + "\t" + size + "\t" + name);
+        count = 0;
+        size = 0;
+      }
+      name = (String) entry[0];
+      count += el.getCount();
+      size += el.getSize();
+    }
+    if (name != null) {
+      tty.println(count + "\t" + size + "\t" + name);
+    }
+  }
+
   public void print() { printOn(System.out); }
 
   public void printOn(PrintStream tty) {
@@ -46,6 +46,12 @@ public class ObjectHistogramElement {
     size  = size  + obj.getObjectSize();
   }
 
+  /** Accounts for several instances at once */
+  public void updateWith(long instances, long totalSize) {
+    count = count + instances;
+    size  = size  + totalSize;
+  }
+
   public int compare(ObjectHistogramElement other) {
     return (int) (other.size - size);
   }
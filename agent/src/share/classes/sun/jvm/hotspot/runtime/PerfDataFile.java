@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.runtime;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/** Reads the performance data of a VM directly from its hsperfdata
+    file, without attaching a debugger: no ptrace, no safepoint and no
+    pause of the target. The file is mapped read-only and the entry
+    layout described by PerfDataPrologue and PerfDataEntry is decoded
+    once into an offset table; counter values are then read straight
+    from the mapping. */
+
+public class PerfDataFile {
+    // NOTE: Keep these in sync with PerfDataPrologue and PerfDataEntry
+    // in perfMemory.hpp
+    private static final int PERFDATA_MAGIC       = 0xcafec0c0;
+    private static final int PERFDATA_BIG_ENDIAN  = 0;
+
+    private static final int MAGIC_OFFSET         = 0;
+    private static final int BYTE_ORDER_OFFSET    = 4;
+    private static final int MAJOR_OFFSET         = 5;
+    private static final int ACCESSIBLE_OFFSET    = 7;
+    private static final int MOD_TIME_OFFSET      = 16;
+    private static final int ENTRY_OFFSET_OFFSET  = 24;
+    private static final int NUM_ENTRIES_OFFSET   = 28;
+
+    private static final int ENTRY_LENGTH_OFFSET  = 0;
+    private static final int NAME_OFFSET_OFFSET   = 4;
+    private static final int VECTOR_LENGTH_OFFSET = 8;
+    private static final int DATA_TYPE_OFFSET     = 12;
+    private static final int FLAGS_OFFSET         = 13;
+    private static final int DATA_UNITS_OFFSET    = 14;
+    private static final int VARIABILITY_OFFSET   = 15;
+    private static final int DATA_OFFSET_OFFSET   = 16;
+
+    public PerfDataFile(File file) throws IOException {
+        this.file = file;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            // the mapping stays valid after the file is closed
+            raf.close();
+        }
+        buf.order(ByteOrder.BIG_ENDIAN);
+        if (buf.capacity() < NUM_ENTRIES_OFFSET + 4 || buf.getInt(MAGIC_OFFSET) != PERFDATA_MAGIC) {
+            throw new IOException(file + " is not a hsperfdata file");
+        }
+        buf.order(buf.get(BYTE_ORDER_OFFSET) == PERFDATA_BIG_ENDIAN ?
+                  ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        if (!accessible()) {
+            throw new IOException(file + " is not accessible yet");
+        }
+        decodeEntries();
+    }
+
+    /** Returns the hsperfdata file of the given process, searching the
+        hsperfdata directories of all users in the temporary directory,
+        or null if there is none */
+    public static File forPid(int pid) {
+        File tmp = new File(System.getProperty("java.io.tmpdir"));
+        File own = new File(new File(tmp, "hsperfdata_" + System.getProperty("user.name")),
+                            Integer.toString(pid));
+        if (own.isFile()) {
+            return own;
+        }
+        File[] dirs = tmp.listFiles();
+        if (dirs != null) {
+            for (int i = 0; i < dirs.length; i++) {
+                if (dirs[i].getName().startsWith("hsperfdata_")) {
+                    File f = new File(dirs[i], Integer.toString(pid));
+                    if (f.isFile()) {
+                        return f;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean accessible() {
+        return buf.get(ACCESSIBLE_OFFSET) != 0;
+    }
+
+    public int majorVersion() {
+        return buf.get(MAJOR_OFFSET);
+    }
+
+    public long modTimeStamp() {
+        return buf.getLong(MOD_TIME_OFFSET);
+    }
+
+    /** The VM adds entries while it runs; returns true if the offset
+        table was rebuilt because new entries appeared */
+    public synchronized boolean refresh() {
+        if (buf.getInt(NUM_ENTRIES_OFFSET) == numEntries) {
+            return false;
+        }
+        decodeEntries();
+        return true;
+    }
+
+    public synchronized int getEntryCount() {
+        return numEntries;
+    }
+
+    public synchronized String getName(int index) {
+        return names[index];
+    }
+
+    /** Returns the index of the named entry, or -1 */
+    public synchronized int indexOf(String name) {
+        Integer index = (Integer) nameToIndex.get(name);
+        return (index == null) ? -1 : index.intValue();
+    }
+
+    /** True for entries in the stable java.* and com.sun.* name
+        spaces; sun.* entries may change between releases */
+    public synchronized boolean supported(int index) {
+        return (flags[index] & 0x1) != 0;
+    }
+
+    /** Returns one of the constants in BasicType */
+    public synchronized int getDataType(int index) {
+        return BasicType.charToType((char) types[index]);
+    }
+
+    public synchronized int getVectorLength(int index) {
+        return vectorLengths[index];
+    }
+
+    /** Returns one of the constants in PerfDataEntry.PerfDataUnits */
+    public synchronized int getUnits(int index) {
+        return units[index];
+    }
+
+    /** Returns one of the constants in PerfDataEntry.PerfDataVariability */
+    public synchronized int getVariability(int index) {
+        return variabilities[index];
+    }
+
+    /** True for scalar long counters, the only numeric kind the VM
+        exports */
+    public synchronized boolean isLong(int index) {
+        return vectorLengths[index] == 0 && types[index] == 'J';
+    }
+
+    /** Reads the current value of a scalar long counter */
+    public long getLong(int index) {
+        return buf.getLong(dataOffsets[index]);
+    }
+
+    /** Reads the current values of the given scalar long counters */
+    public void getLongs(int[] indices, long[] values) {
+        int[] offsets = dataOffsets;
+        for (int i = 0; i < indices.length; i++) {
+            values[i] = buf.getLong(offsets[indices[i]]);
+        }
+    }
+
+    /** Reads a byte vector entry as a NUL-terminated string */
+    public synchronized String getString(int index) {
+        int off = dataOffsets[index];
+        int len = vectorLengths[index];
+        StringBuffer sb = new StringBuffer(len);
+        for (int i = 0; i < len; i++) {
+            byte b = buf.get(off + i);
+            if (b == 0) {
+                break;
+            }
+            sb.append((char) (b & 0xFF));
+        }
+        return sb.toString();
+    }
+
+    // -- Internals only below this point
+
+    private File file;
+    private ByteBuffer buf;
+    // entries decoded so far
+    private int numEntries;
+    private String[] names;
+    private byte[] types;
+    private byte[] flags;
+    private int[] vectorLengths;
+    private int[] units;
+    private int[] variabilities;
+    // replaced, never modified, so the value readers need no lock
+    private volatile int[] dataOffsets;
+    private Map nameToIndex; // <String, Integer>
+
+    private synchronized void decodeEntries() {
+        int num = buf.getInt(NUM_ENTRIES_OFFSET);
+        String[] newNames = new String[num];
+        byte[] newTypes = new byte[num];
+        byte[] newFlags = new byte[num];
+        int[] newVectorLengths = new int[num];
+        int[] newUnits = new int[num];
+        int[] newVariabilities = new int[num];
+        int[] newDataOffsets = new int[num];
+        Map newNameToIndex = new HashMap();
+
+        int off = buf.getInt(ENTRY_OFFSET_OFFSET);
+        int i;
+        for (i = 0; i < num; i++) {
+            int length = buf.getInt(off + ENTRY_LENGTH_OFFSET);
+            if (length <= 0 || off + length > buf.capacity()) {
+                // entry being written; pick it up on the next refresh
+                break;
+            }
+            newNames[i] = readName(off + buf.getInt(off + NAME_OFFSET_OFFSET));
+            newTypes[i] = buf.get(off + DATA_TYPE_OFFSET);
+            newFlags[i] = buf.get(off + FLAGS_OFFSET);
+            newVectorLengths[i] = buf.getInt(off + VECTOR_LENGTH_OFFSET);
+            newUnits[i] = buf.get(off + DATA_UNITS_OFFSET);
+            newVariabilities[i] = buf.get(off + VARIABILITY_OFFSET);
+            newDataOffsets[i] = off + buf.getInt(off + DATA_OFFSET_OFFSET);
+            newNameToIndex.put(newNames[i], new Integer(i));
+            off += length;
+        }
+
+        names = newNames;
+        types = newTypes;
+        flags = newFlags;
+        vectorLengths = newVectorLengths;
+        units = newUnits;
+        variabilities = newVariabilities;
+        nameToIndex = newNameToIndex;
+        numEntries = i;
+        dataOffsets = newDataOffsets;
+    }
+
+    private String readName(int off) {
+        StringBuffer sb = new StringBuffer();
+        for (byte b; (b = buf.get(off)) != 0; off++) {
+            sb.append((char) (b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
@@ -105,10 +105,12 @@ public class VM {
   private CodeCache    codeCache;
   /** This is only present in a C1 build */
   private Runtime1     runtime1;
+  private OopMapCache  oopMapCache;
   /** These constants come from globalDefinitions.hpp */
   private int          invocationEntryBCI;
   private int          invalidOSREntryBCI;
   private ReversePtrs  revPtrs;
+  private DominatorTree dominatorTree;
   private VMRegImpl    vmregImpl;
   private int          reserveForAllocationPrefetch;
 
@@ -681,7 +683,7 @@ public class VM {
   }
 
   /** Returns the code cache; should not be used if is core build */
-  public CodeCache getCodeCache() {
+  public synchronized CodeCache getCodeCache() {
     if (Assert.ASSERTS_ENABLED) {
       Assert.that(!isCore(), "noncore builds only");
     }
@@ -702,6 +704,20 @@ public class VM {
     return runtime1;
   }
 
+  /** Cache of the oop maps of interpreted frames */
+  public synchronized OopMapCache getOopMapCache() {
+    if (oopMapCache == null) {
+      oopMapCache = new OopMapCache();
+    }
+    return oopMapCache;
+  }
+
+  /** Replaces the cache of the oop maps of interpreted frames, for
+      instance with one of a different capacity */
+  public synchronized void setOopMapCache(OopMapCache cache) {
+    oopMapCache = cache;
+  }
+
   /** Test to see whether we're in debugging mode (NOTE: this really
       should not be tested by this code; currently only used in
       StackFrameStream) */
@@ -751,6 +767,14 @@ public class VM {
     revPtrs = rp;
   }
 
+  public DominatorTree getDominatorTree() {
+    return dominatorTree;
+  }
+
+  public void setDominatorTree(DominatorTree tree) {
+    dominatorTree = tree;
+  }
+
   // returns null, if not available.
   public String getVMRelease() {
     return vmRelease;
@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.tools;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import sun.jvm.hotspot.debugger.*;
+import sun.jvm.hotspot.memory.*;
+import sun.jvm.hotspot.oops.*;
+import sun.jvm.hotspot.runtime.*;
+
+/**
+  A command line tool to find duplicated strings and primitive
+  arrays. Arrays are grouped by class, length and a 64-bit hash of
+  their contents, strings by the same key of their value arrays;
+  every copy beyond the first of a group counts as wasted. The live
+  regions of the heap are scanned in parallel. Addresses are not
+  printed, so the output of two runs can be compared directly.
+*/
+
+public class DuplicateStats extends Tool {
+   private static final String PROPERTY_PREFIX = "sun.jvm.hotspot.tools.DuplicateStats.";
+
+   // Number of threads scanning heap regions
+   private int numThreads = Integer.getInteger(PROPERTY_PREFIX + "threads",
+                                               Runtime.getRuntime().availableProcessors()).intValue();
+   // Number of duplicated values listed
+   private int numTop = Integer.getInteger(PROPERTY_PREFIX + "top", 20).intValue();
+
+   // Array contents are read and hashed in chunks of this many bytes
+   private static final int CHUNK_SIZE = 1 << 20;
+   // Printed values are cut off after this many characters
+   private static final int MAX_VALUE_LENGTH = 60;
+
+   public DuplicateStats() {
+      super();
+   }
+
+   public DuplicateStats(JVMDebugger d) {
+      super(d);
+   }
+
+   public static void main(String[] args) {
+      DuplicateStats ds = new DuplicateStats();
+      ds.execute(args);
+   }
+
+   public void run() {
+      printDuplicateStatistics(System.out);
+   }
+
+   // Identifies a group of equal values: strings use the String klass
+   // with the length and hash of their value array
+   private static final class Key {
+      final Klass klass;
+      final long  length;
+      final long  hash;
+
+      Key(Klass klass, long length, long hash) {
+         this.klass = klass; this.length = length; this.hash = hash;
+      }
+
+      public boolean equals(Object o) {
+         if (!(o instanceof Key)) {
+            return false;
+         }
+         Key k = (Key) o;
+         return length == k.length && hash == k.hash && klass.equals(k.klass);
+      }
+
+      public int hashCode() {
+         return (int) (hash ^ (hash >>> 32));
+      }
+   }
+
+   private static final class Group {
+      long count;
+      long size;          // shallow size of each object in the group
+      long sampleAddress; // lowest address, used to print the value
+
+      Group(long size, long address) {
+         this.size = size; this.sampleAddress = address;
+      }
+
+      void add(long address) {
+         count++;
+         if (address < sampleAddress) {
+            sampleAddress = address;
+         }
+      }
+
+      void merge(Group g) {
+         count += g.count;
+         if (g.sampleAddress < sampleAddress) {
+            sampleAddress = g.sampleAddress;
+         }
+      }
+
+      long wasted() {
+         return (count - 1) * size;
+      }
+   }
+
+   private static final class ClassData {
+      String name;
+      long   objects;
+      long   bytes;
+      long   duplicates;
+      long   wasted;
+   }
+
+   private void printDuplicateStatistics(PrintStream out) {
+      final PrintStream err = System.err;
+      VM vm = VM.getVM();
+      final ObjectHeap heap = vm.getObjectHeap();
+      final Debugger dbg = vm.getDebugger();
+      final InstanceKlass stringKlass = SystemDictionary.getStringKlass();
+      OopField valueField = (OopField) stringKlass.findField("value", "[C");
+      if (valueField == null) {
+         valueField = (OopField) stringKlass.findField("value", "[B");
+      }
+      final OopField stringValueField = valueField;
+
+      List regions = heap.getLiveRegions();
+      int numRegions = regions.size() / 2;
+      err.print("scanning " + numRegions + " heap regions ..");
+
+      int threads = Math.max(1, Math.min(numThreads, numRegions));
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      Map groups = new HashMap(); // <Key, Group>
+      try {
+         Future[] futures = new Future[numRegions];
+         for (int i = 0; i < numRegions; i++) {
+            final List region = regions.subList(2 * i, 2 * i + 2);
+            futures[i] = pool.submit(new Callable() {
+                  public Object call() {
+                     return scanRegion(heap, dbg, region, stringKlass, stringValueField);
+                  }
+               });
+         }
+         // Merge in region order
+         for (int i = 0; i < numRegions; i++) {
+            Map regionGroups;
+            try {
+               regionGroups = (Map) futures[i].get();
+            } catch (ExecutionException e) {
+               throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+               throw new RuntimeException(e);
+            }
+            for (Iterator itr = regionGroups.entrySet().iterator(); itr.hasNext();) {
+               Map.Entry entry = (Map.Entry) itr.next();
+               Group g = (Group) groups.get(entry.getKey());
+               if (g == null) {
+                  groups.put(entry.getKey(), entry.getValue());
+               } else {
+                  g.merge((Group) entry.getValue());
+               }
+            }
+         }
+      } finally {
+         pool.shutdownNow();
+      }
+      err.println("done.");
+
+      // Summarize per class
+      Map classMap = new HashMap(); // <Klass, ClassData>
+      List duplicated = new ArrayList(); // <Map.Entry<Key, Group>>
+      for (Iterator itr = groups.entrySet().iterator(); itr.hasNext();) {
+         Map.Entry entry = (Map.Entry) itr.next();
+         Key k = (Key) entry.getKey();
+         Group g = (Group) entry.getValue();
+         ClassData cd = (ClassData) classMap.get(k.klass);
+         if (cd == null) {
+            cd = new ClassData();
+            cd.name = k.klass.getName().asString().replace('/', '.');
+            classMap.put(k.klass, cd);
+         }
+         cd.objects += g.count;
+         cd.bytes += g.count * g.size;
+         if (g.count > 1) {
+            cd.duplicates += g.count - 1;
+            cd.wasted += g.wasted();
+            duplicated.add(entry);
+         }
+      }
+
+      List classes = new ArrayList(classMap.values());
+      Collections.sort(classes, new Comparator() {
+            public int compare(Object o1, Object o2) {
+               ClassData c1 = (ClassData) o1;
+               ClassData c2 = (ClassData) o2;
+               if (c1.wasted != c2.wasted) {
+                  return (c1.wasted > c2.wasted) ? -1 : 1;
+               }
+               return c1.name.compareTo(c2.name);
+            }
+         });
+
+      out.println("class\tobjects\tbytes\tduplicates\twasted");
+      long totalWasted = 0;
+      for (Iterator itr = classes.iterator(); itr.hasNext();) {
+         ClassData cd = (ClassData) itr.next();
+         out.println(cd.name + "\t" + cd.objects + "\t" + cd.bytes + "\t" +
+                     cd.duplicates + "\t" + cd.wasted);
+         totalWasted += cd.wasted;
+      }
+      out.println();
+      out.println("total wasted bytes = " + totalWasted);
+      out.println();
+
+      // Value text is part of the order so that groups with equal
+      // waste are listed the same way in every run
+      final Map valueText = new HashMap(); // <Key, String>
+      Collections.sort(duplicated, new Comparator() {
+            public int compare(Object o1, Object o2) {
+               Group g1 = (Group) ((Map.Entry) o1).getValue();
+               Group g2 = (Group) ((Map.Entry) o2).getValue();
+               long w1 = g1.wasted();
+               long w2 = g2.wasted();
+               if (w1 != w2) {
+                  return (w1 > w2) ? -1 : 1;
+               }
+               return 0;
+            }
+         });
+      int limit = Math.min(numTop, duplicated.size());
+      // Extend the cut over groups tied with the last one printed
+      while (limit > 0 && limit < duplicated.size() &&
+             ((Group) ((Map.Entry) duplicated.get(limit)).getValue()).wasted() ==
+             ((Group) ((Map.Entry) duplicated.get(limit - 1)).getValue()).wasted()) {
+         limit++;
+      }
+      List topList = new ArrayList(duplicated.subList(0, limit));
+      for (Iterator itr = topList.iterator(); itr.hasNext();) {
+         Map.Entry entry = (Map.Entry) itr.next();
+         Key k = (Key) entry.getKey();
+         Group g = (Group) entry.getValue();
+         valueText.put(k, ((ClassData) classMap.get(k.klass)).name + "\t" +
+                          valueString(heap, dbg, g.sampleAddress, stringKlass, stringValueField));
+      }
+      Collections.sort(topList, new Comparator() {
+            public int compare(Object o1, Object o2) {
+               Map.Entry e1 = (Map.Entry) o1;
+               Map.Entry e2 = (Map.Entry) o2;
+               long w1 = ((Group) e1.getValue()).wasted();
+               long w2 = ((Group) e2.getValue()).wasted();
+               if (w1 != w2) {
+                  return (w1 > w2) ? -1 : 1;
+               }
+               return ((String) valueText.get(e1.getKey())).compareTo((String) valueText.get(e2.getKey()));
+            }
+         });
+      if (topList.size() > numTop) {
+         topList = topList.subList(0, numTop);
+      }
+
+      out.println("top duplicated values:");
+      out.println("wasted\tcopies\tclass\tvalue");
+      for (Iterator itr = topList.iterator(); itr.hasNext();) {
+         Map.Entry entry = (Map.Entry) itr.next();
+         Group g = (Group) entry.getValue();
+         out.println(g.wasted() + "\t" + g.count + "\t" + valueText.get(entry.getKey()));
+      }
+   }
+
+   // Returns Map<Key, Group> for the strings and primitive arrays in
+   // one (bottom, top) region
+   private Map scanRegion(ObjectHeap heap, final Debugger dbg, List region,
+                          final InstanceKlass stringKlass, final OopField stringValueField) {
+      final Map groups = new HashMap();
+      final long[] hashAndLength = new long[2];
+      heap.iterateLiveRegions(region, new DefaultHeapVisitor() {
+            public boolean doObj(Oop obj) {
+               Key key = null;
+               if (obj instanceof TypeArray) {
+                  if (hashContents(dbg, (TypeArray) obj, hashAndLength)) {
+                     key = new Key(obj.getKlass(), hashAndLength[1], hashAndLength[0]);
+                  }
+               } else if (stringValueField != null && stringKlass.equals(obj.getKlass())) {
+                  Oop value = stringValueField.getValue(obj);
+                  if (value instanceof TypeArray &&
+                      hashContents(dbg, (TypeArray) value, hashAndLength)) {
+                     key = new Key(stringKlass, hashAndLength[1], hashAndLength[0]);
+                  }
+               }
+               if (key != null) {
+                  long address = dbg.getAddressValue(obj.getHandle());
+                  Group g = (Group) groups.get(key);
+                  if (g == null) {
+                     g = new Group(obj.getObjectSize(), address);
+                     groups.put(key, g);
+                  }
+                  g.add(address);
+               }
+               return false;
+            }
+         }, null);
+      return groups;
+   }
+
+   // Hashes the contents of the array with 64-bit FNV-1a. Returns
+   // false if the contents could not be read.
+   private static boolean hashContents(Debugger dbg, TypeArray array, long[] hashAndLength) {
+      TypeArrayKlass klass = (TypeArrayKlass) array.getKlass();
+      long length = array.getLength();
+      long numBytes = length << klass.getLog2ElementSize();
+      long address = dbg.getAddressValue(array.getHandle()) + klass.getArrayHeaderInBytes();
+      long hash = 0xcbf29ce484222325L;
+      for (long offset = 0; offset < numBytes; offset += CHUNK_SIZE) {
+         long n = Math.min(CHUNK_SIZE, numBytes - offset);
+         byte[] data = dbg.readBytesFromProcess(address + offset, n).getData();
+         if (data == null) {
+            return false;
+         }
+         for (int i = 0; i < data.length; i++) {
+            hash ^= data[i] & 0xFF;
+            hash *= 0x100000001b3L;
+         }
+      }
+      hashAndLength[0] = hash;
+      hashAndLength[1] = length;
+      return true;
+   }
+
+   private static String valueString(ObjectHeap heap, Debugger dbg, long address,
+                                     InstanceKlass stringKlass, OopField stringValueField) {
+      Address addr = dbg.parseAddress("0x" + Long.toHexString(address));
+      Oop obj = heap.newOop(addr.addOffsetToAsOopHandle(0));
+      String s;
+      if (stringKlass.equals(obj.getKlass())) {
+         s = "\"" + OopUtilities.stringOopToEscapedString(obj) + "\"";
+      } else {
+         TypeArray array = (TypeArray) obj;
+         TypeArrayKlass klass = (TypeArrayKlass) array.getKlass();
+         int length = (int) Math.min(array.getLength(), MAX_VALUE_LENGTH);
+         StringBuffer buf = new StringBuffer();
+         switch (klass.getElementType()) {
+         case TypeArrayKlass.T_CHAR:
+            buf.append('"');
+            buf.append(OopUtilities.escapeString(OopUtilities.charArrayToString(array, 0, length)));
+            buf.append('"');
+            break;
+         case TypeArrayKlass.T_BYTE:
+            // Printable ASCII as text, anything else in hex
+            for (int i = 0; i < length; i++) {
+               int b = array.getByteAt(i) & 0xFF;
+               if (b >= 0x20 && b < 0x7F && b != '\\') {
+                  buf.append((char) b);
+               } else {
+                  buf.append("\\x");
+                  buf.append(Character.forDigit(b >> 4, 16));
+                  buf.append(Character.forDigit(b & 0xF, 16));
+               }
+            }
+            break;
+         default:
+            buf.append("length=" + array.getLength());
+            break;
+         }
+         s = buf.toString();
+      }
+      if (s.length() > MAX_VALUE_LENGTH) {
+         s = s.substring(0, MAX_VALUE_LENGTH) + "...";
+      }
+      return s;
+   }
+}
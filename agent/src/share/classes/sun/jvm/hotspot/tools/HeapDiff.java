@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.tools;
+
+import java.io.*;
+import java.util.*;
+
+import sun.jvm.hotspot.debugger.*;
+import sun.jvm.hotspot.oops.*;
+import sun.jvm.hotspot.runtime.*;
+import sun.jvm.hotspot.utilities.*;
+
+/** Compares two heaps. A heap is first written to a summary file:
+    the class histogram sorted by class name, followed by one line
+    per collection (an instance of java.util.Collection or
+    java.util.Map with a known size field) in address order. Two
+    summaries are then compared by a streaming merge, so memory use
+    is bounded by the number of classes rather than objects.
+
+    Collections found at the same address with the same class in both
+    heaps have survived in place, typically in the old generation;
+    those that grew are reported as retained-growth candidates.
+
+    If a heap snapshot index is loaded for a core file, the summary
+    is computed from the snapshot. */
+public class HeapDiff extends Tool {
+    private static final String PROPERTY_PREFIX = "sun.jvm.hotspot.tools.HeapDiff.";
+    private static final String HEADER = "# SA heap summary 1";
+    private static final String CLASSES = "classes";
+    private static final String COLLECTIONS = "collections";
+
+    public static final int MODE_SAVE = 0;
+    public static final int MODE_DIFF = 1;
+
+    public HeapDiff(int mode, String fileName) {
+        this.mode = mode;
+        this.fileName = fileName;
+    }
+
+    public HeapDiff(JVMDebugger d, int mode, String fileName) {
+        super(d);
+        this.mode = mode;
+        this.fileName = fileName;
+    }
+
+    public String getName() {
+        return "heapdiff";
+    }
+
+    protected void printUsage() {
+        String name = "java " + getClass().getName();
+        System.out.println("Usage: " + name + " -save <summary> <pid> | <executable> <core> | <server>");
+        System.out.println("\t\t(to write a heap summary)");
+        System.out.println("   or " + name + " -diff <summary> <pid> | <executable> <core> | <server>");
+        System.out.println("\t\t(to compare a heap against an earlier summary)");
+        System.out.println("   or " + name + " -files <summary> <summary>");
+        System.out.println("\t\t(to compare two heap summaries)");
+    }
+
+    public void run() {
+        File file = new File(fileName);
+        try {
+            if (mode == MODE_SAVE) {
+                writeSummary(file);
+                System.out.println("heap summary written to " + fileName);
+            } else {
+                File current = File.createTempFile("heapdiff", ".txt", file.getAbsoluteFile().getParentFile());
+                try {
+                    writeSummary(current);
+                    diff(file, current, System.out);
+                } finally {
+                    current.delete();
+                }
+            }
+        } catch (IOException exp) {
+            throw new RuntimeException(exp);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("-files")) {
+            diff(new File(args[1]), new File(args[2]), System.out);
+            return;
+        }
+        int mode = -1;
+        if (args.length > 2) {
+            if (args[0].equals("-save")) {
+                mode = MODE_SAVE;
+            } else if (args[0].equals("-diff")) {
+                mode = MODE_DIFF;
+            }
+        }
+        if (mode == -1) {
+            new HeapDiff(MODE_SAVE, null).usage();
+            System.exit(1);
+        }
+        String[] newArgs = new String[args.length - 2];
+        for (int i = 0; i < newArgs.length; i++) {
+            newArgs[i] = args[i + 2];
+        }
+        HeapDiff hd = new HeapDiff(mode, args[1]);
+        hd.execute(newArgs);
+    }
+
+    /** Writes the summary of the attached heap to the given file */
+    public void writeSummary(File file) throws IOException {
+        final sun.jvm.hotspot.oops.ObjectHistogram histogram =
+            new sun.jvm.hotspot.oops.ObjectHistogram();
+        final CollectionSizer sizer = new CollectionSizer();
+        final Debugger dbg = VM.getVM().getDebugger();
+
+        // Collection lines go to a side file while the histogram is
+        // filled, since the histogram section comes first
+        File collections = File.createTempFile("heapdiff", ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            final PrintStream cout = new PrintStream(new BufferedOutputStream(new FileOutputStream(collections)));
+            System.err.println("Iterating over heap. This may take a while...");
+            try {
+                VM.getVM().getObjectHeap().iterate(new DefaultHeapVisitor() {
+                        public boolean doObj(Oop obj) {
+                            histogram.doObj(obj);
+                            long elements = sizer.elementCount(obj);
+                            if (elements >= 0) {
+                                cout.println(addressString(dbg.getAddressValue(obj.getHandle())) + "\t" +
+                                             elements + "\t" + sizer.describe(obj.getKlass()));
+                            }
+                            return false;
+                        }
+                    });
+            } finally {
+                cout.close();
+            }
+
+            PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                out.println(HEADER);
+                out.println(CLASSES);
+                histogram.printSummaryOn(out);
+                out.println(COLLECTIONS);
+                BufferedReader in = new BufferedReader(new FileReader(collections));
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        out.println(line);
+                    }
+                } finally {
+                    in.close();
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            collections.delete();
+        }
+    }
+
+    /** Compares two summary files and prints the differences */
+    public static void diff(File base, File current, PrintStream out) throws IOException {
+        int top = Integer.getInteger(PROPERTY_PREFIX + "top", 20).intValue();
+        SummaryReader a = new SummaryReader(base);
+        SummaryReader b = new SummaryReader(current);
+        try {
+            out.println("Heap diff: " + base + " -> " + current);
+            out.println();
+            diffClasses(a, b, out);
+            out.println();
+            diffCollections(a, b, out, top);
+        } finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    // -- Internals only below this point
+
+    private int mode;
+    private String fileName;
+
+    private static String addressString(long address) {
+        String hex = Long.toHexString(address);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    // Counts the elements of collections and maps, caching the
+    // element count field per class
+    private static class CollectionSizer {
+        private static final Object NOT_A_COLLECTION = new Object();
+        private Map klassToField = new HashMap(); // <Klass, Field or NOT_A_COLLECTION>
+        private Map klassToName = new HashMap();  // <Klass, String>
+        private Klass collectionKlass;
+        private Klass mapKlass;
+
+        CollectionSizer() {
+            collectionKlass = SystemDictionaryHelper.findInstanceKlass("java.util.Collection");
+            mapKlass = SystemDictionaryHelper.findInstanceKlass("java.util.Map");
+        }
+
+        String describe(Klass k) {
+            String name = (String) klassToName.get(k);
+            if (name == null) {
+                name = k.getName().asString().replace('/', '.');
+                klassToName.put(k, name);
+            }
+            return name;
+        }
+
+        // Returns -1 if obj is not a collection of known size
+        long elementCount(Oop obj) {
+            if (!(obj instanceof Instance)) {
+                return -1;
+            }
+            Klass k = obj.getKlass();
+            Object f = klassToField.get(k);
+            if (f == null) {
+                f = findCountField((InstanceKlass) k);
+                klassToField.put(k, f);
+            }
+            if (f instanceof IntField) {
+                return ((IntField) f).getValue(obj);
+            } else if (f instanceof OopField) {
+                // Sets backed by a map
+                Oop backing = ((OopField) f).getValue(obj);
+                return (backing == null) ? 0 : Math.max(0, elementCount(backing));
+            }
+            return -1;
+        }
+
+        private Object findCountField(InstanceKlass k) {
+            if (!((collectionKlass != null && k.isSubtypeOf(collectionKlass)) ||
+                  (mapKlass != null && k.isSubtypeOf(mapKlass)))) {
+                return NOT_A_COLLECTION;
+            }
+            String[] intFields = { "size", "elementCount", "count" };
+            for (int i = 0; i < intFields.length; i++) {
+                Field f = k.findField(intFields[i], "I");
+                if (f instanceof IntField) {
+                    return f;
+                }
+            }
+            String[][] mapFields = { { "map", "Ljava/util/HashMap;" },
+                                     { "m", "Ljava/util/NavigableMap;" } };
+            for (int i = 0; i < mapFields.length; i++) {
+                Field f = k.findField(mapFields[i][0], mapFields[i][1]);
+                if (f instanceof OopField) {
+                    return f;
+                }
+            }
+            return NOT_A_COLLECTION;
+        }
+    }
+
+    // Reads a summary file one line at a time. Each section must be
+    // sorted by its key: class name, then collection address.
+    private static class SummaryReader {
+        private File file;
+        private BufferedReader in;
+        private String line;
+        private String lastKey;
+
+        SummaryReader(File file) throws IOException {
+            this.file = file;
+            in = new BufferedReader(new FileReader(file));
+            if (!HEADER.equals(in.readLine()) || !CLASSES.equals(in.readLine())) {
+                in.close();
+                throw new RuntimeException(file + " is not a heap summary");
+            }
+            advance();
+        }
+
+        // Returns the fields of the current line of the current
+        // section, or null at the end of the section
+        String[] peek() {
+            if (line == null || line.equals(COLLECTIONS)) {
+                return null;
+            }
+            String[] fields = line.split("\t", 3);
+            if (fields.length != 3) {
+                throw new RuntimeException(file + ": malformed line: " + line);
+            }
+            return fields;
+        }
+
+        // Moves past the current line, checking the sort order
+        void advance() throws IOException {
+            line = in.readLine();
+            if (line == null || line.equals(COLLECTIONS)) {
+                lastKey = null;
+                return;
+            }
+            String[] fields = peek();
+            String key = lastKeyIsAddress ? fields[0] : fields[2];
+            if (lastKey != null && lastKey.compareTo(key) >= 0) {
+                throw new RuntimeException(file + ": not sorted at line: " + line);
+            }
+            lastKey = key;
+        }
+
+        // Moves to the collections section
+        void nextSection() throws IOException {
+            while (line != null && !line.equals(COLLECTIONS)) {
+                line = in.readLine();
+            }
+            if (line == null) {
+                throw new RuntimeException(file + " has no collections section");
+            }
+            lastKeyIsAddress = true;
+            advance();
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+
+        private boolean lastKeyIsAddress;
+    }
+
+    private static class ClassDelta {
+        String name;
+        long count;
+        long countDelta;
+        long size;
+        long sizeDelta;
+    }
+
+    private static void diffClasses(SummaryReader a, SummaryReader b, PrintStream out) throws IOException {
+        List deltas = new ArrayList(); // <ClassDelta>
+        long totalCountDelta = 0;
+        long totalSizeDelta = 0;
+        String[] x = a.peek();
+        String[] y = b.peek();
+        while (x != null || y != null) {
+            int cmp = (x == null) ? 1 : (y == null) ? -1 : x[2].compareTo(y[2]);
+            ClassDelta d = new ClassDelta();
+            if (cmp < 0) {
+                d.name = x[2];
+                d.countDelta = -Long.parseLong(x[0]);
+                d.sizeDelta = -Long.parseLong(x[1]);
+                a.advance();
+            } else if (cmp > 0) {
+                d.name = y[2];
+                d.count = Long.parseLong(y[0]);
+                d.size = Long.parseLong(y[1]);
+                d.countDelta = d.count;
+                d.sizeDelta = d.size;
+                b.advance();
+            } else {
+                d.name = y[2];
+                d.count = Long.parseLong(y[0]);
+                d.size = Long.parseLong(y[1]);
+                d.countDelta = d.count - Long.parseLong(x[0]);
+                d.sizeDelta = d.size - Long.parseLong(x[1]);
+                a.advance();
+                b.advance();
+            }
+            if (d.countDelta != 0 || d.sizeDelta != 0) {
+                deltas.add(d);
+                totalCountDelta += d.countDelta;
+                totalSizeDelta += d.sizeDelta;
+            }
+            x = a.peek();
+            y = b.peek();
+        }
+
+        Collections.sort(deltas, new Comparator() {
+                public int compare(Object o1, Object o2) {
+                    ClassDelta d1 = (ClassDelta) o1;
+                    ClassDelta d2 = (ClassDelta) o2;
+                    long m1 = Math.abs(d1.sizeDelta);
+                    long m2 = Math.abs(d2.sizeDelta);
+                    if (m1 != m2) {
+                        return (m1 > m2) ? -1 : 1;
+                    }
+                    return d1.name.compareTo(d2.name);
+                }
+            });
+        out.println("Changed classes:");
+        out.println("#instances\tdelta\t#bytes\tdelta\tClass description");
+        for (Iterator itr = deltas.iterator(); itr.hasNext();) {
+            ClassDelta d = (ClassDelta) itr.next();
+            out.println(d.count + "\t" + signed(d.countDelta) + "\t" +
+                        d.size + "\t" + signed(d.sizeDelta) + "\t" + d.name);
+        }
+        out.println("Total delta : \t" + signed(totalCountDelta) + "\t\t" + signed(totalSizeDelta));
+    }
+
+    private static class Candidate {
+        String address;
+        String name;
+        long elements;
+        long delta;
+    }
+
+    private static void diffCollections(SummaryReader a, SummaryReader b, PrintStream out, int top)
+        throws IOException {
+        a.nextSection();
+        b.nextSection();
+        // Per collection class: base count, base elements, current
+        // count, current elements, new, grown
+        Map perClass = new TreeMap(); // <String, long[]>
+        long numNew = 0, newElements = 0;
+        long numGrown = 0, grownElements = 0;
+        long numGone = 0;
+        // Smallest growth first, so the head is the one to drop
+        PriorityQueue candidates = new PriorityQueue(Math.max(1, top), new Comparator() {
+                public int compare(Object o1, Object o2) {
+                    Candidate c1 = (Candidate) o1;
+                    Candidate c2 = (Candidate) o2;
+                    if (c1.delta != c2.delta) {
+                        return (c1.delta < c2.delta) ? -1 : 1;
+                    }
+                    return c2.address.compareTo(c1.address);
+                }
+            });
+
+        String[] x = a.peek();
+        String[] y = b.peek();
+        while (x != null || y != null) {
+            int cmp = (x == null) ? 1 : (y == null) ? -1 : x[0].compareTo(y[0]);
+            if (cmp <= 0) {
+                classCounts(perClass, x[2])[0]++;
+                classCounts(perClass, x[2])[1] += Long.parseLong(x[1]);
+            }
+            if (cmp >= 0) {
+                long[] c = classCounts(perClass, y[2]);
+                long elements = Long.parseLong(y[1]);
+                c[2]++;
+                c[3] += elements;
+                if (cmp == 0 && x[2].equals(y[2])) {
+                    long delta = elements - Long.parseLong(x[1]);
+                    if (delta > 0) {
+                        c[5]++;
+                        numGrown++;
+                        grownElements += delta;
+                        Candidate cand = new Candidate();
+                        cand.address = y[0];
+                        cand.name = y[2];
+                        cand.elements = elements;
+                        cand.delta = delta;
+                        candidates.add(cand);
+                        if (candidates.size() > top) {
+                            candidates.poll();
+                        }
+                    }
+                } else {
+                    c[4]++;
+                    numNew++;
+                    newElements += elements;
+                    if (cmp == 0) {
+                        numGone++;
+                    }
+                }
+            } else {
+                numGone++;
+            }
+            if (cmp <= 0) {
+                a.advance();
+            }
+            if (cmp >= 0) {
+                b.advance();
+            }
+            x = a.peek();
+            y = b.peek();
+        }
+
+        out.println("Collections:");
+        out.println("#collections\tdelta\t#elements\tdelta\t#new\t#grown\tClass description");
+        for (Iterator itr = perClass.entrySet().iterator(); itr.hasNext();) {
+            Map.Entry entry = (Map.Entry) itr.next();
+            long[] c = (long[]) entry.getValue();
+            if (c[0] == c[2] && c[1] == c[3] && c[4] == 0 && c[5] == 0) {
+                continue;
+            }
+            out.println(c[2] + "\t" + signed(c[2] - c[0]) + "\t" + c[3] + "\t" + signed(c[3] - c[1]) +
+                        "\t" + c[4] + "\t" + c[5] + "\t" + entry.getKey());
+        }
+        out.println("new collections : " + numNew + " with " + newElements + " elements");
+        out.println("grown collections : " + numGrown + " by " + grownElements + " elements");
+        out.println("collections gone : " + numGone);
+        out.println();
+
+        List list = new ArrayList(candidates);
+        Collections.sort(list, Collections.reverseOrder(candidates.comparator()));
+        out.println("Retained growth candidates (same address and class in both heaps):");
+        out.println("address\t#elements\tdelta\tClass description");
+        for (Iterator itr = list.iterator(); itr.hasNext();) {
+            Candidate c = (Candidate) itr.next();
+            out.println("0x" + c.address + "\t" + c.elements + "\t" + signed(c.delta) + "\t" + c.name);
+        }
+    }
+
+    private static long[] classCounts(Map perClass, String name) {
+        long[] c = (long[]) perClass.get(name);
+        if (c == null) {
+            c = new long[6];
+            perClass.put(name, c);
+        }
+        return c;
+    }
+
+    private static String signed(long value) {
+        return (value > 0) ? "+" + value : Long.toString(value);
+    }
+}
@@ -27,6 +27,8 @@ package sun.jvm.hotspot.tools;
 import sun.jvm.hotspot.utilities.HeapHprofBinWriter;
 import sun.jvm.hotspot.debugger.JVMDebugger;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
 
 /*
  * This tool is used by the JDK jmap utility to dump the heap of the target
@@ -38,6 +40,8 @@ public class HeapDumper extends Tool {
     private static String DEFAULT_DUMP_FILE = "heap.bin";
 
     private String dumpFile;
+    private boolean compress;
+    private OutputStream stdout;
 
     public HeapDumper(String dumpFile) {
         this.dumpFile = dumpFile;
@@ -51,12 +55,19 @@ public class HeapDumper extends Tool {
     protected void printFlagsUsage() {
         System.out.println("    <no option>\tto dump heap to " +
             DEFAULT_DUMP_FILE);
-        System.out.println("    -f <file>\tto dump heap to <file>");
+        System.out.println("    -f <file>\tto dump heap to <file>, gzip-compressed if it ends in .gz");
+        System.out.println("    -f -\tto stream the heap dump to standard output");
+        System.out.println("    -f <host>:<port>\tto stream the heap dump to a socket");
+        System.out.println("    -gz\tto compress a streamed heap dump with gzip");
         super.printFlagsUsage();
     }
 
     // use HeapHprofBinWriter to write the heap dump
     public void run() {
+        if (dumpFile.equals("-") || isSocketAddress(dumpFile)) {
+            stream();
+            return;
+        }
         System.out.println("Dumping heap to " + dumpFile + " ...");
         try {
             new HeapHprofBinWriter().write(dumpFile);
@@ -66,10 +77,63 @@ public class HeapDumper extends Tool {
         }
     }
 
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    // Standard output may carry the dump, so progress goes to stderr
+    private void stream() {
+        System.err.println("Dumping heap to " + dumpFile + " ...");
+        Socket socket = null;
+        try {
+            OutputStream os;
+            if (dumpFile.equals("-")) {
+                os = (stdout != null) ? stdout : System.out;
+            } else {
+                int colon = dumpFile.lastIndexOf(':');
+                socket = new Socket(dumpFile.substring(0, colon),
+                                    Integer.parseInt(dumpFile.substring(colon + 1)));
+                os = socket.getOutputStream();
+            }
+            new HeapHprofBinWriter().write(os, compress);
+            System.err.println("Heap dump written");
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+        } finally {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ioe) {
+                    System.err.println(ioe.getMessage());
+                }
+            }
+        }
+    }
+
+    private static boolean isSocketAddress(String name) {
+        int colon = name.lastIndexOf(':');
+        if (colon <= 0 || colon == name.length() - 1) {
+            return false;
+        }
+        for (int i = colon + 1; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // JDK jmap utility will always invoke this tool as:
     //   HeapDumper -f <file> <args...>
     public static void main(String args[]) {
         String file = DEFAULT_DUMP_FILE;
+        boolean compress = false;
+        if (args.length > 1 && args[0].equals("-gz")) {
+            compress = true;
+            String[] newargs = new String[args.length-1];
+            System.arraycopy(args, 1, newargs, 0, args.length-1);
+            args = newargs;
+        }
         if (args.length > 2) {
             if (args[0].equals("-f")) {
                 file = args[1];
@@ -80,6 +144,12 @@ public class HeapDumper extends Tool {
         }
 
         HeapDumper dumper = new HeapDumper(file);
+        dumper.setCompress(compress);
+        if (file.equals("-")) {
+            // keep the attach messages out of the dump
+            dumper.stdout = System.out;
+            System.setOut(System.err);
+        }
         dumper.execute(args);
     }
 
@@ -50,7 +50,7 @@ public class JMap extends Tool {
     }
 
     protected String getCommandFlags() {
-        return "-heap|-heap:format=b|-histo|-clstats|-finalizerinfo";
+        return "-heap|-heap:format=b|-histo|-clstats|-finalizerinfo|-dupstats";
     }
 
     protected void printFlagsUsage() {
@@ -60,6 +60,7 @@ public class JMap extends Tool {
         System.out.println("    -histo\tto print histogram of java object heap");
         System.out.println("    -clstats\tto print class loader statistics");
         System.out.println("    -finalizerinfo\tto print information on objects awaiting finalization");
+        System.out.println("    -dupstats\tto print duplicated strings and primitive arrays");
         super.printFlagsUsage();
     }
 
@@ -70,6 +71,7 @@ public class JMap extends Tool {
     public static final int MODE_HEAP_GRAPH_HPROF_BIN = 4;
     public static final int MODE_HEAP_GRAPH_GXL = 5;
     public static final int MODE_FINALIZERINFO = 6;
+    public static final int MODE_DUPSTATS = 7;
 
     public void run() {
         Tool tool = null;
@@ -103,6 +105,10 @@ public class JMap extends Tool {
             tool = new FinalizerInfo();
             break;
 
+        case MODE_DUPSTATS:
+            tool = new DuplicateStats();
+            break;
+
         default:
             usage();
             break;
@@ -126,6 +132,8 @@ public class JMap extends Tool {
                 mode = MODE_CLSTATS;
             } else if (modeFlag.equals("-finalizerinfo")) {
                 mode = MODE_FINALIZERINFO;
+            } else if (modeFlag.equals("-dupstats")) {
+                mode = MODE_DUPSTATS;
             } else {
                 int index = modeFlag.indexOf("-heap:format=");
                 if (index != -1) {
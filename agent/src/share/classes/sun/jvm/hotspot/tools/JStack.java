@@ -51,6 +51,8 @@ public class JStack extends Tool {
     protected void printFlagsUsage() {
        System.out.println("    -l\tto print java.util.concurrent locks");
        System.out.println("    -m\tto print both java and native frames (mixed mode)");
+       System.out.println("    -p\tto walk java thread stacks in parallel (not with -m)");
+       System.out.println("    -g\tto print threads with identical stacks together (not with -m)");
        super.printFlagsUsage();
     }
 
@@ -59,7 +61,12 @@ public class JStack extends Tool {
         if (mixedMode) {
             tool = new PStack(false, concurrentLocks);
         } else {
-            tool = new StackTrace(false, concurrentLocks);
+            StackTrace st = new StackTrace(false, concurrentLocks);
+            if (parallel) {
+                st.setParallelism(Runtime.getRuntime().availableProcessors());
+            }
+            st.setGroupIdenticalStacks(groupIdenticalStacks);
+            tool = st;
         }
         tool.setAgent(getAgent());
         tool.setDebugeeType(getDebugeeType());
@@ -69,6 +76,8 @@ public class JStack extends Tool {
     public static void main(String[] args) {
         boolean mixedMode = false;
         boolean concurrentLocks = false;
+        boolean parallel = false;
+        boolean groupIdenticalStacks = false;
         int used = 0;
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("-m")) {
@@ -77,6 +86,12 @@ public class JStack extends Tool {
             } else if (args[i].equals("-l")) {
                 concurrentLocks = true;
                 used++;
+            } else if (args[i].equals("-p")) {
+                parallel = true;
+                used++;
+            } else if (args[i].equals("-g")) {
+                groupIdenticalStacks = true;
+                used++;
             }
         }
 
@@ -89,9 +104,13 @@ public class JStack extends Tool {
         }
 
         JStack jstack = new JStack(mixedMode, concurrentLocks);
+        jstack.parallel = parallel;
+        jstack.groupIdenticalStacks = groupIdenticalStacks;
         jstack.execute(args);
     }
 
     private boolean mixedMode;
     private boolean concurrentLocks;
+    private boolean parallel;
+    private boolean groupIdenticalStacks;
 }
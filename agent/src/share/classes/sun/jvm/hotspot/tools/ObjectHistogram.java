@@ -52,7 +52,11 @@ public class ObjectHistogram extends Tool {
         new sun.jvm.hotspot.oops.ObjectHistogram();
       err.println("Iterating over heap. This may take a while...");
       long startTime = System.currentTimeMillis();
-      heap.iterate(histogram);
+      if (heap.getSnapshot() != null) {
+         histogram.addSnapshot(heap.getSnapshot());
+      } else {
+         heap.iterate(histogram);
+      }
       long endTime = System.currentTimeMillis();
       histogram.printOn(out);
       float secs = (float) (endTime - startTime) / 1000.0f;
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2004, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.tools;
+
+import java.io.*;
+import sun.jvm.hotspot.debugger.Address;
+import sun.jvm.hotspot.debugger.JVMDebugger;
+import sun.jvm.hotspot.interpreter.OopMapCache;
+import sun.jvm.hotspot.runtime.*;
+
+/*
+ * Measures the cache of the oop maps of interpreted frames on a live
+ * process or core file. Walks the roots on all thread stacks the way
+ * revptrs does and the stacks with their locals the way jstack -v
+ * does, once with caching disabled and once with the default cache
+ * size, and prints the time and hit rate of each.
+ *
+ *   java sun.jvm.hotspot.tools.OopMapCacheBenchmark [ -i <iterations> ] <pid> | <exe> <core>
+ */
+public class OopMapCacheBenchmark extends Tool {
+
+    public OopMapCacheBenchmark() {
+        super();
+    }
+
+    public OopMapCacheBenchmark(JVMDebugger d) {
+        super(d);
+    }
+
+    protected void printFlagsUsage() {
+        System.out.println("    -i <iterations>\tto walk the stacks that many times per cache size (default 5)");
+        super.printFlagsUsage();
+    }
+
+    public static void main(String[] args) {
+        OopMapCacheBenchmark benchmark = new OopMapCacheBenchmark();
+        if (args.length > 2 && args[0].equals("-i")) {
+            benchmark.iterations = Integer.parseInt(args[1]);
+            String[] newArgs = new String[args.length - 2];
+            System.arraycopy(args, 2, newArgs, 0, newArgs.length);
+            args = newArgs;
+        }
+        benchmark.execute(args);
+    }
+
+    public void run() {
+        VM vm = VM.getVM();
+        OopMapCache original = vm.getOopMapCache();
+        int defaultSize = Integer.getInteger("sun.jvm.hotspot.interpreter.OopMapCache.size", 4096).intValue();
+        PrintStream nullStream = new PrintStream(new OutputStream() {
+                public void write(int b) {
+                }
+                public void write(byte[] b, int off, int len) {
+                }
+            });
+
+        try {
+            // Warm up the type and frame caches so that the first
+            // measurement does not pay for them
+            walkRoots();
+
+            int[] sizes = { 0, defaultSize };
+            for (int i = 0; i < sizes.length; i++) {
+                System.out.println("cache size " + sizes[i] + ":");
+
+                OopMapCache cache = new OopMapCache(sizes[i]);
+                vm.setOopMapCache(cache);
+                long start = System.nanoTime();
+                long roots = 0;
+                for (int j = 0; j < iterations; j++) {
+                    roots += walkRoots();
+                }
+                report("revptrs roots", start, roots / iterations + " roots", cache);
+
+                cache = new OopMapCache(sizes[i]);
+                vm.setOopMapCache(cache);
+                start = System.nanoTime();
+                for (int j = 0; j < iterations; j++) {
+                    StackTrace trace = new StackTrace(true, false);
+                    trace.setAgent(getAgent());
+                    trace.setDebugeeType(getDebugeeType());
+                    trace.run(nullStream);
+                }
+                report("jstack -v", start, null, cache);
+            }
+        } finally {
+            vm.setOopMapCache(original);
+        }
+    }
+
+    // Visits the oops on all thread stacks, as ReversePtrsAnalysis
+    // does for its roots, and returns how many it found
+    private long walkRoots() {
+        final long[] count = new long[1];
+        AddressVisitor visitor = new AddressVisitor() {
+                public void visitAddress(Address addr) {
+                    count[0]++;
+                }
+                public void visitCompOopAddress(Address addr) {
+                    count[0]++;
+                }
+            };
+        Threads threads = VM.getVM().getThreads();
+        for (JavaThread cur = threads.first(); cur != null; cur = cur.next()) {
+            if (cur.isJavaThread()) {
+                for (StackFrameStream fst = new StackFrameStream(cur); !fst.isDone(); fst.next()) {
+                    fst.getCurrent().oopsDo(visitor, fst.getRegisterMap());
+                }
+            }
+        }
+        return count[0];
+    }
+
+    private void report(String name, long start, String detail, OopMapCache cache) {
+        double millis = (System.nanoTime() - start) / 1e6 / iterations;
+        System.out.print("    " + name + ": " + Math.round(millis) + " ms per walk");
+        if (detail != null) {
+            System.out.print(", " + detail);
+        }
+        System.out.println();
+        System.out.print("    ");
+        cache.printStatisticsOn(System.out);
+    }
+
+    private int iterations = 5;
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.tools;
+
+import java.io.*;
+import java.util.*;
+import sun.jvm.hotspot.runtime.PerfDataFile;
+
+/** Polls selected performance counters of a running VM from its
+    hsperfdata file at a fixed interval. Unlike JSnap it does not
+    attach: the target is never stopped. Samples are printed as CSV as
+    they are taken or, with -r, kept in a ring buffer holding the most
+    recent samples, which is printed when sampling ends. */
+
+public class PerfDataSampler {
+    // GC, compiler and class loading counters
+    private static final String DEFAULT_PREFIXES =
+        "sun.gc.collector.,sun.gc.generation.,sun.ci.total,sun.ci.lastSize,java.cls.,sun.cls.time";
+
+    /** A fixed-capacity buffer of samples; each sample is a time stamp
+        followed by one value per counter */
+    public static class SampleRing {
+        public SampleRing(int capacity, int width) {
+            this.capacity = capacity;
+            this.width = width;
+            data = new long[capacity * (width + 1)];
+        }
+
+        public synchronized void add(long time, long[] values) {
+            int base = next * (width + 1);
+            data[base] = time;
+            System.arraycopy(values, 0, data, base + 1, width);
+            next = (next + 1) % capacity;
+            if (size < capacity) {
+                size++;
+            }
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+
+        /** Prints the samples, oldest first */
+        public synchronized void printCSVOn(PrintStream out) {
+            int first = (size < capacity) ? 0 : next;
+            for (int i = 0; i < size; i++) {
+                int base = ((first + i) % capacity) * (width + 1);
+                StringBuffer sb = new StringBuffer();
+                sb.append(data[base]);
+                for (int j = 1; j <= width; j++) {
+                    sb.append(',');
+                    sb.append(data[base + j]);
+                }
+                out.println(sb.toString());
+            }
+        }
+
+        private int capacity;
+        private int width;
+        private long[] data;
+        private int next;
+        private int size;
+    }
+
+    public PerfDataSampler(PerfDataFile perfData, String[] prefixes) {
+        this.perfData = perfData;
+        List selected = new ArrayList(); // <Integer>
+        int count = perfData.getEntryCount();
+        for (int i = 0; i < count; i++) {
+            if (!perfData.isLong(i)) {
+                continue;
+            }
+            String name = perfData.getName(i);
+            for (int j = 0; j < prefixes.length; j++) {
+                if (name.startsWith(prefixes[j])) {
+                    selected.add(new Integer(i));
+                    break;
+                }
+            }
+        }
+        indices = new int[selected.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = ((Integer) selected.get(i)).intValue();
+        }
+        values = new long[indices.length];
+    }
+
+    public int getCounterCount() {
+        return indices.length;
+    }
+
+    public void printHeaderOn(PrintStream out) {
+        StringBuffer sb = new StringBuffer("time_ms");
+        for (int i = 0; i < indices.length; i++) {
+            sb.append(',');
+            sb.append(perfData.getName(indices[i]));
+        }
+        out.println(sb.toString());
+    }
+
+    /** Reads all selected counters; the returned array is reused */
+    public long[] sample() {
+        perfData.getLongs(indices, values);
+        return values;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long interval = 100;
+        long count = -1;
+        int ringSize = 0;
+        String prefixes = DEFAULT_PREFIXES;
+        int i = 0;
+        try {
+            for (; i < args.length - 1; i++) {
+                if (args[i].equals("-i")) {
+                    interval = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-n")) {
+                    count = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-r")) {
+                    ringSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-c")) {
+                    prefixes = args[++i];
+                } else {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            i = -1;
+        }
+        if (i != args.length - 1) {
+            usage();
+            System.exit(1);
+        }
+
+        File file;
+        try {
+            file = PerfDataFile.forPid(Integer.parseInt(args[i]));
+        } catch (NumberFormatException e) {
+            file = new File(args[i]);
+        }
+        if (file == null || !file.isFile()) {
+            System.err.println("no hsperfdata file found for " + args[i]);
+            System.exit(1);
+        }
+
+        final PerfDataSampler sampler = new PerfDataSampler(new PerfDataFile(file), prefixes.split(","));
+        if (sampler.getCounterCount() == 0) {
+            System.err.println("no counters match " + prefixes);
+            System.exit(1);
+        }
+        final PrintStream out = new PrintStream(new BufferedOutputStream(System.out), false);
+        sampler.printHeaderOn(out);
+        final SampleRing ring = (ringSize > 0) ? new SampleRing(ringSize, sampler.getCounterCount()) : null;
+        if (ring != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                    public void run() {
+                        ring.printCSVOn(out);
+                        out.flush();
+                    }
+                });
+        }
+
+        long next = System.currentTimeMillis();
+        for (long n = 0; count < 0 || n < count; n++) {
+            long now = System.currentTimeMillis();
+            long[] values = sampler.sample();
+            if (ring != null) {
+                ring.add(now, values);
+            } else {
+                StringBuffer sb = new StringBuffer();
+                sb.append(now);
+                for (int j = 0; j < values.length; j++) {
+                    sb.append(',');
+                    sb.append(values[j]);
+                }
+                out.println(sb.toString());
+                out.flush();
+            }
+            next += interval;
+            long sleep = next - System.currentTimeMillis();
+            if (sleep > 0) {
+                Thread.sleep(sleep);
+            } else {
+                // fell behind; do not try to catch up with a burst
+                next = System.currentTimeMillis();
+            }
+        }
+        if (ring == null) {
+            out.flush();
+        }
+    }
+
+    // -- Internals only below this point
+
+    private PerfDataFile perfData;
+    private int[] indices;
+    private long[] values;
+
+    private static void usage() {
+        System.out.println("Usage: java " + PerfDataSampler.class.getName() +
+                           " [-i <millis>] [-n <count>] [-r <size>] [-c <prefix>,...] <pid> | <hsperfdata file>");
+        System.out.println("    -i <millis>\tsampling interval, default 100");
+        System.out.println("    -n <count>\tnumber of samples, default unlimited");
+        System.out.println("    -r <size>\tkeep the last <size> samples and print them at exit");
+        System.out.println("    -c <prefix>,...\tcounter name prefixes, default " + DEFAULT_PREFIXES);
+    }
+}
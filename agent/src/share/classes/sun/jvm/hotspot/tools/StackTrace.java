@@ -24,6 +24,20 @@
 
 package sun.jvm.hotspot.tools;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import sun.jvm.hotspot.debugger.*;
 import sun.jvm.hotspot.runtime.*;
 import sun.jvm.hotspot.oops.*;
@@ -55,6 +69,19 @@ public class StackTrace extends Tool {
         this.concurrentLocks = concurrentLocks;
     }
 
+    /** Sets the number of threads used to walk the stacks. The
+        default of 1 walks every stack on the calling thread; output
+        is always printed in thread list order. */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /** If set, threads whose stacks are identical are printed
+        together, followed by a single copy of the shared stack */
+    public void setGroupIdenticalStacks(boolean groupIdenticalStacks) {
+        this.groupIdenticalStacks = groupIdenticalStacks;
+    }
+
     public void run(java.io.PrintStream tty) {
         // Ready to go with the database...
         try {
@@ -70,76 +97,180 @@ public class StackTrace extends Tool {
             if (concurrentLocks) {
                 concLocksPrinter = new ConcurrentLocksPrinter();
             }
+            List javaThreads = new ArrayList(); // <JavaThread>
             Threads threads = VM.getVM().getThreads();
-            int i = 1;
-            for (JavaThread cur = threads.first(); cur != null; cur = cur.next(), i++) {
+            for (JavaThread cur = threads.first(); cur != null; cur = cur.next()) {
                 if (cur.isJavaThread()) {
-                    Address sp = cur.getLastJavaSP();
-                    tty.print("Thread ");
-                    cur.printThreadIDOn(tty);
-                    tty.print(": (state = " + cur.getThreadState());
-                    if (verbose) {
-                        tty.println(", current Java SP = " + sp);
-                    }
-                    tty.println(')');
-                    try {
-                        for (JavaVFrame vf = cur.getLastJavaVFrameDbg(); vf != null; vf = vf.javaSender()) {
-                            Method method = vf.getMethod();
-                            tty.print(" - " + method.externalNameAndSignature() +
-                            " @bci=" + vf.getBCI());
-
-                            int lineNumber = method.getLineNumberFromBCI(vf.getBCI());
-                            if (lineNumber != -1) {
-                                tty.print(", line=" + lineNumber);
-                            }
-
-                            if (verbose) {
-                                Address pc = vf.getFrame().getPC();
-                                if (pc != null) {
-                                    tty.print(", pc=" + pc);
-                                }
-
-                                tty.print(", Method*=" + method.getAddress());
-                            }
-
-                            if (vf.isCompiledFrame()) {
-                                tty.print(" (Compiled frame");
-                                if (vf.isDeoptimized()) {
-                                  tty.print(" [deoptimized]");
-                                }
-                            }
-                            if (vf.isInterpretedFrame()) {
-                                tty.print(" (Interpreted frame");
-                            }
-                            if (vf.mayBeImpreciseDbg()) {
-                                tty.print("; information may be imprecise");
-                            }
-
-                            tty.println(")");
-                        }
-                    } catch (Exception e) {
-                        tty.println("Error occurred during stack walking:");
-                        e.printStackTrace();
-                    }
-                    tty.println();
-                    if (concurrentLocks) {
-                        concLocksPrinter.print(cur, tty);
-                    }
-                    tty.println();
-              }
-          }
-      }
-      catch (AddressException e) {
-        System.err.println("Error accessing address 0x" + Long.toHexString(e.getAddress()));
-        e.printStackTrace();
-      }
-   }
+                    javaThreads.add(cur);
+                }
+            }
+
+            String[][] traces = walkStacks(javaThreads, concLocksPrinter);
+            if (groupIdenticalStacks) {
+                printGrouped(tty, traces);
+            } else {
+                for (int i = 0; i < traces.length; i++) {
+                    tty.print(traces[i][0]);
+                    tty.print(traces[i][1]);
+                }
+            }
+        }
+        catch (AddressException e) {
+            System.err.println("Error accessing address 0x" + Long.toHexString(e.getAddress()));
+            e.printStackTrace();
+        }
+    }
 
    public static void main(String[] args) {
       StackTrace st = new StackTrace();
       st.execute(args);
    }
 
-   private boolean verbose;
-   private boolean concurrentLocks;
+    // -- Internals only below this point
+
+    // Returns the header and the body (frames and locks) of each
+    // thread's trace, indexed like javaThreads
+    private String[][] walkStacks(List javaThreads, final ConcurrentLocksPrinter concLocksPrinter) {
+        final String[][] traces = new String[javaThreads.size()][];
+        int numWorkers = Math.min(parallelism, traces.length - 1);
+        if (numWorkers <= 1) {
+            for (int i = 0; i < traces.length; i++) {
+                traces[i] = formatThread((JavaThread) javaThreads.get(i), concLocksPrinter);
+            }
+            return traces;
+        }
+
+        // Walk the first stack on this thread so that lazily created
+        // VM singletons (code cache index, interpreter, stubs) are set
+        // up before the workers race for them
+        traces[0] = formatThread((JavaThread) javaThreads.get(0), concLocksPrinter);
+
+        ExecutorService pool = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+                public java.lang.Thread newThread(Runnable r) {
+                    java.lang.Thread t = new java.lang.Thread(r, "StackTrace worker");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        try {
+            Future[] futures = new Future[traces.length];
+            for (int i = 1; i < traces.length; i++) {
+                final JavaThread cur = (JavaThread) javaThreads.get(i);
+                futures[i] = pool.submit(new Callable() {
+                        public Object call() {
+                            return formatThread(cur, concLocksPrinter);
+                        }
+                    });
+            }
+            for (int i = 1; i < traces.length; i++) {
+                try {
+                    traces[i] = (String[]) futures[i].get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new RuntimeException(cause);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return traces;
+    }
+
+    private String[] formatThread(JavaThread cur, ConcurrentLocksPrinter concLocksPrinter) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PrintStream tty = new PrintStream(buf);
+        Address sp = cur.getLastJavaSP();
+        tty.print("Thread ");
+        cur.printThreadIDOn(tty);
+        tty.print(": (state = " + cur.getThreadState());
+        if (verbose) {
+            tty.println(", current Java SP = " + sp);
+        }
+        tty.println(')');
+        tty.flush();
+        String header = buf.toString();
+        buf.reset();
+
+        try {
+            for (JavaVFrame vf = cur.getLastJavaVFrameDbg(); vf != null; vf = vf.javaSender()) {
+                Method method = vf.getMethod();
+                tty.print(" - " + method.externalNameAndSignature() +
+                " @bci=" + vf.getBCI());
+
+                int lineNumber = method.getLineNumberFromBCI(vf.getBCI());
+                if (lineNumber != -1) {
+                    tty.print(", line=" + lineNumber);
+                }
+
+                if (verbose) {
+                    Address pc = vf.getFrame().getPC();
+                    if (pc != null) {
+                        tty.print(", pc=" + pc);
+                    }
+
+                    tty.print(", Method*=" + method.getAddress());
+                }
+
+                if (vf.isCompiledFrame()) {
+                    tty.print(" (Compiled frame");
+                    if (vf.isDeoptimized()) {
+                      tty.print(" [deoptimized]");
+                    }
+                }
+                if (vf.isInterpretedFrame()) {
+                    tty.print(" (Interpreted frame");
+                }
+                if (vf.mayBeImpreciseDbg()) {
+                    tty.print("; information may be imprecise");
+                }
+
+                tty.println(")");
+            }
+        } catch (Exception e) {
+            tty.println("Error occurred during stack walking:");
+            e.printStackTrace();
+        }
+        tty.println();
+        if (concLocksPrinter != null) {
+            concLocksPrinter.print(cur, tty);
+        }
+        tty.println();
+        tty.flush();
+        return new String[] { header, buf.toString() };
+    }
+
+    // Prints each distinct body once, in order of first appearance,
+    // preceded by the headers of all threads sharing it
+    private void printGrouped(PrintStream tty, String[][] traces) {
+        Map groups = new LinkedHashMap(); // <String, List<String>>
+        for (int i = 0; i < traces.length; i++) {
+            List headers = (List) groups.get(traces[i][1]);
+            if (headers == null) {
+                headers = new ArrayList();
+                groups.put(traces[i][1], headers);
+            }
+            headers.add(traces[i][0]);
+        }
+        for (Iterator itr = groups.entrySet().iterator(); itr.hasNext(); ) {
+            Map.Entry entry = (Map.Entry) itr.next();
+            List headers = (List) entry.getValue();
+            if (headers.size() > 1) {
+                tty.println(headers.size() + " threads with identical stack:");
+            }
+            for (Iterator h = headers.iterator(); h.hasNext(); ) {
+                tty.print((String) h.next());
+            }
+            tty.print((String) entry.getKey());
+        }
+    }
+
+    private boolean verbose;
+    private boolean concurrentLocks;
+    private int parallelism = 1;
+    private boolean groupIdenticalStacks;
 }
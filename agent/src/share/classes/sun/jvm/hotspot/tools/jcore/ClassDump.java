@@ -26,6 +26,8 @@ package sun.jvm.hotspot.tools.jcore;
 
 import java.io.*;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.jar.JarOutputStream;
 import java.util.jar.JarEntry;
 import java.util.jar.Manifest;
@@ -100,20 +102,29 @@ public class ClassDump extends Tool {
                 setOutputDirectory(dirName);
             }
 
-            // walk through the system dictionary
+            // walk through the system dictionary, picking the classes
+            // to dump up front: the filter only looks at class names,
+            // so skipped classes never have their constant pools decoded
+            final List klasses = new ArrayList();
             SystemDictionary dict = VM.getVM().getSystemDictionary();
             dict.classesDo(new SystemDictionary.ClassVisitor() {
                     public void visit(Klass k) {
-                        if (k instanceof InstanceKlass) {
-                            try {
-                                dumpKlass((InstanceKlass) k);
-                            } catch (Exception e) {
-                                System.out.println(k.getName().asString());
-                                e.printStackTrace();
-                            }
+                        if (k instanceof InstanceKlass &&
+                            (classFilter == null || classFilter.canInclude((InstanceKlass) k))) {
+                            klasses.add(k);
                         }
                     }
                 });
+
+            for (int i = 0; i < klasses.size(); i++) {
+                InstanceKlass k = (InstanceKlass) klasses.get(i);
+                try {
+                    dumpKlass(k);
+                } catch (Exception e) {
+                    System.out.println(k.getName().asString());
+                    e.printStackTrace();
+                }
+            }
         }
         catch (AddressException e) {
             System.err.println("Error accessing address 0x"
@@ -135,32 +146,9 @@ public class ClassDump extends Tool {
     }
 
     private void dumpKlass(InstanceKlass kls) {
-        if (classFilter != null && ! classFilter.canInclude(kls) ) {
-            return;
-        }
-
         String klassName = kls.getName().asString();
-        klassName = klassName.replace('/', File.separatorChar);
         try {
-            OutputStream os = null;
-            if (jarStream != null) {
-                jarStream.putNextEntry(new JarEntry(klassName + ".class"));
-                os = jarStream;
-            } else {
-                int index = klassName.lastIndexOf(File.separatorChar);
-                File dir = null;
-                if (index != -1) {
-                    String dirName = klassName.substring(0, index);
-                    dir = new File(outputDirectory,  dirName);
-                } else {
-                    dir = new File(outputDirectory);
-                }
-
-                dir.mkdirs();
-                File f = new File(dir, klassName.substring(index + 1) + ".class");
-                f.createNewFile();
-                os = new BufferedOutputStream(new FileOutputStream(f));
-            }
+            OutputStream os = openClassFile(klassName);
             try {
                 ClassWriter cw = new ClassWriter(kls, os);
                 cw.write();
@@ -174,6 +162,30 @@ public class ClassDump extends Tool {
         }
     }
 
+    // Returns the stream to write the named class to: the jar stream,
+    // positioned at a new entry, or a new file under outputDirectory
+    private OutputStream openClassFile(String klassName) throws IOException {
+        klassName = klassName.replace('/', File.separatorChar);
+        if (jarStream != null) {
+            jarStream.putNextEntry(new JarEntry(klassName + ".class"));
+            return jarStream;
+        }
+
+        int index = klassName.lastIndexOf(File.separatorChar);
+        File dir = null;
+        if (index != -1) {
+            String dirName = klassName.substring(0, index);
+            dir = new File(outputDirectory,  dirName);
+        } else {
+            dir = new File(outputDirectory);
+        }
+
+        dir.mkdirs();
+        File f = new File(dir, klassName.substring(index + 1) + ".class");
+        f.createNewFile();
+        return new BufferedOutputStream(new FileOutputStream(f));
+    }
+
     public static void main(String[] args) {
 
         ClassDump cd = new ClassDump();
@@ -157,7 +157,7 @@ public class BasicTypeDataBase implements TypeDataBase {
 
   HashMap typeToVtbl = new HashMap();
 
-  private Address vtblForType(Type type) {
+  private synchronized Address vtblForType(Type type) {
     Address vtblAddr = (Address)typeToVtbl.get(type);
     if (vtblAddr == null) {
       vtblAddr = vtblAccess.getVtblForType(type);
@@ -43,7 +43,7 @@ public abstract class BasicVtblAccess implements VtblAccess {
 
   static Object nullAddress = new Object();
 
-  public Address getVtblForType(Type type) {
+  public synchronized Address getVtblForType(Type type) {
     if (type == null) {
       return null;
     }
@@ -58,37 +58,21 @@ public class FindByQueryPanel extends SAPanel {
       objectsEditor.addHyperlinkListener(hyperListener);
 
       queryEditor = new JTextArea();
-      JButton queryButton = new JButton("Execute");
+      final JButton queryButton = new JButton("Execute");
       queryButton.addActionListener(new ActionListener() {
                                        public void actionPerformed(ActionEvent ae) {
-                                          final StringBuffer buf = new StringBuffer();
-                                          buf.append("<html><body>");
-                                          try {
-                                             queryEngine.executeQuery(queryEditor.getText(),
-                                                        new ObjectVisitor() {
-                                                           public void visit(Object o) {
-                                                              if (o != null && o instanceof JSJavaObject) {
-                                                                 String oopAddr = ((JSJavaObject)o).getOop().getHandle().toString();
-                                                                 buf.append("<a href='");
-                                                                 buf.append(oopAddr);
-                                                                 buf.append("'>");
-                                                                 buf.append(oopAddr);
-                                                                 buf.append("</a>");
-                                                              } else {
-                                                                 buf.append((o == null)? "null" : o.toString());
-                                                              }
-                                                              buf.append("<br>");
-                                                           }
-                                                        });
-
-                                          } catch (Exception e) {
-                                             e.printStackTrace();
-                                             buf.append("<b>");
-                                             buf.append(e.getMessage());
-                                             buf.append("</b>");
-                                          }
-                                          buf.append("</body></html>");
-                                          objectsEditor.setText(buf.toString());
+                                          // Run the query off the event thread and show
+                                          // the results as they are found
+                                          final String query = queryEditor.getText();
+                                          queryButton.setEnabled(false);
+                                          objectsEditor.setText("");
+                                          java.lang.Thread t = new java.lang.Thread(new Runnable() {
+                                                public void run() {
+                                                   runQuery(query, queryButton);
+                                                }
+                                             }, "SOQL query");
+                                          t.setDaemon(true);
+                                          t.start();
                                        }
                                    });
 
@@ -108,4 +92,58 @@ public class FindByQueryPanel extends SAPanel {
       setLayout(new BorderLayout());
       add(splitPane, BorderLayout.CENTER);
    }
+
+   // Minimum time between two updates of the result pane, in ms
+   private static final long UPDATE_INTERVAL = 500;
+
+   private void runQuery(String query, final JButton queryButton) {
+      final StringBuffer buf = new StringBuffer();
+      buf.append("<html><body>");
+      try {
+         queryEngine.executeQuery(query,
+                    new ObjectVisitor() {
+                       private long lastUpdate = System.currentTimeMillis();
+
+                       public void visit(Object o) {
+                          if (o != null && o instanceof JSJavaObject) {
+                             String oopAddr = ((JSJavaObject)o).getOop().getHandle().toString();
+                             buf.append("<a href='");
+                             buf.append(oopAddr);
+                             buf.append("'>");
+                             buf.append(oopAddr);
+                             buf.append("</a>");
+                          } else {
+                             buf.append((o == null)? "null" : o.toString());
+                          }
+                          buf.append("<br>");
+                          long now = System.currentTimeMillis();
+                          if (now - lastUpdate >= UPDATE_INTERVAL) {
+                             lastUpdate = now;
+                             showResults(buf.toString() + "</body></html>", null);
+                          }
+                       }
+                    });
+
+      } catch (Exception e) {
+         e.printStackTrace();
+         buf.append("<b>");
+         buf.append(e.getMessage());
+         buf.append("</b>");
+      }
+      buf.append("</body></html>");
+      showResults(buf.toString(), queryButton);
+   }
+
+   // Replaces the contents of the result pane on the event thread and
+   // re-enables the given button, if any
+   private void showResults(final String html, final JButton queryButton) {
+      SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+               objectsEditor.setText(html);
+               if (queryButton != null) {
+                  queryButton.setEnabled(true);
+               }
+            }
+         });
+   }
 }
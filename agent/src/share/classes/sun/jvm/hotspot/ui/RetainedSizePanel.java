@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.ui;
+
+import java.util.*;
+
+import java.awt.*;
+import java.awt.event.*;
+
+import javax.swing.*;
+import javax.swing.table.*;
+
+import sun.jvm.hotspot.oops.Klass;
+import sun.jvm.hotspot.utilities.DominatorTree;
+import sun.jvm.hotspot.utilities.RetainedSizeElement;
+
+import sun.jvm.hotspot.ui.table.LongCellRenderer;
+import sun.jvm.hotspot.ui.table.SortableTableModel;
+import sun.jvm.hotspot.ui.table.SortHeaderCellRenderer;
+import sun.jvm.hotspot.ui.table.SortHeaderMouseAdapter;
+import sun.jvm.hotspot.ui.table.TableModelComparator;
+
+/**
+ * Displays the per-class retained sizes computed by a DominatorTree
+ * in a JTable. Double clicking a row shows all objects of that type.
+ */
+public class RetainedSizePanel extends JPanel {
+    private RetainedSizeTableModel dataModel;
+    private JTable     table;
+    private java.util.List listeners;
+
+    public RetainedSizePanel(DominatorTree tree) {
+        dataModel = new RetainedSizeTableModel(tree);
+
+        table = new JTable(dataModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.addMouseListener(new MouseAdapter() {
+                public void mouseClicked(MouseEvent evt) {
+                    if (evt.getClickCount() == 2) {
+                        fireShowObjectsOfType();
+                    }
+                }
+            });
+
+        LongCellRenderer lcRender = new LongCellRenderer();
+        TableColumnModel columns = table.getColumnModel();
+        for (int i = 0; i < 3; i++) {
+            columns.getColumn(i).setCellRenderer(lcRender);
+            columns.getColumn(i).setMaxWidth(120);
+        }
+
+        JTableHeader header = table.getTableHeader();
+        header.setDefaultRenderer(new SortHeaderCellRenderer(header, dataModel));
+        header.addMouseListener(new SortHeaderMouseAdapter(table, dataModel));
+
+        setLayout(new BorderLayout());
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(new JLabel("Reachable: " + tree.getReachableCount() + " objects, " +
+                       tree.getReachableSize() + " bytes"), BorderLayout.SOUTH);
+    }
+
+    /**
+     * A table model which encapsulates the class summaries of a
+     * DominatorTree
+     */
+    private class RetainedSizeTableModel extends SortableTableModel {
+        private String[] columnNames = { "Retained Size", "Size", "Count", "Class Description" };
+        private Class[] columnClasses = { Long.class, Long.class, Long.class, String.class };
+
+        public RetainedSizeTableModel(DominatorTree tree) {
+            elements = tree.getClassSummaries();
+            setComparator(new RetainedSizeComparator(this));
+        }
+
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        public int getRowCount() {
+            return elements.size();
+        }
+
+        public String getColumnName(int col) {
+            return columnNames[col];
+        }
+
+        public Class getColumnClass(int col) {
+            return columnClasses[col];
+        }
+
+        public Object getValueAt(int row, int col) {
+            return getValueForColumn(getElement(row), col);
+        }
+
+        public Object getValueForColumn(Object obj, int col) {
+            RetainedSizeElement el = (RetainedSizeElement)obj;
+            switch (col) {
+            case 0:
+                return new Long(el.getRetainedSize());
+            case 1:
+                return new Long(el.getSize());
+            case 2:
+                return new Long(el.getCount());
+            case 3:
+                return el.getDescription();
+            default:
+                throw new RuntimeException("Index (" + col + ") out of bounds");
+            }
+        }
+
+        public RetainedSizeElement getElement(int index) {
+            return (RetainedSizeElement) elements.get(index);
+        }
+
+        private class RetainedSizeComparator extends TableModelComparator {
+
+            public RetainedSizeComparator(RetainedSizeTableModel model) {
+                super(model);
+            }
+
+            public Object getValueForColumn(Object obj, int column) {
+                RetainedSizeTableModel rmodel = (RetainedSizeTableModel)model;
+                return rmodel.getValueForColumn(obj, column);
+            }
+        }
+    }
+
+    public void addPanelListener(ObjectHistogramPanel.Listener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList();
+        }
+        listeners.add(listener);
+    }
+
+    public void removePanelListener(ObjectHistogramPanel.Listener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    //--------------------------------------------------------------------------------
+    // Internals only below this point
+    //
+
+    private void fireShowObjectsOfType() {
+        int i = table.getSelectedRow();
+        if (i < 0 || listeners == null) {
+            return;
+        }
+
+        RetainedSizeElement el = dataModel.getElement(i);
+
+        for (Iterator iter = listeners.iterator(); iter.hasNext(); ) {
+            ObjectHistogramPanel.Listener listener = (ObjectHistogramPanel.Listener) iter.next();
+            listener.showObjectsOfType(el.getKlass());
+        }
+    }
+}
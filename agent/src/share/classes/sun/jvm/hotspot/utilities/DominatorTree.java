@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.utilities;
+
+import java.io.*;
+import java.util.*;
+import sun.jvm.hotspot.oops.*;
+
+/** Computes the dominator tree of a {@link HeapGraph} and, from it,
+    the retained size of every reachable object and of the set of
+    instances of every klass. Object <i>a</i> dominates object
+    <i>b</i> if every path from the roots to <i>b</i> goes through
+    <i>a</i>; the retained size of <i>a</i> is the total size of the
+    objects it dominates, i.e., the memory which would be freed if
+    <i>a</i> became unreachable. <P>
+
+    All roots hang off a single virtual root node. Immediate
+    dominators are computed with the Lengauer-Tarjan algorithm
+    (simple version with path compression) over primitive arrays
+    indexed by depth-first number; all traversals are iterative so
+    that deep object graphs, such as long linked lists, do not
+    overflow the Java stack. */
+
+public class DominatorTree {
+  /** Immediate dominator of objects dominated only by the roots */
+  public static final int ROOT = -1;
+
+  /** Immediate dominator of objects not reachable from the roots */
+  public static final int UNREACHABLE = -2;
+
+  public DominatorTree(HeapGraph graph) {
+    this.graph = graph;
+    compute();
+  }
+
+  public HeapGraph getGraph() {
+    return graph;
+  }
+
+  public boolean isReachable(int id) {
+    return idom[id] != UNREACHABLE;
+  }
+
+  /** Returns the id of the immediate dominator of the given object,
+      {@link #ROOT} or {@link #UNREACHABLE}. */
+  public int getImmediateDominator(int id) {
+    return idom[id];
+  }
+
+  /** Retained size, in bytes, of the given object; zero for
+      unreachable objects */
+  public long getRetainedSize(int id) {
+    return retained[id];
+  }
+
+  /** Total size of all objects reachable from the roots */
+  public long getReachableSize() {
+    return reachableSize;
+  }
+
+  /** Number of objects reachable from the roots */
+  public int getReachableCount() {
+    return reachableCount;
+  }
+
+  /** Returns the per-class summaries in descending order of retained
+      size in the form of a List<RetainedSizeElement>. */
+  public List getClassSummaries() {
+    List list = new ArrayList(Arrays.asList(classSummaries));
+    Collections.sort(list, new Comparator() {
+        public int compare(Object o1, Object o2) {
+          return ((RetainedSizeElement) o1).compare((RetainedSizeElement) o2);
+        }
+      });
+    return list;
+  }
+
+  /** Returns the ids of the (at most) <code>count</code> objects with
+      the largest retained sizes, largest first. */
+  public int[] getLargestObjects(int count) {
+    int[] top = new int[Math.min(count, reachableCount)];
+    int num = 0;
+    for (int id = 0; id < retained.length; id++) {
+      if (!isReachable(id)) {
+        continue;
+      }
+      long size = retained[id];
+      if (num == top.length && (num == 0 || size <= retained[top[num - 1]])) {
+        continue;
+      }
+      // Insertion into the sorted prefix
+      int pos = (num < top.length) ? num++ : num - 1;
+      while (pos > 0 && retained[top[pos - 1]] < size) {
+        top[pos] = top[pos - 1];
+        pos--;
+      }
+      top[pos] = id;
+    }
+    return top;
+  }
+
+  public void printOn(PrintStream tty, int count) {
+    List list = getClassSummaries();
+    RetainedSizeElement.titleOn(tty);
+    int num = 0;
+    for (Iterator iter = list.iterator(); iter.hasNext() && (count <= 0 || num < count); ) {
+      RetainedSizeElement el = (RetainedSizeElement) iter.next();
+      num++;
+      tty.print(num + ":" + "\t\t");
+      el.printOn(tty);
+    }
+    tty.println("Total : " + "\t" + reachableCount + "\t" + reachableSize);
+    tty.println();
+
+    tty.println("Largest Objects by Retained Size:");
+    tty.println();
+    tty.println("num " + "\t" + "#bytes" + "\t" + "#retained" + "\t" + "Object");
+    tty.println("--------------------------------------------------------------------------");
+    int[] top = getLargestObjects(count <= 0 ? 20 : count);
+    for (int i = 0; i < top.length; i++) {
+      int id = top[i];
+      tty.println((i + 1) + ":" + "\t\t" + graph.getObjectSize(id) + "\t" + retained[id] + "\t" +
+                  "0x" + Long.toHexString(graph.getAddress(id)) + " " +
+                  new ObjectHistogramElement(graph.getKlass(id)).getDescription());
+    }
+  }
+
+  //---------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  private HeapGraph             graph;
+  private int[]                 roots;
+  private int                   rootNode;
+  // Indexed by object id
+  private int[]                 idom;
+  private long[]                retained;
+  private RetainedSizeElement[] classSummaries;
+  private long                  reachableSize;
+  private int                   reachableCount;
+
+  // Successors of a node; the virtual root node's successors are the
+  // roots of the graph
+  private long successorCount(int node) {
+    if (node == rootNode) {
+      return roots.length;
+    }
+    return graph.getFirstEdge(node + 1) - graph.getFirstEdge(node);
+  }
+
+  private int successor(int node, long i) {
+    if (node == rootNode) {
+      return roots[(int) i];
+    }
+    return graph.getEdgeTarget(graph.getFirstEdge(node) + i);
+  }
+
+  private void compute() {
+    int n = graph.getObjectCount();
+    roots = graph.getRoots();
+    rootNode = n;
+
+    // Depth-first numbering of the nodes reachable from the virtual
+    // root. From here on nodes are identified by their number.
+    int[] dfnum  = new int[n + 1];
+    int[] vertex = new int[n + 1];
+    int[] parent = new int[n + 1];
+    Arrays.fill(dfnum, -1);
+    int count = 0;
+    {
+      int[]  stack  = new int[n + 1];
+      long[] cursor = new long[n + 1];
+      int sp = 0;
+      dfnum[rootNode] = count;
+      vertex[count] = rootNode;
+      parent[count] = -1;
+      count++;
+      stack[sp] = rootNode;
+      cursor[sp] = 0;
+      sp++;
+      while (sp > 0) {
+        int v = stack[sp - 1];
+        long c = cursor[sp - 1];
+        if (c == successorCount(v)) {
+          sp--;
+          continue;
+        }
+        cursor[sp - 1] = c + 1;
+        int w = successor(v, c);
+        if (dfnum[w] < 0) {
+          dfnum[w] = count;
+          vertex[count] = w;
+          parent[count] = dfnum[v];
+          count++;
+          stack[sp] = w;
+          cursor[sp] = 0;
+          sp++;
+        }
+      }
+    }
+
+    // Predecessors, by number, in compressed-row form
+    long[] predStart = new long[count + 1];
+    for (int i = 0; i < count; i++) {
+      int v = vertex[i];
+      long num = successorCount(v);
+      for (long c = 0; c < num; c++) {
+        predStart[dfnum[successor(v, c)]]++;
+      }
+    }
+    for (int i = 1; i <= count; i++) {
+      predStart[i] += predStart[i - 1];
+    }
+    OffHeapIntArray preds = new OffHeapIntArray();
+    preds.setLength(predStart[count]);
+    for (int i = 0; i < count; i++) {
+      int v = vertex[i];
+      long num = successorCount(v);
+      for (long c = 0; c < num; c++) {
+        int w = dfnum[successor(v, c)];
+        preds.atPut(--predStart[w], i);
+      }
+    }
+
+    // Lengauer-Tarjan
+    semi       = new int[count];
+    label      = new int[count];
+    ancestor   = new int[count];
+    compressStack = new int[count];
+    int[] idomDf     = new int[count];
+    int[] bucketHead = new int[count];
+    int[] bucketNext = new int[count];
+    for (int i = 0; i < count; i++) {
+      semi[i] = i;
+      label[i] = i;
+      ancestor[i] = -1;
+      bucketHead[i] = -1;
+    }
+    for (int w = count - 1; w > 0; w--) {
+      for (long p = predStart[w]; p < predStart[w + 1]; p++) {
+        int u = eval(preds.at(p));
+        if (semi[u] < semi[w]) {
+          semi[w] = semi[u];
+        }
+      }
+      bucketNext[w] = bucketHead[semi[w]];
+      bucketHead[semi[w]] = w;
+      int p = parent[w];
+      ancestor[w] = p;
+      for (int v = bucketHead[p]; v >= 0; v = bucketNext[v]) {
+        int u = eval(v);
+        idomDf[v] = (semi[u] < semi[v]) ? u : p;
+      }
+      bucketHead[p] = -1;
+    }
+    for (int w = 1; w < count; w++) {
+      if (idomDf[w] != semi[w]) {
+        idomDf[w] = idomDf[idomDf[w]];
+      }
+    }
+    idomDf[0] = -1;
+    preds.free();
+    predStart = null;
+    semi = label = ancestor = compressStack = null;
+    bucketHead = bucketNext = null;
+
+    // Retained sizes; a node's number is always greater than the
+    // number of its immediate dominator
+    long[] retainedDf = new long[count];
+    for (int w = 1; w < count; w++) {
+      retainedDf[w] = graph.getObjectSize(vertex[w]);
+    }
+    for (int w = count - 1; w > 0; w--) {
+      retainedDf[idomDf[w]] += retainedDf[w];
+    }
+    reachableCount = count - 1;
+    reachableSize = retainedDf[0];
+
+    // Per-class retained sizes: the instances of a klass retain the
+    // sum of the retained sizes of those instances which are not
+    // dominated by another instance of the same klass
+    computeClassSummaries(count, vertex, idomDf, retainedDf);
+
+    // Back to object ids
+    idom = new int[n];
+    retained = new long[n];
+    for (int id = 0; id < n; id++) {
+      int d = dfnum[id];
+      if (d < 0) {
+        idom[id] = UNREACHABLE;
+      } else {
+        int dom = idomDf[d];
+        idom[id] = (dom == 0) ? ROOT : vertex[dom];
+        retained[id] = retainedDf[d];
+      }
+    }
+  }
+
+  private void computeClassSummaries(int count, int[] vertex, int[] idomDf, long[] retainedDf) {
+    // Children lists of the dominator tree
+    int[] childStart = new int[count + 1];
+    for (int w = 1; w < count; w++) {
+      childStart[idomDf[w]]++;
+    }
+    for (int i = 1; i <= count; i++) {
+      childStart[i] += childStart[i - 1];
+    }
+    int[] children = new int[count - 1];
+    for (int w = count - 1; w > 0; w--) {
+      children[--childStart[idomDf[w]]] = w;
+    }
+
+    int numKlasses = graph.getKlassCount();
+    long[] klassCount    = new long[numKlasses];
+    long[] klassSize     = new long[numKlasses];
+    long[] klassRetained = new long[numKlasses];
+    int[]  active        = new int[numKlasses];
+
+    int[] stack  = new int[count];
+    int[] cursor = new int[count];
+    int sp = 0;
+    stack[sp] = 0;
+    cursor[sp] = childStart[0];
+    sp++;
+    while (sp > 0) {
+      int v = stack[sp - 1];
+      int c = cursor[sp - 1];
+      if (c == childStart[v + 1]) {
+        // Leaving v
+        sp--;
+        if (v != 0) {
+          active[graph.getKlassIndex(vertex[v])]--;
+        }
+        continue;
+      }
+      cursor[sp - 1] = c + 1;
+      int w = children[c];
+      // Entering w
+      int id = vertex[w];
+      int k = graph.getKlassIndex(id);
+      klassCount[k]++;
+      klassSize[k] += graph.getObjectSize(id);
+      if (active[k] == 0) {
+        klassRetained[k] += retainedDf[w];
+      }
+      active[k]++;
+      stack[sp] = w;
+      cursor[sp] = childStart[w];
+      sp++;
+    }
+
+    List summaries = new ArrayList();
+    for (int k = 0; k < numKlasses; k++) {
+      if (klassCount[k] > 0) {
+        summaries.add(new RetainedSizeElement(graph.getKlassAt(k), klassCount[k],
+                                              klassSize[k], klassRetained[k]));
+      }
+    }
+    classSummaries = (RetainedSizeElement[]) summaries.toArray(new RetainedSizeElement[summaries.size()]);
+  }
+
+  // Lengauer-Tarjan state, indexed by depth-first number
+  private int[] semi;
+  private int[] label;
+  private int[] ancestor;
+  private int[] compressStack;
+
+  private int eval(int v) {
+    if (ancestor[v] < 0) {
+      return v;
+    }
+    compress(v);
+    return label[v];
+  }
+
+  // Iterative form of the usual recursive path compression
+  private void compress(int v) {
+    int sp = 0;
+    int x = v;
+    while (ancestor[ancestor[x]] >= 0) {
+      compressStack[sp++] = x;
+      x = ancestor[x];
+    }
+    while (sp > 0) {
+      x = compressStack[--sp];
+      int a = ancestor[x];
+      if (semi[label[a]] < semi[label[x]]) {
+        label[x] = label[a];
+      }
+      ancestor[x] = ancestor[a];
+    }
+  }
+}
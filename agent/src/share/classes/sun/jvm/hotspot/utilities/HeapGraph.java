@@ -0,0 +1,526 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.utilities;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import sun.jvm.hotspot.debugger.*;
+import sun.jvm.hotspot.memory.*;
+import sun.jvm.hotspot.oops.*;
+import sun.jvm.hotspot.runtime.*;
+
+/** A compact snapshot of the object graph of the heap. Every object
+    found by a linear walk of the heap is given a dense integer id;
+    because {@link sun.jvm.hotspot.oops.ObjectHeap#iterate} visits the
+    live regions in ascending address order, the ids are also sorted
+    by address and an address can be mapped back to its id with a
+    binary search. The outgoing references of all objects are kept in
+    compressed-row form: the references of object <i>i</i> are the
+    targets at positions <code>getFirstEdge(i)</code> (inclusive) to
+    <code>getFirstEdge(i + 1)</code> (exclusive). All per-object
+    columns are stored off the Java heap. <P>
+
+    The roots known to the SA (class mirrors, thread objects, oops on
+    thread stacks and JNI handles) are recorded separately; see the
+    comment in {@link ReversePtrsAnalysis} for the caveats. <P>
+
+    A graph built from a core file can be saved next to it with
+    {@link #save} and mapped back in with {@link #load} by later
+    sessions, which then skip the heap walk entirely; see {@link
+    sun.jvm.hotspot.oops.ObjectHeap#setSnapshot}. The saved index
+    records the length and modification time of the core file and is
+    rejected once either changes. */
+
+public class HeapGraph {
+  // Used for debugging this code
+  private static final boolean DEBUG = false;
+
+  /** Suffix appended to the name of a core file to obtain the name
+      of its index */
+  public static final String INDEX_SUFFIX = ".heapindex";
+
+  /** Walks the heap and the known roots and returns the resulting
+      graph. The thunk, if non-null, is notified about the progress of
+      the heap walk. */
+  public static HeapGraph build(HeapProgressThunk thunk) {
+    HeapGraph graph = new HeapGraph();
+    graph.collectObjects(thunk);
+    graph.resolveEdges();
+    graph.collectRoots();
+    return graph;
+  }
+
+  /** Name of the index file belonging to the given core file */
+  public static File indexFileFor(String coreFileName) {
+    return new File(coreFileName + INDEX_SUFFIX);
+  }
+
+  /** Maps the index previously saved for the given core file. Returns
+      null if there is no index or if it does not match the core file
+      or the attached VM. */
+  public static HeapGraph load(File index, File core) {
+    if (!index.isFile()) {
+      return null;
+    }
+    try {
+      FileChannel in = new RandomAccessFile(index, "r").getChannel();
+      try {
+        return load(in, index, core);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      System.err.println("HeapGraph: WARNING: unable to read " + index + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /** Number of objects in the graph */
+  public int getObjectCount() {
+    return numObjects;
+  }
+
+  /** Address of the object with the given id */
+  public long getAddress(int id) {
+    return addresses.at(id);
+  }
+
+  /** Returns the id of the object starting at the given address, or
+      -1 if there is no such object */
+  public int indexOf(long address) {
+    int low = 0;
+    int high = numObjects - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midAddress = addresses.at(mid);
+      if (midAddress < address) {
+        low = mid + 1;
+      } else if (midAddress > address) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  public int indexOf(Address address) {
+    if (address == null) {
+      return -1;
+    }
+    return indexOf(VM.getAddressValue(address));
+  }
+
+  /** Shallow size, in bytes, of the object with the given id */
+  public long getObjectSize(int id) {
+    return (long) sizes.at(id) * heapWordSize;
+  }
+
+  /** Sum of the sizes, in bytes, of all objects in the graph */
+  public long getTotalSize() {
+    return totalWords * heapWordSize;
+  }
+
+  /** Klass of the object with the given id */
+  public Klass getKlass(int id) {
+    return (Klass) klasses.get(klassIds.at(id));
+  }
+
+  /** Index of the klass of the given object into the table of
+      distinct klasses seen during the heap walk */
+  public int getKlassIndex(int id) {
+    return klassIds.at(id);
+  }
+
+  /** Number of distinct klasses seen during the heap walk */
+  public int getKlassCount() {
+    return klasses.size();
+  }
+
+  public Klass getKlassAt(int klassIndex) {
+    return (Klass) klasses.get(klassIndex);
+  }
+
+  /** Recreates the Oop for the object with the given id. The klass is
+      taken from the graph rather than read from the target. */
+  public Oop getOop(int id) {
+    OopHandle handle = VM.getVM().getDebugger().parseAddress("0x" + Long.toHexString(addresses.at(id)))
+                                                .addOffsetToAsOopHandle(0);
+    return VM.getVM().getObjectHeap().newOop(handle, getKlass(id));
+  }
+
+  /** Total number of references between objects in the graph */
+  public long getEdgeCount() {
+    return firstEdge.at(numObjects);
+  }
+
+  /** Position of the first outgoing reference of the given object;
+      the references of object <i>i</i> end at
+      <code>getFirstEdge(i + 1)</code>. */
+  public long getFirstEdge(int id) {
+    return firstEdge.at(id);
+  }
+
+  /** Target id of the reference at the given position */
+  public int getEdgeTarget(long edge) {
+    return edges.at(edge);
+  }
+
+  /** Ids of the objects directly referenced from roots. An object
+      may be listed more than once. */
+  public int[] getRoots() {
+    return roots;
+  }
+
+  /** Writes the graph to the given index file. The length and
+      modification time of the core file are recorded so that {@link
+      #load} can detect a stale index. The file is written under a
+      temporary name and renamed into place when complete. */
+  public void save(File index, File core) throws IOException {
+    File tmp = new File(index.getPath() + ".tmp");
+    FileChannel out = new FileOutputStream(tmp).getChannel();
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+      header.putLong(MAGIC);
+      header.putLong(VERSION);
+      header.putLong(heapWordSize);
+      header.putLong(core.length());
+      header.putLong(core.lastModified());
+      header.putLong(numObjects);
+      header.putLong(klasses.size());
+      header.putLong(getEdgeCount());
+      header.putLong(roots.length);
+      header.putLong(totalWords);
+      header.flip();
+      writeFully(out, header);
+
+      addresses.writeTo(out);
+      firstEdge.writeTo(out);
+      ByteBuffer klassTable = ByteBuffer.allocate(klasses.size() * 8).order(ByteOrder.nativeOrder());
+      for (int i = 0; i < klasses.size(); i++) {
+        klassTable.putLong(VM.getAddressValue(getKlassAt(i).getAddress()));
+      }
+      klassTable.flip();
+      writeFully(out, klassTable);
+      sizes.writeTo(out);
+      klassIds.writeTo(out);
+      edges.writeTo(out);
+      ByteBuffer rootTable = ByteBuffer.allocate(roots.length * 4).order(ByteOrder.nativeOrder());
+      rootTable.asIntBuffer().put(roots);
+      writeFully(out, rootTable);
+    } finally {
+      out.close();
+    }
+    index.delete();
+    if (!tmp.renameTo(index)) {
+      tmp.delete();
+      throw new IOException("unable to rename " + tmp + " to " + index);
+    }
+  }
+
+  //---------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  // "SAHEAPIX" in ASCII; written in native byte order so an index
+  // produced on a machine of the other endianness is rejected
+  private static final long MAGIC       = 0x5341484541504958L;
+  private static final long VERSION     = 1;
+  private static final int  HEADER_SIZE = 10 * 8;
+
+  private int              numObjects;
+  private OffHeapLongArray addresses;
+  private OffHeapIntArray  sizes;
+  private OffHeapIntArray  klassIds;
+  private List/*<Klass>*/  klasses   = new ArrayList();
+  private Map/*<Klass, Integer>*/ klassIndices = new HashMap();
+  // Indexed by object id; one more element than there are objects
+  private OffHeapLongArray firstEdge;
+  // Target address of each reference while the heap is walked,
+  // resolved to target ids afterwards
+  private OffHeapLongArray edgeAddresses;
+  private OffHeapIntArray  edges;
+  private int[]            roots;
+  private long             totalWords;
+  private int              heapWordSize;
+
+  private HeapGraph() {
+    heapWordSize = VM.getVM().getHeapWordSize();
+  }
+
+  private static HeapGraph load(FileChannel in, File index, File core) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+    while (header.hasRemaining()) {
+      if (in.read(header) < 0) {
+        return reject(index, "truncated header");
+      }
+    }
+    header.flip();
+    if (header.getLong() != MAGIC || header.getLong() != VERSION) {
+      return reject(index, "not a heap index of this version");
+    }
+    HeapGraph graph = new HeapGraph();
+    if (header.getLong() != graph.heapWordSize) {
+      return reject(index, "written for a different heap word size");
+    }
+    if (header.getLong() != core.length() || header.getLong() != core.lastModified()) {
+      return reject(index, core + " has changed since the index was written");
+    }
+    graph.numObjects = (int) header.getLong();
+    int  numKlasses  = (int) header.getLong();
+    long numEdges    = header.getLong();
+    int  numRoots    = (int) header.getLong();
+    graph.totalWords = header.getLong();
+
+    long n = graph.numObjects;
+    long expected = HEADER_SIZE + 8 * (n + (n + 1) + numKlasses) + 4 * (n + n + numEdges + numRoots);
+    if (in.size() != expected) {
+      return reject(index, "unexpected file size");
+    }
+
+    long position = HEADER_SIZE;
+    graph.addresses = new OffHeapLongArray(in, position, n);
+    position += graph.addresses.getByteSize();
+    graph.firstEdge = new OffHeapLongArray(in, position, n + 1);
+    position += graph.firstEdge.getByteSize();
+    LongBuffer klassTable = in.map(FileChannel.MapMode.READ_ONLY, position, numKlasses * 8L)
+                              .order(ByteOrder.nativeOrder()).asLongBuffer();
+    position += numKlasses * 8L;
+    graph.sizes = new OffHeapIntArray(in, position, n);
+    position += graph.sizes.getByteSize();
+    graph.klassIds = new OffHeapIntArray(in, position, n);
+    position += graph.klassIds.getByteSize();
+    graph.edges = new OffHeapIntArray(in, position, numEdges);
+    position += graph.edges.getByteSize();
+    graph.roots = new int[numRoots];
+    in.map(FileChannel.MapMode.READ_ONLY, position, numRoots * 4L)
+      .order(ByteOrder.nativeOrder()).asIntBuffer().get(graph.roots);
+
+    Debugger dbg = VM.getVM().getDebugger();
+    try {
+      for (int i = 0; i < numKlasses; i++) {
+        Address addr = dbg.parseAddress("0x" + Long.toHexString(klassTable.get(i)));
+        graph.klassIndexFor((Klass) Metadata.instantiateWrapperFor(addr));
+      }
+      if (!graph.sampleMatches()) {
+        return reject(index, "objects do not match the attached VM");
+      }
+    } catch (RuntimeException e) {
+      return reject(index, e.toString());
+    }
+    return graph;
+  }
+
+  private static HeapGraph reject(File index, String reason) {
+    System.err.println("HeapGraph: WARNING: ignoring " + index + ": " + reason);
+    return null;
+  }
+
+  // Cheap sanity check of a freshly loaded index: the klass of a few
+  // objects spread over the heap must agree with the target
+  private boolean sampleMatches() {
+    if (numObjects == 0) {
+      return true;
+    }
+    int[] samples = new int[] { 0, numObjects / 2, numObjects - 1 };
+    ObjectHeap heap = VM.getVM().getObjectHeap();
+    for (int i = 0; i < samples.length; i++) {
+      int id = samples[i];
+      OopHandle handle = VM.getVM().getDebugger().parseAddress("0x" + Long.toHexString(addresses.at(id)))
+                                                  .addOffsetToAsOopHandle(0);
+      if (!getKlass(id).equals(heap.newOop(handle).getKlass())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeFully(WritableByteChannel out, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      out.write(buf);
+    }
+  }
+
+  private void collectObjects(HeapProgressThunk thunk) {
+    addresses     = new OffHeapLongArray();
+    sizes         = new OffHeapIntArray();
+    klassIds      = new OffHeapIntArray();
+    firstEdge     = new OffHeapLongArray();
+    edgeAddresses = new OffHeapLongArray();
+    firstEdge.append(0);
+
+    HeapVisitor visitor = new DefaultHeapVisitor() {
+        private long lastAddress = -1;
+
+        public boolean doObj(Oop obj) {
+          long address = VM.getAddressValue(obj.getHandle());
+          if (address <= lastAddress) {
+            System.err.println("HeapGraph: WARNING: object at 0x" + Long.toHexString(address) +
+                               " visited out of address order, ignoring");
+            return false;
+          }
+          lastAddress = address;
+          addObject(address, obj);
+          return false;
+        }
+      };
+    if (thunk != null) {
+      visitor = new ProgressiveHeapVisitor(visitor, thunk);
+    }
+    VM.getVM().getObjectHeap().iterate(visitor);
+  }
+
+  private void addObject(long address, final Oop obj) {
+    numObjects++;
+    addresses.append(address);
+    int words = (int) (obj.getObjectSize() / heapWordSize);
+    sizes.append(words);
+    totalWords += words;
+    klassIds.append(klassIndexFor(obj.getKlass()));
+    try {
+      obj.iterate(new DefaultOopVisitor() {
+          public void doOop(OopField field, boolean isVMField) {
+            OopHandle target = field.getValueAsOopHandle(getObj());
+            if (target != null) {
+              edgeAddresses.append(VM.getAddressValue(target));
+            }
+          }
+        }, false);
+    } catch (AddressException e) {
+      System.err.println("HeapGraph: WARNING: AddressException at 0x" +
+                         Long.toHexString(e.getAddress()) +
+                         " while iterating fields of object at 0x" + Long.toHexString(address));
+    }
+    firstEdge.append(edgeAddresses.length());
+  }
+
+  private int klassIndexFor(Klass k) {
+    Integer index = (Integer) klassIndices.get(k);
+    if (index == null) {
+      index = new Integer(klasses.size());
+      klasses.add(k);
+      klassIndices.put(k, index);
+    }
+    return index.intValue();
+  }
+
+  // Translates the collected target addresses into ids, dropping
+  // references which do not point to the start of a known object
+  private void resolveEdges() {
+    edges = new OffHeapIntArray();
+    long start = 0;
+    for (int id = 0; id < numObjects; id++) {
+      long end = firstEdge.at(id + 1);
+      for (long e = start; e < end; e++) {
+        int target = indexOf(edgeAddresses.at(e));
+        if (target >= 0) {
+          edges.append(target);
+        } else if (DEBUG) {
+          System.err.println("HeapGraph: dangling reference from 0x" + Long.toHexString(addresses.at(id)) +
+                             " to 0x" + Long.toHexString(edgeAddresses.at(e)));
+        }
+      }
+      firstEdge.atPut(id + 1, edges.length());
+      start = end;
+    }
+    edgeAddresses.free();
+    edgeAddresses = null;
+  }
+
+  private void collectRoots() {
+    final IntList rootList = new IntList();
+    AddressVisitor rootVisitor = new AddressVisitor() {
+        public void visitAddress(Address addr) {
+          addRoot(rootList, addr.getOopHandleAt(0));
+        }
+        public void visitCompOopAddress(Address addr) {
+          addRoot(rootList, addr.getCompOopHandleAt(0));
+        }
+      };
+
+    // Class mirrors; these hold the static fields
+    VM.getVM().getSystemDictionary().allClassesDo(new SystemDictionary.ClassVisitor() {
+        public void visit(Klass k) {
+          Instance mirror = k.getJavaMirror();
+          if (mirror != null) {
+            addRoot(rootList, mirror.getHandle());
+          }
+        }
+      });
+
+    // Thread objects, stacks and local JNI handles
+    for (JavaThread thread = VM.getVM().getThreads().first(); thread != null; thread = thread.next()) {
+      Oop threadObj = thread.getThreadObj();
+      if (threadObj != null) {
+        addRoot(rootList, threadObj.getHandle());
+      }
+      try {
+        thread.oopsDo(rootVisitor);
+        thread.activeHandles().oopsDo(rootVisitor);
+      } catch (RuntimeException e) {
+        System.err.println("HeapGraph: WARNING: " + e + " while scanning roots of thread \"" +
+                           thread.getThreadName() + "\"");
+      }
+    }
+
+    // Global JNI handles
+    JNIHandles handles = VM.getVM().getJNIHandles();
+    handles.globalHandles().oopsDo(rootVisitor);
+    handles.weakGlobalHandles().oopsDo(rootVisitor);
+
+    roots = rootList.toArray();
+  }
+
+  private void addRoot(IntList rootList, OopHandle handle) {
+    int id = indexOf(handle);
+    if (id >= 0) {
+      rootList.add(id);
+    }
+  }
+
+  // A minimal growable list of ints
+  static class IntList {
+    private int[] data = new int[16];
+    private int   size;
+
+    void add(int value) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = value;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(data, size);
+    }
+  }
+}
@@ -305,6 +305,13 @@ import sun.jvm.hotspot.runtime.*;
  *
  * HPROF_HEAP_DUMP_END      denotes the end of a heap dump
  *
+ *
+ * A dump written to a stream, or to a file whose name ends in ".gz",
+ * always uses the segmented format. Each segment is buffered in memory
+ * until it reaches the segment size and is then written with its
+ * length, so the output never has to be sought back and can go to a
+ * pipe, a socket, or a gzip stream compressed in parallel chunks.
+ *
  */
 
 public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
@@ -317,6 +324,11 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
     // a new segment.
     private static final long HPROF_SEGMENTED_HEAP_DUMP_SEGMENT_SIZE = 1L * 0x40000000;
 
+    // The approximate size of a heap segment when streaming. Each
+    // segment is buffered in memory before it is written.
+    private static final int HPROF_STREAMED_HEAP_DUMP_SEGMENT_SIZE =
+        Integer.getInteger("sun.jvm.hotspot.utilities.HeapHprofBinWriter.segmentSize", 8 << 20).intValue();
+
     // hprof binary file header
     private static final String HPROF_HEADER_1_0_1 = "JAVA PROFILE 1.0.1";
     private static final String HPROF_HEADER_1_0_2 = "JAVA PROFILE 1.0.2";
@@ -380,10 +392,67 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
     private static final int JVM_SIGNATURE_CLASS   = 'L';
 
     public synchronized void write(String fileName) throws IOException {
+        if (fileName.endsWith(".gz")) {
+            OutputStream os = new FileOutputStream(fileName);
+            boolean done = false;
+            try {
+                write(os, true);
+                done = true;
+            } finally {
+                try {
+                    os.close();
+                } finally {
+                    if (!done) {
+                        // do not leave a truncated dump behind
+                        new File(fileName).delete();
+                    }
+                }
+            }
+            return;
+        }
+
         // open file stream and create buffered data output stream
         fos = new FileOutputStream(fileName);
         out = new DataOutputStream(new BufferedOutputStream(fos));
+        streaming = false;
+        writeDump();
+    }
 
+    /** Writes the heap dump to the given stream, for example standard
+        output or a socket, as a sequence of buffered heap dump
+        segments. If compress is true the data is gzip-compressed in
+        parallel chunks. The stream is flushed but not closed. */
+    public synchronized void write(OutputStream os, boolean compress) throws IOException {
+        ParallelGZIPOutputStream gzos = null;
+        if (compress) {
+            gzos = new ParallelGZIPOutputStream(os);
+            os = gzos;
+        }
+        out = new DataOutputStream(new BufferedOutputStream(os));
+        streaming = true;
+        sinkOut = out;
+        segmentBuffer = new ByteArrayOutputStream(HPROF_STREAMED_HEAP_DUMP_SEGMENT_SIZE + 64 * 1024);
+        segmentOut = new DataOutputStream(segmentBuffer);
+        boolean done = false;
+        try {
+            writeDump();
+            if (gzos != null) {
+                gzos.finish();
+            }
+            done = true;
+        } finally {
+            if (!done && gzos != null) {
+                // stop the compressor threads without completing the
+                // stream, keeping the original failure
+                gzos.abort();
+            }
+            segmentBuffer = null;
+            segmentOut = null;
+            sinkOut = null;
+        }
+    }
+
+    private void writeDump() throws IOException {
         VM vm = VM.getVM();
         dbg = vm.getDebugger();
         objectHeap = vm.getObjectHeap();
@@ -411,7 +480,8 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
         DOUBLE_SIZE = objectHeap.getDoubleSize();
 
         // Check weather we should dump the heap as segments
-        useSegmentedHeapDump = vm.getUniverse().heap().used() > HPROF_SEGMENTED_HEAP_DUMP_THRESHOLD;
+        useSegmentedHeapDump = streaming ||
+            vm.getUniverse().heap().used() > HPROF_SEGMENTED_HEAP_DUMP_THRESHOLD;
 
         // hprof bin format header
         writeFileHeader();
@@ -432,11 +502,17 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
         // this will write heap data into the buffer stream
         super.write();
 
-        // flush buffer stream.
-        out.flush();
+        if (streaming) {
+            // The last segment holds the rest of the heap and the roots
+            writeSegment();
+            out = sinkOut;
+        } else {
+            // flush buffer stream.
+            out.flush();
 
-        // Fill in final length
-        fillInHeapRecordLength();
+            // Fill in final length
+            fillInHeapRecordLength();
+        }
 
         if (useSegmentedHeapDump) {
             // Write heap segment-end record
@@ -450,11 +526,18 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
         out = null;
 
         // close the file stream
-        fos.close();
+        if (!streaming) {
+            fos.close();
+        }
     }
 
     @Override
     protected void writeHeapRecordPrologue() throws IOException {
+        if (streaming) {
+            // From here on all records go to the segment buffer
+            out = segmentOut;
+            return;
+        }
         if (currentSegmentStart == 0) {
             // write heap data header, depending on heap size use segmented heap
             // format
@@ -474,6 +557,12 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
 
     @Override
     protected void writeHeapRecordEpilogue() throws IOException {
+        if (streaming) {
+            if (segmentBuffer.size() >= HPROF_STREAMED_HEAP_DUMP_SEGMENT_SIZE) {
+                writeSegment();
+            }
+            return;
+        }
         if (useSegmentedHeapDump) {
             out.flush();
             if ((fos.getChannel().position() - currentSegmentStart - 4) >= HPROF_SEGMENTED_HEAP_DUMP_SEGMENT_SIZE) {
@@ -483,6 +572,18 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
         }
     }
 
+    // Writes the buffered records as one heap dump segment
+    private void writeSegment() throws IOException {
+        if (segmentBuffer.size() == 0) {
+            return;
+        }
+        sinkOut.writeByte((byte) HPROF_HEAP_DUMP_SEGMENT);
+        sinkOut.writeInt(0);
+        sinkOut.writeInt(segmentBuffer.size());
+        segmentBuffer.writeTo(sinkOut);
+        segmentBuffer.reset();
+    }
+
     private void fillInHeapRecordLength() throws IOException {
 
         // now get current position to calculate length
@@ -1084,6 +1185,13 @@ public class HeapHprofBinWriter extends AbstractHeapGraphWriter {
     private boolean useSegmentedHeapDump;
     private long currentSegmentStart;
 
+    // Set when writing to a stream: heap records are collected in
+    // segmentBuffer and written to sinkOut one segment at a time
+    private boolean streaming;
+    private DataOutputStream sinkOut;
+    private DataOutputStream segmentOut;
+    private ByteArrayOutputStream segmentBuffer;
+
     private long BOOLEAN_BASE_OFFSET;
     private long BYTE_BASE_OFFSET;
     private long CHAR_BASE_OFFSET;
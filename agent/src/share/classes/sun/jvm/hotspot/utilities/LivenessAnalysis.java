@@ -76,21 +76,27 @@ public class LivenessAnalysis {
 
     // Currently the reverse pointer analysis returns non-null results
     // only for live objects
-    if (rev.get(target) == null) {
+    if (rev.indexOf(target) < 0) {
       // Object is dead
       return null;
     }
 
-    // HashSet of Oops acting as a bit mask indicating which ones have
-    // already been traversed
-    Set/*<Oop>*/ visitedOops = new HashSet/*<Oop>*/();
+    // Bit mask, indexed by the ids of the reverse pointer index,
+    // indicating which Oops have already been traversed
+    BitMap visitedOops = new BitMap(rev.size());
+
+    // The reverse pointers fetched so far. ReversePtrs recreates the
+    // LivenessPathElements on every query; caching them here keeps
+    // them canonical for the duration of this computation, which the
+    // path trimming below relies on.
+    Map/*<Oop, ArrayList>*/ fetchedPtrs = new HashMap/*<Oop, ArrayList>*/();
 
       // IdentityHashMap of LivenessElements acting as a bit mask
       // indicating which roots have already been traversed
     Map/*<LivenessElement, LivenessElement>*/ visitedRoots =
       new IdentityHashMap/*<LivenessElement, LivenessElement>*/();
 
-    visitedOops.add(target);
+    visitedOops.atPut(rev.indexOf(target), true);
 
     // Construct the initial LivenessPath
     LivenessPathList list = new LivenessPathList();
@@ -127,8 +133,13 @@ public class LivenessAnalysis {
       try {
         // Fetch next set of reverse pointers for the last object on
         // the list
+        Oop obj = path.peek().getObj();
         ArrayList/*<LivenessPathElement>*/ nextPtrs =
-          rev.get(path.peek().getObj());
+          (ArrayList) fetchedPtrs.get(obj);
+        if (nextPtrs == null) {
+          nextPtrs = rev.get(obj);
+          fetchedPtrs.put(obj, nextPtrs);
+        }
 
         // Depending on exactly what the reverse pointers analysis
         // yields, these results may be null, although currently they
@@ -138,13 +149,14 @@ public class LivenessAnalysis {
           for (Iterator iter = nextPtrs.iterator(); iter.hasNext(); ) {
             LivenessPathElement nextElement = (LivenessPathElement) iter.next();
             // See whether we've visited this element yet
+            int nextId = nextElement.isRoot() ? -1 : rev.indexOf(nextElement.getObj());
             if ((nextElement.isRoot() && (visitedRoots.get(nextElement) == null)) ||
-                (!nextElement.isRoot() && !visitedOops.contains(nextElement.getObj()))) {
+                (!nextElement.isRoot() && !visitedOops.at(nextId))) {
               // Show we've visited this one
               if (nextElement.isRoot()) {
                 visitedRoots.put(nextElement, nextElement);
               } else {
-                visitedOops.add(nextElement.getObj());
+                visitedOops.atPut(nextId, true);
               }
 
               // Create a new LivenessPath for each one
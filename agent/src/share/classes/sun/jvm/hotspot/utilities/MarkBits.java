@@ -58,8 +58,12 @@ public class MarkBits {
       System.err.println("MarkBits: WARNING: null object, ignoring");
       return false;
     }
+    return mark(obj.getHandle());
+  }
 
-    OopHandle handle = obj.getHandle();
+  /** Same as above for an object known only by its handle, which
+      avoids materializing an Oop for objects already marked. */
+  public boolean mark(OopHandle handle) {
     // FIXME: will have trouble with larger heap sizes
     long idx = handle.minus(start) / VM.getVM().getOopSize();
     if ((idx < 0) || (idx >= bits.size())) {
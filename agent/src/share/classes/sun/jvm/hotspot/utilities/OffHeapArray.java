@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.utilities;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/** Base class for growable arrays of primitives kept outside of the
+    Java heap. The storage is a list of fixed-size direct buffers so
+    that arrays with more than 2^31 elements can be represented and
+    so that the analysis of very large heaps does not compete with
+    the analyzing VM's own heap. Indices are longs. */
+
+public abstract class OffHeapArray {
+  // 64 MB per chunk
+  private static final int CHUNK_SHIFT = 26;
+  private static final int CHUNK_SIZE  = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK  = CHUNK_SIZE - 1;
+
+  private List/*<ByteBuffer>*/ chunks = new ArrayList();
+  private int  elementShift;
+  private long length;
+  private File        backingFile;
+  private FileChannel channel;
+  private boolean     readOnly;
+
+  protected OffHeapArray(int elementSize) {
+    this(elementSize, null);
+  }
+
+  protected OffHeapArray(int elementSize, File backingFile) {
+    if (Assert.ASSERTS_ENABLED) {
+      Assert.that(elementSize == 4 || elementSize == 8, "unsupported element size");
+    }
+    elementShift = (elementSize == 4) ? 2 : 3;
+    if (backingFile != null) {
+      try {
+        channel = new RandomAccessFile(backingFile, "rw").getChannel();
+      } catch (IOException e) {
+        throw new RuntimeException("Unable to create " + backingFile + ": " + e.getMessage());
+      }
+      backingFile.deleteOnExit();
+      this.backingFile = backingFile;
+    }
+  }
+
+  /** Maps <code>length</code> elements stored at the given position
+      of a file, as written by {@link #writeTo}. The resulting array
+      is read-only and the channel may be closed once the array has
+      been created. */
+  protected OffHeapArray(int elementSize, FileChannel in, long position, long length) throws IOException {
+    this(elementSize);
+    long bytes = length << elementShift;
+    for (long offset = 0; offset < bytes; offset += CHUNK_SIZE) {
+      long size = Math.min(CHUNK_SIZE, bytes - offset);
+      chunks.add(in.map(FileChannel.MapMode.READ_ONLY, position + offset, size).order(ByteOrder.nativeOrder()));
+    }
+    this.length = length;
+    readOnly = true;
+  }
+
+  /** Creates a fresh backing file in the given directory, or returns
+      null if the directory is null */
+  public static File createBackingFile(String directory, String prefix) {
+    if (directory == null) {
+      return null;
+    }
+    try {
+      return File.createTempFile(prefix, ".dat", new File(directory));
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to create backing file in " + directory + ": " + e.getMessage());
+    }
+  }
+
+  /** Number of elements currently in the array */
+  public long length() {
+    return length;
+  }
+
+  /** Grows or shrinks the array to the given number of
+      elements. Freshly allocated storage is zero. */
+  public void setLength(long newLength) {
+    if (readOnly) {
+      throw new RuntimeException("OffHeapArray is read-only");
+    }
+    long bytes = newLength << elementShift;
+    while (((long) chunks.size() << CHUNK_SHIFT) < bytes) {
+      chunks.add(newChunk((long) chunks.size() << CHUNK_SHIFT));
+    }
+    length = newLength;
+  }
+
+  /** Drops all storage. The array is empty afterwards. */
+  public void free() {
+    chunks.clear();
+    length = 0;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+      }
+      channel = null;
+      backingFile.delete();
+    }
+  }
+
+  /** Number of bytes {@link #writeTo} will write */
+  public long getByteSize() {
+    return length << elementShift;
+  }
+
+  /** Writes the elements, in native byte order, to the given channel */
+  public void writeTo(WritableByteChannel out) throws IOException {
+    long remaining = getByteSize();
+    for (int i = 0; remaining > 0; i++) {
+      ByteBuffer chunk = ((ByteBuffer) chunks.get(i)).duplicate();
+      chunk.position(0);
+      chunk.limit((int) Math.min(CHUNK_SIZE, remaining));
+      while (chunk.hasRemaining()) {
+        out.write(chunk);
+      }
+      remaining -= CHUNK_SIZE;
+    }
+  }
+
+  private ByteBuffer newChunk(long position) {
+    if (channel == null) {
+      return ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.nativeOrder());
+    }
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_SIZE).order(ByteOrder.nativeOrder());
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to map " + backingFile + ": " + e.getMessage());
+    }
+  }
+
+  protected ByteBuffer chunkFor(long index) {
+    if (Assert.ASSERTS_ENABLED) {
+      Assert.that(index >= 0 && index < length, "OffHeapArray index out of bounds");
+    }
+    return (ByteBuffer) chunks.get((int) ((index << elementShift) >>> CHUNK_SHIFT));
+  }
+
+  protected int offsetFor(long index) {
+    return (int) ((index << elementShift) & CHUNK_MASK);
+  }
+
+  protected long grow() {
+    long index = length;
+    setLength(length + 1);
+    return index;
+  }
+}
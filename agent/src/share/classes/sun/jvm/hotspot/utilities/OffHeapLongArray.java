@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.utilities;
+
+import java.io.*;
+import java.nio.channels.*;
+
+/** A growable, long-indexed array of longs stored outside of the
+    Java heap. */
+
+public class OffHeapLongArray extends OffHeapArray {
+  public OffHeapLongArray() {
+    super(8);
+  }
+
+  /** Creates an array whose storage is mapped from the given file;
+      see {@link OffHeapArray} */
+  public OffHeapLongArray(File backingFile) {
+    super(8, backingFile);
+  }
+
+  /** Maps a read-only array previously written with {@link #writeTo} */
+  public OffHeapLongArray(FileChannel in, long position, long length) throws IOException {
+    super(8, in, position, length);
+  }
+
+  public long at(long index) {
+    return chunkFor(index).getLong(offsetFor(index));
+  }
+
+  public void atPut(long index, long value) {
+    chunkFor(index).putLong(offsetFor(index), value);
+  }
+
+  /** Appends a value and returns its index */
+  public long append(long value) {
+    long index = grow();
+    atPut(index, value);
+    return index;
+  }
+}
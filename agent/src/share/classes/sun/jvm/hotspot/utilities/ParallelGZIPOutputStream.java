@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package sun.jvm.hotspot.utilities;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
+
+/** An OutputStream which gzip-compresses its data in fixed-size
+    chunks on a pool of threads. Each chunk becomes a complete gzip
+    member; the members are written in order, and their concatenation
+    is a valid gzip stream which gunzip and GZIPInputStream read as a
+    whole. */
+
+public class ParallelGZIPOutputStream extends OutputStream {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelGZIPOutputStream(OutputStream out, int chunkSize, int numThreads) {
+        this.out = out;
+        this.chunkSize = chunkSize;
+        // Bounds the memory held by chunks waiting to be written
+        this.maxPending = 2 * numThreads;
+        this.pool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "gzip compressor");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        chunk = new byte[chunkSize];
+    }
+
+    public void write(int b) throws IOException {
+        if (count == chunkSize) {
+            submitChunk();
+        }
+        chunk[count++] = (byte) b;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chunkSize) {
+                submitChunk();
+            }
+            int n = Math.min(len, chunkSize - count);
+            System.arraycopy(b, off, chunk, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Compresses and writes all buffered data. A partial chunk
+        becomes a short gzip member. */
+    public void flush() throws IOException {
+        submitChunk();
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+        out.flush();
+    }
+
+    /** Writes all data without closing the underlying stream */
+    public void finish() throws IOException {
+        if (!finished) {
+            try {
+                flush();
+            } finally {
+                finished = true;
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /** Stops the compressor threads after a failure and discards the
+        data not written yet. The stream is ended with an incomplete
+        gzip member, so readers report it as truncated instead of
+        seeing a shorter but valid stream. */
+    public void abort() {
+        if (!finished) {
+            finished = true;
+            pool.shutdownNow();
+            pending.clear();
+            try {
+                out.write(TRUNCATED_MEMBER);
+                out.flush();
+            } catch (IOException e) {
+                // the underlying stream has failed already
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    // -- Internals only below this point
+
+    // A gzip member header followed by the start of a stored block of
+    // 65535 bytes which never comes. GZIPInputStream ignores fewer than
+    // 27 bytes after a member, so the member must be longer than that.
+    private static final byte[] TRUNCATED_MEMBER = new byte[32];
+    static {
+        byte[] start = {
+            (byte) 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff,
+            0, (byte) 0xff, (byte) 0xff, 0, 0
+        };
+        System.arraycopy(start, 0, TRUNCATED_MEMBER, 0, start.length);
+    }
+
+    private OutputStream out;
+    private ExecutorService pool;
+    private int chunkSize;
+    private int maxPending;
+    private LinkedList pending = new LinkedList(); // <Future<byte[]>>, in stream order
+    private byte[] chunk;
+    private int count;
+    private boolean finished;
+
+    private void submitChunk() throws IOException {
+        if (finished) {
+            throw new IOException("stream finished");
+        }
+        if (count == 0) {
+            return;
+        }
+        final byte[] data = chunk;
+        final int length = count;
+        pending.add(pool.submit(new Callable() {
+                public Object call() throws IOException {
+                    ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 2 + 64);
+                    GZIPOutputStream gz = new GZIPOutputStream(bos, 64 * 1024);
+                    gz.write(data, 0, length);
+                    gz.close();
+                    return bos.toByteArray();
+                }
+            }));
+        chunk = new byte[chunkSize];
+        count = 0;
+        while (pending.size() > maxPending) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        Future f = (Future) pending.removeFirst();
+        try {
+            out.write((byte[]) f.get());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.utilities;
+
+import java.io.*;
+import sun.jvm.hotspot.oops.*;
+
+/** Per-class summary computed by the {@link DominatorTree}: the
+    number and shallow size of the reachable instances of a klass,
+    and the amount of memory which would be freed if all of them were
+    unreachable. */
+
+public class RetainedSizeElement {
+  private Klass klass;
+  private long  count;         // Number of reachable instances of klass
+  private long  size;          // Total shallow size of these instances
+  private long  retainedSize;  // Memory retained by these instances
+
+  RetainedSizeElement(Klass klass, long count, long size, long retainedSize) {
+    this.klass = klass;
+    this.count = count;
+    this.size = size;
+    this.retainedSize = retainedSize;
+  }
+
+  public Klass getKlass() {
+    return klass;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getRetainedSize() {
+    return retainedSize;
+  }
+
+  public int compare(RetainedSizeElement other) {
+    if (other.retainedSize == retainedSize) {
+      return 0;
+    }
+    return (other.retainedSize > retainedSize) ? 1 : -1;
+  }
+
+  /** Human readable description, same as in the object histogram */
+  public String getDescription() {
+    return new ObjectHistogramElement(klass).getDescription();
+  }
+
+  public static void titleOn(PrintStream tty) {
+    tty.println("Retained Sizes by Class:");
+    tty.println();
+    tty.println("num " + "\t" + "  #instances" + "\t" + "#bytes" + "\t" + "#retained" + "\t" + "Class description");
+    tty.println("--------------------------------------------------------------------------");
+  }
+
+  public void printOn(PrintStream tty) {
+    tty.print(count + "\t" + size + "\t" + retainedSize + "\t");
+    tty.print(getDescription());
+    tty.println();
+  }
+}
@@ -25,27 +25,34 @@
 package sun.jvm.hotspot.utilities;
 
 import java.util.*;
+import sun.jvm.hotspot.debugger.*;
 import sun.jvm.hotspot.oops.*;
+import sun.jvm.hotspot.runtime.*;
 
-/** ReversePtrs hashtable. */
+/** Reverse pointer index computed by the {@link
+    ReversePtrsAnalysis}. <P>
 
-public class ReversePtrs  {
-  private HashMap rp;
+    Live objects are identified by their position in a sorted table of
+    addresses. The incoming references of each object are kept in
+    compressed-row form as the ids of the referring objects, in a
+    primitive array stored off the Java heap (and optionally spilled
+    to a memory-mapped file), so that only a few bytes per object and
+    per reference are needed. The {@link LivenessPathElement}s
+    describing a reference, including the referring field, are
+    recreated on demand by {@link #get}. */
 
+public class ReversePtrs  {
   public ReversePtrs() {
-    rp = new HashMap();
+    this(null);
   }
 
-  public void put(LivenessPathElement from, Oop to) {
-    if (to == null) return;
-    ArrayList al = (ArrayList) rp.get((Object) to);
-    if (al == null) al = new ArrayList();
-    // Inserting at the beginning is a hack to change the reported
-    // paths from LivenessAnalysis to look more like they used to;
-    // otherwise paths through the Finalizer queue to popular objects
-    // seem to be preferred
-    al.add(0, (Object) from);
-    rp.put((Object) to, (Object) al);
+  /** Creates an index whose temporary and final reference arrays are
+      mapped from files in the given directory, if non-null */
+  public ReversePtrs(String spillDirectory) {
+    this.spillDirectory = spillDirectory;
+    liveAddresses = new OffHeapLongArray(OffHeapArray.createBackingFile(spillDirectory, "revptrs-live"));
+    edgeFrom      = new OffHeapLongArray(OffHeapArray.createBackingFile(spillDirectory, "revptrs-from"));
+    edgeTo        = new OffHeapLongArray(OffHeapArray.createBackingFile(spillDirectory, "revptrs-to"));
   }
 
   /** Returns an ArrayList of the incoming references to this Oop if
@@ -54,6 +61,168 @@ public class ReversePtrs  {
       result is frequently inaccurate for JVM-internal objects, but is
       usually correct for Java-level objects. */
   public ArrayList/*<LivenessPathElement>*/ get(Oop obj) {
-    return (ArrayList) rp.get((Object)obj);
+    int id = indexOf(obj);
+    if (id < 0) {
+      return null;
+    }
+    final long target = addresses[id];
+    final ArrayList res = new ArrayList();
+    int prev = -1;
+    for (long p = referrerStart[id]; p < referrerStart[id + 1]; p++) {
+      int from = referrers.at(p);
+      if (from == prev) {
+        // Several fields of the same object; all are found below
+        continue;
+      }
+      prev = from;
+      final Oop src = getOop(from);
+      src.iterate(new DefaultOopVisitor() {
+          public void doOop(OopField field, boolean isVMField) {
+            OopHandle handle = field.getValueAsOopHandle(getObj());
+            if (handle != null && VM.getAddressValue(handle) == target) {
+              res.add(new LivenessPathElement(src, field.getID()));
+            }
+          }
+        }, false);
+    }
+    int r = Arrays.binarySearch(rootTargets, id);
+    if (r >= 0) {
+      while (r > 0 && rootTargets[r - 1] == id) {
+        r--;
+      }
+      for (; r < rootTargets.length && rootTargets[r] == id; r++) {
+        res.add(rootElements[r]);
+      }
+    }
+    return res;
+  }
+
+  /** Number of live objects */
+  public int size() {
+    return addresses.length;
+  }
+
+  /** Returns the id of the given object, or -1 if it is dead */
+  public int indexOf(Oop obj) {
+    if (obj == null) {
+      return -1;
+    }
+    int id = Arrays.binarySearch(addresses, VM.getAddressValue(obj.getHandle()));
+    return (id < 0) ? -1 : id;
   }
+
+  /** Recreates the Oop for the live object with the given id */
+  public Oop getOop(int id) {
+    OopHandle handle = VM.getVM().getDebugger().parseAddress("0x" + Long.toHexString(addresses[id]))
+                                                .addOffsetToAsOopHandle(0);
+    return VM.getVM().getObjectHeap().newOop(handle);
+  }
+
+  //---------------------------------------------------------------------------
+  // Construction, used by ReversePtrsAnalysis
+  //
+
+  void addObject(long address) {
+    liveAddresses.append(address);
+  }
+
+  void put(long from, long to) {
+    edgeFrom.append(from);
+    edgeTo.append(to);
+  }
+
+  void put(LivenessPathElement root, Oop to) {
+    if (to == null) return;
+    rootList.add(root);
+    rootAddresses.add(new Long(VM.getAddressValue(to.getHandle())));
+  }
+
+  /** Builds the index from the collected objects and references */
+  void seal() {
+    // Address table
+    int n = (int) liveAddresses.length();
+    addresses = new long[n];
+    for (int i = 0; i < n; i++) {
+      addresses[i] = liveAddresses.at(i);
+    }
+    liveAddresses.free();
+    liveAddresses = null;
+    Arrays.sort(addresses);
+
+    // Count, then place, the referrers of each object. Placing them
+    // back to front lists the most recently found references first,
+    // which is what LivenessAnalysis has always seen. References to
+    // objects outside of the heap were never marked and are dropped.
+    long numEdges = edgeTo.length();
+    referrerStart = new long[n + 1];
+    for (long e = 0; e < numEdges; e++) {
+      int to = Arrays.binarySearch(addresses, edgeTo.at(e));
+      if (to >= 0) {
+        referrerStart[to]++;
+      }
+    }
+    for (int i = 1; i <= n; i++) {
+      referrerStart[i] += referrerStart[i - 1];
+    }
+    referrers = new OffHeapIntArray(OffHeapArray.createBackingFile(spillDirectory, "revptrs"));
+    referrers.setLength(referrerStart[n]);
+    for (long e = 0; e < numEdges; e++) {
+      int to = Arrays.binarySearch(addresses, edgeTo.at(e));
+      if (to >= 0) {
+        referrers.atPut(--referrerStart[to], Arrays.binarySearch(addresses, edgeFrom.at(e)));
+      }
+    }
+    edgeFrom.free();
+    edgeTo.free();
+    edgeFrom = edgeTo = null;
+
+    // Roots, sorted by target id, most recent first
+    final int[] targets = new int[rootList.size()];
+    List order = new ArrayList();
+    for (int i = targets.length - 1; i >= 0; i--) {
+      targets[i] = Arrays.binarySearch(addresses, ((Long) rootAddresses.get(i)).longValue());
+      if (targets[i] >= 0) {
+        order.add(new Integer(i));
+      }
+    }
+    int numRoots = order.size();
+    Collections.sort(order, new Comparator() {
+        public int compare(Object o1, Object o2) {
+          int t1 = targets[((Integer) o1).intValue()];
+          int t2 = targets[((Integer) o2).intValue()];
+          return (t1 < t2) ? -1 : ((t1 == t2) ? 0 : 1);
+        }
+      });
+    rootTargets = new int[numRoots];
+    rootElements = new LivenessPathElement[numRoots];
+    for (int i = 0; i < numRoots; i++) {
+      int idx = ((Integer) order.get(i)).intValue();
+      rootTargets[i] = targets[idx];
+      rootElements[i] = (LivenessPathElement) rootList.get(idx);
+    }
+    rootList = null;
+    rootAddresses = null;
+  }
+
+  //---------------------------------------------------------------------------
+  // Internals only below this point
+  //
+
+  private String                 spillDirectory;
+
+  // Sorted addresses of the live objects; the index is the id
+  private long[]                 addresses;
+  // Referrers of object i are at referrerStart[i] .. referrerStart[i + 1]
+  private long[]                 referrerStart;
+  private OffHeapIntArray        referrers;
+  // Root references, sorted by target id
+  private int[]                  rootTargets;
+  private LivenessPathElement[]  rootElements;
+
+  // Only used during construction
+  private OffHeapLongArray       liveAddresses;
+  private OffHeapLongArray       edgeFrom;
+  private OffHeapLongArray       edgeTo;
+  private List/*<LivenessPathElement>*/ rootList = new ArrayList();
+  private List/*<Long>*/         rootAddresses = new ArrayList();
 }
@@ -38,7 +38,16 @@ import sun.jvm.hotspot.utilities.*;
     which point to it. NOTE: currently only a subset of the roots
     known to the VM is exposed to the SA: objects on the stack, static
     fields in classes, and JNI handles. These should be most of the
-    user-level roots keeping objects alive. */
+    user-level roots keeping objects alive. <P>
+
+    The result is a compact {@link ReversePtrs} index. Setting the
+    system property
+    <code>sun.jvm.hotspot.utilities.ReversePtrsAnalysis.spillDirectory</code>
+    to a directory makes its reference arrays memory-mapped from
+    temporary files in that directory. If a heap snapshot is installed
+    on the {@link ObjectHeap} the traversal follows the references
+    recorded in the snapshot instead of reading the fields of every
+    object from the target. */
 
 public class ReversePtrsAnalysis {
   // Used for debugging this code
@@ -60,8 +69,7 @@ public class ReversePtrsAnalysis {
     }
 
     VM vm = VM.getVM();
-    rp = new ReversePtrs();
-    vm.setRevPtrs(rp);
+    rp = new ReversePtrs(System.getProperty("sun.jvm.hotspot.utilities.ReversePtrsAnalysis.spillDirectory"));
     Universe universe = vm.getUniverse();
     CollectedHeap collHeap = universe.heap();
     usedSize = collHeap.used();
@@ -89,6 +97,11 @@ public class ReversePtrsAnalysis {
 
     // Get a hold of the object heap
     heap = vm.getObjectHeap();
+    snapshot = heap.getSnapshot();
+    if (snapshot != null) {
+      snapshotMarks = new BitMap(snapshot.getObjectCount());
+      snapshotWorkList = new OffHeapIntArray();
+    }
 
     // Do each thread's roots
     for (JavaThread thread = VM.getVM().getThreads().first();
@@ -149,12 +162,22 @@ public class ReversePtrsAnalysis {
         }
       });
 
+    // Build the index
+    rp.seal();
+    vm.setRevPtrs(rp);
+
     if (progressThunk != null) {
       progressThunk.heapIterationComplete();
     }
 
-    // Clear out markBits
+    // Clear out markBits and the work lists
     markBits = null;
+    workList.free();
+    if (snapshot != null) {
+      snapshotMarks = null;
+      snapshotWorkList.free();
+      snapshotWorkList = null;
+    }
   }
 
 
@@ -170,6 +193,13 @@ public class ReversePtrsAnalysis {
   private MarkBits            markBits;
   private int                 depth; // Debugging only
   private ReversePtrs         rp;
+  // Addresses of objects marked but not yet visited
+  private OffHeapLongArray    workList = new OffHeapLongArray();
+  // Used instead of markBits and workList for the objects in the
+  // snapshot, if any
+  private HeapGraph           snapshot;
+  private BitMap              snapshotMarks;
+  private OffHeapIntArray     snapshotWorkList;
 
   private void markAndTraverse(OopHandle handle) {
     try {
@@ -198,23 +228,27 @@ public class ReversePtrsAnalysis {
     }
 
     // Visited object
-    if (!markBits.mark(obj)) {
+    if (!mark(obj.getHandle())) {
       return;
     }
 
-    // Root of work list for objects to be visited.  A simple
-    // stack for saving new objects to be analyzed.
-
-    final Stack workList = new Stack();
+    if (snapshot != null) {
+      int id = snapshot.indexOf(obj.getHandle());
+      if (id >= 0) {
+        traverseSnapshot(id);
+        return;
+      }
+    }
 
-    // Next object to be visited.
+    // Next object to be visited. The work list of objects still to be
+    // analyzed only holds addresses; Oops are created when an object
+    // is actually visited.
     Oop next = obj;
 
     try {
-      // Node in the list currently being visited.
-
       while (true) {
         final Oop currObj = next;
+        final long currAddr = VM.getAddressValue(currObj.getHandle());
 
         // For the progress meter
         if (progressThunk != null) {
@@ -241,10 +275,13 @@ public class ReversePtrsAnalysis {
         currObj.iterate(new DefaultOopVisitor() {
           public void doOop(OopField field, boolean isVMField) {
             // "field" refers to a reference in currObj
-            Oop next = field.getValue(currObj);
-            rp.put(new LivenessPathElement(currObj, field.getID()), next);
-            if ((next != null) && markBits.mark(next)) {
-              workList.push(next);
+            OopHandle handle = field.getValueAsOopHandle(currObj);
+            if (handle != null) {
+              long nextAddr = VM.getAddressValue(handle);
+              rp.put(currAddr, nextAddr);
+              if (mark(handle)) {
+                workList.append(nextAddr);
+              }
             }
           }
         }, false);
@@ -254,10 +291,16 @@ public class ReversePtrsAnalysis {
         }
 
         // Get the next object to visit.
-        next = (Oop) workList.pop();
+        long size = workList.length();
+        if (size == 0) {
+          // Done
+          return;
+        }
+        long nextAddr = workList.at(size - 1);
+        workList.setLength(size - 1);
+        next = heap.newOop(VM.getVM().getDebugger().parseAddress("0x" + Long.toHexString(nextAddr))
+                                                      .addOffsetToAsOopHandle(0));
       }
-    } catch (EmptyStackException e) {
-      // Done
     } catch (NullPointerException e) {
       System.err.println("ReversePtrs: WARNING: " + e +
         " during traversal");
@@ -267,6 +310,67 @@ public class ReversePtrsAnalysis {
     }
   }
 
+  // Same as the loop above, but the references are taken from the
+  // snapshot and the work list holds object ids
+  private void traverseSnapshot(int id) {
+    while (true) {
+      long currAddr = snapshot.getAddress(id);
+
+      // For the progress meter
+      if (progressThunk != null) {
+        visitedSize += snapshot.getObjectSize(id);
+        double curFrac = (double) visitedSize / (double) usedSize;
+        if (curFrac >
+            lastNotificationFraction + MINIMUM_NOTIFICATION_FRACTION) {
+          progressThunk.heapIterationFractionUpdate(curFrac);
+          lastNotificationFraction = curFrac;
+        }
+      }
+
+      long end = snapshot.getFirstEdge(id + 1);
+      for (long e = snapshot.getFirstEdge(id); e < end; e++) {
+        int target = snapshot.getEdgeTarget(e);
+        rp.put(currAddr, snapshot.getAddress(target));
+        if (mark(target)) {
+          snapshotWorkList.append(target);
+        }
+      }
+
+      // Get the next object to visit.
+      long size = snapshotWorkList.length();
+      if (size == 0) {
+        // Done
+        return;
+      }
+      id = snapshotWorkList.at(size - 1);
+      snapshotWorkList.setLength(size - 1);
+    }
+  }
+
+  // Marks the object and records it as live in the index
+  private boolean mark(OopHandle handle) {
+    if (snapshot != null) {
+      int id = snapshot.indexOf(handle);
+      if (id >= 0) {
+        return mark(id);
+      }
+    }
+    if (!markBits.mark(handle)) {
+      return false;
+    }
+    rp.addObject(VM.getAddressValue(handle));
+    return true;
+  }
+
+  private boolean mark(int id) {
+    if (snapshotMarks.at(id)) {
+      return false;
+    }
+    snapshotMarks.atPut(id, true);
+    rp.addObject(snapshot.getAddress(id));
+    return true;
+  }
+
 
   class RootVisitor implements AddressVisitor {
     RootVisitor(String baseRootDescription) {
@@ -25,6 +25,11 @@
 package sun.jvm.hotspot.utilities.soql;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import sun.jvm.hotspot.oops.*;
 import sun.jvm.hotspot.memory.*;
 import sun.jvm.hotspot.runtime.*;
@@ -33,7 +38,15 @@ import sun.jvm.hotspot.utilities.*;
 /**
  * This is SOQL (Simple Object Query Language) engine. This
  * uses JavaScript engine for the "select" and "where" expression
- * parts.
+ * parts. <p>
+ *
+ * Simple comparisons in the "where" clause are evaluated natively
+ * (see {@link SOQLFilter}) on a pool of threads while the heap is
+ * walked, so that script objects are only created for the objects
+ * which pass them. Results are passed to the visitor as they are
+ * found, in heap order. The number of filtering threads can be set
+ * with the system property
+ * <code>sun.jvm.hotspot.utilities.soql.SOQLEngine.threads</code>.
  */
 public class SOQLEngine extends JSJavaScriptEngine {
    public static synchronized SOQLEngine getEngine() {
@@ -137,15 +150,21 @@ public class SOQLEngine extends JSJavaScriptEngine {
       String selectCode = buf.toString();
       debugPrint(selectCode);
       String whereCode = null;
+      String residualCode = "residual = null;";
+      SOQLFilter nativeFilter = null;
       if (q.whereExpr != null) {
-         buf = new StringBuffer();
-         buf.append("function filter(");
-         buf.append(q.identifier);
-         buf.append(") { return ");
-         buf.append(q.whereExpr.replace('\n', ' '));
-         buf.append("; }");
-         whereCode = buf.toString();
+         whereCode = functionCode("filter", q.identifier, q.whereExpr);
          debugPrint(whereCode);
+         if (q.className != null) {
+            nativeFilter = SOQLFilter.create(q.identifier, q.whereExpr.replace('\n', ' '));
+         }
+         if (nativeFilter != null) {
+            debugPrint(nativeFilter.getTermCount() + " condition(s) evaluated natively");
+            if (nativeFilter.getResidual() != null) {
+               residualCode = functionCode("residual", q.identifier, nativeFilter.getResidual());
+               debugPrint(residualCode);
+            }
+         }
       } else {
          whereCode = "filter = null;";
       }
@@ -154,11 +173,16 @@ public class SOQLEngine extends JSJavaScriptEngine {
       // compile select expression and where condition
       evalString(selectCode, "", 1);
       evalString(whereCode,  "", 1);
+      evalString(residualCode, "", 1);
 
       // iterate thru heap, if needed
       if (q.className != null) {
          try {
-            iterateOops(kls, visitor, q.isInstanceOf);
+            if (nativeFilter != null) {
+               iterateOops(kls, visitor, q.isInstanceOf, nativeFilter);
+            } else {
+               iterateOops(kls, visitor, q.isInstanceOf);
+            }
          } finally {
             endQuery();
          }
@@ -173,14 +197,32 @@ public class SOQLEngine extends JSJavaScriptEngine {
       }
    }
 
+   private static String functionCode(String name, String identifier, String expr) {
+      StringBuffer buf = new StringBuffer();
+      buf.append("function ");
+      buf.append(name);
+      buf.append("(");
+      buf.append(identifier);
+      buf.append(") { return ");
+      buf.append(expr.replace('\n', ' '));
+      buf.append("; }");
+      return buf.toString();
+   }
+
    private void dispatchObject(Oop oop, ObjectVisitor visitor, boolean filterExists) {
+      dispatchObject(oop, visitor, filterExists ? "filter" : null);
+   }
+
+   // filterName is the script function deciding whether the object
+   // is selected, or null if it is
+   private void dispatchObject(Oop oop, ObjectVisitor visitor, String filterName) {
       JSJavaObject jsObj = factory.newJSJavaObject(oop);
       Object[] args = new Object[] { jsObj };
       boolean b = true;
 
       try {
-         if (filterExists) {
-            Object res = call("filter", args);
+         if (filterName != null) {
+            Object res = call(filterName, args);
             if (res instanceof Boolean) {
                b = ((Boolean)res).booleanValue();
             } else if (res instanceof Number) {
@@ -215,6 +257,125 @@ public class SOQLEngine extends JSJavaScriptEngine {
                  }, ik, includeSubtypes);
    }
 
+   private void iterateOops(InstanceKlass ik, ObjectVisitor visitor,
+                            boolean includeSubtypes, SOQLFilter filter) {
+      ObjectHeap oh = VM.getVM().getObjectHeap();
+      FilteringVisitor fv = new FilteringVisitor(visitor, filter);
+      try {
+         oh.iterateObjectsOfKlass(fv, ik, includeSubtypes);
+         fv.drainAll();
+      } finally {
+         fv.shutdown();
+      }
+   }
+
+   // Collects the candidates into batches which are filtered natively
+   // by the thread pool. The batches are consumed in the order they
+   // were produced; only the objects they let through are passed to
+   // the script engine, on the query thread.
+   private class FilteringVisitor extends DefaultHeapVisitor {
+      private ObjectVisitor   visitor;
+      private SOQLFilter      filter;
+      private ExecutorService pool;
+      private LinkedList      pending = new LinkedList(); // <Batch>
+      private Batch           current = new Batch();
+
+      FilteringVisitor(ObjectVisitor visitor, SOQLFilter filter) {
+         this.visitor = visitor;
+         this.filter = filter;
+         pool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+               public java.lang.Thread newThread(Runnable r) {
+                  java.lang.Thread t = new java.lang.Thread(r, "SOQL filter");
+                  t.setDaemon(true);
+                  return t;
+               }
+            });
+      }
+
+      public boolean doObj(Oop obj) {
+         // Klass and field lookups may update caches which are not
+         // thread safe; only the field reads are done by the pool
+         current.add(obj, filter.resolve(obj.getKlass()));
+         if (current.size == BATCH_SIZE) {
+            submit();
+         }
+         return false;
+      }
+
+      public void epilogue() {
+         if (current.size > 0) {
+            submit();
+         }
+      }
+
+      void drainAll() {
+         while (!pending.isEmpty()) {
+            drainOne();
+         }
+      }
+
+      void shutdown() {
+         pool.shutdownNow();
+      }
+
+      private void submit() {
+         final Batch batch = current;
+         current = new Batch();
+         batch.verdicts = pool.submit(new java.util.concurrent.Callable() {
+               public Object call() {
+                  int[] verdicts = new int[batch.size];
+                  for (int i = 0; i < batch.size; i++) {
+                     verdicts[i] = filter.evaluate(batch.oops[i], batch.fields[i]);
+                  }
+                  return verdicts;
+               }
+            });
+         pending.addLast(batch);
+         // Bound the memory held by batches waiting to be consumed
+         while (pending.size() > 2 * numThreads) {
+            drainOne();
+         }
+      }
+
+      private void drainOne() {
+         Batch batch = (Batch) pending.removeFirst();
+         int[] verdicts;
+         try {
+            verdicts = (int[]) batch.verdicts.get();
+         } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+         } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+         }
+         for (int i = 0; i < batch.size; i++) {
+            switch (verdicts[i]) {
+            case SOQLFilter.REJECT:
+               break;
+            case SOQLFilter.ACCEPT:
+               dispatchObject(batch.oops[i], visitor,
+                              (filter.getResidual() != null) ? "residual" : null);
+               break;
+            default:
+               dispatchObject(batch.oops[i], visitor, "filter");
+               break;
+            }
+         }
+      }
+   }
+
+   private static class Batch {
+      Oop[]     oops   = new Oop[BATCH_SIZE];
+      Field[][] fields = new Field[BATCH_SIZE][];
+      int       size;
+      Future    verdicts;
+
+      void add(Oop obj, Field[] objFields) {
+         oops[size] = obj;
+         fields[size] = objFields;
+         size++;
+      }
+   }
+
    // we create fresh ObjectReader and factory to avoid
    // excessive cache across queries.
    private void beginQuery() {
@@ -250,8 +411,12 @@ public class SOQLEngine extends JSJavaScriptEngine {
    }
 
    private static final boolean debug;
+   private static final int numThreads;
+   private static final int BATCH_SIZE = 1024;
    static {
       debug = System.getProperty("sun.jvm.hotspot.utilities.soql.SOQLEngine.debug") != null;
+      numThreads = Math.max(1, Integer.getInteger("sun.jvm.hotspot.utilities.soql.SOQLEngine.threads",
+                                                  Runtime.getRuntime().availableProcessors()).intValue());
    }
 
    protected SOQLEngine() {
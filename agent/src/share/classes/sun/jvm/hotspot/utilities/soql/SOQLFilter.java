@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+
+package sun.jvm.hotspot.utilities.soql;
+
+import java.util.*;
+import java.util.regex.*;
+import sun.jvm.hotspot.oops.*;
+
+/**
+ * The part of a "where" clause which can be evaluated without the
+ * JavaScript engine. The clause is split into its top-level "&&"
+ * conjuncts. Those of the form <code>id.field op literal</code>,
+ * where op is a comparison and literal is a number, true, false or
+ * null, are compiled into native tests on the fields of the object;
+ * the remaining conjuncts form the residual expression which is
+ * still evaluated by the script engine. <p>
+ *
+ * A native test may be unable to decide, for example if the field
+ * is not a primitive field of a matching type in some subclass; the
+ * whole clause is then left to the script engine for that object.
+ * Fields are resolved per klass by {@link #resolve}, which must be
+ * called from the query thread. {@link #evaluate} only reads the
+ * object and may be called from several threads at once.
+ */
+class SOQLFilter {
+   /** The clause is false for the object */
+   static final int REJECT    = 0;
+   /** All native tests hold; the residual expression, if any, still
+       has to be evaluated */
+   static final int ACCEPT    = 1;
+   /** The whole clause has to be evaluated by the script engine */
+   static final int UNDECIDED = 2;
+
+   /** Returns null if no part of the clause can be evaluated natively */
+   static SOQLFilter create(String identifier, String whereExpr) {
+      List conjuncts = splitConjuncts(whereExpr);
+      if (conjuncts == null) {
+         return null;
+      }
+
+      Pattern termPattern = Pattern.compile("\\s*" + Pattern.quote(identifier) +
+                               "\\s*\\.\\s*([A-Za-z_$][A-Za-z0-9_$]*)\\s*(==|!=|<=|>=|<|>)\\s*" +
+                               "(null|true|false|-?[0-9]+(\\.[0-9]+)?)\\s*");
+      List terms = new ArrayList();
+      StringBuffer residual = new StringBuffer();
+      for (Iterator itr = conjuncts.iterator(); itr.hasNext();) {
+         String conjunct = (String) itr.next();
+         Matcher m = termPattern.matcher(stripParens(conjunct));
+         if (m.matches()) {
+            terms.add(new Term(m.group(1), m.group(2), m.group(3)));
+         } else {
+            if (residual.length() > 0) {
+               residual.append(" && ");
+            }
+            residual.append('(').append(conjunct.trim()).append(')');
+         }
+      }
+      if (terms.isEmpty()) {
+         return null;
+      }
+      return new SOQLFilter((Term[]) terms.toArray(new Term[terms.size()]),
+                            (residual.length() > 0) ? residual.toString() : null);
+   }
+
+   /** The conjuncts which are not evaluated natively, or null */
+   String getResidual() {
+      return residual;
+   }
+
+   /** Number of conjuncts evaluated natively */
+   int getTermCount() {
+      return terms.length;
+   }
+
+   /** Looks up the fields tested by this filter in the given klass.
+       The result is passed to {@link #evaluate} for objects of the
+       klass. */
+   Field[] resolve(Klass k) {
+      Field[] fields = (Field[]) fieldsByKlass.get(k);
+      if (fields == null) {
+         fields = new Field[terms.length];
+         for (int i = 0; i < terms.length; i++) {
+            fields[i] = findInstanceField(k, terms[i].fieldName);
+         }
+         fieldsByKlass.put(k, fields);
+      }
+      return fields;
+   }
+
+   int evaluate(Oop obj, Field[] fields) {
+      int result = ACCEPT;
+      for (int i = 0; i < terms.length; i++) {
+         int r = terms[i].evaluate(obj, fields[i]);
+         if (r == REJECT) {
+            return REJECT;
+         }
+         if (r == UNDECIDED) {
+            result = UNDECIDED;
+         }
+      }
+      return result;
+   }
+
+   //-- Internals only below this point
+   private Term[] terms;
+   private String residual;
+   private Map    fieldsByKlass = new HashMap();
+
+   private SOQLFilter(Term[] terms, String residual) {
+      this.terms = terms;
+      this.residual = residual;
+   }
+
+   // Splits the expression at its top-level "&&" operators. Returns
+   // null if the expression has an operator of lower precedence at
+   // the top level, as splitting would change its meaning then, or
+   // an assignment anywhere, as its side effects would be skipped
+   // for objects rejected natively.
+   private static List splitConjuncts(String expr) {
+      List result = new ArrayList();
+      int depth = 0;
+      int start = 0;
+      char quote = 0;
+      for (int i = 0; i < expr.length(); i++) {
+         char c = expr.charAt(i);
+         if (quote != 0) {
+            if (c == '\\') {
+               i++;
+            } else if (c == quote) {
+               quote = 0;
+            }
+            continue;
+         }
+         switch (c) {
+         case '\'':
+         case '"':
+            quote = c;
+            break;
+         case '(':
+         case '[':
+         case '{':
+            depth++;
+            break;
+         case ')':
+         case ']':
+         case '}':
+            depth--;
+            break;
+         case '?':
+         case ',':
+            if (depth == 0) {
+               return null;
+            }
+            break;
+         case '|':
+            if (depth == 0 && i + 1 < expr.length() && expr.charAt(i + 1) == '|') {
+               return null;
+            }
+            break;
+         case '&':
+            if (depth == 0 && i + 1 < expr.length() && expr.charAt(i + 1) == '&') {
+               result.add(expr.substring(start, i));
+               start = i + 2;
+               i++;
+            }
+            break;
+         case '=':
+            if (isAssignment(expr, i)) {
+               return null;
+            }
+            break;
+         case '+':
+         case '-':
+            // increment and decrement
+            if (i + 1 < expr.length() && expr.charAt(i + 1) == c) {
+               return null;
+            }
+            break;
+         }
+      }
+      if (quote != 0 || depth != 0) {
+         return null;
+      }
+      result.add(expr.substring(start));
+      return result;
+   }
+
+   // Whether the '=' at index i is an assignment, including compound
+   // ones such as "+=" and "<<=", rather than part of a comparison
+   private static boolean isAssignment(String expr, int i) {
+      char next = (i + 1 < expr.length()) ? expr.charAt(i + 1) : 0;
+      char prev = (i > 0) ? expr.charAt(i - 1) : 0;
+      if (next == '=' || prev == '=' || prev == '!') {
+         return false;
+      }
+      if (prev == '<' || prev == '>') {
+         // "<=" and ">=" compare, "<<=", ">>=" and ">>>=" assign
+         return i > 1 && expr.charAt(i - 2) == prev;
+      }
+      return true;
+   }
+
+   // Removes parentheses enclosing the whole expression
+   private static String stripParens(String expr) {
+      String s = expr.trim();
+      while (s.startsWith("(") && closingParen(s) == s.length() - 1) {
+         s = s.substring(1, s.length() - 1).trim();
+      }
+      return s;
+   }
+
+   // Index of the parenthesis closing the one at the start of s
+   private static int closingParen(String s) {
+      int depth = 0;
+      for (int i = 0; i < s.length(); i++) {
+         char c = s.charAt(i);
+         if (c == '(') {
+            depth++;
+         } else if (c == ')' && --depth == 0) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   // Same lookup as JSJavaInstanceKlass: the most derived non-static
+   // field of the given name
+   private static Field findInstanceField(Klass k, String name) {
+      if (!(k instanceof InstanceKlass)) {
+         return null;
+      }
+      for (InstanceKlass current = (InstanceKlass) k; current != null;
+           current = (InstanceKlass) current.getSuper()) {
+         List fields = current.getImmediateFields();
+         for (Iterator itr = fields.iterator(); itr.hasNext();) {
+            Field fld = (Field) itr.next();
+            if (!fld.isStatic() && fld.getID().getName().equals(name)) {
+               return fld;
+            }
+         }
+      }
+      return null;
+   }
+
+   private static class Term {
+      private static final int EQ = 0;
+      private static final int NE = 1;
+      private static final int LT = 2;
+      private static final int LE = 3;
+      private static final int GT = 4;
+      private static final int GE = 5;
+
+      private String  fieldName;
+      private int     op;
+      private boolean isNull;
+      private boolean isBoolean;
+      private boolean booleanValue;
+      private double  numberValue;
+
+      Term(String fieldName, String op, String literal) {
+         this.fieldName = fieldName;
+         if (op.equals("==")) {
+            this.op = EQ;
+         } else if (op.equals("!=")) {
+            this.op = NE;
+         } else if (op.equals("<")) {
+            this.op = LT;
+         } else if (op.equals("<=")) {
+            this.op = LE;
+         } else if (op.equals(">")) {
+            this.op = GT;
+         } else {
+            this.op = GE;
+         }
+         if (literal.equals("null")) {
+            isNull = true;
+         } else if (literal.equals("true") || literal.equals("false")) {
+            isBoolean = true;
+            booleanValue = literal.equals("true");
+         } else {
+            numberValue = Double.parseDouble(literal);
+         }
+      }
+
+      int evaluate(Oop obj, Field fld) {
+         if (fld == null) {
+            return UNDECIDED;
+         }
+         FieldType fd = fld.getFieldType();
+         boolean isOop = fd.isObject() || fd.isArray();
+         if (isNull) {
+            if (op != EQ && op != NE) {
+               return UNDECIDED;
+            }
+            // A primitive value is never == null
+            boolean valueIsNull = isOop && ((OopField) fld).getValueAsOopHandle(obj) == null;
+            return verdict(valueIsNull == (op == EQ));
+         }
+         if (isBoolean) {
+            if (!fd.isBoolean() || (op != EQ && op != NE)) {
+               return UNDECIDED;
+            }
+            boolean value = ((BooleanField) fld).getValue(obj);
+            return verdict((value == booleanValue) == (op == EQ));
+         }
+
+         double value;
+         if (fd.isByte()) {
+            value = ((ByteField) fld).getValue(obj);
+         } else if (fd.isShort()) {
+            value = ((ShortField) fld).getValue(obj);
+         } else if (fd.isInt()) {
+            value = ((IntField) fld).getValue(obj);
+         } else if (fd.isLong()) {
+            value = ((LongField) fld).getValue(obj);
+         } else if (fd.isFloat()) {
+            value = ((FloatField) fld).getValue(obj);
+         } else if (fd.isDouble()) {
+            value = ((DoubleField) fld).getValue(obj);
+         } else {
+            // chars are strings and oops are objects for the script
+            return UNDECIDED;
+         }
+         switch (op) {
+         case EQ: return verdict(value == numberValue);
+         case NE: return verdict(value != numberValue);
+         case LT: return verdict(value <  numberValue);
+         case LE: return verdict(value <= numberValue);
+         case GT: return verdict(value >  numberValue);
+         default: return verdict(value >= numberValue);
+         }
+      }
+
+      private static int verdict(boolean b) {
+         return b ? ACCEPT : REJECT;
+      }
+   }
+}
@@ -130,7 +130,9 @@ public final class ImportAction extends SystemAction {
                     if (file.getName().endsWith(".xml")) {
                         parser = new Parser(channel, monitor, null);
                     } else if (file.getName().endsWith(".bgv")) {
-                        parser = new BinaryParser(channel, monitor, component.getDocument(), null);
+                        // Only index the graphs now; they are decoded from
+                        // the file, which stays open, when first viewed
+                        parser = new BinaryParser(channel, monitor, component.getDocument(), null, true);
                     } else {
                         parser = null;
                     }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.hotspot.igv.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable adjacency of the nodes of an {@link InputGraph}. Nodes are
+ * numbered densely from 0 in graph order, and the outgoing and ingoing
+ * edges of each node are stored in compressed sparse row form: the edges
+ * of node {@code i} occupy the slots from {@code outStart(i)} up to
+ * {@code outEnd(i)}, sorted as by {@link InputEdge#OUTGOING_COMPARATOR}
+ * (respectively {@link InputEdge#INGOING_COMPARATOR} for ingoing edges).
+ * Edges that refer to a node not in the graph are not part of this
+ * adjacency; they are listed by {@link #getDanglingEdges()}.
+ *
+ * @see InputGraph#getIndex()
+ */
+public final class GraphIndex {
+
+    private final InputNode[] nodes;
+    // Node ids in ascending order, and the index of the node with that id
+    private final int[] sortedIds;
+    private final int[] sortedIndices;
+
+    private final int[] outStart;
+    private final InputEdge[] outEdges;
+    private final int[] outTargets;
+
+    private final int[] inStart;
+    private final InputEdge[] inEdges;
+    private final int[] inSources;
+
+    private final InputEdge[] danglingEdges;
+
+    GraphIndex(Collection<InputNode> nodeList, Collection<InputEdge> edges) {
+        int n = nodeList.size();
+        nodes = nodeList.toArray(new InputNode[n]);
+
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) nodes[i].getId() << 32) | i;
+        }
+        Arrays.sort(keys);
+        sortedIds = new int[n];
+        sortedIndices = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedIds[i] = (int) (keys[i] >> 32);
+            sortedIndices[i] = (int) keys[i];
+        }
+
+        InputEdge[] all = edges.toArray(new InputEdge[edges.size()]);
+        int[] from = new int[all.length];
+        int[] to = new int[all.length];
+        outStart = new int[n + 1];
+        inStart = new int[n + 1];
+        int count = 0;
+        for (int i = 0; i < all.length; i++) {
+            from[i] = indexOf(all[i].getFrom());
+            to[i] = indexOf(all[i].getTo());
+            if (from[i] >= 0 && to[i] >= 0) {
+                outStart[from[i] + 1]++;
+                inStart[to[i] + 1]++;
+                count++;
+            }
+        }
+        danglingEdges = new InputEdge[all.length - count];
+        for (int i = 0; i < n; i++) {
+            outStart[i + 1] += outStart[i];
+            inStart[i + 1] += inStart[i];
+        }
+
+        outEdges = new InputEdge[count];
+        inEdges = new InputEdge[count];
+        int[] outFill = Arrays.copyOf(outStart, n);
+        int[] inFill = Arrays.copyOf(inStart, n);
+        for (int i = 0, dangling = 0; i < all.length; i++) {
+            if (from[i] >= 0 && to[i] >= 0) {
+                outEdges[outFill[from[i]]++] = all[i];
+                inEdges[inFill[to[i]]++] = all[i];
+            } else {
+                danglingEdges[dangling++] = all[i];
+            }
+        }
+
+        outTargets = new int[count];
+        inSources = new int[count];
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(outEdges, outStart[i], outStart[i + 1], InputEdge.OUTGOING_COMPARATOR);
+            for (int s = outStart[i]; s < outStart[i + 1]; s++) {
+                outTargets[s] = indexOf(outEdges[s].getTo());
+            }
+            Arrays.sort(inEdges, inStart[i], inStart[i + 1], InputEdge.INGOING_COMPARATOR);
+            for (int s = inStart[i]; s < inStart[i + 1]; s++) {
+                inSources[s] = indexOf(inEdges[s].getFrom());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    public InputNode getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Returns the index of the node with the given id, or -1 if the graph
+     * has no such node.
+     */
+    public int indexOf(int id) {
+        int i = Arrays.binarySearch(sortedIds, id);
+        return i >= 0 ? sortedIndices[i] : -1;
+    }
+
+    public int indexOf(InputNode node) {
+        return indexOf(node.getId());
+    }
+
+    public int outStart(int index) {
+        return outStart[index];
+    }
+
+    public int outEnd(int index) {
+        return outStart[index + 1];
+    }
+
+    public InputEdge outEdge(int slot) {
+        return outEdges[slot];
+    }
+
+    /**
+     * Returns the index of the node the edge in the given outgoing slot
+     * points to.
+     */
+    public int outTarget(int slot) {
+        return outTargets[slot];
+    }
+
+    public int outDegree(int index) {
+        return outStart[index + 1] - outStart[index];
+    }
+
+    public int inStart(int index) {
+        return inStart[index];
+    }
+
+    public int inEnd(int index) {
+        return inStart[index + 1];
+    }
+
+    public InputEdge inEdge(int slot) {
+        return inEdges[slot];
+    }
+
+    /**
+     * Returns the index of the node the edge in the given ingoing slot
+     * comes from.
+     */
+    public int inSource(int slot) {
+        return inSources[slot];
+    }
+
+    public int inDegree(int index) {
+        return inStart[index + 1] - inStart[index];
+    }
+
+    public List<InputEdge> getOutgoingEdges(int index) {
+        return Collections.unmodifiableList(Arrays.asList(outEdges).subList(outStart(index), outEnd(index)));
+    }
+
+    public List<InputEdge> getIngoingEdges(int index) {
+        return Collections.unmodifiableList(Arrays.asList(inEdges).subList(inStart(index), inEnd(index)));
+    }
+
+    /**
+     * Returns the edges whose source or target is not a node of the graph,
+     * in graph order. These are usually none.
+     */
+    public List<InputEdge> getDanglingEdges() {
+        return Collections.unmodifiableList(Arrays.asList(danglingEdges));
+    }
+}
@@ -23,7 +23,11 @@
  */
 package com.sun.hotspot.igv.data;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -31,21 +35,74 @@ import java.util.*;
  */
 public class InputGraph extends Properties.Entity implements FolderElement {
 
-    private Map<Integer, InputNode> nodes;
-    private List<InputEdge> edges;
+    /**
+     * Decodes the nodes, edges and blocks of a graph whose contents are
+     * loaded on demand, by adding them to the graph passed in.
+     */
+    public interface ContentLoader {
+        void load(InputGraph graph) throws IOException;
+    }
+
+    private static class Contents {
+        final Map<Integer, InputNode> nodes = new LinkedHashMap<>();
+        final List<InputEdge> edges = new ArrayList<>();
+        final Map<String, InputBlock> blocks = new LinkedHashMap<>();
+        final List<InputBlockEdge> blockEdges = new ArrayList<>();
+        final Map<Integer, InputBlock> nodeToBlock = new LinkedHashMap<>();
+        // Built on first use, dropped when nodes or edges change
+        GraphIndex index;
+    }
+
     private Folder parent;
     private Group parentGroup;
-    private Map<String, InputBlock> blocks;
-    private List<InputBlockEdge> blockEdges;
-    private Map<Integer, InputBlock> nodeToBlock;
+    // Strongly held contents, or for lazily loaded graphs the contents
+    // being loaded; otherwise the loaded contents are only softly held
+    // and are decoded again if they have been collected.
+    private Contents contents;
+    private SoftReference<Contents> loadedContents;
+    private ContentLoader loader;
 
     public InputGraph(String name) {
         setName(name);
-        nodes = new LinkedHashMap<>();
-        edges = new ArrayList<>();
-        blocks = new LinkedHashMap<>();
-        blockEdges = new ArrayList<>();
-        nodeToBlock = new LinkedHashMap<>();
+        contents = new Contents();
+    }
+
+    /**
+     * Makes the nodes, edges and blocks of this graph be produced by the
+     * given loader the first time they are needed, and again whenever
+     * they have been reclaimed by the garbage collector.
+     */
+    public synchronized void setContentLoader(ContentLoader loader) {
+        this.loader = loader;
+        this.contents = null;
+        this.loadedContents = null;
+    }
+
+    private synchronized Contents contents() {
+        if (contents != null) {
+            return contents;
+        }
+        Contents c = loadedContents != null ? loadedContents.get() : null;
+        if (c == null) {
+            c = new Contents();
+            contents = c;
+            try {
+                loader.load(this);
+            } catch (IOException e) {
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, "Could not load graph " + getName(), e);
+            } finally {
+                contents = null;
+            }
+            loadedContents = new SoftReference<>(c);
+        }
+        return c;
+    }
+
+    // A lazily loaded graph that is changed after loading is kept in
+    // memory from then on, since decoding it again would lose the change.
+    private synchronized Contents modifiableContents() {
+        contents = contents();
+        return contents;
     }
 
     @Override
@@ -59,88 +116,88 @@ public class InputGraph extends Properties.Entity implements FolderElement {
 
     public InputBlockEdge addBlockEdge(InputBlock left, InputBlock right) {
         InputBlockEdge edge = new InputBlockEdge(left, right);
-        blockEdges.add(edge);
+        modifiableContents().blockEdges.add(edge);
         left.addSuccessor(right);
         return edge;
     }
 
-    public List<InputNode> findRootNodes() {
-        List<InputNode> result = new ArrayList<>();
-        Set<Integer> nonRoot = new HashSet<>();
-        for(InputEdge curEdges : getEdges()) {
-            nonRoot.add(curEdges.getTo());
+    /**
+     * Returns the dense node numbering and edge adjacency of this graph.
+     * The index is built once and shared until the nodes or edges of the
+     * graph change.
+     */
+    public synchronized GraphIndex getIndex() {
+        Contents c = contents();
+        if (c.index == null) {
+            c.index = new GraphIndex(c.nodes.values(), c.edges);
         }
+        return c.index;
+    }
 
-        for(InputNode node : getNodes()) {
-            if(!nonRoot.contains(node.getId())) {
+    // The methods below keep seeing edges that have only one end in the
+    // graph, which the index leaves out, and return lists the caller owns.
+
+    public List<InputNode> findRootNodes() {
+        GraphIndex index = getIndex();
+        Set<Integer> danglingTargets = new HashSet<>();
+        for (InputEdge e : index.getDanglingEdges()) {
+            danglingTargets.add(e.getTo());
+        }
+        List<InputNode> result = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            InputNode node = index.getNode(i);
+            if (index.inDegree(i) == 0 && !danglingTargets.contains(node.getId())) {
                 result.add(node);
             }
         }
-
         return result;
     }
 
     public Map<InputNode, List<InputEdge>> findAllOutgoingEdges() {
-        Map<InputNode, List<InputEdge>> result = new HashMap<>(getNodes().size());
-        for(InputNode n : this.getNodes()) {
-            result.put(n, new ArrayList<InputEdge>());
-        }
-
-        for(InputEdge e : this.edges) {
-            int from = e.getFrom();
-            InputNode fromNode = this.getNode(from);
-            List<InputEdge> fromList = result.get(fromNode);
-            assert fromList != null;
-            fromList.add(e);
+        GraphIndex index = getIndex();
+        Map<InputNode, List<InputEdge>> result = new HashMap<>(index.size());
+        for (int i = 0; i < index.size(); i++) {
+            InputNode node = index.getNode(i);
+            result.put(node, withDanglingEdges(index.getOutgoingEdges(i), index, node.getId(), true));
         }
-
-        for(InputNode n : this.getNodes()) {
-            List<InputEdge> list = result.get(n);
-            Collections.sort(list, InputEdge.OUTGOING_COMPARATOR);
-        }
-
         return result;
     }
 
     public Map<InputNode, List<InputEdge>> findAllIngoingEdges() {
-        Map<InputNode, List<InputEdge>> result = new HashMap<>(getNodes().size());
-        for(InputNode n : this.getNodes()) {
-            result.put(n, new ArrayList<InputEdge>());
+        GraphIndex index = getIndex();
+        Map<InputNode, List<InputEdge>> result = new HashMap<>(index.size());
+        for (int i = 0; i < index.size(); i++) {
+            InputNode node = index.getNode(i);
+            result.put(node, withDanglingEdges(index.getIngoingEdges(i), index, node.getId(), false));
         }
-
-        for(InputEdge e : this.edges) {
-            int to = e.getTo();
-            InputNode toNode = this.getNode(to);
-            List<InputEdge> toList = result.get(toNode);
-            assert toList != null;
-            toList.add(e);
-        }
-
-        for(InputNode n : this.getNodes()) {
-            List<InputEdge> list = result.get(n);
-            Collections.sort(list, InputEdge.INGOING_COMPARATOR);
-        }
-
         return result;
     }
 
     public List<InputEdge> findOutgoingEdges(InputNode n) {
-        List<InputEdge> result = new ArrayList<>();
+        GraphIndex index = getIndex();
+        int i = index.indexOf(n);
+        List<InputEdge> edges = i < 0 ? Collections.<InputEdge>emptyList() : index.getOutgoingEdges(i);
+        return withDanglingEdges(edges, index, n.getId(), true);
+    }
 
-        for(InputEdge e : this.edges) {
-            if(e.getFrom() == n.getId()) {
+    private static List<InputEdge> withDanglingEdges(List<InputEdge> edges, GraphIndex index, int id, boolean outgoing) {
+        List<InputEdge> result = new ArrayList<>(edges);
+        boolean added = false;
+        for (InputEdge e : index.getDanglingEdges()) {
+            if ((outgoing ? e.getFrom() : e.getTo()) == id) {
                 result.add(e);
+                added = true;
             }
         }
-
-        Collections.sort(result, InputEdge.OUTGOING_COMPARATOR);
-
+        if (added) {
+            Collections.sort(result, outgoing ? InputEdge.OUTGOING_COMPARATOR : InputEdge.INGOING_COMPARATOR);
+        }
         return result;
     }
 
     public void clearBlocks() {
-        blocks.clear();
-        nodeToBlock.clear();
+        modifiableContents().blocks.clear();
+        modifiableContents().nodeToBlock.clear();
     }
 
     public void setEdge(int fromIndex, int toIndex, int from, int to) {
@@ -165,7 +222,7 @@ public class InputGraph extends Properties.Entity implements FolderElement {
         }
 
         for (InputNode n : this.getNodes()) {
-            assert nodes.get(n.getId()) == n;
+            assert contents().nodes.get(n.getId()) == n;
             if (!scheduledNodes.contains(n)) {
                 if (noBlock == null) {
                     noBlock = this.addBlock("(no block)");
@@ -177,16 +234,16 @@ public class InputGraph extends Properties.Entity implements FolderElement {
     }
 
     public void setBlock(InputNode node, InputBlock block) {
-        nodeToBlock.put(node.getId(), block);
+        modifiableContents().nodeToBlock.put(node.getId(), block);
     }
 
     public InputBlock getBlock(int nodeId) {
-        return nodeToBlock.get(nodeId);
+        return contents().nodeToBlock.get(nodeId);
     }
 
     public InputBlock getBlock(InputNode node) {
-        assert nodes.containsKey(node.getId());
-        assert nodes.get(node.getId()).equals(node);
+        assert contents().nodes.containsKey(node.getId());
+        assert contents().nodes.get(node.getId()).equals(node);
         return getBlock(node.getId());
     }
 
@@ -208,40 +265,48 @@ public class InputGraph extends Properties.Entity implements FolderElement {
     }
 
     public Collection<InputNode> getNodes() {
-        return Collections.unmodifiableCollection(nodes.values());
+        return Collections.unmodifiableCollection(contents().nodes.values());
     }
 
     public Set<Integer> getNodesAsSet() {
-        return Collections.unmodifiableSet(nodes.keySet());
+        return Collections.unmodifiableSet(contents().nodes.keySet());
     }
 
     public Collection<InputBlock> getBlocks() {
-        return Collections.unmodifiableCollection(blocks.values());
+        return Collections.unmodifiableCollection(contents().blocks.values());
     }
 
     public void addNode(InputNode node) {
-        nodes.put(node.getId(), node);
+        Contents c = modifiableContents();
+        c.nodes.put(node.getId(), node);
+        c.index = null;
     }
 
     public InputNode getNode(int id) {
-        return nodes.get(id);
+        return contents().nodes.get(id);
     }
 
     public InputNode removeNode(int index) {
-        return nodes.remove(index);
+        Contents c = modifiableContents();
+        c.index = null;
+        return c.nodes.remove(index);
     }
 
     public Collection<InputEdge> getEdges() {
-        return Collections.unmodifiableList(edges);
+        return Collections.unmodifiableList(contents().edges);
     }
 
     public void removeEdge(InputEdge c) {
-        boolean removed = edges.remove(c);
+        Contents contents = modifiableContents();
+        boolean removed = contents.edges.remove(c);
         assert removed;
+        contents.index = null;
     }
 
     public void addEdge(InputEdge c) {
-        edges.add(c);
+        Contents contents = modifiableContents();
+        contents.edges.add(c);
+        contents.index = null;
     }
 
     public Group getGroup() {
@@ -252,12 +317,12 @@ public class InputGraph extends Properties.Entity implements FolderElement {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Graph ").append(getName()).append(" ").append(getProperties().toString()).append("\n");
-        for (InputNode n : nodes.values()) {
+        for (InputNode n : contents().nodes.values()) {
             sb.append(n.toString());
             sb.append("\n");
         }
 
-        for (InputEdge c : edges) {
+        for (InputEdge c : contents().edges) {
             sb.append(c.toString());
             sb.append("\n");
         }
@@ -272,16 +337,16 @@ public class InputGraph extends Properties.Entity implements FolderElement {
 
     public InputBlock addBlock(String name) {
         final InputBlock b = new InputBlock(this, name);
-        blocks.put(b.getName(), b);
+        modifiableContents().blocks.put(b.getName(), b);
         return b;
     }
 
     public InputBlock getBlock(String s) {
-        return blocks.get(s);
+        return contents().blocks.get(s);
     }
 
     public Collection<InputBlockEdge> getBlockEdges() {
-        return Collections.unmodifiableList(blockEdges);
+        return Collections.unmodifiableList(contents().blockEdges);
     }
 
     @Override
@@ -27,12 +27,19 @@ package com.sun.hotspot.igv.data.serialization;
 import com.sun.hotspot.igv.data.*;
 import com.sun.hotspot.igv.data.Properties;
 import com.sun.hotspot.igv.data.services.GroupCallback;
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.SwingUtilities;
@@ -73,9 +80,27 @@ public class BinaryParser implements GraphParser {
     private static final Charset utf16 = Charset.forName("UTF-16");
 
     private final GroupCallback callback;
-    private final List<Object> constantPool;
+    private final ConstantPool constantPool;
     private final ByteBuffer buffer;
     private final ReadableByteChannel channel;
+    // Set if graph contents are decoded on demand from this file
+    private final FileChannel lazyChannel;
+    // File position of the start of buffer
+    private long bufferOffset;
+    // Set if graph contents are decoded in parallel, see the constructor
+    private final Executor decoder;
+    private final int maxPendingGraphs;
+    private final Semaphore pendingGraphs;
+    // Elements read but not yet added to their folders, in stream order
+    private final Deque<Publication> publications;
+    // Decoding of the graph just read, to be started by parseRoot, and
+    // the constant pool stamp it decodes at
+    private Runnable pendingDecode;
+    private int pendingDecodeStamp;
+    private int decodedGraphs;
+    // Collects the bytes consumed from buffer while set
+    private ByteArrayOutputStream capture;
+    private int captureMark;
     private final GraphDocument rootDocument;
     private final Deque<Folder> folderStack;
     private final Deque<byte[]> hashStack;
@@ -299,12 +324,145 @@ public class BinaryParser implements GraphParser {
         }
     }
 
+    /**
+     * The constant pool entries by index. Writers reuse indexes, so when
+     * graphs are decoded after the whole file has been read the pool keeps
+     * every value an index has held, stamped with the number of pool writes
+     * before it. A pool created on top of such a pool at some stamp sees
+     * the entries as they were at that point, plus its own.
+     */
+    private static final class ConstantPool {
+        private final ConstantPool base;
+        private final int baseStamp;
+        private final boolean keepHistory;
+        private Object[] entries = new Object[64];
+        private int[] stamps;
+        private int size;
+        private int writes;
+        // Earlier values of redefined indexes, by stamp
+        private Map<Integer, TreeMap<Integer, Object>> history;
+
+        ConstantPool(boolean keepHistory) {
+            this.base = null;
+            this.baseStamp = 0;
+            this.keepHistory = keepHistory;
+            if (keepHistory) {
+                stamps = new int[entries.length];
+                history = new HashMap<>();
+            }
+        }
+
+        ConstantPool(ConstantPool base, int baseStamp) {
+            this.base = base;
+            this.baseStamp = baseStamp;
+            this.keepHistory = false;
+            stamps = new int[entries.length];
+        }
+
+        synchronized int stamp() {
+            return writes;
+        }
+
+        synchronized void set(int index, Object obj) {
+            if (index >= entries.length) {
+                int length = Math.max(index + 1, entries.length * 2);
+                entries = Arrays.copyOf(entries, length);
+                if (stamps != null) {
+                    stamps = Arrays.copyOf(stamps, length);
+                }
+            }
+            if (keepHistory && index < size && entries[index] != null) {
+                TreeMap<Integer, Object> values = history.get(index);
+                if (values == null) {
+                    values = new TreeMap<>();
+                    history.put(index, values);
+                }
+                values.put(stamps[index], entries[index]);
+            }
+            entries[index] = obj;
+            writes++;
+            if (stamps != null) {
+                // Stamps start at 1 so that 0 means "not defined here"
+                stamps[index] = writes;
+            }
+            size = Math.max(size, index + 1);
+        }
+
+        Object get(int index) throws IOException {
+            if (base != null) {
+                synchronized (this) {
+                    if (index < size && stamps[index] != 0) {
+                        return entries[index];
+                    }
+                }
+                return base.get(index, baseStamp);
+            }
+            return get(index, Integer.MAX_VALUE);
+        }
+
+        // Drops the values that are no longer visible to pools created at
+        // or after the given stamp
+        synchronized void forget(int stamp) {
+            for (TreeMap<Integer, Object> values : history.values()) {
+                Integer key = values.floorKey(stamp);
+                if (key != null) {
+                    values.headMap(key, false).clear();
+                }
+            }
+        }
+
+        // Returns the value index had after the first stamp writes
+        private synchronized Object get(int index, int stamp) throws IOException {
+            if (index >= size) {
+                throw new IOException("Invalid constant pool index : " + index);
+            }
+            if (!keepHistory || stamps[index] <= stamp) {
+                return entries[index];
+            }
+            TreeMap<Integer, Object> values = history.get(index);
+            Map.Entry<Integer, Object> e = values != null ? values.floorEntry(stamp) : null;
+            return e != null ? e.getValue() : null;
+        }
+    }
+
     public BinaryParser(ReadableByteChannel channel, ParseMonitor monitor, GraphDocument rootDocument, GroupCallback callback) {
+        this(channel, monitor, rootDocument, callback, false, null, 0);
+    }
+
+    /**
+     * Creates a parser that reads the stream and tracks its constant pool
+     * on the calling thread but decodes the nodes, edges and blocks of the
+     * graphs on {@code decoder}. Elements are still added to their folders
+     * in stream order. At most {@code maxPendingGraphs} graphs are read
+     * ahead of the ones added; beyond that, reading waits for decoding.
+     */
+    public BinaryParser(ReadableByteChannel channel, ParseMonitor monitor, GraphDocument rootDocument, GroupCallback callback, Executor decoder, int maxPendingGraphs) {
+        this(channel, monitor, rootDocument, callback, false, decoder, maxPendingGraphs);
+    }
+
+    /**
+     * Creates a parser that, if {@code lazy} is set, only indexes the
+     * graphs of the file: their properties are read right away but their
+     * nodes, edges and blocks are skipped, and decoded from a mapping of
+     * the file when they are first needed. The channel must be left open
+     * for as long as the graphs are in use.
+     */
+    public BinaryParser(FileChannel channel, ParseMonitor monitor, GraphDocument rootDocument, GroupCallback callback, boolean lazy) throws IOException {
+        this((ReadableByteChannel) channel, monitor, rootDocument, callback, lazy, null, 0);
+        bufferOffset = channel.position();
+    }
+
+    private BinaryParser(ReadableByteChannel channel, ParseMonitor monitor, GraphDocument rootDocument, GroupCallback callback, boolean lazy, Executor decoder, int maxPendingGraphs) {
         this.callback = callback;
-        constantPool = new ArrayList<>();
+        constantPool = new ConstantPool(lazy || decoder != null);
+        this.decoder = decoder;
+        this.maxPendingGraphs = Math.max(1, maxPendingGraphs);
+        this.pendingGraphs = decoder != null ? new Semaphore(this.maxPendingGraphs) : null;
+        this.publications = decoder != null ? new ArrayDeque<Publication>() : null;
         buffer = ByteBuffer.allocateDirect(256 * 1024);
         buffer.flip();
         this.channel = channel;
+        this.lazyChannel = lazy ? (FileChannel) channel : null;
         this.rootDocument = rootDocument;
         folderStack = new LinkedList<>();
         hashStack = new LinkedList<>();
@@ -315,7 +473,66 @@ public class BinaryParser implements GraphParser {
         }
     }
 
+    // Creates a parser decoding the contents of one graph from data
+    private BinaryParser(ByteBuffer data, ConstantPool pool, Charset stringCharset, int majorVersion, int minorVersion) {
+        this.callback = null;
+        this.decoder = null;
+        this.maxPendingGraphs = 0;
+        this.pendingGraphs = null;
+        this.publications = null;
+        this.constantPool = pool;
+        this.buffer = data;
+        this.channel = null;
+        this.lazyChannel = null;
+        this.rootDocument = null;
+        this.folderStack = null;
+        this.hashStack = null;
+        this.monitor = null;
+        this.stringCharset = stringCharset;
+        this.majorVersion = majorVersion;
+        this.minorVersion = minorVersion;
+    }
+
+    /**
+     * Decodes the nodes, edges and blocks of a graph indexed by a lazy
+     * parser.
+     */
+    private static class GraphLoader implements InputGraph.ContentLoader {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final ConstantPool pool;
+        private final int poolStamp;
+        private final Charset stringCharset;
+        private final int majorVersion;
+        private final int minorVersion;
+
+        GraphLoader(BinaryParser parser, long start, long end, int poolStamp) {
+            this.channel = parser.lazyChannel;
+            this.start = start;
+            this.end = end;
+            this.pool = parser.constantPool;
+            this.poolStamp = poolStamp;
+            this.stringCharset = parser.stringCharset;
+            this.majorVersion = parser.majorVersion;
+            this.minorVersion = parser.minorVersion;
+        }
+
+        @Override
+        public void load(InputGraph graph) throws IOException {
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Graph too large to map: " + (end - start) + " bytes");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            BinaryParser parser = new BinaryParser(data, new ConstantPool(pool, poolStamp), stringCharset, majorVersion, minorVersion);
+            parser.parseGraphContents(graph);
+        }
+    }
+
     private void fill() throws IOException {
+        if (channel == null) {
+            throw new EOFException();
+        }
         // All the data between lastPosition and position has been
         // used so add it to the digest.
         int position = buffer.position();
@@ -325,6 +542,11 @@ public class BinaryParser implements GraphParser {
         digest.update(remaining);
         assert position == buffer.position();
 
+        if (capture != null) {
+            captureTo(position);
+            captureMark = 0;
+        }
+        bufferOffset += buffer.position();
         buffer.compact();
         if (channel.read(buffer) < 0) {
             throw new EOFException();
@@ -416,6 +638,40 @@ public class BinaryParser implements GraphParser {
         return b;
     }
 
+    private void skipBytes(long len) throws IOException {
+        while (len > 0) {
+            int toSkip = (int) Math.min(len, buffer.capacity());
+            ensureAvailable(toSkip);
+            buffer.position(buffer.position() + toSkip);
+            len -= toSkip;
+        }
+    }
+
+    private long position() {
+        return bufferOffset + buffer.position();
+    }
+
+    private void startCapture() {
+        capture = new ByteArrayOutputStream();
+        captureMark = buffer.position();
+    }
+
+    private void captureTo(int position) {
+        ByteBuffer consumed = buffer.duplicate();
+        consumed.position(captureMark);
+        consumed.limit(position);
+        byte[] b = new byte[consumed.remaining()];
+        consumed.get(b);
+        capture.write(b, 0, b.length);
+    }
+
+    private byte[] endCapture() {
+        captureTo(buffer.position());
+        byte[] result = capture.toByteArray();
+        capture = null;
+        return result;
+    }
+
     private byte[] peekBytes(int len) throws IOException {
         ensureAvailable(len);
         byte[] b = new byte[len];
@@ -485,9 +741,6 @@ public class BinaryParser implements GraphParser {
         }
         assert assertObjectType(klass, type);
         char index = readShort();
-        if (index < 0 || index >= constantPool.size()) {
-            throw new IOException("Invalid constant pool index : " + index);
-        }
         Object obj = constantPool.get(index);
         return (T) obj;
     }
@@ -599,9 +852,6 @@ public class BinaryParser implements GraphParser {
             default:
                 throw new IOException("unknown pool type");
         }
-        while (constantPool.size() <= index) {
-            constantPool.add(null);
-        }
         constantPool.set(index, obj);
         return obj;
     }
@@ -644,6 +894,52 @@ public class BinaryParser implements GraphParser {
         }
     }
 
+    private void skipPropertyObject() throws IOException {
+        int type = readByte();
+        switch (type) {
+            case PROPERTY_INT:
+            case PROPERTY_FLOAT:
+                skipBytes(4);
+                break;
+            case PROPERTY_LONG:
+            case PROPERTY_DOUBLE:
+                skipBytes(8);
+                break;
+            case PROPERTY_TRUE:
+            case PROPERTY_FALSE:
+                break;
+            case PROPERTY_POOL:
+                readPoolObject(Object.class);
+                break;
+            case PROPERTY_ARRAY:
+                int subType = readByte();
+                int len = readInt();
+                switch(subType) {
+                    case PROPERTY_INT:
+                        skipBytes(Math.max(len, 0) * 4L);
+                        break;
+                    case PROPERTY_DOUBLE:
+                        skipBytes(Math.max(len, 0) * 8L);
+                        break;
+                    case PROPERTY_POOL:
+                        for (int i = 0; i < len; i++) {
+                            readPoolObject(Object.class);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown type");
+                }
+                break;
+            case PROPERTY_SUBGRAPH:
+                skipProperties();
+                skipNodes();
+                skipBlocks();
+                break;
+            default:
+                throw new IOException("Unknown type");
+        }
+    }
+
     @Override
     public GraphDocument parse() throws IOException {
         folderStack.push(rootDocument);
@@ -660,10 +956,25 @@ public class BinaryParser implements GraphParser {
                 setVersion(readByte(), readByte());
             }
             while(true) {
+                try {
+                    ensureAvailable(1);
+                } catch (EOFException e) {
+                    // The stream ended between two elements
+                    break;
+                }
                 parseRoot();
             }
         } catch (EOFException e) {
-
+            // The stream ended within an element. A file is still shown up
+            // to that point, but graphs read from a connection have already
+            // been published, so the dropped connection is reported.
+            if (decoder != null) {
+                throw e;
+            }
+        } finally {
+            if (decoder != null) {
+                awaitPublications();
+            }
         }
         if (monitor != null) {
             monitor.setState("Finished parsing");
@@ -677,7 +988,7 @@ public class BinaryParser implements GraphParser {
             case BEGIN_GRAPH: {
                 final Folder parent = folderStack.peek();
                 final InputGraph graph = parseGraph();
-                SwingUtilities.invokeLater(new Runnable(){
+                publish(new Runnable(){
                     @Override
                     public void run() {
                         parent.addElement(graph);
@@ -689,7 +1000,7 @@ public class BinaryParser implements GraphParser {
                 final Folder parent = folderStack.peek();
                 final Group group = parseGroup(parent);
                 if (callback == null || parent instanceof Group) {
-                    SwingUtilities.invokeLater(new Runnable(){
+                    publish(new Runnable(){
                         @Override
                         public void run() {
                             parent.addElement(group);
@@ -745,7 +1056,14 @@ public class BinaryParser implements GraphParser {
         String title = readPoolObject(String.class);
         digest.reset();
         lastPosition = buffer.position();
-        InputGraph graph = parseGraph(title);
+        InputGraph graph;
+        if (lazyChannel != null) {
+            graph = indexGraph(title);
+        } else if (decoder != null) {
+            graph = readGraphForDecoding(title);
+        } else {
+            graph = parseGraph(title);
+        }
 
         int position = buffer.position();
         buffer.position(lastPosition);
@@ -775,18 +1093,183 @@ public class BinaryParser implements GraphParser {
         }
     }
 
+    private void skipProperties() throws IOException {
+        int propCount = readShort();
+        for (int j = 0; j < propCount; j++) {
+            readPoolObject(String.class);
+            skipPropertyObject();
+        }
+    }
+
     private InputGraph parseGraph(String title) throws IOException {
         InputGraph graph = new InputGraph(title);
         parseProperties(graph.getProperties());
+        parseGraphContents(graph);
+        return graph;
+    }
+
+    private void parseGraphContents(InputGraph graph) throws IOException {
         parseNodes(graph);
         parseBlocks(graph);
         graph.ensureNodesInBlocks();
         for (InputNode node : graph.getNodes()) {
             node.internProperties();
         }
+    }
+
+    // Reads the properties of a graph and records where its nodes and
+    // blocks are, skipping over them but still tracking the constant pool
+    // entries they define.
+    private InputGraph indexGraph(String title) throws IOException {
+        InputGraph graph = new InputGraph(title);
+        parseProperties(graph.getProperties());
+        int poolStamp = constantPool.stamp();
+        long start = position();
+        skipNodes();
+        skipBlocks();
+        graph.setContentLoader(new GraphLoader(this, start, position(), poolStamp));
         return graph;
     }
 
+    // Reads the properties of a graph and copies out its nodes and blocks,
+    // tracking the constant pool entries they define, for parseRoot to
+    // decode them on the decoder once the graph has been read.
+    private InputGraph readGraphForDecoding(String title) throws IOException {
+        final InputGraph graph = new InputGraph(title);
+        parseProperties(graph.getProperties());
+        int poolStamp = constantPool.stamp();
+        startCapture();
+        skipNodes();
+        skipBlocks();
+        final byte[] data = endCapture();
+        // Only take a permit once the graph was read completely: a stream
+        // that ends within the graph must not leave a permit behind that
+        // awaitPublications would wait for forever.
+        try {
+            pendingGraphs.acquire();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+        final ConstantPool pool = new ConstantPool(constantPool, poolStamp);
+        final Charset charset = stringCharset;
+        pendingDecodeStamp = poolStamp;
+        pendingDecode = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new BinaryParser(ByteBuffer.wrap(data), pool, charset, majorVersion, minorVersion).parseGraphContents(graph);
+                } catch (IOException | RuntimeException e) {
+                    Logger.getLogger(BinaryParser.class.getName()).log(Level.WARNING, "Could not decode graph " + graph.getName(), e);
+                }
+            }
+        };
+        // Values the pending graphs can no longer see are dropped now
+        // and then, so that the pool does not grow with the stream
+        if (++decodedGraphs % 1024 == 0) {
+            int oldest = poolStamp;
+            synchronized (publications) {
+                for (Publication p : publications) {
+                    if (!p.ready) {
+                        oldest = Math.min(oldest, p.poolStamp);
+                    }
+                }
+            }
+            constantPool.forget(oldest);
+        }
+        return graph;
+    }
+
+    private static final class Publication {
+        final Runnable action;
+        final boolean decoded;
+        final int poolStamp;
+        boolean ready;
+        Publication(Runnable action, boolean decoded, int poolStamp) {
+            this.action = action;
+            this.decoded = decoded;
+            this.poolStamp = poolStamp;
+            this.ready = !decoded;
+        }
+    }
+
+    // Runs action on the event thread once everything read before it has
+    // been added; for a graph that is also once its contents are decoded.
+    private void publish(Runnable action) {
+        if (decoder == null) {
+            SwingUtilities.invokeLater(action);
+            return;
+        }
+        final Runnable decode = pendingDecode;
+        pendingDecode = null;
+        final Publication p = new Publication(action, decode != null, pendingDecodeStamp);
+        synchronized (publications) {
+            publications.add(p);
+        }
+        if (decode != null) {
+            decoder.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        decode.run();
+                    } finally {
+                        synchronized (publications) {
+                            p.ready = true;
+                        }
+                        flushPublications();
+                    }
+                }
+            });
+        } else {
+            flushPublications();
+        }
+    }
+
+    private void flushPublications() {
+        synchronized (publications) {
+            while (!publications.isEmpty() && publications.peek().ready) {
+                Publication p = publications.poll();
+                SwingUtilities.invokeLater(p.action);
+                if (p.decoded) {
+                    pendingGraphs.release();
+                }
+            }
+        }
+    }
+
+    private void awaitPublications() throws IOException {
+        try {
+            pendingGraphs.acquire(maxPendingGraphs);
+            pendingGraphs.release(maxPendingGraphs);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void skipNodes() throws IOException {
+        int count = readInt();
+        for (int i = 0; i < count; i++) {
+            readInt();
+            NodeClass nodeClass = readPoolObject(NodeClass.class);
+            readByte();
+            skipProperties();
+            for (TypedPort p : nodeClass.inputs) {
+                skipBytes(p.isList ? readShort() * 4L : 4);
+            }
+            for (Port p : nodeClass.sux) {
+                skipBytes(p.isList ? readShort() * 4L : 4);
+            }
+        }
+    }
+
+    private void skipBlocks() throws IOException {
+        int blockCount = readInt();
+        for (int i = 0; i < blockCount; i++) {
+            readInt();
+            skipBytes(readInt() * 4L);
+            skipBytes(readInt() * 4L);
+        }
+    }
+
     private void parseBlocks(InputGraph graph) throws IOException {
         int blockCount = readInt();
         List<Edge> edges = new LinkedList<>();
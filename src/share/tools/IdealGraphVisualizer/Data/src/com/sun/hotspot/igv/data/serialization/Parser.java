@@ -280,6 +280,11 @@ public class Parser implements GraphParser {
             }
             blockConnections.clear();
 
+            // Nodes carried over by difference encoding are already interned
+            for (InputNode n : graph.getNodes()) {
+                n.internProperties();
+            }
+
             SwingUtilities.invokeLater(new Runnable(){
 
                 @Override
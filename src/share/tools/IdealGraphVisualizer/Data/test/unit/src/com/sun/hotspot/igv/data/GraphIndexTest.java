@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.hotspot.igv.data;
+
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class GraphIndexTest {
+
+    private static InputGraph graph;
+    private static final InputNode N1 = new InputNode(1);
+    private static final InputNode N2 = new InputNode(2);
+    private static final InputNode N3 = new InputNode(3);
+    private static final InputNode N4 = new InputNode(4);
+    private static final InputNode N5 = new InputNode(50);
+    private static final InputEdge E12 = edge(0, 1, 2);
+    private static final InputEdge E13 = edge(0, 1, 3);
+    private static final InputEdge E24 = edge(1, 2, 4);
+    private static final InputEdge E34 = edge(0, 3, 4);
+    private static final InputEdge E54 = edge(2, 50, 4);
+    private static final InputEdge E19 = edge(0, 1, 9);
+
+    private static InputEdge edge(int toIndex, int from, int to) {
+        return new InputEdge((char) 0, (char) toIndex, from, to, null, "");
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        graph = new InputGraph("graph");
+        graph.addNode(N3);
+        graph.addNode(N1);
+        graph.addNode(N2);
+        graph.addNode(N4);
+        graph.addNode(N5);
+        graph.addEdge(E13);
+        graph.addEdge(E54);
+        graph.addEdge(E12);
+        graph.addEdge(E34);
+        graph.addEdge(E24);
+        graph.addEdge(E19);
+    }
+
+    @Test
+    public void testNumbering() {
+        GraphIndex index = graph.getIndex();
+        assertEquals(5, index.size());
+        assertSame(N3, index.getNode(0));
+        assertSame(N5, index.getNode(4));
+        assertEquals(0, index.indexOf(3));
+        assertEquals(1, index.indexOf(N1));
+        assertEquals(4, index.indexOf(50));
+        assertEquals(-1, index.indexOf(9));
+    }
+
+    @Test
+    public void testAdjacency() {
+        GraphIndex index = graph.getIndex();
+        int n1 = index.indexOf(N1);
+        int n4 = index.indexOf(N4);
+        assertEquals(Arrays.asList(E12, E13), index.getOutgoingEdges(n1));
+        assertEquals(Arrays.asList(E34, E24, E54), index.getIngoingEdges(n4));
+        assertEquals(0, index.outDegree(n4));
+        assertEquals(0, index.inDegree(n1));
+        assertEquals(index.indexOf(N3), index.outTarget(index.outStart(n1) + 1));
+        assertEquals(index.indexOf(N5), index.inSource(index.inEnd(n4) - 1));
+        assertEquals(Arrays.asList(N1, N5), graph.findRootNodes());
+    }
+
+    /**
+     * Edges with only one end in the graph are left out of the index but
+     * still seen by the edge lookups of the graph, as before the index.
+     */
+    @Test
+    public void testDanglingEdges() {
+        InputGraph g = new InputGraph("g");
+        InputNode a = new InputNode(1);
+        InputNode b = new InputNode(2);
+        InputNode c = new InputNode(3);
+        InputEdge ab = edge(0, 1, 2);
+        InputEdge a9 = edge(0, 1, 9);
+        InputEdge x8c = edge(0, 8, 3);
+        g.addNode(a);
+        g.addNode(b);
+        g.addNode(c);
+        g.addEdge(a9);
+        g.addEdge(ab);
+        g.addEdge(x8c);
+
+        GraphIndex index = g.getIndex();
+        assertEquals(Arrays.asList(a9, x8c), index.getDanglingEdges());
+        assertEquals(1, index.outDegree(index.indexOf(a)));
+        assertEquals(0, index.inDegree(index.indexOf(c)));
+
+        assertEquals(Arrays.asList(a), g.findRootNodes());
+        assertEquals(Arrays.asList(ab, a9), g.findOutgoingEdges(a));
+        assertEquals(Arrays.asList(x8c), g.findOutgoingEdges(new InputNode(8)));
+        assertEquals(Arrays.asList(ab, a9), g.findAllOutgoingEdges().get(a));
+        assertEquals(Arrays.asList(x8c), g.findAllIngoingEdges().get(c));
+
+        // The lists belong to the caller
+        g.findOutgoingEdges(b).add(ab);
+        g.findAllIngoingEdges().get(b).clear();
+        assertEquals(Arrays.asList(ab), index.getIngoingEdges(index.indexOf(b)));
+    }
+
+    @Test
+    public void testInvalidation() {
+        InputGraph g = new InputGraph("g");
+        g.addNode(new InputNode(1));
+        GraphIndex first = g.getIndex();
+        assertSame(first, g.getIndex());
+        g.addNode(new InputNode(2));
+        g.addEdge(edge(0, 1, 2));
+        GraphIndex second = g.getIndex();
+        assertNotSame(first, second);
+        assertEquals(2, second.size());
+        assertEquals(1, second.outDegree(0));
+    }
+}
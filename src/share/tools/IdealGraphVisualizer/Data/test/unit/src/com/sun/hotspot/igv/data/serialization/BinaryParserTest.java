@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.hotspot.igv.data.serialization;
+
+import com.sun.hotspot.igv.data.*;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.*;
+
+public class BinaryParserTest {
+
+    private static final int BEGIN_GROUP = 0x00;
+    private static final int BEGIN_GRAPH = 0x01;
+    private static final int CLOSE_GROUP = 0x02;
+    private static final int POOL_NEW = 0x00;
+    private static final int POOL_STRING = 0x01;
+    private static final int POOL_ENUM = 0x02;
+    private static final int POOL_CLASS = 0x03;
+    private static final int POOL_NULL = 0x05;
+    private static final int POOL_NODE_CLASS = 0x06;
+    private static final int PROPERTY_POOL = 0x00;
+    private static final int PROPERTY_INT = 0x01;
+
+    private static File file;
+
+    /**
+     * One group holding three graphs. Pool entry 9 is defined by the group
+     * as "first", used by graph 1, redefined by graph 2 as "second" and used
+     * again by graph 3.
+     */
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        file = File.createTempFile("igv", ".bgv");
+        file.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(BinaryParser.MAGIC_BYTES);
+            out.writeByte(1);
+            out.writeByte(0);
+
+            out.writeByte(BEGIN_GROUP);
+            newString(out, 0, "group");
+            poolRef(out, POOL_STRING, 0);
+            out.writeByte(POOL_NULL);
+            out.writeInt(0);
+            out.writeShort(1);
+            newString(out, 8, "stamp");
+            out.writeByte(PROPERTY_POOL);
+            newString(out, 9, "first");
+
+            // Graph 1: Start -> Return, both in block 0
+            out.writeByte(BEGIN_GRAPH);
+            newString(out, 10, "graph 1");
+            out.writeShort(1);
+            poolRef(out, POOL_STRING, 8);
+            out.writeByte(PROPERTY_INT);
+            out.writeInt(42);
+            out.writeInt(2);
+            out.writeInt(0);
+            out.writeByte(POOL_NEW);
+            out.writeShort(1);
+            out.writeByte(POOL_NODE_CLASS);
+            string(out, "Start");
+            string(out, "Start");
+            out.writeShort(0);
+            out.writeShort(1);
+            out.writeByte(0);
+            newString(out, 2, "next");
+            out.writeByte(0);
+            out.writeShort(1);
+            poolRef(out, POOL_STRING, 8);
+            out.writeByte(PROPERTY_POOL);
+            poolRef(out, POOL_STRING, 9);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeByte(POOL_NEW);
+            out.writeShort(3);
+            out.writeByte(POOL_NODE_CLASS);
+            string(out, "Return");
+            string(out, "Return {i#value}");
+            out.writeShort(1);
+            out.writeByte(0);
+            newString(out, 4, "value");
+            out.writeByte(POOL_NEW);
+            out.writeShort(5);
+            out.writeByte(POOL_ENUM);
+            out.writeByte(POOL_NEW);
+            out.writeShort(6);
+            out.writeByte(POOL_CLASS);
+            string(out, "InputType");
+            out.writeByte(1);
+            out.writeInt(1);
+            newString(out, 7, "Value");
+            out.writeInt(0);
+            out.writeShort(0);
+            out.writeByte(1);
+            out.writeShort(0);
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(0);
+            out.writeInt(2);
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(0);
+
+            // Graph 2: a lone Start redefining entry 9
+            out.writeByte(BEGIN_GRAPH);
+            newString(out, 10, "graph 2");
+            out.writeShort(0);
+            out.writeInt(1);
+            out.writeInt(0);
+            poolRef(out, POOL_NODE_CLASS, 1);
+            out.writeByte(0);
+            out.writeShort(1);
+            poolRef(out, POOL_STRING, 8);
+            out.writeByte(PROPERTY_POOL);
+            newString(out, 9, "second");
+            out.writeInt(-1);
+            out.writeInt(0);
+
+            // Graph 3: a lone Start using entry 9
+            out.writeByte(BEGIN_GRAPH);
+            newString(out, 10, "graph 3");
+            out.writeShort(0);
+            out.writeInt(1);
+            out.writeInt(0);
+            poolRef(out, POOL_NODE_CLASS, 1);
+            out.writeByte(0);
+            out.writeShort(1);
+            poolRef(out, POOL_STRING, 8);
+            out.writeByte(PROPERTY_POOL);
+            poolRef(out, POOL_STRING, 9);
+            out.writeInt(-1);
+            out.writeInt(0);
+
+            out.writeByte(CLOSE_GROUP);
+        }
+    }
+
+    private static void string(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static void newString(DataOutputStream out, int index, String s) throws IOException {
+        out.writeByte(POOL_NEW);
+        out.writeShort(index);
+        out.writeByte(POOL_STRING);
+        string(out, s);
+    }
+
+    private static void poolRef(DataOutputStream out, int type, int index) throws IOException {
+        out.writeByte(type);
+        out.writeShort(index);
+    }
+
+    private static Group parse(boolean lazy) throws Exception {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        GraphDocument document = new BinaryParser(channel, null, new GraphDocument(), null, lazy).parse();
+        // Parsed elements are added to their folders on the event thread
+        javax.swing.SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertEquals(1, document.getElements().size());
+        return (Group) document.getElements().get(0);
+    }
+
+    private static void checkGroup(Group group) {
+        assertEquals(3, group.getGraphsCount());
+
+        InputGraph graph1 = group.getGraphs().get(0);
+        assertEquals("graph 1", graph1.getName());
+        assertEquals("42", graph1.getProperties().get("stamp"));
+        assertEquals(2, graph1.getNodes().size());
+        assertEquals(2, graph1.getEdges().size());
+        assertEquals("first", graph1.getNode(0).getProperties().get("stamp"));
+        assertEquals("Return 0", graph1.getNode(1).getProperties().get("name"));
+        assertEquals("0", graph1.getBlock(1).getName());
+
+        InputGraph graph2 = group.getGraphs().get(1);
+        assertEquals("second", graph2.getNode(0).getProperties().get("stamp"));
+        assertEquals(0, graph2.getEdges().size());
+
+        InputGraph graph3 = group.getGraphs().get(2);
+        assertEquals("second", graph3.getNode(0).getProperties().get("stamp"));
+    }
+
+    @Test
+    public void testEager() throws Exception {
+        checkGroup(parse(false));
+    }
+
+    /**
+     * Graphs indexed by a lazy parser must decode to the same contents,
+     * with the constant pool entries in effect where each graph starts.
+     */
+    @Test
+    public void testLazy() throws Exception {
+        Group lazy = parse(true);
+        checkGroup(lazy);
+        Group eager = parse(false);
+        for (int i = 0; i < eager.getGraphsCount(); i++) {
+            Util.assertGraphEquals(eager.getGraphs().get(i), lazy.getGraphs().get(i));
+        }
+    }
+
+    /**
+     * Decoding graphs out of order must not disturb one another.
+     */
+    @Test
+    public void testLazyOutOfOrder() throws Exception {
+        Group lazy = parse(true);
+        assertEquals("second", lazy.getGraphs().get(2).getNode(0).getProperties().get("stamp"));
+        assertEquals("first", lazy.getGraphs().get(0).getNode(0).getProperties().get("stamp"));
+        assertEquals("second", lazy.getGraphs().get(1).getNode(0).getProperties().get("stamp"));
+    }
+
+    /**
+     * Several senders stream the group repeatedly over loopback sockets
+     * while the receiving parsers share one decoder pool. Every connection
+     * must see all of its graphs, in order and intact.
+     */
+    @Test
+    public void testLoopbackParallel() throws Exception {
+        final int clients = 4;
+        final int repeats = 250;
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer header = ByteBuffer.wrap(bytes, 0, 6);
+        ByteBuffer body = ByteBuffer.wrap(bytes, 6, bytes.length - 6);
+
+        ExecutorService senders = Executors.newFixedThreadPool(clients);
+        ExecutorService receivers = Executors.newFixedThreadPool(clients);
+        ExecutorService decoder = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            final InetSocketAddress address = (InetSocketAddress) server.getLocalAddress();
+            long start = System.nanoTime();
+            List<Future<GraphDocument>> documents = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                senders.submit(new Sender(address, header.duplicate(), body.duplicate(), repeats));
+                documents.add(receivers.submit(new Receiver(server.accept(), decoder)));
+            }
+            List<GraphDocument> results = new ArrayList<>();
+            for (Future<GraphDocument> document : documents) {
+                results.add(document.get(60, TimeUnit.SECONDS));
+            }
+            long elapsed = System.nanoTime() - start;
+            javax.swing.SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            for (GraphDocument document : results) {
+                assertEquals(repeats, document.getElements().size());
+                for (FolderElement element : document.getElements()) {
+                    checkGroup((Group) element);
+                }
+            }
+            long graphs = (long) clients * repeats * 3;
+            System.out.printf("%d graphs over %d connections in %d ms (%.0f graphs/s)%n",
+                    graphs, clients, TimeUnit.NANOSECONDS.toMillis(elapsed), graphs * 1e9 / elapsed);
+        } finally {
+            senders.shutdownNow();
+            receivers.shutdownNow();
+            decoder.shutdownNow();
+        }
+    }
+
+    /**
+     * A connection that drops within a graph must end the parse, not leave
+     * the parser waiting for graphs that are never handed to the decoder.
+     */
+    @Test
+    public void testTruncatedParallel() throws Exception {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        final byte[] truncated = Arrays.copyOf(bytes, bytes.length - 10);
+        final ExecutorService decoder = Executors.newFixedThreadPool(2);
+        ExecutorService receiver = Executors.newSingleThreadExecutor();
+        try {
+            Future<GraphDocument> document = receiver.submit(new Callable<GraphDocument>() {
+                @Override
+                public GraphDocument call() throws IOException {
+                    ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(truncated));
+                    return new BinaryParser(channel, null, new GraphDocument(), null, decoder, 16).parse();
+                }
+            });
+            try {
+                document.get(10, TimeUnit.SECONDS);
+                fail("parse() of a truncated stream must fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof EOFException);
+            } catch (TimeoutException e) {
+                fail("parse() of a truncated stream did not return");
+            }
+        } finally {
+            receiver.shutdownNow();
+            decoder.shutdownNow();
+        }
+    }
+
+    private static class Sender implements Callable<Void> {
+        private final InetSocketAddress address;
+        private final ByteBuffer header;
+        private final ByteBuffer body;
+        private final int repeats;
+
+        Sender(InetSocketAddress address, ByteBuffer header, ByteBuffer body, int repeats) {
+            this.address = address;
+            this.header = header;
+            this.body = body;
+            this.repeats = repeats;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                writeFully(channel, header);
+                for (int i = 0; i < repeats; i++) {
+                    writeFully(channel, body.duplicate());
+                }
+            }
+            return null;
+        }
+
+        private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static class Receiver implements Callable<GraphDocument> {
+        private final SocketChannel channel;
+        private final Executor decoder;
+
+        Receiver(SocketChannel channel, Executor decoder) {
+            this.channel = channel;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public GraphDocument call() throws IOException {
+            try (SocketChannel c = channel) {
+                return new BinaryParser(c, null, new GraphDocument(), null, decoder, 16).parse();
+            }
+        }
+    }
+}
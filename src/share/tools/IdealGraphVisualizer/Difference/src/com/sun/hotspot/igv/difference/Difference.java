@@ -28,6 +28,7 @@ import com.sun.hotspot.igv.data.Properties;
 import com.sun.hotspot.igv.data.*;
 import com.sun.hotspot.igv.data.services.Scheduler;
 import java.util.*;
+import java.util.concurrent.*;
 import org.openide.util.Lookup;
 
 /**
@@ -45,36 +46,108 @@ public class Difference {
     public static final String MAIN_PROPERTY = "name";
     public static final double LIMIT = 100.0;
     public static final String[] IGNORE_PROPERTIES = new String[]{"idx", "debug_idx"};
+    // Nodes with the same name in buckets larger than this are paired in
+    // order instead of by comparing every pair of properties
+    public static final int MAX_COMPARED_PAIRS = 1 << 16;
+    public static final int CACHE_SIZE = 8;
 
-    public static InputGraph createDiffGraph(InputGraph a, InputGraph b) {
-        if (a.getGroup() == b.getGroup()) {
-            return createDiffSameGroup(a, b);
-        } else {
-            return createDiff(a, b);
+    // Recently computed or requested diffs, least recently used first
+    private static final Map<Pair<InputGraph, InputGraph>, FutureTask<InputGraph>> cache = new LinkedHashMap<Pair<InputGraph, InputGraph>, FutureTask<InputGraph>>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Pair<InputGraph, InputGraph>, FutureTask<InputGraph>> eldest) {
+            return size() > CACHE_SIZE;
         }
-    }
+    };
 
-    private static InputGraph createDiffSameGroup(InputGraph a, InputGraph b) {
-        Map<Integer, InputNode> keyMapB = new HashMap<>(b.getNodes().size());
-        for (InputNode n : b.getNodes()) {
-            Integer key = n.getId();
-            assert !keyMapB.containsKey(key);
-            keyMapB.put(key, n);
+    private static final ExecutorService prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "IGV difference");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
         }
+    });
 
-        Set<NodePair> pairs = new HashSet<>();
+    public static InputGraph createDiffGraph(InputGraph a, InputGraph b) {
+        FutureTask<InputGraph> diff;
+        Pair<InputGraph, InputGraph> key = new Pair<>(a, b);
+        synchronized (cache) {
+            diff = cache.get(key);
+            if (diff == null) {
+                diff = newDiffTask(a, b);
+                cache.put(key, diff);
+            }
+        }
+        // A prefetched diff may still be queued behind other prefetches;
+        // compute it here rather than wait for them. This does nothing if
+        // the task has already started or finished.
+        diff.run();
+        try {
+            return diff.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return computeDiffGraph(a, b);
+        } catch (ExecutionException e) {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 
-        for (InputNode n : a.getNodes()) {
-            Integer key = n.getId();
+    /**
+     * Starts computing the difference between two graphs in the background,
+     * so that a later call to {@link #createDiffGraph} finds it ready. Graphs
+     * that are not scheduled yet are skipped, since scheduling changes them.
+     */
+    public static void prefetchDiffGraph(InputGraph a, InputGraph b) {
+        if (a == null || b == null || a == b || a.getBlocks().isEmpty() || b.getBlocks().isEmpty()) {
+            return;
+        }
+        FutureTask<InputGraph> task;
+        Pair<InputGraph, InputGraph> key = new Pair<>(a, b);
+        synchronized (cache) {
+            if (cache.containsKey(key)) {
+                return;
+            }
+            task = newDiffTask(a, b);
+            cache.put(key, task);
+        }
+        prefetcher.execute(task);
+    }
 
+    private static FutureTask<InputGraph> newDiffTask(final InputGraph a, final InputGraph b) {
+        return new FutureTask<>(new Callable<InputGraph>() {
 
-            if (keyMapB.containsKey(key)) {
-                InputNode nB = keyMapB.get(key);
-                pairs.add(new NodePair(n, nB));
+            @Override
+            public InputGraph call() {
+                return computeDiffGraph(a, b);
             }
+        });
+    }
+
+    private static InputGraph computeDiffGraph(InputGraph a, InputGraph b) {
+        if (a.getGroup() == b.getGroup()) {
+            return createDiffSameGroup(a, b);
+        } else {
+            return createDiff(a, b);
         }
+    }
 
-        return createDiff(a, b, pairs);
+    private static InputGraph createDiffSameGroup(InputGraph a, InputGraph b) {
+        GraphIndex indexA = a.getIndex();
+        GraphIndex indexB = b.getIndex();
+        int[] match = new int[indexA.size()];
+        for (int i = 0; i < match.length; i++) {
+            match[i] = indexB.indexOf(indexA.getNode(i).getId());
+        }
+        return createDiff(a, b, match);
     }
 
     private static void ensureScheduled(InputGraph a) {
@@ -86,7 +159,59 @@ public class Difference {
         }
     }
 
-    private static InputGraph createDiff(InputGraph a, InputGraph b, Set<NodePair> pairs) {
+    // An edge of the difference graph, between nodes numbered in the order
+    // they were added to it
+    private static class DiffEdge implements Comparable<DiffEdge> {
+
+        final int from;
+        final int to;
+        final InputEdge edge;
+
+        DiffEdge(int from, int to, InputEdge edge) {
+            this.from = from;
+            this.to = to;
+            this.edge = edge;
+        }
+
+        @Override
+        public int compareTo(DiffEdge o) {
+            if (from != o.from) {
+                return Integer.compare(from, o.from);
+            }
+            if (to != o.to) {
+                return Integer.compare(to, o.to);
+            }
+            if (edge.getFromIndex() != o.edge.getFromIndex()) {
+                return edge.getFromIndex() - o.edge.getFromIndex();
+            }
+            return edge.getToIndex() - o.edge.getToIndex();
+        }
+    }
+
+    // Returns the edges of a graph in terms of the difference graph nodes,
+    // sorted and without duplicates
+    private static List<DiffEdge> diffEdges(GraphIndex index, int[] diffNode) {
+        List<DiffEdge> result = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            for (int slot = index.outStart(i); slot < index.outEnd(i); slot++) {
+                result.add(new DiffEdge(diffNode[i], diffNode[index.outTarget(slot)], index.outEdge(slot)));
+            }
+        }
+        Collections.sort(result);
+        int size = 0;
+        for (DiffEdge e : result) {
+            if (size == 0 || result.get(size - 1).compareTo(e) != 0) {
+                result.set(size++, e);
+            }
+        }
+        return result.subList(0, size);
+    }
+
+    /**
+     * Creates the difference graph, with {@code match[i]} the index of the
+     * node of b that node {@code i} of a is paired with, or -1.
+     */
+    private static InputGraph createDiff(InputGraph a, InputGraph b, int[] match) {
         ensureScheduled(a);
         ensureScheduled(b);
 
@@ -148,38 +273,35 @@ public class Difference {
             edge.setState(InputBlockEdge.State.DELETED);
         }
 
-        Set<InputNode> nodesA = new HashSet<>(a.getNodes());
-        Set<InputNode> nodesB = new HashSet<>(b.getNodes());
-
-        Map<InputNode, InputNode> inputNodeMap = new HashMap<>(pairs.size());
-        for (NodePair p : pairs) {
-            InputNode n = p.getLeft();
-            assert nodesA.contains(n);
-            InputNode nB = p.getRight();
-            assert nodesB.contains(nB);
+        GraphIndex indexA = a.getIndex();
+        GraphIndex indexB = b.getIndex();
+        List<InputNode> diffNodes = new ArrayList<>(indexA.size() + indexB.size());
+        int[] diffNodeA = new int[indexA.size()];
+        int[] diffNodeB = new int[indexB.size()];
+        Arrays.fill(diffNodeB, -1);
 
-            nodesA.remove(n);
-            nodesB.remove(nB);
+        for (int i = 0; i < indexA.size(); i++) {
+            InputNode n = indexA.getNode(i);
             InputNode n2 = new InputNode(n);
-            inputNodeMap.put(n, n2);
-            inputNodeMap.put(nB, n2);
             graph.addNode(n2);
             InputBlock block = blocksMap.get(a.getBlock(n));
             block.addNode(n2.getId());
-            markAsChanged(n2, n, nB);
-        }
-
-        for (InputNode n : nodesA) {
-            InputNode n2 = new InputNode(n);
-            graph.addNode(n2);
-            InputBlock block = blocksMap.get(a.getBlock(n));
-            block.addNode(n2.getId());
-            markAsDeleted(n2);
-            inputNodeMap.put(n, n2);
+            if (match[i] >= 0) {
+                markAsChanged(n2, n, indexB.getNode(match[i]));
+                diffNodeB[match[i]] = diffNodes.size();
+            } else {
+                markAsDeleted(n2);
+            }
+            diffNodeA[i] = diffNodes.size();
+            diffNodes.add(n2);
         }
 
         int curIndex = 0;
-        for (InputNode n : nodesB) {
+        for (int i = 0; i < indexB.size(); i++) {
+            if (diffNodeB[i] >= 0) {
+                continue;
+            }
+            InputNode n = indexB.getNode(i);
             InputNode n2 = new InputNode(n);
 
             // Find new ID for node of b, does not change the id property
@@ -192,58 +314,39 @@ public class Difference {
             InputBlock block = blocksMap.get(b.getBlock(n));
             block.addNode(n2.getId());
             markAsNew(n2);
-            inputNodeMap.put(n, n2);
+            diffNodeB[i] = diffNodes.size();
+            diffNodes.add(n2);
         }
 
-        Collection<InputEdge> edgesA = a.getEdges();
-        Collection<InputEdge> edgesB = b.getEdges();
-
-        Set<InputEdge> newEdges = new HashSet<>();
-
-        for (InputEdge e : edgesA) {
-            int from = e.getFrom();
-            int to = e.getTo();
-            InputNode nodeFrom = inputNodeMap.get(a.getNode(from));
-            InputNode nodeTo = inputNodeMap.get(a.getNode(to));
-            char fromIndex = e.getFromIndex();
-            char toIndex = e.getToIndex();
-
-            if (nodeFrom == null || nodeTo == null) {
-                System.out.println("Unexpected edge : " + from + " -> " + to);
+        // Merge the sorted edges of both graphs; an edge of b that is also
+        // in a takes the place of the one from a
+        List<DiffEdge> edgesA = diffEdges(indexA, diffNodeA);
+        List<DiffEdge> edgesB = diffEdges(indexB, diffNodeB);
+        int i = 0;
+        int j = 0;
+        while (i < edgesA.size() || j < edgesB.size()) {
+            int cmp;
+            if (i == edgesA.size()) {
+                cmp = 1;
+            } else if (j == edgesB.size()) {
+                cmp = -1;
             } else {
-                InputEdge newEdge = new InputEdge(fromIndex, toIndex, nodeFrom.getId(), nodeTo.getId(), e.getLabel(), e.getType());
-                if (!newEdges.contains(newEdge)) {
-                    markAsDeleted(newEdge);
-                    newEdges.add(newEdge);
-                    graph.addEdge(newEdge);
-                }
+                cmp = edgesA.get(i).compareTo(edgesB.get(j));
             }
-        }
-
-        for (InputEdge e : edgesB) {
-            int from = e.getFrom();
-            int to = e.getTo();
-            InputNode nodeFrom = inputNodeMap.get(b.getNode(from));
-            InputNode nodeTo = inputNodeMap.get(b.getNode(to));
-            char fromIndex = e.getFromIndex();
-            char toIndex = e.getToIndex();
-
-            if (nodeFrom == null || nodeTo == null) {
-                System.out.println("Unexpected edge : " + from + " -> " + to);
+            DiffEdge e = cmp < 0 ? edgesA.get(i) : edgesB.get(j);
+            InputEdge newEdge = new InputEdge(e.edge.getFromIndex(), e.edge.getToIndex(), diffNodes.get(e.from).getId(), diffNodes.get(e.to).getId(), e.edge.getLabel(), e.edge.getType());
+            if (cmp < 0) {
+                markAsDeleted(newEdge);
+                i++;
+            } else if (cmp > 0) {
+                markAsNew(newEdge);
+                j++;
             } else {
-                InputEdge newEdge = new InputEdge(fromIndex, toIndex, nodeFrom.getId(), nodeTo.getId(), e.getLabel(), e.getType());
-                if (!newEdges.contains(newEdge)) {
-                    markAsNew(newEdge);
-                    newEdges.add(newEdge);
-                    graph.addEdge(newEdge);
-                } else {
-                    newEdges.remove(newEdge);
-                    graph.removeEdge(newEdge);
-                    markAsSame(newEdge);
-                    newEdges.add(newEdge);
-                    graph.addEdge(newEdge);
-                }
+                markAsSame(newEdge);
+                i++;
+                j++;
             }
+            graph.addEdge(newEdge);
         }
 
         return graph;
@@ -286,58 +389,201 @@ public class Difference {
         }
     }
 
-    private static InputGraph createDiff(InputGraph a, InputGraph b) {
+    private static boolean isIgnored(String name) {
+        if (name.equals("id")) {
+            return true;
+        }
+        for (String ignored : IGNORE_PROPERTIES) {
+            if (name.equals(ignored)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        Set<InputNode> matched = new HashSet<>();
+    private static int mix(int a, int b) {
+        int h = a * 0x9E3779B9 + b;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
 
-        Set<NodePair> pairs = new HashSet<>();
-        for (InputNode n : a.getNodes()) {
-            String s = n.getProperties().get(MAIN_PROPERTY);
-            if (s == null) {
-                s = "";
+    // Hash of the properties that identify a node across compilations; the
+    // order of the properties does not matter
+    private static int propertyHash(InputNode n) {
+        int hash = 0;
+        for (Property p : n.getProperties()) {
+            if (!isIgnored(p.getName())) {
+                hash += mix(p.getName().hashCode(), p.getValue().hashCode());
             }
-            for (InputNode n2 : b.getNodes()) {
-                String s2 = n2.getProperties().get(MAIN_PROPERTY);
-                if (s2 == null) {
-                    s2 = "";
+        }
+        return hash;
+    }
+
+    private static boolean sameProperties(InputNode n1, InputNode n2) {
+        int count = 0;
+        for (Property p : n1.getProperties()) {
+            if (!isIgnored(p.getName())) {
+                if (!p.getValue().equals(n2.getProperties().get(p.getName()))) {
+                    return false;
                 }
+                count++;
+            }
+        }
+        for (Property p : n2.getProperties()) {
+            if (!isIgnored(p.getName())) {
+                count--;
+            }
+        }
+        return count == 0;
+    }
+
+    private static int[] propertyHashes(GraphIndex index) {
+        int[] result = new int[index.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = propertyHash(index.getNode(i));
+        }
+        return result;
+    }
 
-                if (s.equals(s2)) {
-                    NodePair p = new NodePair(n, n2);
-                    pairs.add(p);
+    // Combines the property hash of a node with those of its inputs, by
+    // input slot, and of its users
+    private static int[] fingerprints(GraphIndex index, int[] propertyHashes) {
+        int[] result = new int[index.size()];
+        for (int i = 0; i < result.length; i++) {
+            int hash = 0;
+            for (int slot = index.inStart(i); slot < index.inEnd(i); slot++) {
+                hash += mix(index.inEdge(slot).getToIndex(), propertyHashes[index.inSource(slot)]);
+            }
+            for (int slot = index.outStart(i); slot < index.outEnd(i); slot++) {
+                hash += mix(-1, propertyHashes[index.outTarget(slot)]);
+            }
+            result[i] = mix(propertyHashes[i], hash);
+        }
+        return result;
+    }
+
+    // Pairs unmatched nodes of a with unmatched nodes of b that have the
+    // same key and the same properties, in node order
+    private static void matchBuckets(GraphIndex indexA, int[] keysA, GraphIndex indexB, int[] keysB, int[] match, boolean[] matchedB) {
+        Map<Integer, List<Integer>> buckets = new HashMap<>();
+        for (int j = 0; j < keysB.length; j++) {
+            if (!matchedB[j]) {
+                List<Integer> bucket = buckets.get(keysB[j]);
+                if (bucket == null) {
+                    bucket = new LinkedList<>();
+                    buckets.put(keysB[j], bucket);
                 }
+                bucket.add(j);
             }
         }
+        for (int i = 0; i < keysA.length; i++) {
+            List<Integer> bucket = match[i] < 0 ? buckets.get(keysA[i]) : null;
+            if (bucket == null) {
+                continue;
+            }
+            for (Iterator<Integer> it = bucket.iterator(); it.hasNext();) {
+                int j = it.next();
+                if (sameProperties(indexA.getNode(i), indexB.getNode(j))) {
+                    match[i] = j;
+                    matchedB[j] = true;
+                    it.remove();
+                    break;
+                }
+            }
+        }
+    }
 
-        Set<NodePair> selectedPairs = new HashSet<>();
-        while (pairs.size() > 0) {
+    private static String mainProperty(InputNode n) {
+        String s = n.getProperties().get(MAIN_PROPERTY);
+        return s != null ? s : "";
+    }
 
-            double min = Double.MAX_VALUE;
-            NodePair minPair = null;
-            for (NodePair p : pairs) {
-                double cur = p.getValue();
-                if (cur < min) {
-                    minPair = p;
-                    min = cur;
+    /**
+     * Matches the nodes of graphs from different groups. Nodes whose
+     * properties and neighbourhood are the same are paired first, then
+     * nodes whose properties are the same, and the rest by name, preferring
+     * the pairs whose properties differ least.
+     */
+    private static InputGraph createDiff(InputGraph a, InputGraph b) {
+        GraphIndex indexA = a.getIndex();
+        GraphIndex indexB = b.getIndex();
+        int[] match = new int[indexA.size()];
+        Arrays.fill(match, -1);
+        boolean[] matchedB = new boolean[indexB.size()];
+
+        int[] propertiesA = propertyHashes(indexA);
+        int[] propertiesB = propertyHashes(indexB);
+        matchBuckets(indexA, fingerprints(indexA, propertiesA), indexB, fingerprints(indexB, propertiesB), match, matchedB);
+        matchBuckets(indexA, propertiesA, indexB, propertiesB, match, matchedB);
+
+        Map<String, List<Integer>> namesA = new LinkedHashMap<>();
+        for (int i = 0; i < match.length; i++) {
+            if (match[i] < 0) {
+                String name = mainProperty(indexA.getNode(i));
+                if (!namesA.containsKey(name)) {
+                    namesA.put(name, new ArrayList<Integer>());
                 }
+                namesA.get(name).add(i);
             }
+        }
+        Map<String, List<Integer>> namesB = new HashMap<>();
+        for (int j = 0; j < matchedB.length; j++) {
+            if (!matchedB[j]) {
+                String name = mainProperty(indexB.getNode(j));
+                if (!namesB.containsKey(name)) {
+                    namesB.put(name, new ArrayList<Integer>());
+                }
+                namesB.get(name).add(j);
+            }
+        }
 
-            if (min > LIMIT) {
-                break;
-            } else {
-                selectedPairs.add(minPair);
+        for (Map.Entry<String, List<Integer>> entry : namesA.entrySet()) {
+            List<Integer> left = entry.getValue();
+            List<Integer> right = namesB.get(entry.getKey());
+            if (right == null) {
+                continue;
+            }
+            if ((long) left.size() * right.size() > MAX_COMPARED_PAIRS) {
+                for (int k = 0; k < Math.min(left.size(), right.size()); k++) {
+                    NodePair p = new NodePair(indexA.getNode(left.get(k)), indexB.getNode(right.get(k)));
+                    if (p.getValue() <= LIMIT) {
+                        match[left.get(k)] = right.get(k);
+                        matchedB[right.get(k)] = true;
+                    }
+                }
+                continue;
+            }
 
-                Set<NodePair> toRemove = new HashSet<>();
-                for (NodePair p : pairs) {
-                    if (p.getLeft() == minPair.getLeft() || p.getRight() == minPair.getRight()) {
-                        toRemove.add(p);
+            // Repeatedly take the remaining pair whose properties differ least
+            List<double[]> pairs = new ArrayList<>(left.size() * right.size());
+            for (int i : left) {
+                for (int j : right) {
+                    double value = new NodePair(indexA.getNode(i), indexB.getNode(j)).getValue();
+                    if (value <= LIMIT) {
+                        pairs.add(new double[]{value, i, j});
                     }
                 }
-                pairs.removeAll(toRemove);
+            }
+            Collections.sort(pairs, new Comparator<double[]>() {
+
+                @Override
+                public int compare(double[] p1, double[] p2) {
+                    return Double.compare(p1[0], p2[0]);
+                }
+            });
+            for (double[] p : pairs) {
+                int i = (int) p[1];
+                int j = (int) p[2];
+                if (match[i] < 0 && !matchedB[j]) {
+                    match[i] = j;
+                    matchedB[j] = true;
+                }
             }
         }
 
-        return createDiff(a, b, selectedPairs);
+        return createDiff(a, b, match);
     }
 
     private static void markAsNew(InputEdge e) {
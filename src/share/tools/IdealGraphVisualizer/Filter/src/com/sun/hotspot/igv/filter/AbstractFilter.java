@@ -36,6 +36,7 @@ public abstract class AbstractFilter implements Filter {
 
     private ChangedEvent<Filter> changedEvent;
     private Properties properties;
+    private volatile long lastApplyTime = -1;
 
     public AbstractFilter() {
         changedEvent = new ChangedEvent<Filter>(this);
@@ -52,6 +53,15 @@ public abstract class AbstractFilter implements Filter {
         return null;
     }
 
+    @Override
+    public long getLastApplyTime() {
+        return lastApplyTime;
+    }
+
+    void setLastApplyTime(long nanos) {
+        lastApplyTime = nanos;
+    }
+
     @Override
     public ChangedEvent<Filter> getChangedEvent() {
         return changedEvent;
@@ -29,6 +29,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.script.*;
@@ -44,9 +45,28 @@ import org.openide.util.Exceptions;
 public class CustomFilter extends AbstractFilter {
 
     public static final String JAVASCRIPT_HELPER_ID = "JavaScriptHelper";
+    private static final String JAVASCRIPT_HELPER_RESOURCE = "helper.js";
+
+    // Shared by all filters and guarded by the class lock. The helper is
+    // re-read whenever its file in the configuration changes.
+    private static ScriptEngine engine;
+    private static CompiledScript compiledHelper;
+    private static String helperText;
+    private static long helperTimestamp;
+    private static boolean defaultHelper;
+    private static int helperGeneration;
+
     private String code;
     private String name;
 
+    // Compiled form of code, guarded by this. Either nativeFilters is set,
+    // or the script runs in its own global scope that already has the
+    // helper functions defined.
+    private int compiledGeneration = -1;
+    private List<Filter> nativeFilters;
+    private CompiledScript script;
+    private Bindings bindings;
+
     public CustomFilter(String name, String code) {
         this.name = name;
         this.code = code;
@@ -68,7 +88,10 @@ public class CustomFilter extends AbstractFilter {
     }
 
     public void setCode(String s) {
-        code = s;
+        synchronized (this) {
+            code = s;
+            compiledGeneration = -1;
+        }
         fireChangedEvent();
     }
 
@@ -96,17 +119,28 @@ public class CustomFilter extends AbstractFilter {
         return getName();
     }
 
-    private static String getJsHelperText() {
-        InputStream is = null;
-        StringBuilder sb = new StringBuilder("if (typeof importPackage === 'undefined') { try { load('nashorn:mozilla_compat.js'); } catch (e) {} }"
+    private static String getJsHelperText(String helper) {
+        return "if (typeof importPackage === 'undefined') { try { load('nashorn:mozilla_compat.js'); } catch (e) {} }"
                 + "importPackage(Packages.com.sun.hotspot.igv.filter);"
                 + "importPackage(Packages.com.sun.hotspot.igv.graph);"
                 + "importPackage(Packages.com.sun.hotspot.igv.data);"
                 + "importPackage(Packages.com.sun.hotspot.igv.util);"
-                + "importPackage(java.awt);");
+                + "importPackage(java.awt);"
+                + helper;
+    }
+
+    private static String readHelper(FileObject fo) {
+        try {
+            return readHelper(fo.getInputStream());
+        } catch (IOException ex) {
+            Logger.getLogger("global").log(Level.SEVERE, null, ex);
+            return "";
+        }
+    }
+
+    private static String readHelper(InputStream is) {
+        StringBuilder sb = new StringBuilder();
         try {
-            FileObject fo = FileUtil.getConfigRoot().getFileObject(JAVASCRIPT_HELPER_ID);
-            is = fo.getInputStream();
             BufferedReader r = new BufferedReader(new InputStreamReader(is));
             String s;
             while ((s = r.readLine()) != null) {
@@ -126,18 +160,93 @@ public class CustomFilter extends AbstractFilter {
         return sb.toString();
     }
 
+    /**
+     * Re-reads the helper if it changed since it was last read and returns
+     * a number that changes whenever that happens.
+     */
+    private static synchronized int refreshHelper() {
+        FileObject fo = FileUtil.getConfigRoot().getFileObject(JAVASCRIPT_HELPER_ID);
+        long timestamp = fo.lastModified().getTime();
+        if (helperText == null || timestamp != helperTimestamp) {
+            String helper = readHelper(fo);
+            helperText = getJsHelperText(helper);
+            helperTimestamp = timestamp;
+            compiledHelper = null;
+            InputStream is = CustomFilter.class.getResourceAsStream(JAVASCRIPT_HELPER_RESOURCE);
+            defaultHelper = is != null && readHelper(is).equals(helper);
+            helperGeneration++;
+        }
+        return helperGeneration;
+    }
+
+    private static synchronized boolean isDefaultHelper() {
+        return defaultHelper;
+    }
+
+    /**
+     * Creates a new global scope with the helper functions defined in it.
+     */
+    private static Bindings createHelperBindings() throws ScriptException {
+        assert Thread.holdsLock(CustomFilter.class);
+        if (engine == null) {
+            engine = new ScriptEngineManager().getEngineByName("ECMAScript");
+            if (engine == null) {
+                throw new ScriptException("No JavaScript engine available");
+            }
+        }
+        if (compiledHelper == null && engine instanceof Compilable) {
+            compiledHelper = ((Compilable) engine).compile(helperText);
+        }
+        Bindings b = engine.createBindings();
+        if (compiledHelper != null) {
+            compiledHelper.eval(b);
+        } else {
+            engine.eval(helperText, b);
+        }
+        return b;
+    }
+
     @Override
-    public void apply(Diagram d) {
-        try {
-            ScriptEngineManager sem = new ScriptEngineManager();
-            ScriptEngine e = sem.getEngineByName("ECMAScript");
-            e.eval(getJsHelperText());
-            Bindings b = e.getContext().getBindings(ScriptContext.ENGINE_SCOPE);
-            b.put("graph", d);
-            b.put("IO", System.out);
-            e.eval(code, b);
-        } catch (ScriptException ex) {
-            Exceptions.printStackTrace(ex);
+    public synchronized void apply(Diagram d) {
+        int generation = refreshHelper();
+        if (generation != compiledGeneration) {
+            nativeFilters = isDefaultHelper() ? HelperCallCompiler.compile(code) : null;
+            script = null;
+            bindings = null;
+            compiledGeneration = generation;
+        }
+
+        if (nativeFilters != null) {
+            for (Filter f : nativeFilters) {
+                f.apply(d);
+            }
+            return;
+        }
+
+        synchronized (CustomFilter.class) {
+            try {
+                if (bindings == null) {
+                    bindings = createHelperBindings();
+                    if (engine instanceof Compilable) {
+                        script = ((Compilable) engine).compile(code);
+                    }
+                }
+                bindings.put("graph", d);
+                bindings.put("IO", System.out);
+                if (script != null) {
+                    script.eval(bindings);
+                } else {
+                    engine.eval(code, bindings);
+                }
+            } catch (ScriptException ex) {
+                bindings = null;
+                script = null;
+                Exceptions.printStackTrace(ex);
+            } finally {
+                if (bindings != null) {
+                    bindings.remove("graph");
+                }
+            }
         }
     }
 }
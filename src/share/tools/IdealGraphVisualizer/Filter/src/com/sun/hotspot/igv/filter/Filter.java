@@ -39,6 +39,12 @@ public interface Filter extends Properties.Provider, ChangedEventProvider<Filter
 
     public void apply(Diagram d);
 
+    /**
+     * Returns the time in nanoseconds the last application of this filter
+     * as part of a {@link FilterChain} took, or -1 if there was none yet.
+     */
+    public long getLastApplyTime();
+
     OpenCookie getEditor();
 
     @Override
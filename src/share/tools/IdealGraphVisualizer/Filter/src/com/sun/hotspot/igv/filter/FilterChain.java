@@ -30,6 +30,8 @@ import com.sun.hotspot.igv.graph.Diagram;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -37,6 +39,8 @@ import java.util.List;
  */
 public class FilterChain implements ChangedEventProvider<FilterChain> {
 
+    private static final Logger LOGGER = Logger.getLogger(FilterChain.class.getName());
+
     private List<Filter> filters;
     private transient ChangedEvent<FilterChain> changedEvent;
 
@@ -69,7 +73,7 @@ public class FilterChain implements ChangedEventProvider<FilterChain> {
 
     public void apply(Diagram d) {
         for (Filter f : filters) {
-            f.apply(d);
+            apply(f, d);
         }
     }
 
@@ -77,7 +81,7 @@ public class FilterChain implements ChangedEventProvider<FilterChain> {
         List<Filter> applied = new ArrayList<>();
         for (Filter f : sequence.getFilters()) {
             if (filters.contains(f)) {
-                f.apply(d);
+                apply(f, d);
                 applied.add(f);
             }
         }
@@ -85,11 +89,23 @@ public class FilterChain implements ChangedEventProvider<FilterChain> {
 
         for (Filter f : filters) {
             if (!applied.contains(f)) {
-                f.apply(d);
+                apply(f, d);
             }
         }
     }
 
+    private static void apply(Filter f, Diagram d) {
+        long start = System.nanoTime();
+        f.apply(d);
+        long time = System.nanoTime() - start;
+        if (f instanceof AbstractFilter) {
+            ((AbstractFilter) f).setLastApplyTime(time);
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Filter {0} took {1} ms", new Object[]{f.getName(), time / 1000000.0});
+        }
+    }
+
 
     public void addFilter(Filter filter) {
         assert filter != null;
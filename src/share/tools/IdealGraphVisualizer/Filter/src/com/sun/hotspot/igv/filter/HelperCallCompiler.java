@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.hotspot.igv.filter;
+
+import com.sun.hotspot.igv.data.Properties;
+import com.sun.hotspot.igv.graph.Diagram;
+import com.sun.hotspot.igv.graph.Figure;
+import com.sun.hotspot.igv.graph.MatcherSelector;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates filter scripts that only consist of calls to the functions
+ * defined in helper.js into the equivalent native filters. This covers most
+ * of the filters shipped with the visualizer and lets them run without going
+ * through the script engine. Anything else, such as variable declarations or
+ * arbitrary expressions, makes {@link #compile} return null and the script is
+ * evaluated as before.
+ */
+final class HelperCallCompiler {
+
+    private static final Map<String, Color> COLORS = new HashMap<>();
+
+    static {
+        COLORS.put("black", Color.black);
+        COLORS.put("blue", Color.blue);
+        COLORS.put("cyan", Color.cyan);
+        COLORS.put("darkGray", Color.darkGray);
+        COLORS.put("gray", Color.gray);
+        COLORS.put("green", Color.green);
+        COLORS.put("lightGray", Color.lightGray);
+        COLORS.put("magenta", Color.magenta);
+        COLORS.put("orange", Color.orange);
+        COLORS.put("pink", Color.pink);
+        COLORS.put("red", Color.red);
+        COLORS.put("yellow", Color.yellow);
+        COLORS.put("white", Color.white);
+    }
+
+    private final String code;
+    private int pos;
+    private boolean sawNewLine;
+
+    private HelperCallCompiler(String code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the native filters equivalent to the given script, or null if
+     * the script does anything beyond calling the helper functions with
+     * literal arguments.
+     */
+    static List<Filter> compile(String code) {
+        try {
+            return new HelperCallCompiler(code).compile();
+        } catch (IllegalArgumentException e) {
+            // Bad regular expression; let the script engine report it.
+            return null;
+        }
+    }
+
+    private List<Filter> compile() {
+        List<Filter> result = new ArrayList<>();
+        ColorizeFilter colorize = null;
+        skipSpace();
+        while (pos < code.length()) {
+            String function = parseIdentifier();
+            skipSpace();
+            if (function == null || !consume('(')) {
+                return null;
+            }
+            List<Object> args = new ArrayList<>();
+            skipSpace();
+            if (!consume(')')) {
+                do {
+                    skipSpace();
+                    Object arg = parseArgument();
+                    if (arg == null) {
+                        return null;
+                    }
+                    args.add(arg);
+                    skipSpace();
+                } while (consume(','));
+                if (!consume(')')) {
+                    return null;
+                }
+            }
+            skipSpace();
+            if (!consume(';') && !sawNewLine && pos < code.length()) {
+                return null;
+            }
+            skipSpace();
+
+            if (function.equals("colorize")) {
+                if (!matches(args, String.class, String.class, Color.class)) {
+                    return null;
+                }
+                if (colorize == null) {
+                    colorize = new ColorizeFilter();
+                    result.add(colorize);
+                }
+                colorize.addRule(new Properties.RegexpPropertyMatcher((String) args.get(0), (String) args.get(1)), (Color) args.get(2));
+                continue;
+            }
+            colorize = null;
+
+            Filter f = createFilter(function, args);
+            if (f == null) {
+                return null;
+            }
+            result.add(f);
+        }
+        return result;
+    }
+
+    private static Filter createFilter(String function, List<Object> args) {
+        switch (function) {
+            case "remove":
+            case "removeIncludingOrphans": {
+                if (!matches(args, String.class, String.class)) {
+                    return null;
+                }
+                RemoveFilter f = new RemoveFilter("");
+                f.addRule(new RemoveFilter.RemoveRule(selector(args), function.equals("removeIncludingOrphans")));
+                return f;
+            }
+            case "split": {
+                if (matches(args, String.class, String.class, String.class)) {
+                    return new SplitFilter("", selector(args), (String) args.get(2));
+                }
+                if (!matches(args, String.class, String.class)) {
+                    return null;
+                }
+                final MatcherSelector selector = selector(args);
+                return new AbstractFilter() {
+
+                    @Override
+                    public String getName() {
+                        return "";
+                    }
+
+                    @Override
+                    public void apply(Diagram d) {
+                        new SplitFilter("", selector, d.getNodeText()).apply(d);
+                    }
+                };
+            }
+            case "removeInputs": {
+                RemoveInputsFilter f = new RemoveInputsFilter("");
+                if (matches(args, String.class, String.class)) {
+                    f.addRule(new RemoveInputsFilter.RemoveInputsRule(selector(args)));
+                } else if (matches(args, String.class, String.class, Double.class) && isInt(args.get(2))) {
+                    f.addRule(new RemoveInputsFilter.RemoveInputsRule(selector(args), toInt(args.get(2))));
+                } else if (matches(args, String.class, String.class, Double.class, Double.class) && isInt(args.get(2)) && isInt(args.get(3))) {
+                    f.addRule(new RemoveInputsFilter.RemoveInputsRule(selector(args), toInt(args.get(2)), toInt(args.get(3))));
+                } else {
+                    return null;
+                }
+                return f;
+            }
+            case "removeUnconnectedSlots":
+                if (!matches(args, Boolean.class, Boolean.class)) {
+                    return null;
+                }
+                return new UnconnectedSlotFilter((Boolean) args.get(0), (Boolean) args.get(1));
+            case "colorizeGradient":
+            case "colorizeGradientWithMode": {
+                boolean withMode = function.equals("colorizeGradientWithMode");
+                if (withMode ? !matches(args, String.class, Double.class, Double.class, String.class) : !matches(args, String.class, Double.class, Double.class)) {
+                    return null;
+                }
+                GradientColorFilter f = new GradientColorFilter();
+                f.setPropertyName((String) args.get(0));
+                f.setMinValue(((Double) args.get(1)).floatValue());
+                f.setMaxValue(((Double) args.get(2)).floatValue());
+                if (withMode) {
+                    f.setMode((String) args.get(3));
+                }
+                return f;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static MatcherSelector selector(List<Object> args) {
+        return new MatcherSelector(new Properties.RegexpPropertyMatcher((String) args.get(0), (String) args.get(1)));
+    }
+
+    private static boolean matches(List<Object> args, Class<?>... types) {
+        if (args.size() != types.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (!types[i].isInstance(args.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInt(Object number) {
+        double d = (Double) number;
+        return d == (int) d;
+    }
+
+    private static int toInt(Object number) {
+        return (int) (double) (Double) number;
+    }
+
+    private boolean consume(char c) {
+        if (pos < code.length() && code.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpace() {
+        sawNewLine = false;
+        while (pos < code.length()) {
+            char c = code.charAt(pos);
+            if (c == '\n' || c == '\r') {
+                sawNewLine = true;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (code.startsWith("//", pos)) {
+                while (pos < code.length() && code.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (code.startsWith("/*", pos)) {
+                int end = code.indexOf("*/", pos + 2);
+                if (end < 0) {
+                    // Unterminated comment; leave it to the script engine.
+                    return;
+                }
+                if (code.substring(pos, end).indexOf('\n') >= 0) {
+                    sawNewLine = true;
+                }
+                pos = end + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = pos;
+        while (pos < code.length() && Character.isJavaIdentifierPart(code.charAt(pos))) {
+            pos++;
+        }
+        if (pos == start || !Character.isJavaIdentifierStart(code.charAt(start))) {
+            return null;
+        }
+        return code.substring(start, pos);
+    }
+
+    private Object parseArgument() {
+        if (pos >= code.length()) {
+            return null;
+        }
+        char c = code.charAt(pos);
+        if (c == '"' || c == '\'') {
+            return parseString(c);
+        }
+        if (c == '-' || Character.isDigit(c)) {
+            return parseNumber();
+        }
+        String identifier = parseIdentifier();
+        if (identifier == null) {
+            return null;
+        }
+        switch (identifier) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            default:
+                return COLORS.get(identifier);
+        }
+    }
+
+    private String parseString(char quote) {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < code.length()) {
+            char c = code.charAt(pos++);
+            if (c == quote) {
+                return sb.toString();
+            }
+            if (c == '\n') {
+                return null;
+            }
+            if (c == '\\') {
+                if (pos >= code.length()) {
+                    return null;
+                }
+                c = code.charAt(pos++);
+                switch (c) {
+                    case '\\':
+                    case '\'':
+                    case '"':
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            sb.append(c);
+        }
+        return null;
+    }
+
+    private Double parseNumber() {
+        int start = pos;
+        if (code.charAt(pos) == '-') {
+            pos++;
+        }
+        while (pos < code.length() && (Character.isDigit(code.charAt(pos)) || code.charAt(pos) == '.')) {
+            pos++;
+        }
+        try {
+            return Double.valueOf(code.substring(start, pos));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A run of consecutive colorize() calls. Instead of selecting the
+     * matching figures once per call, every figure is visited once and gets
+     * the color of the last rule that matches it, which is what applying the
+     * calls one after the other amounts to. Regular expression results are
+     * remembered per property value, as most values repeat across figures.
+     */
+    private static final class ColorizeFilter extends AbstractFilter {
+
+        private final List<Properties.RegexpPropertyMatcher> matchers = new ArrayList<>();
+        private final List<Color> colors = new ArrayList<>();
+
+        void addRule(Properties.RegexpPropertyMatcher matcher, Color color) {
+            matchers.add(matcher);
+            colors.add(color);
+        }
+
+        @Override
+        public String getName() {
+            return "";
+        }
+
+        @Override
+        public void apply(Diagram d) {
+            int count = matchers.size();
+            String[] names = new String[count];
+            List<Map<String, Boolean>> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names[i] = matchers.get(i).getName();
+                results.add(new HashMap<String, Boolean>());
+            }
+            for (Figure f : d.getFigures()) {
+                Properties p = f.getProperties();
+                for (int i = count - 1; i >= 0; i--) {
+                    String value = p.get(names[i]);
+                    if (value == null) {
+                        continue;
+                    }
+                    Map<String, Boolean> cache = results.get(i);
+                    Boolean match = cache.get(value);
+                    if (match == null) {
+                        match = matchers.get(i).match(value);
+                        cache.put(value, match);
+                    }
+                    if (match) {
+                        f.setColor(colors.get(i));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
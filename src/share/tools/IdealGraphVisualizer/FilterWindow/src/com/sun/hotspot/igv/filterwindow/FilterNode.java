@@ -88,6 +88,15 @@ public class FilterNode extends CheckNode implements LookupListener, ChangedList
         return filter;
     }
 
+    @Override
+    public String getShortDescription() {
+        long time = filter.getLastApplyTime();
+        if (time < 0) {
+            return super.getShortDescription();
+        }
+        return String.format("%s (last applied in %.1f ms)", super.getShortDescription(), time / 1000000.0);
+    }
+
     @Override
     protected Sheet createSheet() {
         Sheet s = super.createSheet();
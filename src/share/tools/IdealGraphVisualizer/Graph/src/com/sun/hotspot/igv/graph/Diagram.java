@@ -23,6 +23,7 @@
  */
 package com.sun.hotspot.igv.graph;
 
+import com.sun.hotspot.igv.data.GraphIndex;
 import com.sun.hotspot.igv.data.InputBlock;
 import com.sun.hotspot.igv.data.InputEdge;
 import com.sun.hotspot.igv.data.InputGraph;
@@ -141,44 +142,43 @@ public class Diagram {
 
         d.updateBlocks();
 
-        Collection<InputNode> nodes = graph.getNodes();
-        Hashtable<Integer, Figure> figureHash = new Hashtable<>();
-        for (InputNode n : nodes) {
+        GraphIndex index = graph.getIndex();
+        Figure[] figureByIndex = new Figure[index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            InputNode n = index.getNode(i);
             Figure f = d.createFigure();
             f.getSource().addSourceNode(n);
             f.getProperties().add(n.getProperties());
             f.setSubgraphs(n.getSubgraphs());
-            figureHash.put(n.getId(), f);
+            figureByIndex[i] = f;
         }
 
-        for (InputEdge e : graph.getEdges()) {
-
-            int from = e.getFrom();
-            int to = e.getTo();
-            Figure fromFigure = figureHash.get(from);
-            Figure toFigure = figureHash.get(to);
-
-            if(fromFigure == null || toFigure == null) continue;
-            assert fromFigure != null && toFigure != null;
-
-            int fromIndex = e.getFromIndex();
-            while (fromFigure.getOutputSlots().size() <= fromIndex) {
-                fromFigure.createOutputSlot();
-            }
-            OutputSlot outputSlot = fromFigure.getOutputSlots().get(fromIndex);
-
-            int toIndex = e.getToIndex();
-            while (toFigure.getInputSlots().size() <= toIndex) {
-                toFigure.createInputSlot();
-            }
-            InputSlot inputSlot = toFigure.getInputSlots().get(toIndex);
-
-            Connection c = d.createConnection(inputSlot, outputSlot, e.getLabel(), e.getType());
-
-            if (e.getState() == InputEdge.State.NEW) {
-                c.setStyle(Connection.ConnectionStyle.BOLD);
-            } else if (e.getState() == InputEdge.State.DELETED) {
-                c.setStyle(Connection.ConnectionStyle.DASHED);
+        // Edges to or from nodes missing from the graph are not indexed
+        for (int i = 0; i < index.size(); i++) {
+            for (int slot = index.outStart(i); slot < index.outEnd(i); slot++) {
+                InputEdge e = index.outEdge(slot);
+                Figure fromFigure = figureByIndex[i];
+                Figure toFigure = figureByIndex[index.outTarget(slot)];
+
+                int fromIndex = e.getFromIndex();
+                while (fromFigure.getOutputSlots().size() <= fromIndex) {
+                    fromFigure.createOutputSlot();
+                }
+                OutputSlot outputSlot = fromFigure.getOutputSlots().get(fromIndex);
+
+                int toIndex = e.getToIndex();
+                while (toFigure.getInputSlots().size() <= toIndex) {
+                    toFigure.createInputSlot();
+                }
+                InputSlot inputSlot = toFigure.getInputSlots().get(toIndex);
+
+                Connection c = d.createConnection(inputSlot, outputSlot, e.getLabel(), e.getType());
+
+                if (e.getState() == InputEdge.State.NEW) {
+                    c.setStyle(Connection.ConnectionStyle.BOLD);
+                } else if (e.getState() == InputEdge.State.DELETED) {
+                    c.setStyle(Connection.ConnectionStyle.DASHED);
+                }
             }
         }
 
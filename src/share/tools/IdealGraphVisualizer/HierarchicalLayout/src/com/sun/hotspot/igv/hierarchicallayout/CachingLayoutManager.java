@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.hotspot.igv.hierarchicallayout;
+
+import com.sun.hotspot.igv.layout.Cluster;
+import com.sun.hotspot.igv.layout.LayoutGraph;
+import com.sun.hotspot.igv.layout.LayoutManager;
+import com.sun.hotspot.igv.layout.Link;
+import com.sun.hotspot.igv.layout.Port;
+import com.sun.hotspot.igv.layout.Vertex;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+/**
+ * Remembers the results of another layout manager. A graph is looked up by
+ * everything the layout depends on: the order and sizes of its vertices,
+ * their clusters, and the ports of its links. Laying out a graph that has
+ * the same structure as one laid out before, such as the same compilation
+ * phase seen through the same filters, only copies the stored coordinates.
+ * A seed given with {@link #setSeed} is part of the key as well.
+ */
+public class CachingLayoutManager implements LayoutManager {
+
+    private final LayoutManager manager;
+    private final Map<Integer, SoftReference<Entry>> entries;
+    private Map<? extends Vertex, Point> seed;
+    private int hits;
+    private int misses;
+
+    private static class Entry {
+
+        int[] key;
+        Point[] positions;
+        List<Point>[] controlPoints;
+        Rectangle[] bounds;
+    }
+
+    public CachingLayoutManager(LayoutManager manager, final int capacity) {
+        this.manager = manager;
+        this.entries = new LinkedHashMap<Integer, SoftReference<Entry>>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SoftReference<Entry>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public LayoutManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Passes the seed on to the wrapped layout manager, if it takes one.
+     * Only the order of the x coordinates of the seed changes the layout,
+     * so graphs whose seeds have the same order share an entry.
+     */
+    public void setSeed(Map<? extends Vertex, Point> seed) {
+        this.seed = seed;
+        if (manager instanceof HierarchicalLayoutManager) {
+            ((HierarchicalLayoutManager) manager).setSeed(seed);
+        } else if (manager instanceof HierarchicalClusterLayoutManager) {
+            ((HierarchicalClusterLayoutManager) manager).setSeed(seed);
+        }
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    @Override
+    public void doLayout(LayoutGraph graph) {
+        doLayout(graph, new HashSet<Link>());
+    }
+
+    @Override
+    public void doLayout(LayoutGraph graph, Set<? extends Link> importantLinks) {
+        if (!importantLinks.isEmpty()) {
+            // Not part of the key
+            manager.doLayout(graph, importantLinks);
+            return;
+        }
+
+        List<Vertex> vertices = new ArrayList<>(graph.getVertices());
+        List<Cluster> clusters = new ArrayList<>(graph.getClusters());
+        final Map<Vertex, Integer> vertexIndex = new HashMap<>(vertices.size());
+        for (Vertex v : vertices) {
+            vertexIndex.put(v, vertexIndex.size());
+        }
+        List<Link> links = new ArrayList<>(graph.getLinks());
+        Collections.sort(links, new Comparator<Link>() {
+
+            @Override
+            public int compare(Link l1, Link l2) {
+                int result = Integer.compare(vertexIndex.get(l1.getFrom().getVertex()), vertexIndex.get(l2.getFrom().getVertex()));
+                if (result == 0) {
+                    result = Integer.compare(vertexIndex.get(l1.getTo().getVertex()), vertexIndex.get(l2.getTo().getVertex()));
+                }
+                if (result == 0) {
+                    result = comparePorts(l1.getFrom(), l2.getFrom());
+                }
+                if (result == 0) {
+                    result = comparePorts(l1.getTo(), l2.getTo());
+                }
+                return result;
+            }
+        });
+        int[] key = createKey(vertices, vertexIndex, clusters, links, seed);
+        int hash = Arrays.hashCode(key);
+
+        Entry entry = null;
+        synchronized (this) {
+            SoftReference<Entry> ref = entries.get(hash);
+            if (ref != null) {
+                entry = ref.get();
+                if (entry != null && !Arrays.equals(entry.key, key)) {
+                    entry = null;
+                }
+            }
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+
+        if (entry != null) {
+            for (int i = 0; i < vertices.size(); i++) {
+                vertices.get(i).setPosition(new Point(entry.positions[i]));
+            }
+            for (int i = 0; i < links.size(); i++) {
+                links.get(i).setControlPoints(copy(entry.controlPoints[i]));
+            }
+            for (int i = 0; i < clusters.size(); i++) {
+                clusters.get(i).setBounds(copy(entry.bounds[i]));
+            }
+            return;
+        }
+
+        manager.doLayout(graph, importantLinks);
+
+        entry = new Entry();
+        entry.key = key;
+        entry.positions = new Point[vertices.size()];
+        for (int i = 0; i < vertices.size(); i++) {
+            entry.positions[i] = new Point(vertices.get(i).getPosition());
+        }
+        @SuppressWarnings("unchecked")
+        List<Point>[] controlPoints = new List[links.size()];
+        entry.controlPoints = controlPoints;
+        for (int i = 0; i < links.size(); i++) {
+            entry.controlPoints[i] = copy(links.get(i).getControlPoints());
+        }
+        entry.bounds = new Rectangle[clusters.size()];
+        for (int i = 0; i < clusters.size(); i++) {
+            entry.bounds[i] = copy(clusters.get(i).getBounds());
+        }
+        synchronized (this) {
+            entries.put(hash, new SoftReference<>(entry));
+        }
+    }
+
+    @Override
+    public void doRouting(LayoutGraph graph) {
+        manager.doRouting(graph);
+    }
+
+    private static int comparePorts(Port p1, Port p2) {
+        Point r1 = p1.getRelativePosition();
+        Point r2 = p2.getRelativePosition();
+        if (r1.x != r2.x) {
+            return Integer.compare(r1.x, r2.x);
+        }
+        return Integer.compare(r1.y, r2.y);
+    }
+
+    private static int[] createKey(List<Vertex> vertices, Map<Vertex, Integer> vertexIndex, List<Cluster> clusters, List<Link> links, Map<? extends Vertex, Point> seed) {
+        Map<Cluster, Integer> clusterIndex = new HashMap<>(clusters.size());
+        for (Cluster c : clusters) {
+            clusterIndex.put(c, clusterIndex.size());
+        }
+
+        IntList key = new IntList(4 * vertices.size() + 7 * links.size() + 16);
+        key.add(vertices.size());
+        for (Vertex v : vertices) {
+            Dimension size = v.getSize();
+            key.add(size.width);
+            key.add(size.height);
+            key.add(v.isRoot() ? 1 : 0);
+            Integer cluster = v.getCluster() != null ? clusterIndex.get(v.getCluster()) : null;
+            key.add(cluster != null ? cluster : -1);
+        }
+
+        key.add(clusters.size());
+        for (Cluster c : clusters) {
+            int start = key.size();
+            key.add(0);
+            for (Cluster succ : c.getSuccessors()) {
+                Integer index = clusterIndex.get(succ);
+                if (index != null) {
+                    key.add(index);
+                }
+            }
+            key.sortFrom(start + 1);
+            key.set(start, key.size() - start - 1);
+        }
+
+        key.add(links.size());
+        for (Link l : links) {
+            key.add(vertexIndex.get(l.getFrom().getVertex()));
+            key.add(l.getFrom().getRelativePosition().x);
+            key.add(l.getFrom().getRelativePosition().y);
+            key.add(vertexIndex.get(l.getTo().getVertex()));
+            key.add(l.getTo().getRelativePosition().x);
+            key.add(l.getTo().getRelativePosition().y);
+            key.add(l.isVIP() ? 1 : 0);
+        }
+
+        // The rank of the x coordinate of each seeded vertex, or -1. Nodes
+        // in front of the first seeded node of a layer are ordered as if
+        // at 0, so 0 is ranked too.
+        if (seed != null) {
+            IntList xs = new IntList(vertices.size() + 1);
+            xs.add(0);
+            for (Vertex v : vertices) {
+                Point p = seed.get(v);
+                if (p != null) {
+                    xs.add(p.x);
+                }
+            }
+            int[] sorted = xs.toArray();
+            Arrays.sort(sorted);
+            key.add(sorted.length);
+            for (Vertex v : vertices) {
+                Point p = seed.get(v);
+                key.add(p != null ? lowerBound(sorted, p.x) : -1);
+            }
+        } else {
+            key.add(-1);
+        }
+        return key.toArray();
+    }
+
+    // Index of the first element of sorted that is not less than value
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<Point> copy(List<Point> points) {
+        if (points == null) {
+            return null;
+        }
+        // Null entries separate the segments of split links
+        List<Point> result = new ArrayList<>(points.size());
+        for (Point p : points) {
+            result.add(p != null ? new Point(p) : null);
+        }
+        return result;
+    }
+
+    private static Rectangle copy(Rectangle r) {
+        return r != null ? new Rectangle(r) : null;
+    }
+
+    private static class IntList {
+
+        private int[] values;
+        private int size;
+
+        IntList(int capacity) {
+            values = new int[capacity];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2 + 1);
+            }
+            values[size++] = value;
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        void sortFrom(int start) {
+            Arrays.sort(values, start, size);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -65,6 +66,16 @@ public class HierarchicalClusterLayoutManager implements LayoutManager {
         this.subManager = manager;
     }
 
+    /**
+     * Passes the seed on to the manager that lays out the inside of each
+     * cluster.
+     */
+    public void setSeed(Map<? extends Vertex, Point> seed) {
+        if (subManager instanceof HierarchicalLayoutManager) {
+            ((HierarchicalLayoutManager) subManager).setSeed(seed);
+        }
+    }
+
     public void setManager(LayoutManager manager) {
         this.manager = manager;
     }
@@ -30,6 +30,7 @@ import com.sun.hotspot.igv.layout.Vertex;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  *
@@ -77,6 +78,7 @@ public class HierarchicalLayoutManager implements LayoutManager {
     private int layerCount;
     private Set<? extends Link> importantLinks;
     private Set<Link> linksToFollow;
+    private Map<? extends Vertex, Point> seed;
 
     private class LayoutNode {
 
@@ -117,6 +119,7 @@ public class HierarchicalLayoutManager implements LayoutManager {
     private abstract class AlgorithmPart {
 
         public void start() {
+            checkInterrupted();
             if (CHECK) {
                 preCheck();
             }
@@ -177,6 +180,26 @@ public class HierarchicalLayoutManager implements LayoutManager {
         minLayerDifference = v;
     }
 
+    /**
+     * Sets the positions the vertices had in a previous layout of a similar
+     * graph, such as the preceding compilation phase. Nodes are first
+     * ordered within their layers by these positions, which keeps the new
+     * layout close to the previous one and needs fewer crossing reduction
+     * sweeps. The seed is ignored if it covers less than half of the
+     * vertices.
+     */
+    public void setSeed(Map<? extends Vertex, Point> seed) {
+        this.seed = seed;
+    }
+
+    // A layout is abandoned when its thread is interrupted. The vertices
+    // and links are only written to by the last step.
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
     @Override
     public void doLayout(LayoutGraph graph) {
         doLayout(graph, new HashSet<Link>());
@@ -197,6 +220,7 @@ public class HierarchicalLayoutManager implements LayoutManager {
         nodes = new ArrayList<>();
         splitStartPoints = new HashMap<>();
         splitEndPoints = new HashMap<>();
+        linksToFollow = new HashSet<>();
 
         // #############################################################
         // Step 1: Build up data structure
@@ -859,14 +883,52 @@ public class HierarchicalLayoutManager implements LayoutManager {
 
             initX();
 
+            int iterations = CROSSING_ITERATIONS;
+            if (applySeed()) {
+                iterations = 1;
+            }
+
             // Optimize
-            for (int i = 0; i < CROSSING_ITERATIONS; i++) {
+            for (int i = 0; i < iterations; i++) {
                 downSweep();
                 upSweep();
+                checkInterrupted();
             }
             downSweep();
         }
 
+        // Orders each layer by the x coordinates of the seed; nodes without
+        // one, such as dummy nodes, stay behind the node they follow.
+        private boolean applySeed() {
+            if (seed == null) {
+                return false;
+            }
+            int matched = 0;
+            for (LayoutNode n : nodes) {
+                if (n.vertex != null && seed.containsKey(n.vertex)) {
+                    matched++;
+                }
+            }
+            if (matched * 2 < graph.getVertices().size()) {
+                return false;
+            }
+
+            for (List<LayoutNode> layer : layers) {
+                int last = 0;
+                for (LayoutNode n : layer) {
+                    Point p = n.vertex != null ? seed.get(n.vertex) : null;
+                    if (p != null) {
+                        last = p.x;
+                    }
+                    n.crossingNumber = last;
+                }
+                Collections.sort(layer, crossingNodeComparator);
+            }
+            updatePositions();
+            initX();
+            return true;
+        }
+
         private void initX() {
 
             for (int i = 0; i < layers.length; i++) {
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.hotspot.igv.hierarchicallayout;
+
+import com.sun.hotspot.igv.layout.Cluster;
+import com.sun.hotspot.igv.layout.LayoutGraph;
+import com.sun.hotspot.igv.layout.LayoutSnapshot;
+import com.sun.hotspot.igv.layout.Link;
+import com.sun.hotspot.igv.layout.Port;
+import com.sun.hotspot.igv.layout.Vertex;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class HierarchicalLayoutManagerTest {
+
+    private static class TestVertex implements Vertex {
+        final int id;
+        final Dimension size;
+        Point position = new Point(0, 0);
+
+        TestVertex(int id, int width) {
+            this.id = id;
+            this.size = new Dimension(width, 30);
+        }
+
+        @Override
+        public Dimension getSize() {
+            return size;
+        }
+
+        @Override
+        public Point getPosition() {
+            return position;
+        }
+
+        @Override
+        public void setPosition(Point p) {
+            position = p;
+        }
+
+        @Override
+        public boolean isRoot() {
+            return id == 0;
+        }
+
+        @Override
+        public Cluster getCluster() {
+            return null;
+        }
+
+        @Override
+        public int compareTo(Vertex o) {
+            return Integer.compare(id, ((TestVertex) o).id);
+        }
+
+        @Override
+        public String toString() {
+            return "Vertex " + id;
+        }
+    }
+
+    private static class TestPort implements Port {
+        final TestVertex vertex;
+        final Point position;
+
+        TestPort(TestVertex vertex, Point position) {
+            this.vertex = vertex;
+            this.position = position;
+        }
+
+        @Override
+        public Vertex getVertex() {
+            return vertex;
+        }
+
+        @Override
+        public Point getRelativePosition() {
+            return position;
+        }
+    }
+
+    private static class TestLink implements Link {
+        final Port from;
+        final Port to;
+        List<Point> points;
+
+        TestLink(Port from, Port to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Port getFrom() {
+            return from;
+        }
+
+        @Override
+        public Port getTo() {
+            return to;
+        }
+
+        @Override
+        public boolean isVIP() {
+            return false;
+        }
+
+        @Override
+        public List<Point> getControlPoints() {
+            return points;
+        }
+
+        @Override
+        public void setControlPoints(List<Point> list) {
+            points = list;
+        }
+    }
+
+    private static class TestGraph {
+        final List<TestVertex> vertices = new ArrayList<>();
+        final Set<TestLink> links = new HashSet<>();
+
+        LayoutGraph toLayoutGraph() {
+            return new LayoutGraph(links, new HashSet<>(vertices));
+        }
+    }
+
+    /**
+     * Builds a graph shaped like a compiler graph: every node takes one to
+     * three inputs, mostly from nodes created shortly before it, and a few
+     * inputs come from later nodes as loop back edges. Graphs built with
+     * the same seed and a different number of changes differ only in that
+     * many inputs.
+     */
+    private static TestGraph createGraph(int size, long seed, int changes) {
+        Random random = new Random(seed);
+        TestGraph graph = new TestGraph();
+        for (int i = 0; i < size; i++) {
+            graph.vertices.add(new TestVertex(i, 40 + random.nextInt(80)));
+        }
+        Random changed = new Random(seed + 1);
+        for (int i = 1; i < size; i++) {
+            TestVertex to = graph.vertices.get(i);
+            int inputs = 1 + random.nextInt(3);
+            for (int k = 0; k < inputs; k++) {
+                int from;
+                if (random.nextInt(50) == 0 && i + 1 < size) {
+                    from = i + 1 + random.nextInt(Math.min(20, size - i - 1));
+                } else {
+                    from = Math.max(0, i - 1 - random.nextInt(20));
+                }
+                if (changes > 0 && changed.nextInt(size / changes + 1) == 0) {
+                    from = Math.max(0, from - 1);
+                }
+                TestVertex fromVertex = graph.vertices.get(from);
+                Port out = new TestPort(fromVertex, new Point(fromVertex.size.width / 2, fromVertex.size.height));
+                Port in = new TestPort(to, new Point(10 * k + 5, 0));
+                graph.links.add(new TestLink(out, in));
+            }
+        }
+        return graph;
+    }
+
+    private static HierarchicalLayoutManager createManager() {
+        HierarchicalLayoutManager manager = new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
+        manager.setMaxLayerLength(10);
+        return manager;
+    }
+
+    private static Map<Integer, Point> positions(TestGraph graph) {
+        Map<Integer, Point> result = new HashMap<>();
+        for (TestVertex v : graph.vertices) {
+            result.put(v.id, v.position);
+        }
+        return result;
+    }
+
+    private static Map<Vertex, Point> seed(TestGraph graph, Map<Integer, Point> previous) {
+        Map<Vertex, Point> result = new HashMap<>();
+        for (TestVertex v : graph.vertices) {
+            if (previous.containsKey(v.id)) {
+                result.put(v, previous.get(v.id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A graph with the same structure as one laid out before gets the
+     * stored coordinates without a new layout.
+     */
+    @Test
+    public void testCache() {
+        CachingLayoutManager manager = new CachingLayoutManager(createManager(), 4);
+        TestGraph first = createGraph(300, 1, 0);
+        manager.doLayout(first.toLayoutGraph());
+        TestGraph second = createGraph(300, 1, 0);
+        manager.doLayout(second.toLayoutGraph());
+        assertEquals(1, manager.getMisses());
+        assertEquals(1, manager.getHits());
+        assertEquals(positions(first), positions(second));
+
+        manager.doLayout(createGraph(300, 1, 10).toLayoutGraph());
+        assertEquals(2, manager.getMisses());
+    }
+
+    @Test
+    public void testSeed() {
+        HierarchicalLayoutManager manager = createManager();
+        TestGraph first = createGraph(300, 2, 0);
+        manager.doLayout(first.toLayoutGraph());
+        TestGraph second = createGraph(300, 2, 5);
+        manager.setSeed(seed(second, positions(first)));
+        manager.doLayout(second.toLayoutGraph());
+        for (TestVertex v : second.vertices) {
+            assertNotNull(v.position);
+        }
+        for (TestLink l : second.links) {
+            assertNotNull(l.points);
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        TestGraph graph = createGraph(100, 3, 0);
+        Thread.currentThread().interrupt();
+        try {
+            createManager().doLayout(graph.toLayoutGraph());
+            fail();
+        } catch (CancellationException e) {
+            // expected
+        } finally {
+            Thread.interrupted();
+        }
+        for (TestLink l : graph.links) {
+            assertNull(l.points);
+        }
+    }
+
+    /**
+     * A seed is part of the cache key, but only through the order of its
+     * x coordinates.
+     */
+    @Test
+    public void testSeedKey() {
+        CachingLayoutManager manager = new CachingLayoutManager(createManager(), 4);
+        TestGraph first = createGraph(300, 4, 0);
+        manager.doLayout(first.toLayoutGraph());
+
+        TestGraph second = createGraph(300, 4, 0);
+        Map<Vertex, Point> seed = seed(second, positions(first));
+        manager.setSeed(seed);
+        manager.doLayout(second.toLayoutGraph());
+        assertEquals(2, manager.getMisses());
+
+        TestGraph third = createGraph(300, 4, 0);
+        Map<Integer, Point> scaled = new HashMap<>();
+        for (Map.Entry<Integer, Point> e : positions(first).entrySet()) {
+            scaled.put(e.getKey(), new Point(e.getValue().x * 2, e.getValue().y));
+        }
+        manager.setSeed(seed(third, scaled));
+        manager.doLayout(third.toLayoutGraph());
+        assertEquals(1, manager.getHits());
+        assertEquals(positions(second), positions(third));
+    }
+
+    /**
+     * Laying out a snapshot and applying it gives the originals the same
+     * coordinates as laying them out directly.
+     */
+    @Test
+    public void testSnapshot() {
+        TestGraph direct = createGraph(300, 5, 0);
+        createManager().doLayout(direct.toLayoutGraph());
+
+        TestGraph copied = createGraph(300, 5, 0);
+        LayoutSnapshot snapshot = new LayoutSnapshot(copied.links, new HashSet<>(copied.vertices));
+        createManager().doLayout(snapshot.getGraph());
+        for (TestLink l : copied.links) {
+            assertNull(l.points);
+        }
+        snapshot.apply();
+        assertEquals(positions(direct), positions(copied));
+    }
+}
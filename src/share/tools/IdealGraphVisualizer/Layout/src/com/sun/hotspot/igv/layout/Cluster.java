@@ -36,5 +36,7 @@ public interface Cluster extends Comparable<Cluster> {
 
     public void setBounds(Rectangle r);
 
+    public Rectangle getBounds();
+
     public Set<? extends Cluster> getSuccessors();
 }
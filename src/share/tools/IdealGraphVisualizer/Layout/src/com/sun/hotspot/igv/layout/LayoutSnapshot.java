@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+package com.sun.hotspot.igv.layout;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.*;
+
+/**
+ * A copy of the vertices, links and clusters of a graph that can be laid
+ * out on another thread. The copies are ordered like the originals, so a
+ * layout of the snapshot equals a layout of the originals. The originals
+ * are only read when the snapshot is created and only written by
+ * {@link #apply()}, both on the thread that owns them.
+ */
+public class LayoutSnapshot {
+
+    private final Map<Vertex, VertexCopy> vertices = new LinkedHashMap<>();
+    private final Map<Cluster, ClusterCopy> clusters = new LinkedHashMap<>();
+    private final Map<Port, PortCopy> ports = new HashMap<>();
+    private final Map<Link, LinkCopy> links = new LinkedHashMap<>();
+
+    public LayoutSnapshot(Set<? extends Link> links, Set<? extends Vertex> vertices) {
+        for (Vertex v : new TreeSet<>(vertices)) {
+            copy(v);
+        }
+        for (Link l : links) {
+            this.links.put(l, new LinkCopy(l, copy(l.getFrom()), copy(l.getTo())));
+        }
+        int index = 0;
+        for (Cluster c : new TreeSet<>(clusters.keySet())) {
+            clusters.get(c).init(index++);
+        }
+    }
+
+    public LayoutGraph getGraph() {
+        return new LayoutGraph(new HashSet<>(links.values()), new HashSet<>(vertices.values()));
+    }
+
+    /**
+     * Returns the copy of a vertex of the original graph, or null if the
+     * vertex is not part of the snapshot.
+     */
+    public Vertex getCopy(Vertex v) {
+        return vertices.get(v);
+    }
+
+    /**
+     * Writes the positions, control points and bounds computed for the
+     * copies back to the originals.
+     */
+    public void apply() {
+        for (VertexCopy v : vertices.values()) {
+            if (v.position != null) {
+                v.original.setPosition(new Point(v.position));
+            }
+        }
+        for (LinkCopy l : links.values()) {
+            l.original.setControlPoints(l.controlPoints);
+        }
+        for (ClusterCopy c : clusters.values()) {
+            if (c.bounds != null) {
+                c.original.setBounds(new Rectangle(c.bounds));
+            }
+        }
+    }
+
+    private VertexCopy copy(Vertex v) {
+        VertexCopy result = vertices.get(v);
+        if (result == null) {
+            result = new VertexCopy(v, vertices.size(), copy(v.getCluster()));
+            vertices.put(v, result);
+        }
+        return result;
+    }
+
+    private ClusterCopy copy(Cluster c) {
+        if (c == null) {
+            return null;
+        }
+        ClusterCopy result = clusters.get(c);
+        if (result == null) {
+            result = new ClusterCopy(c);
+            clusters.put(c, result);
+        }
+        return result;
+    }
+
+    private PortCopy copy(Port p) {
+        // Links that share a port must share its copy
+        PortCopy result = ports.get(p);
+        if (result == null) {
+            result = new PortCopy(copy(p.getVertex()), p.getRelativePosition());
+            ports.put(p, result);
+        }
+        return result;
+    }
+
+    private static Point copy(Point p) {
+        return p != null ? new Point(p) : null;
+    }
+
+    private static List<Point> copy(List<Point> points) {
+        if (points == null) {
+            return null;
+        }
+        // Null entries separate the segments of split links
+        List<Point> result = new ArrayList<>(points.size());
+        for (Point p : points) {
+            result.add(copy(p));
+        }
+        return result;
+    }
+
+    private static class VertexCopy implements Vertex {
+
+        private final Vertex original;
+        private final int index;
+        private final String name;
+        private final Dimension size;
+        private final boolean root;
+        private final ClusterCopy cluster;
+        private Point position;
+
+        VertexCopy(Vertex original, int index, ClusterCopy cluster) {
+            this.original = original;
+            this.index = index;
+            this.name = original.toString();
+            this.size = new Dimension(original.getSize());
+            this.root = original.isRoot();
+            this.cluster = cluster;
+            this.position = copy(original.getPosition());
+        }
+
+        @Override
+        public Dimension getSize() {
+            return size;
+        }
+
+        @Override
+        public Point getPosition() {
+            return position;
+        }
+
+        @Override
+        public void setPosition(Point p) {
+            position = p;
+        }
+
+        @Override
+        public boolean isRoot() {
+            return root;
+        }
+
+        @Override
+        public Cluster getCluster() {
+            return cluster;
+        }
+
+        @Override
+        public int compareTo(Vertex o) {
+            return Integer.compare(index, ((VertexCopy) o).index);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class PortCopy implements Port {
+
+        private final VertexCopy vertex;
+        private final Point relativePosition;
+
+        PortCopy(VertexCopy vertex, Point relativePosition) {
+            this.vertex = vertex;
+            this.relativePosition = new Point(relativePosition);
+        }
+
+        @Override
+        public Vertex getVertex() {
+            return vertex;
+        }
+
+        @Override
+        public Point getRelativePosition() {
+            return relativePosition;
+        }
+    }
+
+    private static class LinkCopy implements Link {
+
+        private final Link original;
+        private final PortCopy from;
+        private final PortCopy to;
+        private final boolean vip;
+        private List<Point> controlPoints;
+
+        LinkCopy(Link original, PortCopy from, PortCopy to) {
+            this.original = original;
+            this.from = from;
+            this.to = to;
+            this.vip = original.isVIP();
+            this.controlPoints = copy(original.getControlPoints());
+        }
+
+        @Override
+        public Port getFrom() {
+            return from;
+        }
+
+        @Override
+        public Port getTo() {
+            return to;
+        }
+
+        @Override
+        public boolean isVIP() {
+            return vip;
+        }
+
+        @Override
+        public List<Point> getControlPoints() {
+            return controlPoints;
+        }
+
+        @Override
+        public void setControlPoints(List<Point> list) {
+            controlPoints = list;
+        }
+    }
+
+    private class ClusterCopy implements Cluster {
+
+        private final Cluster original;
+        private final String name;
+        private int index;
+        private ClusterCopy outer;
+        private final Set<ClusterCopy> successors = new HashSet<>();
+        private Rectangle bounds;
+
+        ClusterCopy(Cluster original) {
+            this.original = original;
+            this.name = original.toString();
+            Rectangle r = original.getBounds();
+            this.bounds = r != null ? new Rectangle(r) : null;
+        }
+
+        // Successors outside the snapshot are left out, as they would be
+        // when the originals are laid out
+        void init(int index) {
+            this.index = index;
+            outer = clusters.get(original.getOuter());
+            for (Cluster c : original.getSuccessors()) {
+                ClusterCopy succ = clusters.get(c);
+                if (succ != null) {
+                    successors.add(succ);
+                }
+            }
+        }
+
+        @Override
+        public Cluster getOuter() {
+            return outer;
+        }
+
+        @Override
+        public void setBounds(Rectangle r) {
+            bounds = r;
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return bounds;
+        }
+
+        @Override
+        public Set<? extends Cluster> getSuccessors() {
+            return successors;
+        }
+
+        @Override
+        public int compareTo(Cluster o) {
+            return Integer.compare(index, ((ClusterCopy) o).index);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
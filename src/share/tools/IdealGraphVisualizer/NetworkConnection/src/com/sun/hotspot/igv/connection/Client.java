@@ -33,6 +33,10 @@ import java.nio.channels.SocketChannel;
 import org.openide.util.Exceptions;
 
 public class Client implements Runnable {
+    // Graphs read ahead of the ones added to the document, per connection;
+    // beyond that the sender is held back by the socket
+    private static final int MAX_PENDING_GRAPHS = 4 * Runtime.getRuntime().availableProcessors();
+
     private final boolean binary;
     private final SocketChannel socket;
     private final GraphDocument rootDocument;
@@ -52,7 +56,7 @@ public class Client implements Runnable {
             final SocketChannel channel = socket;
             channel.configureBlocking(true);
             if (binary) {
-                new BinaryParser(channel, null, rootDocument, callback).parse();
+                new BinaryParser(channel, null, rootDocument, callback, Server.DECODER, MAX_PENDING_GRAPHS).parse();
             } else {
                 new Parser(channel, null, callback).parse();
             }
@@ -42,6 +42,11 @@ import org.openide.util.RequestProcessor;
  * @author Thomas Wuerthinger
  */
 public class Server implements PreferenceChangeListener {
+    // Connections are served concurrently, and the graphs of binary
+    // streams are decoded on a pool shared by all connections
+    private static final RequestProcessor CONNECTIONS = new RequestProcessor("IGV connections", 16, true);
+    static final RequestProcessor DECODER = new RequestProcessor("IGV graph decoder", Runtime.getRuntime().availableProcessors());
+
     private final boolean binary;
     private ServerSocketChannel serverSocket;
     private final GraphDocument rootDocument;
@@ -90,7 +95,7 @@ public class Server implements PreferenceChangeListener {
                             clientSocket.close();
                             return;
                         }
-                        RequestProcessor.getDefault().post(new Client(clientSocket, rootDocument, callback, binary), 0, Thread.MAX_PRIORITY);
+                        CONNECTIONS.post(new Client(clientSocket, rootDocument, callback, binary), 0, Thread.MAX_PRIORITY);
                     } catch (IOException ex) {
                         serverSocket = null;
                         NotifyDescriptor message = new NotifyDescriptor.Message("Error during listening for incoming connections. Listening for incoming binary data is disabled.", NotifyDescriptor.ERROR_MESSAGE);
@@ -24,8 +24,8 @@
  */
 package com.sun.hotspot.igv.servercompiler;
 
+import com.sun.hotspot.igv.data.GraphIndex;
 import com.sun.hotspot.igv.data.InputBlock;
-import com.sun.hotspot.igv.data.InputEdge;
 import com.sun.hotspot.igv.data.InputGraph;
 import com.sun.hotspot.igv.data.InputNode;
 import com.sun.hotspot.igv.data.services.Scheduler;
@@ -53,13 +53,6 @@ public class ServerCompilerScheduler implements Scheduler {
     private Map<InputBlock, InputBlock> dominatorMap;
     private Map<InputBlock, Integer> blockIndex;
     private InputBlock[][] commonDominator;
-    private static final Comparator<InputEdge> edgeComparator = new Comparator<InputEdge>() {
-
-        @Override
-        public int compare(InputEdge o1, InputEdge o2) {
-            return o1.getToIndex() - o2.getToIndex();
-        }
-    };
 
     public void buildBlocks() {
 
@@ -578,7 +571,10 @@ public class ServerCompilerScheduler implements Scheduler {
 
     public void buildUpGraph() {
 
-        for (InputNode n : graph.getNodes()) {
+        GraphIndex index = graph.getIndex();
+        Node[] nodeByIndex = new Node[index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            InputNode n = index.getNode(i);
             Node node = new Node();
             node.inputNode = n;
             nodes.add(node);
@@ -587,35 +583,14 @@ public class ServerCompilerScheduler implements Scheduler {
             p = n.getProperties().get("is_block_start");
             node.isBlockStart = (p != null && p.equals("true"));
             inputNodeToNode.put(n, node);
+            nodeByIndex[i] = node;
         }
 
-        Map<Integer, List<InputEdge>> edgeMap = new HashMap<>(graph.getEdges().size());
-        for (InputEdge e : graph.getEdges()) {
-
-            int to = e.getTo();
-            if (!edgeMap.containsKey(to)) {
-                edgeMap.put(to, new ArrayList<InputEdge>());
-            }
-
-
-            List<InputEdge> list = edgeMap.get(to);
-            list.add(e);
-        }
-
-
-        for (Integer i : edgeMap.keySet()) {
-
-            List<InputEdge> list = edgeMap.get(i);
-            Collections.sort(list, edgeComparator);
-
-            int to = i;
-            InputNode toInputNode = graph.getNode(to);
-            Node toNode = inputNodeToNode.get(toInputNode);
-            for (InputEdge e : list) {
-                assert to == e.getTo();
-                int from = e.getFrom();
-                InputNode fromInputNode = graph.getNode(from);
-                Node fromNode = inputNodeToNode.get(fromInputNode);
+        // Ingoing edges are indexed in input slot order
+        for (int i = 0; i < index.size(); i++) {
+            Node toNode = nodeByIndex[i];
+            for (int slot = index.inStart(i); slot < index.inEnd(i); slot++) {
+                Node fromNode = nodeByIndex[index.inSource(slot)];
                 fromNode.succs.add(toNode);
                 toNode.preds.add(fromNode);
             }
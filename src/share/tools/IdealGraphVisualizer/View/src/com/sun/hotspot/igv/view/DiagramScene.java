@@ -31,9 +31,11 @@ import com.sun.hotspot.igv.data.Pair;
 import com.sun.hotspot.igv.data.Properties;
 import com.sun.hotspot.igv.data.services.Scheduler;
 import com.sun.hotspot.igv.graph.*;
+import com.sun.hotspot.igv.hierarchicallayout.CachingLayoutManager;
 import com.sun.hotspot.igv.hierarchicallayout.HierarchicalClusterLayoutManager;
 import com.sun.hotspot.igv.hierarchicallayout.HierarchicalLayoutManager;
-import com.sun.hotspot.igv.layout.LayoutGraph;
+import com.sun.hotspot.igv.layout.LayoutSnapshot;
+import com.sun.hotspot.igv.layout.Vertex;
 import com.sun.hotspot.igv.selectioncoordinator.SelectionCoordinator;
 import com.sun.hotspot.igv.util.ColorIcon;
 import com.sun.hotspot.igv.util.DoubleClickAction;
@@ -44,6 +46,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import javax.swing.*;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.undo.AbstractUndoableEdit;
@@ -60,6 +63,7 @@ import org.openide.nodes.AbstractNode;
 import org.openide.nodes.Children;
 import org.openide.nodes.Sheet;
 import org.openide.util.Lookup;
+import org.openide.util.RequestProcessor;
 import org.openide.util.lookup.AbstractLookup;
 import org.openide.util.lookup.InstanceContent;
 
@@ -88,6 +92,18 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
     private WidgetAction zoomAction;
     private boolean rebuilding;
 
+    // Layouts run one at a time off the event thread; a layout that is
+    // superseded before it finishes is interrupted and its result dropped.
+    private static final RequestProcessor LAYOUT = new RequestProcessor("IGV layout", 1, true);
+    private final CachingLayoutManager flatLayout;
+    private final CachingLayoutManager blockLayout;
+    private RequestProcessor.Task layoutTask;
+    private int layoutGeneration;
+    private Diagram laidOutDiagram;
+    // Positions of the last completed layout by the id of the first source
+    // node of each figure, used to seed the layout of the next graph
+    private Map<Integer, Point> lastPositions = new HashMap<>();
+
     /**
      * The alpha level of partially visible figures.
      */
@@ -107,6 +123,7 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
     public static final float ZOOM_INCREMENT = 1.5f;
     public static final int SLOT_OFFSET = 8;
     public static final int ANIMATION_LIMIT = 40;
+    public static final int LAYOUT_CACHE_SIZE = 32;
 
     private PopupMenuProvider popupMenuProvider = new PopupMenuProvider() {
 
@@ -262,7 +279,7 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
 
         @Override
         public void mouseWheelMoved(MouseWheelEvent e) {
-            if (e.isControlDown()) {
+            if (e.isControlDown() && layoutTask == null) {
                 DiagramScene.this.relayoutWithoutLayout(null);
             }
         }
@@ -385,6 +402,18 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
         this.actions = actions;
         this.actionsWithSelection = actionsWithSelection;
 
+        HierarchicalLayoutManager flatManager = new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
+        flatManager.setMaxLayerLength(10);
+        flatLayout = new CachingLayoutManager(flatManager, LAYOUT_CACHE_SIZE);
+
+        HierarchicalClusterLayoutManager clusterManager = new HierarchicalClusterLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
+        HierarchicalLayoutManager blockManager = new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
+        blockManager.setMaxLayerLength(9);
+        blockManager.setMinLayerDifference(3);
+        clusterManager.setManager(blockManager);
+        clusterManager.setSubManager(new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS));
+        blockLayout = new CachingLayoutManager(clusterManager, LAYOUT_CACHE_SIZE);
+
         content = new InstanceContent();
         lookup = new AbstractLookup(content);
 
@@ -585,10 +614,10 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
         return false;
     }
 
-    private void relayout(Set<Widget> oldVisibleWidgets) {
-        Diagram diagram = getModel().getDiagramToView();
+    private void relayout(final Set<Widget> oldVisibleWidgets) {
+        final Diagram diagram = getModel().getDiagramToView();
 
-        HashSet<Figure> figures = new HashSet<>();
+        final HashSet<Figure> figures = new HashSet<>();
 
         for (Figure f : diagram.getFigures()) {
             FigureWidget w = getWidget(f);
@@ -597,7 +626,7 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
             }
         }
 
-        HashSet<Connection> edges = new HashSet<>();
+        final HashSet<Connection> edges = new HashSet<>();
 
         for (Connection c : diagram.getConnections()) {
             if (isVisible(c)) {
@@ -605,21 +634,70 @@ public class DiagramScene extends ObjectScene implements DiagramViewer {
             }
         }
 
-        if (getModel().getShowBlocks()) {
-            HierarchicalClusterLayoutManager m = new HierarchicalClusterLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
-            HierarchicalLayoutManager manager = new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
-            manager.setMaxLayerLength(9);
-            manager.setMinLayerDifference(3);
-            m.setManager(manager);
-            m.setSubManager(new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS));
-            m.doLayout(new LayoutGraph(edges, figures));
-        } else {
-            HierarchicalLayoutManager manager = new HierarchicalLayoutManager(HierarchicalLayoutManager.Combine.SAME_OUTPUTS);
-            manager.setMaxLayerLength(10);
-            manager.doLayout(new LayoutGraph(edges, figures));
+        // The layout runs on copies; the figures and connections are only
+        // touched on the EDT
+        final LayoutSnapshot snapshot = new LayoutSnapshot(edges, figures);
+        final Map<Vertex, Point> seed = new HashMap<>();
+        for (Figure f : figures) {
+            List<InputNode> sourceNodes = f.getSource().getSourceNodes();
+            if (!sourceNodes.isEmpty()) {
+                Point p = lastPositions.get(sourceNodes.get(0).getId());
+                if (p != null) {
+                    seed.put(snapshot.getCopy(f), p);
+                }
+            }
         }
 
-        relayoutWithoutLayout(oldVisibleWidgets);
+        final boolean showBlocks = getModel().getShowBlocks();
+        final int generation = ++layoutGeneration;
+        if (layoutTask != null) {
+            layoutTask.cancel();
+        }
+        if (diagram != laidOutDiagram) {
+            // The figures of a new diagram have no positions yet
+            mainLayer.setVisible(false);
+            blockLayer.setVisible(false);
+        }
+        layoutTask = LAYOUT.post(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    if (showBlocks) {
+                        blockLayout.setSeed(seed);
+                        blockLayout.doLayout(snapshot.getGraph());
+                    } else {
+                        flatLayout.setSeed(seed);
+                        flatLayout.doLayout(snapshot.getGraph());
+                    }
+                } catch (CancellationException e) {
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (generation != layoutGeneration) {
+                            return;
+                        }
+                        layoutTask = null;
+                        laidOutDiagram = diagram;
+                        snapshot.apply();
+                        lastPositions = new HashMap<>();
+                        for (Figure f : figures) {
+                            List<InputNode> sourceNodes = f.getSource().getSourceNodes();
+                            if (!sourceNodes.isEmpty()) {
+                                lastPositions.put(sourceNodes.get(0).getId(), new Point(f.getPosition()));
+                            }
+                        }
+                        mainLayer.setVisible(true);
+                        blockLayer.setVisible(true);
+                        relayoutWithoutLayout(oldVisibleWidgets);
+                        validate();
+                    }
+                });
+            }
+        });
     }
     private Set<Pair<Point, Point>> lineCache = new HashSet<>();
 
@@ -420,6 +420,9 @@ public class DiagramViewModel extends RangeSliderModel implements ChangedListene
         if (inputGraph == null) {
             if (getFirstGraph() != getSecondGraph()) {
                 inputGraph = Difference.createDiffGraph(getFirstGraph(), getSecondGraph());
+                // Stepping through the phases moves both ends of the range
+                prefetchDiffGraph(getFirstPosition() + 1, getSecondPosition() + 1);
+                prefetchDiffGraph(getFirstPosition() - 1, getSecondPosition() - 1);
             } else {
                 inputGraph = getFirstGraph();
             }
@@ -428,6 +431,12 @@ public class DiagramViewModel extends RangeSliderModel implements ChangedListene
         return inputGraph;
     }
 
+    private void prefetchDiffGraph(int first, int second) {
+        if (first >= 0 && second < graphs.size() && first < second) {
+            Difference.prefetchDiffGraph(graphs.get(first), graphs.get(second));
+        }
+    }
+
     @Override
     public void changed(RangeSliderModel source) {
         inputGraph = null;
@@ -36,6 +36,7 @@ public class Compilation implements LogEvent {
     private CallSite call = new CallSite();
     private CallSite lateInlineCall = new CallSite();
     private int osrBci;
+    private int level;
     private String icount;
     private String bcount;
     private String special;
@@ -173,6 +174,14 @@ public class Compilation implements LogEvent {
         this.osrBci = osrBci;
     }
 
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
     public String getIcount() {
         return icount;
     }
@@ -230,7 +239,7 @@ public class Compilation implements LogEvent {
     }
 
     public void setPhases(ArrayList<Phase> phases) {
-        this.setPhases(phases);
+        this.phases = phases;
     }
 
     public String getFailureReason() {
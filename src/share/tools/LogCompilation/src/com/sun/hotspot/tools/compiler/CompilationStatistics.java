@@ -0,0 +1,490 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package com.sun.hotspot.tools.compiler;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Statistics gathered from one or more logs. An instance is filled by
+ * streaming a single log into it, and instances for different logs can be
+ * merged, so that the logs of many JVMs can be parsed in parallel and
+ * reported on together. Besides the summary, it keeps per method and per
+ * trap site records for a report of where recompilation is most costly.
+ */
+class CompilationStatistics implements LogEventListener {
+
+    private static final int TOP = 20;
+
+    private int logs;
+    private int compilations;
+    private int failures;
+    private long nmethodsCreated;
+    private long nmethodsLive;
+    private long cacheSize;
+    private long maxCacheSize;
+    private double elapsed;
+    private long[] attempts = new long[32];
+    private int maxattempts;
+    private LinkedHashMap<String, Double> phaseTime = new LinkedHashMap<String, Double>(7);
+    private LinkedHashMap<String, Long> phaseNodes = new LinkedHashMap<String, Long>(7);
+    private LinkedHashMap<String, Long> trapsByReason = new LinkedHashMap<String, Long>();
+    private HashMap<String, Long> trapsBySite = new HashMap<String, Long>();
+    private HashMap<String, MethodStatistics> methods = new HashMap<String, MethodStatistics>();
+    private HashMap<String, SiteStatistics> sites = new HashMap<String, SiteStatistics>();
+
+    /**
+     * What compiling one method cost. The cost of recompiling it is
+     * estimated as its average compile time times the number of
+     * recompilations. A recompilation is a compilation at the same tier
+     * and osr bci as an earlier one of the same log, so tier-ups and OSR
+     * compilations are not counted.
+     */
+    static class MethodStatistics {
+        final String method;
+        final String signature;
+        long compiles;
+        long recompiles;
+        double time;
+        long codeSize;
+        long traps;
+        long notEntrant;
+        LinkedHashMap<String, Double> phaseTime = new LinkedHashMap<String, Double>(7);
+
+        // Compilations in the log being parsed; see endOfLog().
+        int logCompiles;
+        int logRecompiles;
+        HashSet<String> logVersions = new HashSet<String>();
+
+        MethodStatistics(String method, String signature) {
+            this.method = method;
+            this.signature = signature;
+        }
+
+        double getCost() {
+            return compiles == 0 ? 0 : time * recompiles / compiles;
+        }
+
+        String getHottestPhase() {
+            String result = null;
+            for (Map.Entry<String, Double> entry : phaseTime.entrySet()) {
+                if (result == null || entry.getValue() > phaseTime.get(result)) {
+                    result = entry.getKey();
+                }
+            }
+            return result;
+        }
+
+        void merge(MethodStatistics other) {
+            compiles += other.compiles;
+            recompiles += other.recompiles;
+            time += other.time;
+            codeSize += other.codeSize;
+            traps += other.traps;
+            notEntrant += other.notEntrant;
+            for (Map.Entry<String, Double> entry : other.phaseTime.entrySet()) {
+                add(phaseTime, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Uncommon traps taken at one bytecode, which may have been inlined
+     * into several compiled methods.
+     */
+    static class SiteStatistics {
+        final String site;
+        long traps;
+        long invalidations;
+        TreeSet<String> reasons = new TreeSet<String>();
+        TreeSet<String> methods = new TreeSet<String>();
+
+        SiteStatistics(String site) {
+            this.site = site;
+        }
+
+        void merge(SiteStatistics other) {
+            traps += other.traps;
+            invalidations += other.invalidations;
+            reasons.addAll(other.reasons);
+            methods.addAll(other.methods);
+        }
+    }
+
+    private MethodStatistics method(Compilation c) {
+        if (c == null || c.getMethod() == null) {
+            return null;
+        }
+        Method m = c.getMethod();
+        String name = m.getHolder().replace('/', '.') + "::" + m.getName().trim();
+        String signature = "(" + m.getArguments() + ")" + m.getReturnType();
+        String key = name + " " + signature;
+        MethodStatistics result = methods.get(key);
+        if (result == null) {
+            result = new MethodStatistics(name, signature);
+            methods.put(key, result);
+        }
+        return result;
+    }
+
+    public void event(LogEvent e) {
+        if (e instanceof Compilation) {
+            Compilation c = (Compilation) e;
+            compilations++;
+            if (c.getFailureReason() != null) {
+                failures++;
+            }
+            elapsed += c.getElapsedTime();
+            attempts[c.getAttempts()]++;
+            maxattempts = Math.max(maxattempts, c.getAttempts());
+            for (Phase phase : c.getPhases()) {
+                add(phaseTime, phase.getName(), phase.getElapsedTime());
+                add(phaseNodes, phase.getName(), phase.getNodes());
+            }
+            MethodStatistics ms = method(c);
+            if (ms != null) {
+                ms.logCompiles++;
+                if (!ms.logVersions.add(c.getLevel() + " " + (c.isOsr() ? c.getOsr_bci() : -1))) {
+                    ms.logRecompiles++;
+                }
+                ms.time += c.getElapsedTime();
+                if (c.getNMethod() != null) {
+                    ms.codeSize += c.getNMethod().getSize();
+                }
+                for (Phase phase : c.getPhases()) {
+                    add(ms.phaseTime, phase.getName(), phase.getElapsedTime());
+                }
+            }
+        } else if (e instanceof MakeNotEntrantEvent) {
+            MakeNotEntrantEvent mne = (MakeNotEntrantEvent) e;
+            if (mne.isZombie()) {
+                cacheSize -= mne.getNMethod().getSize();
+                nmethodsLive--;
+            } else {
+                MethodStatistics ms = method(mne.getCompilation());
+                if (ms != null) {
+                    ms.notEntrant++;
+                }
+            }
+        } else if (e instanceof NMethod) {
+            nmethodsLive++;
+            nmethodsCreated++;
+            cacheSize += ((NMethod) e).getSize();
+            maxCacheSize = Math.max(cacheSize, maxCacheSize);
+        } else if (e instanceof UncommonTrapEvent) {
+            UncommonTrapEvent uc = (UncommonTrapEvent) e;
+            add(trapsByReason, uc.getReason() + " " + uc.getAction(), 1);
+            add(trapsBySite, uc.formatTrap().trim(), 1);
+
+            MethodStatistics ms = method(uc.getCompilation());
+            if (ms != null) {
+                ms.traps++;
+            }
+            // The innermost frame is where the trap was taken.
+            String jvms = uc.getJvms().trim();
+            int end = jvms.indexOf('\n');
+            String key = end < 0 ? jvms : jvms.substring(0, end);
+            if (key.length() > 0) {
+                SiteStatistics site = sites.get(key);
+                if (site == null) {
+                    site = new SiteStatistics(key);
+                    sites.put(key, site);
+                }
+                site.traps++;
+                String action = uc.getAction();
+                if ("make_not_entrant".equals(action) || "reinterpret".equals(action)) {
+                    site.invalidations++;
+                }
+                site.reasons.add(uc.getReason());
+                if (ms != null) {
+                    site.methods.add(ms.method);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once the log that was streamed into this instance is done.
+     */
+    void endOfLog() {
+        logs++;
+        for (MethodStatistics ms : methods.values()) {
+            ms.compiles += ms.logCompiles;
+            ms.recompiles += ms.logRecompiles;
+            ms.logCompiles = 0;
+            ms.logRecompiles = 0;
+            ms.logVersions.clear();
+        }
+    }
+
+    /**
+     * Adds the statistics of other, which must have seen the end of its
+     * logs, to this instance.
+     */
+    void merge(CompilationStatistics other) {
+        logs += other.logs;
+        compilations += other.compilations;
+        failures += other.failures;
+        nmethodsCreated += other.nmethodsCreated;
+        nmethodsLive += other.nmethodsLive;
+        cacheSize += other.cacheSize;
+        // Code caches of different JVMs peak independently.
+        maxCacheSize += other.maxCacheSize;
+        elapsed += other.elapsed;
+        for (int i = 0; i <= other.maxattempts; i++) {
+            attempts[i] += other.attempts[i];
+        }
+        maxattempts = Math.max(maxattempts, other.maxattempts);
+        for (Map.Entry<String, Double> entry : other.phaseTime.entrySet()) {
+            add(phaseTime, entry.getKey(), entry.getValue());
+        }
+        addAll(phaseNodes, other.phaseNodes);
+        addAll(trapsByReason, other.trapsByReason);
+        addAll(trapsBySite, other.trapsBySite);
+        for (Map.Entry<String, MethodStatistics> entry : other.methods.entrySet()) {
+            MethodStatistics ms = methods.get(entry.getKey());
+            if (ms == null) {
+                ms = new MethodStatistics(entry.getValue().method, entry.getValue().signature);
+                methods.put(entry.getKey(), ms);
+            }
+            ms.merge(entry.getValue());
+        }
+        for (Map.Entry<String, SiteStatistics> entry : other.sites.entrySet()) {
+            SiteStatistics site = sites.get(entry.getKey());
+            if (site == null) {
+                site = new SiteStatistics(entry.getKey());
+                sites.put(entry.getKey(), site);
+            }
+            site.merge(entry.getValue());
+        }
+    }
+
+    void print(PrintStream out) {
+        out.printf("Logs: %d\n", logs);
+        out.printf("Compilations: %d (%d failed) %6.4f s\n", compilations, failures, elapsed);
+        out.printf("NMethods: %d created %d live %d bytes (%d peak) in the code cache\n",
+                   nmethodsCreated, nmethodsLive, cacheSize, maxCacheSize);
+        out.println("Phase times:");
+        for (String name : phaseTime.keySet()) {
+            out.printf("%20s %6.4f %d\n", name, phaseTime.get(name).doubleValue(), phaseNodes.get(name).longValue());
+        }
+        out.printf("%20s %6.4f\n", "total", elapsed);
+
+        if (maxattempts > 0) {
+            out.println("Distribution of regalloc passes:");
+            for (int i = 0; i <= maxattempts; i++) {
+                out.printf("%2d %8d\n", i, attempts[i]);
+            }
+        }
+
+        // Ranked by recompile count; -H and -J rank by recompilation cost.
+        HashMap<String, Long> recompilations = new HashMap<String, Long>();
+        for (MethodStatistics ms : methods.values()) {
+            if (ms.recompiles > 0) {
+                recompilations.put(ms.method + ms.signature, ms.recompiles);
+            }
+        }
+        out.println("Most recompiled methods:");
+        for (Map.Entry<String, Long> entry : top(recompilations)) {
+            out.printf("%8d %s\n", entry.getValue(), entry.getKey());
+        }
+        out.println("Uncommon traps:");
+        for (Map.Entry<String, Long> entry : top(trapsByReason)) {
+            out.printf("%8d %s\n", entry.getValue(), entry.getKey());
+        }
+        out.println("Most frequent uncommon traps:");
+        for (Map.Entry<String, Long> entry : top(trapsBySite)) {
+            out.printf("%8d %s\n", entry.getValue(), entry.getKey().replace("\n", "\n         "));
+        }
+    }
+
+    /**
+     * Returns the methods with the highest recompilation cost, then the
+     * most recompiles.
+     */
+    List<MethodStatistics> topMethods(int count) {
+        List<MethodStatistics> result = new ArrayList<MethodStatistics>(methods.values());
+        Collections.sort(result, new Comparator<MethodStatistics>() {
+            public int compare(MethodStatistics a, MethodStatistics b) {
+                int r = Double.compare(b.getCost(), a.getCost());
+                if (r == 0) {
+                    r = Long.valueOf(b.recompiles).compareTo(a.recompiles);
+                }
+                if (r == 0) {
+                    r = Double.compare(b.time, a.time);
+                }
+                return r != 0 ? r : (a.method + a.signature).compareTo(b.method + b.signature);
+            }
+        });
+        return result.subList(0, Math.min(count, result.size()));
+    }
+
+    /**
+     * Returns the trap sites that invalidated the most code, then the ones
+     * with the most traps.
+     */
+    List<SiteStatistics> topSites(int count) {
+        List<SiteStatistics> result = new ArrayList<SiteStatistics>(sites.values());
+        Collections.sort(result, new Comparator<SiteStatistics>() {
+            public int compare(SiteStatistics a, SiteStatistics b) {
+                int r = Long.valueOf(b.invalidations).compareTo(a.invalidations);
+                if (r == 0) {
+                    r = Long.valueOf(b.traps).compareTo(a.traps);
+                }
+                return r != 0 ? r : a.site.compareTo(b.site);
+            }
+        });
+        return result.subList(0, Math.min(count, result.size()));
+    }
+
+    /**
+     * Prints the methods and trap sites that cost the most, as two CSV
+     * tables separated by an empty line. Numbers do not depend on the
+     * default locale.
+     */
+    void printCSV(PrintStream out, int count) {
+        out.println("method,signature,cost,recompiles,compiles,compile_time,code_size,traps,not_entrant,hottest_phase,hottest_phase_time");
+        for (MethodStatistics ms : topMethods(count)) {
+            String phase = ms.getHottestPhase();
+            out.printf(Locale.ROOT, "%s,%s,%.4f,%d,%d,%.4f,%d,%d,%d,%s,%.4f\n",
+                       csv(ms.method), csv(ms.signature), ms.getCost(), ms.recompiles, ms.compiles, ms.time,
+                       ms.codeSize, ms.traps, ms.notEntrant, phase == null ? "" : csv(phase),
+                       phase == null ? 0.0 : ms.phaseTime.get(phase).doubleValue());
+        }
+        out.println();
+        out.println("site,invalidations,traps,reasons,methods");
+        for (SiteStatistics site : topSites(count)) {
+            out.printf(Locale.ROOT, "%s,%d,%d,%s,%s\n", csv(site.site), site.invalidations, site.traps,
+                       csv(join(site.reasons, " ")), csv(join(site.methods, " ")));
+        }
+    }
+
+    /**
+     * Prints the same report as {@link #printCSV} as a JSON object.
+     */
+    void printJSON(PrintStream out, int count) {
+        out.println("{");
+        out.println("  \"methods\": [");
+        List<MethodStatistics> top = topMethods(count);
+        for (int i = 0; i < top.size(); i++) {
+            MethodStatistics ms = top.get(i);
+            out.printf(Locale.ROOT, "    {\"method\": %s, \"signature\": %s, \"cost\": %.4f, \"recompiles\": %d, \"compiles\": %d, \"compile_time\": %.4f, \"code_size\": %d, \"traps\": %d, \"not_entrant\": %d, \"phases\": {",
+                       json(ms.method), json(ms.signature), ms.getCost(), ms.recompiles, ms.compiles, ms.time,
+                       ms.codeSize, ms.traps, ms.notEntrant);
+            String separator = "";
+            for (Map.Entry<String, Double> entry : ms.phaseTime.entrySet()) {
+                out.printf(Locale.ROOT, "%s%s: %.4f", separator, json(entry.getKey()), entry.getValue().doubleValue());
+                separator = ", ";
+            }
+            out.println(i == top.size() - 1 ? "}}" : "}},");
+        }
+        out.println("  ],");
+        out.println("  \"sites\": [");
+        List<SiteStatistics> topSites = topSites(count);
+        for (int i = 0; i < topSites.size(); i++) {
+            SiteStatistics site = topSites.get(i);
+            out.printf(Locale.ROOT, "    {\"site\": %s, \"invalidations\": %d, \"traps\": %d, \"reasons\": %s, \"methods\": %s}%s\n",
+                       json(site.site), site.invalidations, site.traps, json(site.reasons), json(site.methods),
+                       i == topSites.size() - 1 ? "" : ",");
+        }
+        out.println("  ]");
+        out.println("}");
+    }
+
+    private static String join(Collection<String> values, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String json(Collection<String> values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (String value : values) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(json(value));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static <K> void add(Map<K, Long> map, K key, long value) {
+        Long v = map.get(key);
+        map.put(key, v == null ? value : v.longValue() + value);
+    }
+
+    private static <K> void add(Map<K, Double> map, K key, double value) {
+        Double v = map.get(key);
+        map.put(key, v == null ? value : v.doubleValue() + value);
+    }
+
+    private static <K> void addAll(Map<K, Long> map, Map<K, Long> other) {
+        for (Map.Entry<K, Long> entry : other.entrySet()) {
+            add(map, entry.getKey(), entry.getValue().longValue());
+        }
+    }
+
+    /**
+     * Returns the entries with the largest counts, ties broken by key so
+     * that the report does not depend on the order logs were merged in.
+     */
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> map) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(map.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            public int compare(Map.Entry<String, Long> a, Map.Entry<String, Long> b) {
+                int result = b.getValue().compareTo(a.getValue());
+                return result != 0 ? result : a.getKey().compareTo(b.getKey());
+            }
+        });
+        return entries.subList(0, Math.min(TOP, entries.size()));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package com.sun.hotspot.tools.compiler;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Measures parsing of many logs with -F on a generated corpus of
+ * synthetic logs.
+ *
+ *   java -cp logc.jar com.sun.hotspot.tools.compiler.FleetBenchmark [ logs [ compilations ] ]
+ */
+public class FleetBenchmark {
+
+    private static final String[] REASONS = {"unstable_if", "class_check", "null_check", "range_check", "unloaded"};
+    private static final String[] ACTIONS = {"reinterpret", "maybe_recompile", "make_not_entrant", "none"};
+    private static final String[] PHASES = {"parse", "optimizer", "matcher", "scheduler", "regalloc", "output"};
+
+    public static void main(String[] args) throws Exception {
+        int logs = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int compilations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        File dir = File.createTempFile("logc", "");
+        dir.delete();
+        dir.mkdir();
+        List<String> files = new ArrayList<String>();
+        long bytes = 0;
+        for (int i = 0; i < logs; i++) {
+            File f = new File(dir, "hotspot_pid" + i + ".log");
+            writeLog(f, new Random(i), compilations);
+            files.add(f.getPath());
+            bytes += f.length();
+        }
+        System.out.printf("%d logs, %d compilations each, %.1f MB\n", logs, compilations, bytes / 1e6);
+
+        try {
+            long start = System.nanoTime();
+            long chars = 0;
+            char[] buffer = new char[8192];
+            for (String file : files) {
+                Reader r = new LogCleanupReader(new FileReader(file));
+                int n;
+                while ((n = r.read(buffer, 0, buffer.length)) != -1) {
+                    chars += n;
+                }
+                r.close();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("cleanup reader: %.1f MB/s\n", chars / seconds / 1e6);
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            String sequential = report(files, 1);
+            String parallel = report(files, threads);
+            if (!sequential.equals(parallel)) {
+                throw new InternalError("parallel report differs from sequential one");
+            }
+        } finally {
+            for (String file : files) {
+                new File(file).delete();
+            }
+            dir.delete();
+        }
+    }
+
+    private static String report(List<String> files, int threads) throws Exception {
+        long start = System.nanoTime();
+        CompilationStatistics stats = LogCompilation.parseAll(files, false, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%2d threads: %.2f s, %.1f logs/s\n", threads, seconds, files.size() / seconds);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stats.print(new PrintStream(out));
+        return out.toString();
+    }
+
+    /**
+     * Writes a log with the elements LogParser looks at: the tty section
+     * with queued tasks, nmethods, uncommon traps and invalidations,
+     * followed by a compiler thread section with the tasks themselves.
+     */
+    static void writeLog(File file, Random random, int compilations) throws IOException {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+        int methods = Math.max(1, compilations / 4);
+        double stamp = 0.01;
+        out.println("<?xml version='1.0' encoding='UTF-8'?>");
+        out.println("<hotspot_log version='160 1' process='1' time_ms='0'>");
+        out.println("<tty>");
+        for (int id = 1; id <= compilations; id++) {
+            stamp += 0.001;
+            String method = method(id % methods);
+            out.printf("<task_queued compile_id='%d' method='%s' bytes='%d' count='5000' iicount='5000' level='4' stamp='%.3f' comment='tiered' hot_count='5000'/>%n",
+                       id, method, 20 + id % methods, stamp);
+            out.printf("<nmethod compile_id='%d' compiler='c2' level='4' size='%d' address='0x%x' method='%s' bytes='%d' count='5000' iicount='5000' stamp='%.3f'/>%n",
+                       id, 500 + random.nextInt(5000), 0x7f0000000000L + id * 0x10000L, method, 20 + id % methods, stamp);
+            if (random.nextInt(4) == 0) {
+                out.printf("<uncommon_trap thread='1' reason='%s' action='%s' compile_id='%d' compiler='c2' level='4' stamp='%.3f'>%n",
+                           REASONS[random.nextInt(REASONS.length)], ACTIONS[random.nextInt(ACTIONS.length)], id, stamp);
+                out.printf("<jvms bci='%d' method='%s' bytes='%d' count='5000' iicount='5000'/>%n", random.nextInt(20), method, 20 + id % methods);
+                out.println("</uncommon_trap>");
+                out.printf("<make_not_entrant thread='1' compile_id='%d' compiler='c2' level='4' stamp='%.3f'/>%n", id, stamp);
+                out.printf("<make_not_entrant thread='1' compile_id='%d' compiler='c2' level='4' zombie='1' stamp='%.3f'/>%n", id, stamp);
+            }
+        }
+        out.println("</tty>");
+        out.println("<compilation_log thread='2'>");
+        stamp = 0.01;
+        for (int id = 1; id <= compilations; id++) {
+            stamp += 0.001;
+            int m = id % methods;
+            out.printf("<task compile_id='%d' method='%s' bytes='%d' count='5000' iicount='5000' stamp='%.3f'>%n", id, method(m), 20 + m, stamp);
+            out.println("<type id='1' name='void'/>");
+            out.printf("<klass id='2' name='bench/Class%d' flags='1'/>%n", m % 50);
+            out.printf("<method id='3' holder='2' name='m%d' return='1' flags='1' bytes='%d' iicount='5000'/>%n", m, 20 + m);
+            out.printf("<klass id='4' name='bench/Class%d' flags='1'/>%n", (m + 1) % 50);
+            out.printf("<method id='5' holder='4' name='m%d' return='1' flags='1' bytes='%d' iicount='5000'/>%n", (m + 1) % methods, 20 + (m + 1) % methods);
+            double phaseStamp = stamp;
+            int nodes = 10;
+            for (String phase : PHASES) {
+                out.printf("<phase name='%s' nodes='%d' live='%d' stamp='%.3f'>%n", phase, nodes, nodes, phaseStamp);
+                if (phase.equals("parse")) {
+                    out.printf("<parse method='3' uses='5000' stamp='%.3f'>%n", phaseStamp);
+                    out.printf("<bc code='182' bci='%d'/>%n", random.nextInt(20));
+                    out.println("<call method='5' count='4000' prof_factor='1' inline='1'/>");
+                    if (random.nextBoolean()) {
+                        out.println("<inline_fail reason='too big'/>");
+                    } else {
+                        out.printf("<parse method='5' uses='4000' stamp='%.3f'>%n", phaseStamp);
+                        out.printf("<parse_done nodes='%d' live='%d' memory='1000' stamp='%.3f'/>%n", nodes + 5, nodes + 5, phaseStamp);
+                        out.println("</parse>");
+                    }
+                    out.printf("<parse_done nodes='%d' live='%d' memory='1000' stamp='%.3f'/>%n", nodes + 20, nodes + 20, phaseStamp);
+                    out.println("</parse>");
+                }
+                if (phase.equals("regalloc")) {
+                    out.printf("<regalloc attempts='%d' success='1'/>%n", random.nextInt(3));
+                }
+                nodes += random.nextInt(100);
+                phaseStamp += random.nextInt(5) / 1000.0;
+                out.printf("<phase_done name='%s' nodes='%d' live='%d' stamp='%.3f'/>%n", phase, nodes, nodes, phaseStamp);
+                out.println("</phase>");
+            }
+            out.printf("<task_done success='1' nmsize='%d' count='5000' inlined_bytes='20' stamp='%.3f'/>%n", 100 + nodes, phaseStamp);
+            out.println("</task>");
+        }
+        out.println("</compilation_log>");
+        out.println("</hotspot_log>");
+        out.close();
+    }
+
+    private static String method(int m) {
+        return "bench/Class" + (m % 50) + " m" + m + " ()V";
+    }
+}
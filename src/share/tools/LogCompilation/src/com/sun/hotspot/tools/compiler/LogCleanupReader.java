@@ -37,7 +37,7 @@ import java.util.regex.*;
 class LogCleanupReader extends Reader {
     private Reader reader;
 
-    private char[] buffer = new char[4096];
+    private char[] buffer = new char[65536];
 
     private int bufferCount;
 
@@ -55,13 +55,53 @@ class LogCleanupReader extends Reader {
         reader = r;
     }
 
-    static final private Matcher pattern = Pattern.compile(".+ compile_id='[0-9]+'.*( compile_id='[0-9]+)").matcher("");
-    static final private Matcher pattern2 = Pattern.compile("' (C[12]) compile_id=").matcher("");
-    static final private Matcher pattern3 = Pattern.compile("'(destroy_vm)/").matcher("");
+    // Matchers are not thread safe and several logs may be read at once.
+    final private Matcher pattern = Pattern.compile(".+ compile_id='[0-9]+'.*( compile_id='[0-9]+)").matcher("");
+    final private Matcher pattern2 = Pattern.compile("' (C[12]) compile_id=").matcher("");
+    final private Matcher pattern3 = Pattern.compile("'(destroy_vm)/").matcher("");
+
+    /**
+     * Returns the index of s in the current line, or -1.
+     */
+    private int indexOf(String s, int from) {
+        int last = length - s.length();
+        char first = s.charAt(0);
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (line[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < s.length(); j++) {
+                if (line[i + j] != s.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks cheaply whether any of the patterns can match the current
+     * line, so that the common lines are passed through without creating
+     * strings for them.
+     */
+    private boolean mayNeedCleanup() {
+        if (indexOf("'destroy_vm/", 0) >= 0) {
+            return true;
+        }
+        int first = indexOf(" compile_id=", 0);
+        if (first < 0) {
+            return false;
+        }
+        return indexOf(" compile_id='", first + 1) >= 0
+            || indexOf("' C1 compile_id=", 0) >= 0
+            || indexOf("' C2 compile_id=", 0) >= 0;
+    }
 
     private void fill() throws IOException {
         rawFill();
-        if (length != -1) {
+        if (length != -1 && mayNeedCleanup()) {
             boolean changed = false;
             String s = new String(line, 0, length);
             String orig = s;
@@ -154,7 +194,9 @@ class LogCleanupReader extends Reader {
     }
 
     public int read() throws java.io.IOException {
-        read(one, 0, 1);
+        if (read(one, 0, 1) == -1) {
+            return -1;
+        }
         return one[0];
     }
 
@@ -163,27 +205,35 @@ class LogCleanupReader extends Reader {
     }
 
     public int read(char[] b, int off, int len) throws java.io.IOException {
-        if (length == -1) {
-            return -1;
-        }
-
-        if (index == length) {
-            fill();
-            if (length == -1) {
-                return -1;
+        // Copy as many lines as fit instead of returning one line per call.
+        int n = 0;
+        len = Math.min(b.length - off, len);
+        while (n < len && length != -1) {
+            if (index == length) {
+                fill();
+                if (length == -1) {
+                    break;
+                }
             }
+            int count = Math.min(length - index, len - n);
+            System.arraycopy(line, index, b, off + n, count);
+            index += count;
+            n += count;
         }
-        int n = Math.min(length - index, Math.min(b.length - off, len));
-        // System.out.printf("%d %d %d %d %d\n", index, length, off, len, n);
-        System.arraycopy(line, index, b, off, n);
-        index += n;
-        return n;
+        return n == 0 && len > 0 ? -1 : n;
     }
 
     public long skip(long n) throws java.io.IOException {
-        long result = n;
-        while (n-- > 0) read();
-        return result;
+        char[] skipped = new char[(int) Math.min(n, buffer.length)];
+        long remaining = n;
+        while (remaining > 0) {
+            int count = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (count == -1) {
+                break;
+            }
+            remaining -= count;
+        }
+        return n - remaining;
     }
 
     public boolean ready() throws java.io.IOException {
@@ -31,13 +31,14 @@ package com.sun.hotspot.tools.compiler;
 
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.*;
 import org.xml.sax.*;
 import org.xml.sax.helpers.*;
 
 public class LogCompilation extends DefaultHandler implements ErrorHandler, Constants {
 
     public static void usage(int exitcode) {
-        System.out.println("Usage: LogCompilation [ -v ] [ -c ] [ -s ] [ -e | -n ] file1 ...");
+        System.out.println("Usage: LogCompilation [ -v ] [ -c ] [ -s ] [ -e | -n ] [ -x ] [ -t ] [ -F [ -j threads ] ] [ -H | -J [ -k count ] ] file1 ...");
         System.out.println("  -c:   clean up malformed 1.5 xml");
         System.out.println("  -i:   print inlining decisions");
         System.out.println("  -S:   print compilation statistics");
@@ -47,6 +48,17 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
         System.out.println("  -n:   sort events by name and start");
         System.out.println("  -L:   print eliminated locks");
         System.out.println("  -Q:   print compile queue activity");
+        System.out.println("  -x:   read the events from a binary index next to the log,");
+        System.out.println("        writing it first if it is missing or out of date");
+        System.out.println("  -t:   stream the log, reporting events as they complete");
+        System.out.println("        instead of sorted (for logs too large for memory)");
+        System.out.println("  -F:   print one report merged over all files, which are");
+        System.out.println("        streamed in parallel");
+        System.out.println("  -j:   number of files to parse at once with -F");
+        System.out.println("  -H:   print the methods and trap sites with the highest");
+        System.out.println("        recompilation cost over all files as CSV");
+        System.out.println("  -J:   same as -H as JSON");
+        System.out.println("  -k:   number of methods and sites reported by -H and -J");
         System.exit(exitcode);
     }
 
@@ -58,6 +70,12 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
         boolean cleanup = false;
         boolean printEliminatedLocks = false;
         boolean printCompileQueue = false;
+        boolean stream = false;
+        boolean useIndex = false;
+        boolean fleet = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String report = null;
+        int reportCount = 100;
         int index = 0;
 
         while (args.length > index) {
@@ -90,6 +108,27 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
             } else if (args[index].equals("-Q")) {
                 printCompileQueue = true;
                 index++;
+            } else if (args[index].equals("-x")) {
+                useIndex = true;
+                index++;
+            } else if (args[index].equals("-t")) {
+                stream = true;
+                index++;
+            } else if (args[index].equals("-F")) {
+                fleet = true;
+                index++;
+            } else if (args[index].equals("-j") && index + 1 < args.length) {
+                threads = Integer.parseInt(args[index + 1]);
+                index += 2;
+            } else if (args[index].equals("-H")) {
+                report = "csv";
+                index++;
+            } else if (args[index].equals("-J")) {
+                report = "json";
+                index++;
+            } else if (args[index].equals("-k") && index + 1 < args.length) {
+                reportCount = Integer.parseInt(args[index + 1]);
+                index += 2;
             } else {
                 break;
             }
@@ -99,8 +138,46 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
             usage(1);
         }
 
+        if (fleet || report != null) {
+            List<String> files = Arrays.asList(args).subList(index, args.length);
+            CompilationStatistics stats = parseAll(files, cleanup, threads);
+            if (report == null) {
+                stats.print(System.out);
+            } else if (report.equals("csv")) {
+                stats.printCSV(System.out, reportCount);
+            } else {
+                stats.printJSON(System.out, reportCount);
+            }
+            return;
+        }
+
         while (index < args.length) {
-            ArrayList<LogEvent> events = LogParser.parse(args[index], cleanup);
+            if (stream) {
+                EventPrinter printer;
+                if (printCompileQueue) {
+                    printer = new CompileQueuePrinter(System.out);
+                } else if (printEliminatedLocks) {
+                    printer = new EliminatedLocksPrinter(System.out);
+                } else if (statistics) {
+                    printer = new StatisticsPrinter(System.out);
+                } else if (recompilation) {
+                    printer = new RecompilationPrinter(System.out);
+                } else {
+                    printer = new EventPrinter(System.out, printInlining);
+                }
+                LogParser.parse(args[index], cleanup, printer);
+                printer.finish();
+                index++;
+                continue;
+            }
+
+            ArrayList<LogEvent> events;
+            if (useIndex && !printInlining) {
+                // The index does not keep the inlining decisions.
+                events = LogIndex.parse(args[index], cleanup);
+            } else {
+                events = LogParser.parse(args[index], cleanup);
+            }
 
             if (printCompileQueue) {
                 printCompileQueue(events, System.out);
@@ -112,34 +189,121 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
                 printRecompilation(events, System.out);
             } else {
                 Collections.sort(events, defaultSort);
-                for (LogEvent c : events) {
-                    if (c instanceof NMethod) continue;
-                    if (c instanceof TaskEvent) continue;
-
-                    System.out.printf("%f ", c.getStart());
-                    if (printInlining && c instanceof Compilation) {
-                        Compilation comp = (Compilation)c;
-                        comp.print(System.out, true);
-                    } else {
-                        c.print(System.out);
-                    }
-                }
+                print(events, new EventPrinter(System.out, printInlining));
             }
             index++;
         }
     }
-    
-    public static void printCompileQueue(ArrayList<LogEvent> events, PrintStream out) {
-        int[] levels = new int[5];
-        HashMap<String, TaskEvent> tasks = new HashMap<String, TaskEvent>();
-        
-        out.printf("%7s ", "Stamp");
-        for (int i = 1; i <= 4; i++) {
-            out.printf(" Level%d", i);
+
+    /**
+     * Streams each of the files into its own statistics on a pool of
+     * threads and merges the results in the order the files were given.
+     */
+    static CompilationStatistics parseAll(List<String> files, final boolean cleanup, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+        try {
+            List<Future<CompilationStatistics>> results = new ArrayList<Future<CompilationStatistics>>();
+            for (final String file : files) {
+                results.add(pool.submit(new Callable<CompilationStatistics>() {
+                    public CompilationStatistics call() throws Exception {
+                        CompilationStatistics stats = new CompilationStatistics();
+                        LogParser.parse(file, cleanup, stats);
+                        stats.endOfLog();
+                        return stats;
+                    }
+                }));
+            }
+            CompilationStatistics total = new CompilationStatistics();
+            for (Future<CompilationStatistics> result : results) {
+                total.merge(result.get());
+            }
+            return total;
+        } finally {
+            pool.shutdown();
         }
-        out.printf("   %10s", "Kind");
-        out.println();
+    }
+
+    private static void print(List<LogEvent> events, EventPrinter printer) {
         for (LogEvent e : events) {
+            printer.event(e);
+        }
+        printer.finish();
+    }
+
+    public static void printCompileQueue(ArrayList<LogEvent> events, PrintStream out) {
+        print(events, new CompileQueuePrinter(out));
+    }
+
+    public static void printEliminatedLocks(ArrayList<LogEvent> events, PrintStream out, Comparator<LogEvent> defaultSort) {
+        Collections.sort(events, defaultSort);
+        print(events, new EliminatedLocksPrinter(out));
+    }
+
+    public static void printRecompilation(ArrayList<LogEvent> events, PrintStream out) {
+        print(events, new RecompilationPrinter(out));
+    }
+
+    public static void printStatistics(ArrayList<LogEvent> events, PrintStream out) {
+        print(events, new StatisticsPrinter(out));
+    }
+
+    private static int intCompare(int o1, int o2) {
+        return (o1 > o2 ? -1 : (o1 == o2 ? 0 : 1));
+    }
+
+    /**
+     * Prints events one at a time, so that the same code serves both a
+     * parsed list of events and a log that is streamed with -t. Anything
+     * that can only be printed once all events were seen is printed by
+     * {@link #finish}.
+     */
+    static class EventPrinter implements LogEventListener {
+
+        protected final PrintStream out;
+        private final boolean printInlining;
+
+        EventPrinter(PrintStream out) {
+            this(out, false);
+        }
+
+        EventPrinter(PrintStream out, boolean printInlining) {
+            this.out = out;
+            this.printInlining = printInlining;
+        }
+
+        public void event(LogEvent c) {
+            if (c instanceof NMethod) return;
+            if (c instanceof TaskEvent) return;
+
+            out.printf("%f ", c.getStart());
+            if (printInlining && c instanceof Compilation) {
+                Compilation comp = (Compilation)c;
+                comp.print(out, true);
+            } else {
+                c.print(out);
+            }
+        }
+
+        void finish() {
+        }
+    }
+
+    static class CompileQueuePrinter extends EventPrinter {
+
+        private int[] levels = new int[5];
+        private HashMap<String, TaskEvent> tasks = new HashMap<String, TaskEvent>();
+
+        CompileQueuePrinter(PrintStream out) {
+            super(out);
+            out.printf("%7s ", "Stamp");
+            for (int i = 1; i <= 4; i++) {
+                out.printf(" Level%d", i);
+            }
+            out.printf("   %10s", "Kind");
+            out.println();
+        }
+
+        public void event(LogEvent e) {
             if (e instanceof TaskEvent) {
                 boolean demoted = false;
                 TaskEvent t = (TaskEvent) e;
@@ -161,6 +325,10 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
                     } else {
                         levels[t.getLevel()] = levels[t.getLevel()] - 1;
                     }
+                    if (t.getKind() == TaskEvent.Kind.Finish) {
+                        // Nothing refers to a finished task anymore.
+                        tasks.remove(t.getId());
+                    }
                     break;
                 default:
                     throw new InternalError();
@@ -181,9 +349,13 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
         }
     }
 
-    public static void printEliminatedLocks(ArrayList<LogEvent> events, PrintStream out, Comparator<LogEvent> defaultSort) {
-        Collections.sort(events, defaultSort);
-        for (LogEvent e : events) {
+    static class EliminatedLocksPrinter extends EventPrinter {
+
+        EliminatedLocksPrinter(PrintStream out) {
+            super(out);
+        }
+
+        public void event(LogEvent e) {
             if (e instanceof Compilation) {
                 Compilation c = (Compilation) e;
                 List<JVMState> eliminated = c.getEliminatedLocks();
@@ -202,10 +374,16 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
             }
         }
     }
-    
-    public static void printRecompilation(ArrayList<LogEvent> events, PrintStream out) {
-        LinkedHashMap<String, Map<String, List<String>>> traps = new LinkedHashMap<String, Map<String, List<String>>>();
-        for (LogEvent e : events) {
+
+    static class RecompilationPrinter extends EventPrinter {
+
+        private LinkedHashMap<String, Map<String, List<String>>> traps = new LinkedHashMap<String, Map<String, List<String>>>();
+
+        RecompilationPrinter(PrintStream out) {
+            super(out);
+        }
+
+        public void event(LogEvent e) {
             if (e instanceof UncommonTrapEvent) {
                 UncommonTrapEvent uc = (UncommonTrapEvent) e;
                 Map<String, List<String>> t = traps.get(uc.getCompilation().getMethod().toString());
@@ -223,46 +401,47 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
             }
         }
 
-        List<List<String>> recompiles = new ArrayList<List<String>>();
-        Map<List<String>, String> reverseMapping = new HashMap<List<String>, String>();
-        for (Map.Entry<String, Map<String, List<String>>> entry : traps.entrySet()) {
-            for (Map.Entry<String, List<String>> trapEntry : entry.getValue().entrySet()) {
-                recompiles.add(trapEntry.getValue());
-                reverseMapping.put(trapEntry.getValue(), trapEntry.getKey());
+        void finish() {
+            List<List<String>> recompiles = new ArrayList<List<String>>();
+            Map<List<String>, String> reverseMapping = new HashMap<List<String>, String>();
+            for (Map.Entry<String, Map<String, List<String>>> entry : traps.entrySet()) {
+                for (Map.Entry<String, List<String>> trapEntry : entry.getValue().entrySet()) {
+                    recompiles.add(trapEntry.getValue());
+                    reverseMapping.put(trapEntry.getValue(), trapEntry.getKey());
+                }
             }
-        }
-        recompiles.sort(new Comparator<List<String>>() {
-            public int compare(List<String> a, List<String> b) {
-                return intCompare(a.size(), b.size());
+            recompiles.sort(new Comparator<List<String>>() {
+                public int compare(List<String> a, List<String> b) {
+                    return intCompare(a.size(), b.size());
+                }
+            });
+            for (List<String> key : recompiles) {
+                out.print("Trap: ");
+                out.println(reverseMapping.get(key));
+                out.print("Compilations: ");
+                out.println(key);
             }
-        });
-        for (List<String> key : recompiles) {
-	    out.print("Trap: ");
-	    out.println(reverseMapping.get(key));
-	    out.print("Compilations: ");
-	    out.println(key);
         }
     }
-    
 
-    private static int intCompare(int o1, int o2) {
-        return (o1 > o2 ? -1 : (o1 == o2 ? 0 : 1));
-    }
+    static class StatisticsPrinter extends EventPrinter {
 
-    public static void printStatistics(ArrayList<LogEvent> events, PrintStream out) {
-        long cacheSize = 0;
-        long maxCacheSize = 0;
-        int nmethodsCreated = 0;
-        int nmethodsLive = 0;
-        int[] attempts = new int[32];
-        double regallocTime = 0;
-        int maxattempts = 0;
-
-        LinkedHashMap<String, Double> phaseTime = new LinkedHashMap<String, Double>(7);
-        LinkedHashMap<String, Integer> phaseNodes = new LinkedHashMap<String, Integer>(7);
-        double elapsed = 0;
+        private long cacheSize = 0;
+        private long maxCacheSize = 0;
+        private int nmethodsCreated = 0;
+        private int nmethodsLive = 0;
+        private int[] attempts = new int[32];
+        private int maxattempts = 0;
 
-        for (LogEvent e : events) {
+        private LinkedHashMap<String, Double> phaseTime = new LinkedHashMap<String, Double>(7);
+        private LinkedHashMap<String, Integer> phaseNodes = new LinkedHashMap<String, Integer>(7);
+        private double elapsed = 0;
+
+        StatisticsPrinter(PrintStream out) {
+            super(out);
+        }
+
+        public void event(LogEvent e) {
             if (e instanceof Compilation) {
                 Compilation c = (Compilation) e;
                 c.printShort(out);
@@ -306,20 +485,23 @@ public class LogCompilation extends DefaultHandler implements ErrorHandler, Cons
                 maxCacheSize = Math.max(cacheSize, maxCacheSize);
             }
         }
-        out.printf("NMethods: %d created %d live %d bytes (%d peak) in the code cache\n",
-                          nmethodsCreated, nmethodsLive, cacheSize, maxCacheSize);
-        out.println("Phase times:");
-        for (String name : phaseTime.keySet()) {
-            Double v = phaseTime.get(name);
-            Integer v2 = phaseNodes.get(name);
-            out.printf("%20s %6.4f %d\n", name, v.doubleValue(), v2.intValue());
-        }
-        out.printf("%20s %6.4f\n", "total", elapsed);
 
-        if (maxattempts > 0) {
-            out.println("Distribution of regalloc passes:");
-            for (int i = 0; i <= maxattempts; i++) {
-                out.printf("%2d %8d\n", i, attempts[i]);
+        void finish() {
+            out.printf("NMethods: %d created %d live %d bytes (%d peak) in the code cache\n",
+                              nmethodsCreated, nmethodsLive, cacheSize, maxCacheSize);
+            out.println("Phase times:");
+            for (String name : phaseTime.keySet()) {
+                Double v = phaseTime.get(name);
+                Integer v2 = phaseNodes.get(name);
+                out.printf("%20s %6.4f %d\n", name, v.doubleValue(), v2.intValue());
+            }
+            out.printf("%20s %6.4f\n", "total", elapsed);
+
+            if (maxattempts > 0) {
+                out.println("Distribution of regalloc passes:");
+                for (int i = 0; i <= maxattempts; i++) {
+                    out.printf("%2d %8d\n", i, attempts[i]);
+                }
             }
         }
     }
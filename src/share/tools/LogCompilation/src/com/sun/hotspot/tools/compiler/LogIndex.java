@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ *
+ */
+
+package com.sun.hotspot.tools.compiler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A binary sidecar holding the events of a parsed log, so that later
+ * runs can rebuild them from the mapped file instead of parsing the XML
+ * again. The sidecar is written next to the log as <i>file</i>.idx and
+ * consists of a table of interned strings followed by one columnar table
+ * per kind of event. It records the length and modification time of the
+ * log it was built from and is rebuilt once the log changes. Inlining
+ * decisions are not kept, so -i always parses the log.
+ */
+final class LogIndex {
+
+    static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x4c434958; // "LCIX"
+    private static final int VERSION = 2;
+
+    private static final byte COMPILATION = 0;
+    private static final byte NMETHOD = 1;
+    private static final byte TASK = 2;
+    private static final byte TRAP = 3;
+    private static final byte NOT_ENTRANT = 4;
+    private static final byte LOCK = 5;
+
+    private LogIndex() {
+    }
+
+    /**
+     * Returns the events of the log, read from its sidecar when that is
+     * current and parsed from the log otherwise, in which case the
+     * sidecar is (re)written for the next run.
+     */
+    static ArrayList<LogEvent> parse(String file, boolean cleanup) throws Exception {
+        File log = new File(file);
+        File sidecar = new File(file + SUFFIX);
+        long length = log.length();
+        long modified = log.lastModified();
+        ArrayList<LogEvent> events = read(sidecar, length, modified, cleanup);
+        if (events == null) {
+            events = LogParser.parse(file, cleanup);
+            try {
+                write(events, sidecar, length, modified, cleanup);
+            } catch (IOException e) {
+                System.err.println("Could not write " + sidecar + ": " + e.getMessage());
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Reads the events from the sidecar, or returns null if there is no
+     * sidecar or it was not built from this version of the log.
+     */
+    static ArrayList<LogEvent> read(File sidecar, long length, long modified, boolean cleanup) throws IOException {
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (FileInputStream in = new FileInputStream(sidecar)) {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.remaining() < 28 || buf.getInt() != MAGIC || buf.getInt() != VERSION ||
+                buf.getLong() != length || buf.getLong() != modified || (buf.getInt() != 0) != cleanup) {
+                return null;
+            }
+            return new Reader(buf).read();
+        } catch (RuntimeException e) {
+            // A truncated or otherwise damaged sidecar is simply rebuilt.
+            return null;
+        }
+    }
+
+    static void write(List<LogEvent> events, File sidecar, long length, long modified, boolean cleanup) throws IOException {
+        Writer writer = new Writer();
+        for (LogEvent e : events) {
+            writer.add(e);
+        }
+
+        File tmp = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(modified);
+            out.writeInt(cleanup ? 1 : 0);
+            writer.write(out);
+        }
+        Files.move(tmp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Numbers every object reachable from the events and writes them out
+     * table by table. The tables are written to memory first since the
+     * string table they refer to has to precede them in the file.
+     */
+    private static class Writer {
+
+        private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+        private final ArrayList<String> stringTable = new ArrayList<String>();
+        private final IdentityHashMap<Object, Integer> indices = new IdentityHashMap<Object, Integer>();
+
+        private final ArrayList<Method> methods = new ArrayList<Method>();
+        private final ArrayList<NMethod> nmethods = new ArrayList<NMethod>();
+        private final ArrayList<Compilation> compilations = new ArrayList<Compilation>();
+        private final ArrayList<TaskEvent> tasks = new ArrayList<TaskEvent>();
+        private final ArrayList<UncommonTrapEvent> traps = new ArrayList<UncommonTrapEvent>();
+        private final ArrayList<MakeNotEntrantEvent> notEntrants = new ArrayList<MakeNotEntrantEvent>();
+        private final ArrayList<LogParser.LockElimination> locks = new ArrayList<LogParser.LockElimination>();
+        private final ArrayList<LogEvent> order = new ArrayList<LogEvent>();
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private <T> int index(ArrayList<T> table, T o) {
+            if (o == null) {
+                return -1;
+            }
+            Integer i = indices.get(o);
+            if (i == null) {
+                i = table.size();
+                table.add(o);
+                indices.put(o, i);
+            }
+            return i;
+        }
+
+        private void add(LogEvent e) {
+            order.add(e);
+            if (e instanceof Compilation) {
+                addCompilation((Compilation) e);
+                return;
+            }
+            BasicLogEvent ble = (BasicLogEvent) e;
+            addCompilation(ble.getCompilation());
+            if (e instanceof NMethod) {
+                index(nmethods, (NMethod) e);
+            } else if (e instanceof TaskEvent) {
+                index(tasks, (TaskEvent) e);
+            } else if (e instanceof UncommonTrapEvent) {
+                index(traps, (UncommonTrapEvent) e);
+            } else if (e instanceof MakeNotEntrantEvent) {
+                MakeNotEntrantEvent mne = (MakeNotEntrantEvent) e;
+                index(nmethods, mne.getNMethod());
+                index(notEntrants, mne);
+            } else if (e instanceof LogParser.LockElimination) {
+                LogParser.LockElimination lock = (LogParser.LockElimination) e;
+                for (LogParser.Jvms jvms : lock.jvms) {
+                    index(methods, jvms.method);
+                }
+                index(locks, lock);
+            } else {
+                throw new InternalError("unexpected event " + e);
+            }
+        }
+
+        private void addCompilation(Compilation c) {
+            if (c != null && !indices.containsKey(c)) {
+                index(compilations, c);
+                index(methods, c.getMethod());
+                index(nmethods, c.getNMethod());
+            }
+        }
+
+        private void string(String s) throws IOException {
+            if (s == null) {
+                out.writeInt(-1);
+                return;
+            }
+            Integer i = strings.get(s);
+            if (i == null) {
+                i = stringTable.size();
+                stringTable.add(s);
+                strings.put(s, i);
+            }
+            out.writeInt(i);
+        }
+
+        private void write(DataOutputStream file) throws IOException {
+            // Native wrappers only have the compilation of their nmethod.
+            for (int i = 0; i < nmethods.size(); i++) {
+                addCompilation(nmethods.get(i).getCompilation());
+            }
+
+            out.writeInt(methods.size());
+            for (Method m : methods) string(m.getHolder());
+            for (Method m : methods) string(m.getName());
+            for (Method m : methods) string(m.getReturnType());
+            for (Method m : methods) string(m.getArguments());
+            for (Method m : methods) string(m.getBytes());
+            for (Method m : methods) string(m.getIICount());
+            for (Method m : methods) string(m.getFlags());
+
+            out.writeInt(nmethods.size());
+            writeEvents(nmethods);
+            for (NMethod nm : nmethods) string(nm.getKind());
+            for (NMethod nm : nmethods) out.writeLong(nm.getAddress());
+            for (NMethod nm : nmethods) out.writeLong(nm.getSize());
+
+            out.writeInt(compilations.size());
+            for (Compilation c : compilations) out.writeInt(c.getId());
+            for (Compilation c : compilations) out.writeBoolean(c.isOsr());
+            for (Compilation c : compilations) out.writeInt(c.getOsr_bci());
+            for (Compilation c : compilations) out.writeInt(c.getLevel());
+            for (Compilation c : compilations) out.writeInt(index(methods, c.getMethod()));
+            for (Compilation c : compilations) string(c.getIcount());
+            for (Compilation c : compilations) string(c.getBcount());
+            for (Compilation c : compilations) string(c.getSpecial());
+            for (Compilation c : compilations) out.writeDouble(c.getStart());
+            for (Compilation c : compilations) out.writeDouble(c.getEnd());
+            for (Compilation c : compilations) out.writeInt(c.getAttempts());
+            for (Compilation c : compilations) out.writeInt(index(nmethods, c.getNMethod()));
+            for (Compilation c : compilations) string(c.getFailureReason());
+            for (Compilation c : compilations) out.writeInt(c.getPhases().size());
+
+            // The phases of all compilations, in the order of the compilations.
+            ArrayList<Phase> phases = new ArrayList<Phase>();
+            for (Compilation c : compilations) {
+                phases.addAll(c.getPhases());
+            }
+            out.writeInt(phases.size());
+            for (Phase p : phases) string(p.getName());
+            for (Phase p : phases) out.writeDouble(p.getStart());
+            for (Phase p : phases) out.writeDouble(p.getEnd());
+            for (Phase p : phases) out.writeInt(p.getStartNodes());
+            for (Phase p : phases) out.writeInt(p.getEndNodes());
+            for (Phase p : phases) out.writeInt(p.getStartLiveNodes());
+            for (Phase p : phases) out.writeInt(p.getEndLiveNodes());
+
+            out.writeInt(tasks.size());
+            writeEvents(tasks);
+            for (TaskEvent t : tasks) out.writeInt(t.getLevel());
+            for (TaskEvent t : tasks) out.writeByte(t.getKind().ordinal());
+            for (TaskEvent t : tasks) string(t.getComment());
+
+            out.writeInt(traps.size());
+            writeEvents(traps);
+            for (UncommonTrapEvent t : traps) string(t.getReason());
+            for (UncommonTrapEvent t : traps) string(t.getAction());
+            for (UncommonTrapEvent t : traps) out.writeInt(t.getCount());
+            for (UncommonTrapEvent t : traps) string(t.getJvms());
+
+            out.writeInt(notEntrants.size());
+            writeEvents(notEntrants);
+            for (MakeNotEntrantEvent mne : notEntrants) out.writeBoolean(mne.isZombie());
+            for (MakeNotEntrantEvent mne : notEntrants) out.writeInt(index(nmethods, mne.getNMethod()));
+
+            out.writeInt(locks.size());
+            writeEvents(locks);
+            for (LogParser.LockElimination l : locks) string(l.tagName);
+            for (LogParser.LockElimination l : locks) string(l.kind);
+            for (LogParser.LockElimination l : locks) string(l.classId);
+            for (LogParser.LockElimination l : locks) out.writeInt(l.jvms.size());
+            ArrayList<LogParser.Jvms> jvms = new ArrayList<LogParser.Jvms>();
+            for (LogParser.LockElimination l : locks) {
+                jvms.addAll(l.jvms);
+            }
+            out.writeInt(jvms.size());
+            for (LogParser.Jvms j : jvms) out.writeInt(index(methods, j.method));
+            for (LogParser.Jvms j : jvms) out.writeInt(j.bci);
+
+            out.writeInt(order.size());
+            for (LogEvent e : order) out.writeByte(kind(e));
+            for (LogEvent e : order) out.writeInt(indices.get(e));
+
+            byte[][] encoded = new byte[stringTable.size()][];
+            int size = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = stringTable.get(i).getBytes(StandardCharsets.UTF_8);
+                size += encoded[i].length;
+            }
+            file.writeInt(encoded.length);
+            file.writeInt(size);
+            for (byte[] s : encoded) file.writeInt(s.length);
+            for (byte[] s : encoded) file.write(s);
+            bytes.writeTo(file);
+        }
+
+        private static byte kind(LogEvent e) {
+            if (e instanceof Compilation) return COMPILATION;
+            if (e instanceof NMethod) return NMETHOD;
+            if (e instanceof TaskEvent) return TASK;
+            if (e instanceof UncommonTrapEvent) return TRAP;
+            if (e instanceof MakeNotEntrantEvent) return NOT_ENTRANT;
+            return LOCK;
+        }
+
+        /**
+         * Writes the columns every kind of event has.
+         */
+        private void writeEvents(List<? extends BasicLogEvent> table) throws IOException {
+            for (BasicLogEvent e : table) string(e.getId());
+            for (BasicLogEvent e : table) out.writeDouble(e.getStart());
+            for (BasicLogEvent e : table) out.writeDouble(e.getEnd());
+            for (BasicLogEvent e : table) out.writeInt(index(compilations, e.getCompilation()));
+        }
+    }
+
+    /**
+     * Rebuilds the events from the mapped tables, in the order in which
+     * the writer produced them.
+     */
+    private static class Reader {
+
+        private final ByteBuffer buf;
+        private String[] strings;
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        private int[] ints(int n) {
+            int[] a = new int[n];
+            buf.asIntBuffer().get(a);
+            buf.position(buf.position() + 4 * n);
+            return a;
+        }
+
+        private long[] longs(int n) {
+            long[] a = new long[n];
+            buf.asLongBuffer().get(a);
+            buf.position(buf.position() + 8 * n);
+            return a;
+        }
+
+        private double[] doubles(int n) {
+            double[] a = new double[n];
+            buf.asDoubleBuffer().get(a);
+            buf.position(buf.position() + 8 * n);
+            return a;
+        }
+
+        private byte[] bytes(int n) {
+            byte[] a = new byte[n];
+            buf.get(a);
+            return a;
+        }
+
+        private String[] strings(int n) {
+            String[] a = new String[n];
+            for (int i = 0; i < n; i++) {
+                int s = buf.getInt();
+                a[i] = s < 0 ? null : strings[s];
+            }
+            return a;
+        }
+
+        private static <T> T get(T[] table, int i) {
+            return i < 0 ? null : table[i];
+        }
+
+        ArrayList<LogEvent> read() {
+            int count = buf.getInt();
+            int size = buf.getInt();
+            int[] lengths = ints(count);
+            byte[] data = bytes(size);
+            strings = new String[count];
+            for (int i = 0, offset = 0; i < count; offset += lengths[i], i++) {
+                strings[i] = new String(data, offset, lengths[i], StandardCharsets.UTF_8);
+            }
+
+            int n = buf.getInt();
+            Method[] methods = new Method[n];
+            String[] holder = strings(n);
+            String[] name = strings(n);
+            String[] returnType = strings(n);
+            String[] arguments = strings(n);
+            String[] methodBytes = strings(n);
+            String[] iicount = strings(n);
+            String[] flags = strings(n);
+            for (int i = 0; i < n; i++) {
+                Method m = new Method();
+                m.setHolder(holder[i]);
+                m.setName(name[i]);
+                m.setReturnType(returnType[i]);
+                m.setArguments(arguments[i]);
+                m.setBytes(methodBytes[i]);
+                m.setIICount(iicount[i]);
+                m.setFlags(flags[i]);
+                methods[i] = m;
+            }
+
+            n = buf.getInt();
+            NMethod[] nmethods = new NMethod[n];
+            String[] id = strings(n);
+            double[] start = doubles(n);
+            double[] end = doubles(n);
+            int[] nmethodCompilation = ints(n);
+            String[] kind = strings(n);
+            long[] address = longs(n);
+            long[] nmethodSize = longs(n);
+            for (int i = 0; i < n; i++) {
+                nmethods[i] = new NMethod(start[i], id[i], kind[i], address[i], nmethodSize[i]);
+                nmethods[i].setEnd(end[i]);
+            }
+
+            n = buf.getInt();
+            Compilation[] compilations = new Compilation[n];
+            int[] compileId = ints(n);
+            byte[] osr = bytes(n);
+            int[] osrBci = ints(n);
+            int[] compileLevel = ints(n);
+            int[] method = ints(n);
+            String[] icount = strings(n);
+            String[] bcount = strings(n);
+            String[] special = strings(n);
+            start = doubles(n);
+            end = doubles(n);
+            int[] attempts = ints(n);
+            int[] nmethod = ints(n);
+            String[] failureReason = strings(n);
+            int[] phaseCount = ints(n);
+            for (int i = 0; i < n; i++) {
+                Compilation c = new Compilation(compileId[i]);
+                c.setOsr(osr[i] != 0);
+                c.setOsr_bci(osrBci[i]);
+                c.setLevel(compileLevel[i]);
+                c.setMethod(get(methods, method[i]));
+                c.setICount(icount[i]);
+                c.setBCount(bcount[i]);
+                c.setSpecial(special[i]);
+                c.setStart(start[i]);
+                c.setEnd(end[i]);
+                c.setAttempts(attempts[i]);
+                c.setNMethod(get(nmethods, nmethod[i]));
+                c.setFailureReason(failureReason[i]);
+                compilations[i] = c;
+            }
+            for (int i = 0; i < nmethods.length; i++) {
+                nmethods[i].setCompilation(get(compilations, nmethodCompilation[i]));
+            }
+
+            n = buf.getInt();
+            name = strings(n);
+            start = doubles(n);
+            end = doubles(n);
+            int[] startNodes = ints(n);
+            int[] endNodes = ints(n);
+            int[] startLiveNodes = ints(n);
+            int[] endLiveNodes = ints(n);
+            for (int c = 0, i = 0; c < compilations.length; c++) {
+                ArrayList<Phase> phases = compilations[c].getPhases();
+                for (int last = i + phaseCount[c]; i < last; i++) {
+                    Phase p = new Phase(name[i], start[i], startNodes[i], startLiveNodes[i]);
+                    p.setEnd(end[i]);
+                    p.setEndNodes(endNodes[i]);
+                    p.setEndLiveNodes(endLiveNodes[i]);
+                    phases.add(p);
+                }
+            }
+
+            n = buf.getInt();
+            TaskEvent[] tasks = new TaskEvent[n];
+            id = strings(n);
+            start = doubles(n);
+            end = doubles(n);
+            int[] compilation = ints(n);
+            int[] level = ints(n);
+            byte[] taskKind = bytes(n);
+            String[] comment = strings(n);
+            for (int i = 0; i < n; i++) {
+                TaskEvent t = new TaskEvent(start[i], id[i], level[i], TaskEvent.Kind.values()[taskKind[i]]);
+                t.setEnd(end[i]);
+                t.setCompilation(get(compilations, compilation[i]));
+                t.setComment(comment[i]);
+                tasks[i] = t;
+            }
+
+            n = buf.getInt();
+            UncommonTrapEvent[] traps = new UncommonTrapEvent[n];
+            id = strings(n);
+            start = doubles(n);
+            end = doubles(n);
+            compilation = ints(n);
+            String[] reason = strings(n);
+            String[] action = strings(n);
+            int[] trapCount = ints(n);
+            String[] jvms = strings(n);
+            for (int i = 0; i < n; i++) {
+                UncommonTrapEvent t = new UncommonTrapEvent(start[i], id[i], reason[i], action[i], trapCount[i]);
+                t.setEnd(end[i]);
+                t.setCompilation(get(compilations, compilation[i]));
+                t.setJvms(jvms[i]);
+                traps[i] = t;
+            }
+
+            n = buf.getInt();
+            MakeNotEntrantEvent[] notEntrants = new MakeNotEntrantEvent[n];
+            id = strings(n);
+            start = doubles(n);
+            end = doubles(n);
+            compilation = ints(n);
+            byte[] zombie = bytes(n);
+            nmethod = ints(n);
+            for (int i = 0; i < n; i++) {
+                MakeNotEntrantEvent mne = new MakeNotEntrantEvent(start[i], id[i], zombie[i] != 0, get(nmethods, nmethod[i]));
+                mne.setEnd(end[i]);
+                mne.setCompilation(get(compilations, compilation[i]));
+                notEntrants[i] = mne;
+            }
+
+            n = buf.getInt();
+            LogParser.LockElimination[] locks = new LogParser.LockElimination[n];
+            id = strings(n);
+            start = doubles(n);
+            end = doubles(n);
+            compilation = ints(n);
+            String[] tagName = strings(n);
+            String[] lockKind = strings(n);
+            String[] classId = strings(n);
+            int[] jvmsCount = ints(n);
+            int jvmsTotal = buf.getInt();
+            int[] jvmsMethod = ints(jvmsTotal);
+            int[] jvmsBci = ints(jvmsTotal);
+            for (int i = 0, j = 0; i < n; i++) {
+                LogParser.LockElimination l = new LogParser.LockElimination(tagName[i], start[i], id[i], lockKind[i], classId[i]);
+                l.setEnd(end[i]);
+                l.setCompilation(get(compilations, compilation[i]));
+                for (int last = j + jvmsCount[i]; j < last; j++) {
+                    l.addJVMS(get(methods, jvmsMethod[j]), jvmsBci[j]);
+                }
+                locks[i] = l;
+            }
+
+            n = buf.getInt();
+            ArrayList<LogEvent> events = new ArrayList<LogEvent>(n);
+            byte[] eventKind = bytes(n);
+            int[] index = ints(n);
+            for (int i = 0; i < n; i++) {
+                switch (eventKind[i]) {
+                case COMPILATION: events.add(compilations[index[i]]); break;
+                case NMETHOD:     events.add(nmethods[index[i]]); break;
+                case TASK:        events.add(tasks[index[i]]); break;
+                case TRAP:        events.add(traps[index[i]]); break;
+                case NOT_ENTRANT: events.add(notEntrants[index[i]]); break;
+                case LOCK:        events.add(locks[index[i]]); break;
+                default:
+                    throw new IllegalStateException("bad event kind " + eventKind[i]);
+                }
+            }
+            return events;
+        }
+    }
+}
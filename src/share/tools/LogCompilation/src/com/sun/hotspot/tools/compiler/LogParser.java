@@ -130,7 +130,7 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
         }
     };
 
-    class Jvms {
+    static class Jvms {
         Jvms(Method method, int bci) {
             this.method = method;
             this.bci = bci;
@@ -142,7 +142,7 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
         }
     }
 
-    class LockElimination extends BasicLogEvent {
+    static class LockElimination extends BasicLogEvent {
 
         ArrayList<Jvms> jvms = new ArrayList<Jvms>(1);
         final String kind;
@@ -169,22 +169,45 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
     }
 
     private ArrayList<LogEvent> events = new ArrayList<LogEvent>();
+    private final LogEventListener listener;
 
     private HashMap<String, String> types = new HashMap<String, String>();
     private HashMap<String, Method> methods = new HashMap<String, Method>();
     private LinkedHashMap<String, NMethod> nmethods = new LinkedHashMap<String, NMethod>();
     private ArrayList<MakeNotEntrantEvent> notEntrantEvents = new ArrayList<MakeNotEntrantEvent>();
     private HashMap<String, Compilation> compiles = new HashMap<String, Compilation>();
+    // Zombie nmethods whose task has not been reported yet; see endElement
+    private HashMap<String, NMethod> zombies = new HashMap<String, NMethod>();
+    // Set at </tty>; no nmethod events follow the compilation logs
+    private boolean ttyDone;
     private String failureReason;
     private int bci;
     private Stack<CallSite> scopes = new Stack<CallSite>();
     private Compilation compile;
+    private String compileId;
     private CallSite site;
     private Stack<Phase> phaseStack = new Stack<Phase>();
     private LockElimination currentLockElimination;
     private UncommonTrapEvent currentTrap;
     private Stack<CallSite> late_inline_scope;
 
+    LogParser() {
+        this(null);
+    }
+
+    /**
+     * Creates a parser that passes each event to the given listener as soon
+     * as it is complete. The nmethods of the tty section are kept until the
+     * compilation logs that follow it report their tasks, and each task is
+     * dropped once reported. Memory use grows with the number of nmethods,
+     * but not with the inlining trees and phases of the compilations.
+     * Events are reported in the order they complete rather than by start
+     * time.
+     */
+    LogParser(LogEventListener listener) {
+        this.listener = listener;
+    }
+
     long parseLong(String l) {
         try {
             return Long.decode(l).longValue();
@@ -211,7 +234,19 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
         return parse(new FileReader(file), cleanup);
     }
 
-    public static ArrayList<LogEvent> parse(Reader reader, boolean cleanup) throws Exception {
+    public static void parse(String file, boolean cleanup, LogEventListener listener) throws Exception {
+        parse(new FileReader(file), cleanup, listener);
+    }
+
+    /**
+     * Parses the log and passes each event to the listener as soon as it is
+     * complete, without keeping the whole log in memory.
+     */
+    public static void parse(Reader reader, boolean cleanup, LogEventListener listener) throws Exception {
+        parse(reader, cleanup, new LogParser(listener));
+    }
+
+    private static void parse(Reader reader, boolean cleanup, LogParser log) throws Exception {
         // Create the XML input factory
         SAXParserFactory factory = SAXParserFactory.newInstance();
 
@@ -224,13 +259,17 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             reader = new LogCleanupReader(reader);
         }
 
-        LogParser log = new LogParser();
         try {
             p.parse(new InputSource(reader), log);
         } catch (Throwable th) {
             th.printStackTrace();
             // Carry on with what we've got...
         }
+    }
+
+    public static ArrayList<LogEvent> parse(Reader reader, boolean cleanup) throws Exception {
+        LogParser log = new LogParser();
+        parse(reader, cleanup, log);
 
         // Associate compilations with their NMethods
         for (LogEvent le : log.events) {
@@ -269,6 +308,50 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
         return log.events;
     }
 
+    /**
+     * Records an event that is complete when it is first seen.
+     */
+    void event(LogEvent e) {
+        if (listener == null) {
+            events.add(e);
+            return;
+        }
+        if (e instanceof BasicLogEvent) {
+            BasicLogEvent ble = (BasicLogEvent) e;
+            Compilation c = compiles.get(ble.getId());
+            if (ble instanceof NMethod && c == null) {
+                // Native wrappers for methods don't have a compilation and Graal methods don't either.
+                c = new Compilation(Integer.parseInt(ble.getId()));
+                compiles.put(ble.getId(), c);
+            }
+            ble.setCompilation(c);
+            if (ble instanceof NMethod) {
+                c.setNMethod((NMethod) ble);
+            }
+        }
+        listener.event(e);
+    }
+
+    /**
+     * Records an event whose contents are only complete once its element
+     * ends. When streaming, it is reported by {@link #eventDone}.
+     */
+    void eventStarted(LogEvent e) {
+        if (listener == null) {
+            events.add(e);
+        }
+    }
+
+    void eventDone(LogEvent e) {
+        if (listener != null && e != null) {
+            if (e instanceof BasicLogEvent) {
+                BasicLogEvent ble = (BasicLogEvent) e;
+                ble.setCompilation(compiles.get(ble.getId()));
+            }
+            listener.event(e);
+        }
+    }
+
     String search(Attributes attr, String name) {
         String result = attr.getValue(name);
         if (result != null) {
@@ -312,6 +395,20 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
         return result;
     }
 
+    /**
+     * Creates a method from its description in a task or nmethod element.
+     */
+    Method makeMethod(String method) {
+        Method m = new Method();
+        int space = method.indexOf(' ');
+        m.setHolder(method.substring(0, space));
+        m.setName(method.substring(space + 1, method.indexOf(' ', space + 1) + 1));
+        m.setReturnType(method.substring(method.lastIndexOf(')') + 1));
+        m.setArguments(method.substring(method.indexOf('(') + 1, method.lastIndexOf(')')));
+        m.setFlags("0");
+        return m;
+    }
+
     public String makeId(Attributes atts) {
         String id = atts.getValue("compile_id");
         String kind = atts.getValue("kind");
@@ -348,15 +445,10 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             compile.setStart(Double.parseDouble(search(atts, "stamp")));
             compile.setICount(search(atts, "count", "0"));
             compile.setBCount(search(atts, "backedge_count", "0"));
+            compile.setLevel(Integer.parseInt(search(atts, "level", "4")));
 
             String method = atts.getValue("method");
-            Method m = new Method();
-            int space = method.indexOf(' ');
-            m.setHolder(method.substring(0, space));
-            m.setName(method.substring(space + 1, method.indexOf(' ', space + 1) + 1));
-            m.setReturnType(method.substring(method.lastIndexOf(')') + 1));
-            m.setArguments(method.substring(method.indexOf('(') + 1, method.lastIndexOf(')')));
-            m.setFlags("0");
+            Method m = makeMethod(method);
             compile.setMethod(m);
             String compiler = atts.getValue("compiler");
             if (compiler == null) {
@@ -375,8 +467,9 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             } else {
                 compile.setMethod(m);
             }
-            events.add(compile);
-            compiles.put(makeId(atts), compile);
+            eventStarted(compile);
+            compileId = makeId(atts);
+            compiles.put(compileId, compile);
             site = compile.getCall();
         } else if (qname.equals("type")) {
             type(search(atts, "id"), search(atts, "name"));
@@ -417,13 +510,13 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             String id = makeId(atts);
             int level = Integer.parseInt(search(atts, "level", "4"));
             TaskEvent t = new TaskEvent(Double.parseDouble(search(atts, "stamp")), id, level, TaskEvent.Kind.Enqueue);
-            events.add(t);
+            event(t);
         } else if (qname.equals("task_dequeued")) {
             String id = makeId(atts);
             int level = Integer.parseInt(search(atts, "level", "4"));
             TaskEvent t = new TaskEvent(Double.parseDouble(search(atts, "stamp")), id, level, TaskEvent.Kind.Dequeue);
             t.setComment(search(atts, "comment"));
-            events.add(t);
+            event(t);
         } else if (qname.equals("task_done")) {
             compile.setEnd(Double.parseDouble(search(atts, "stamp")));
             if (Integer.parseInt(search(atts, "success")) == 0) {
@@ -435,8 +528,18 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             if (nm == null) throw new InternalError();
             MakeNotEntrantEvent e = new MakeNotEntrantEvent(Double.parseDouble(search(atts, "stamp")), id,
                                                             atts.getValue("zombie") != null, nm);
-            notEntrantEvents.add(e);
-            events.add(e);
+            if (listener == null) {
+                notEntrantEvents.add(e);
+            }
+            event(e);
+            if (listener != null && e.isZombie()) {
+                // Nothing refers to the nmethod or its compilation anymore,
+                // except the task that created it, which is usually logged
+                // later and still reports the nmethod.
+                nmethods.remove(id);
+                compiles.remove(id);
+                zombies.put(id, nm);
+            }
         } else if (qname.equals("uncommon_trap")) {
             String id = atts.getValue("compile_id");
             if (id != null) {
@@ -446,7 +549,7 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
                         atts.getValue("reason"),
                         atts.getValue("action"),
                         Integer.parseInt(search(atts, "count", "0")));
-                events.add(currentTrap);
+                eventStarted(currentTrap);
             } else {
                 // uncommon trap inserted during parsing.
                 // ignore for now
@@ -458,7 +561,7 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
                 String kind = atts.getValue("kind");
                 String classId = atts.getValue("class_id");
                 currentLockElimination = new LockElimination(qname, Double.parseDouble(search(atts, "stamp")), id, kind, classId);
-                events.add(currentLockElimination);
+                eventStarted(currentLockElimination);
             }
         } else if (qname.equals("late_inline")) {
             late_inline_scope = new Stack<CallSite>();
@@ -486,12 +589,21 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
                                      parseLong(atts.getValue("address")),
                                      parseLong(atts.getValue("size")));
             nmethods.put(id, nm);
-            events.add(nm);
+            String method = atts.getValue("method");
+            if (listener != null && method != null && !compiles.containsKey(id)) {
+                // The compilation is logged later by the compiler thread.
+                // Until then, events of this nmethod refer to a compilation
+                // that only knows the method.
+                Compilation c = new Compilation(Integer.parseInt(search(atts, "compile_id")));
+                c.setMethod(makeMethod(method));
+                compiles.put(id, c);
+            }
+            event(nm);
 
             int level = Integer.parseInt(search(atts, "level", "4"));
             if (level > 0) {
                 TaskEvent t = new TaskEvent(Double.parseDouble(search(atts, "stamp")), id, level, TaskEvent.Kind.Finish);
-                events.add(t);
+                event(t);
             }
         } else if (qname.equals("parse")) {
             Method m = method(search(atts, "method"));
@@ -534,8 +646,10 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             indent -= 2;
             scopes.pop();
         } else if (qname.equals("uncommon_trap")) {
+            eventDone(currentTrap);
             currentTrap = null;
         } else if (qname.startsWith("eliminate_lock")) {
+            eventDone(currentLockElimination);
             currentLockElimination = null;
         } else if (qname.equals("late_inline")) {
             // Populate late inlining info.
@@ -574,10 +688,36 @@ public class LogParser extends DefaultHandler implements ErrorHandler, Constants
             // late_inline is followed by parse with scopes.size() == 0,
             // 'site' will be pushed to scopes.
             late_inline_scope = null;
+        } else if (qname.equals("tty")) {
+            ttyDone = true;
         } else if (qname.equals("task")) {
             types.clear();
             methods.clear();
             site = null;
+            if (listener != null && compile != null) {
+                NMethod nm = nmethods.get(compileId);
+                boolean zombie = false;
+                if (nm == null) {
+                    nm = zombies.remove(compileId);
+                    zombie = nm != null;
+                }
+                if (nm != null) {
+                    compile.setNMethod(nm);
+                    nm.setCompilation(compile);
+                }
+                listener.event(compile);
+                if (ttyDone) {
+                    nmethods.remove(compileId);
+                    compiles.remove(compileId);
+                } else if (compile.getNMethod() == null || zombie) {
+                    compiles.remove(compileId);
+                } else {
+                    // Keep what later events of a live nmethod refer to.
+                    compile.setCall(new CallSite());
+                    compile.setPhases(new ArrayList<Phase>(0));
+                }
+                compile = null;
+            }
         }
     }
 